@@ -100,9 +100,9 @@ export class ClienteFormComponent implements OnInit {
       return;
     }
     this.aliasLoading = true;
-    this.service.search(query, 0, 10).subscribe({
+    this.service.search(query, null, 10).subscribe({
       next: res => {
-        const content = (res && res.content) ? res.content as Cliente[] : [];
+        const content = (res && res.items) ? res.items : [];
         this.aliasResults = content.filter(c => c.id !== this.cliente.id);
         this.aliasLoading = false;
       },
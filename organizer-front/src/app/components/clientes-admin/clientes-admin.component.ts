@@ -15,7 +15,10 @@ import { ClienteFormComponent } from '../cliente-form/cliente-form.component';
 export class ClientesAdminComponent implements OnInit {
   clientes: Cliente[] = [];
   searchQuery = '';
-  page = 0;
+  nextCursor: string | null = null;
+  total: number | null = null;
+  totalEstimated = false;
+  loadingMore = false;
   
   showForm = false;
   selectedCliente: Cliente | undefined;
@@ -27,13 +30,30 @@ export class ClientesAdminComponent implements OnInit {
   }
 
   load() {
-    this.service.search(this.searchQuery, this.page).subscribe(res => {
-      this.clientes = res.content;
+    this.service.search(this.searchQuery).subscribe(res => {
+      this.clientes = res.items;
+      this.nextCursor = res.hasMore ? res.nextCursor : null;
+      this.total = res.total;
+      this.totalEstimated = res.totalEstimated;
+    });
+  }
+
+  loadMore() {
+    if (!this.nextCursor || this.loadingMore) return;
+    this.loadingMore = true;
+    this.service.search(this.searchQuery, this.nextCursor).subscribe({
+      next: res => {
+        this.clientes = [...this.clientes, ...res.items];
+        this.nextCursor = res.hasMore ? res.nextCursor : null;
+        this.loadingMore = false;
+      },
+      error: () => {
+        this.loadingMore = false;
+      }
     });
   }
 
   search() {
-      this.page = 0;
       this.load();
   }
 
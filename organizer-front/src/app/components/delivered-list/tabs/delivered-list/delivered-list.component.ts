@@ -217,7 +217,7 @@ export class DeliveredListComponent implements OnInit, OnDestroy {
 
   private fetchLocalAndGo(p: number) {
     this.loading = true;
-    this.orderService.getOrders().subscribe(
+    this.orderService.getAllOrders().subscribe(
       (all) => {
         const filtered = this.sortRows(
           this.applyFiltersLocal(all, this.currentFilters),
@@ -112,7 +112,7 @@ export class DeliveredComponent implements OnInit {
   }
 
   loadOrders(): void {
-    this.orderService.getOrders().subscribe((orders) => {
+    this.orderService.getAllOrders().subscribe((orders) => {
       this.allOrders = orders.sort((a, b) => {
         const dateA = a.dataH ? new Date(a.dataH).getTime() : 0;
         const dateB = b.dataH ? new Date(b.dataH).getTime() : 0;
@@ -457,13 +457,20 @@ export class DeliveredComponent implements OnInit {
   private resolvePublicImageUrls(analysis: DxfAnalysis): string[] {
     const urls: string[] = [];
 
+    // o card usa a miniatura da API; a imagem inteira e o storage ficam como fallback
+    for (const apiUrl of [analysis.thumbnailUrl, analysis.imageUrl]) {
+      if (apiUrl && apiUrl.trim()) {
+        this.pushUniqueUrl(urls, apiUrl.trim());
+      }
+    }
+
     if (this.imagePublicBaseUrl && analysis.imageKey) {
       const base = this.normalizeBaseUrl(this.imagePublicBaseUrl);
       const key = analysis.imageKey.startsWith('/') ? analysis.imageKey.substring(1) : analysis.imageKey;
       this.pushUniqueUrl(urls, `${base}/${key}`);
     }
 
-    const candidates = [analysis.imageUrl, analysis.imageUri];
+    const candidates = [analysis.imageUri];
     for (const c of candidates) {
       if (c && c.trim()) {
         const trimmed = c.trim();
@@ -7,11 +7,7 @@ import { DeliveryComponent } from './delivery.component';
 import { WebsocketService } from '../../services/websocket.service';
 
 class MockWebsocketService {
-  watchOrders() {
-    return EMPTY;
-  }
-
-  watchPriorities() {
+  watchBoardOrders() {
     return EMPTY;
   }
 
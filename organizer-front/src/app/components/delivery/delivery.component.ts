@@ -1,7 +1,7 @@
 import { Component, OnInit, ViewChild, TemplateRef } from '@angular/core';
 import { FormBuilder, Validators, FormGroup, ReactiveFormsModule, FormsModule } from '@angular/forms';
 import { OrderService } from '../../services/orders.service';
-import { WebsocketService } from '../../services/websocket.service';
+import { BoardOrderEvent, WebsocketService } from '../../services/websocket.service';
 import { NgbModal } from '@ng-bootstrap/ng-bootstrap';
 import { orders } from '../../models/orders';
 import { CommonModule } from '@angular/common';
@@ -82,7 +82,6 @@ export class DeliveryComponent implements OnInit {
   ngOnInit(): void {
     this.loadOrders();
     this.listenForNewOrders();
-    this.listenForNewOrdersPrioridades();
     
     this.authService.user$.subscribe(user => {
         this.currentUser = user;
@@ -138,13 +137,20 @@ export class DeliveryComponent implements OnInit {
   private resolvePublicImageUrls(analysis: DxfAnalysis): string[] {
     const urls: string[] = [];
 
+    // o card usa a miniatura da API; a imagem inteira e o storage ficam como fallback
+    for (const apiUrl of [analysis.thumbnailUrl, analysis.imageUrl]) {
+      if (apiUrl && apiUrl.trim()) {
+        this.pushUniqueUrl(urls, apiUrl.trim());
+      }
+    }
+
     if (this.imagePublicBaseUrl && analysis.imageKey) {
       const base = this.normalizeBaseUrl(this.imagePublicBaseUrl);
       const key = analysis.imageKey.startsWith('/') ? analysis.imageKey.substring(1) : analysis.imageKey;
       this.pushUniqueUrl(urls, `${base}/${key}`);
     }
 
-    const candidates = [analysis.imageUrl, analysis.imageUri];
+    const candidates = [analysis.imageUri];
     for (const c of candidates) {
       if (c && c.trim()) {
         const trimmed = c.trim();
@@ -187,31 +193,31 @@ export class DeliveryComponent implements OnInit {
 
   loadOrders(): void {
   this.orderService.getOrders().subscribe({
-    next: (orders) => {
-      this.orders = orders
-        .filter(order => this.statusElegiveis.has(order.status ?? -1))
-        .sort((a, b) => this.comparePriorities(a.prioridade, b.prioridade));
-      this.filteredOrders = [...this.orders];
-    },
+    next: (orders) => this.showOrders(orders),
     error: (error) => {
       alert('Erro ao carregar os pedidos: ' + error.message);
     }
   });
 }
 
-listenForNewOrders(): void {
-  this.websocketService.watchOrders().subscribe(msg => {
-    const received: orders = JSON.parse(msg.body);
-    console.log('[WS] watchOrders:', received);
-    this.handleIncomingDeliveryOrder(received);
-  });
+private showOrders(orders: orders[]) {
+  this.orders = orders
+    .filter(order => this.statusElegiveis.has(order.status ?? -1))
+    .sort((a, b) => this.comparePriorities(a.prioridade, b.prioridade));
+  this.filteredOrders = [...this.orders];
 }
 
-listenForNewOrdersPrioridades(): void {
-  this.websocketService.watchPriorities().subscribe(msg => {
-    const received: orders = JSON.parse(msg.body);
-    console.log('[WS] watchPriorities:', received);
-    this.handleIncomingDeliveryOrder(received);
+// feed de deltas do quadro (inclui as mudanças de prioridade)
+listenForNewOrders(): void {
+  this.websocketService.watchBoardOrders().subscribe((event: BoardOrderEvent) => {
+    if (event.type === 'snapshot') {
+      this.showOrders(event.orders);
+    } else if (event.type === 'delete') {
+      this.orders = this.orders.filter(o => o.id !== event.id);
+      this.filteredOrders = [...this.orders];
+    } else {
+      this.handleIncomingDeliveryOrder(event.order);
+    }
   });
 }
 
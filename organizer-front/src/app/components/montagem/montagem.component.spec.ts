@@ -6,6 +6,7 @@ import { DxfAnalysisService } from '../../services/dxf-analysis.service';
 import { AuthService } from '../../services/auth.service';
 import { UserService } from '../../services/user.service';
 import { OpService } from '../../services/op.service';
+import { OrderStatus } from '../../models/order-status.enum';
 import { of } from 'rxjs';
 
 describe('MontagemComponent', () => {
@@ -18,11 +19,12 @@ describe('MontagemComponent', () => {
     getOrderByNr: jasmine.createSpy('getOrderByNr').and.returnValue(of(null))
   };
   const wsMock = {
-    watchOrders: jasmine.createSpy('watchOrders').and.returnValue(of({})),
+    watchBoardOrders: jasmine.createSpy('watchBoardOrders').and.returnValue(of()),
     sendUpdateOrder: jasmine.createSpy('sendUpdateOrder')
   };
   const dxfServiceMock = {
-    getLatestByOrder: jasmine.createSpy('getLatestByOrder').and.returnValue(of(null))
+    getLatestByOrder: jasmine.createSpy('getLatestByOrder').and.returnValue(of(null)),
+    getLatestByOrders: jasmine.createSpy('getLatestByOrders').and.returnValue(of({}))
   };
   const authServiceMock = {
     user$: of({ name: 'Tester', role: 'ADMIN' })
@@ -83,4 +85,23 @@ describe('MontagemComponent', () => {
     expect(component.dxfMetrics['areaBorrachaMm2']).toBe(500);
     expect(component.dxfMetrics['Comprimento de Corte (mm)']).toBe(1234.56);
   });
+
+  it('loads the complexity of every card with a single batch request', () => {
+    orderServiceMock.getOrders.and.returnValue(of([
+      { id: 1, nr: '100', status: OrderStatus.Tirada },
+      { id: 2, nr: '200', status: OrderStatus.Tirada }
+    ]));
+    dxfServiceMock.getLatestByOrders.calls.reset();
+    dxfServiceMock.getLatestByOrder.calls.reset();
+    dxfServiceMock.getLatestByOrders.and.returnValue(of({ '100': { analysisId: 'a1', scoreStars: 3.46 } }));
+
+    fixture = TestBed.createComponent(MontagemComponent);
+    component = fixture.componentInstance;
+    fixture.detectChanges();
+
+    expect(dxfServiceMock.getLatestByOrders).toHaveBeenCalledOnceWith(['100', '200']);
+    expect(dxfServiceMock.getLatestByOrder).not.toHaveBeenCalled();
+    expect(component.complexidadeValor('100')).toBe(3.5);
+    expect(component.complexidadeEstado('200')).toBe('empty');
+  });
 });
@@ -2,12 +2,12 @@ import { Component, OnInit } from '@angular/core';
 import { FormBuilder, ReactiveFormsModule, Validators, FormsModule } from '@angular/forms';
 import { CommonModule } from '@angular/common';
 import { DateTime } from 'luxon';
-import { WebsocketService } from '../../services/websocket.service';
+import { BoardOrderEvent, WebsocketService } from '../../services/websocket.service';
 import { OrderService } from '../../services/orders.service';
 import { orders } from '../../models/orders';
 import { OrderStatus } from '../../models/order-status.enum';
 import { DxfAnalysisService } from '../../services/dxf-analysis.service';
-import { DxfAnalysis } from '../../models/dxf-analysis';
+import { DxfAnalysis, DxfAnalysisSummary } from '../../models/dxf-analysis';
 import { AuthService } from '../../services/auth.service';
 import { UserService } from '../../services/user.service';
 import { AssignableUser, User } from '../../models/user.model';
@@ -221,13 +221,7 @@ export class MontagemComponent implements OnInit {
 
   private carregarTiradas(): void {
     this.orderService.getOrders().subscribe({
-      next: (lista) => {
-        this.tiradas = this.ordenarLista(
-          lista.filter((o) => this.statusVisiveis.has(o.status ?? -1)),
-        );
-        this.precarregarComplexidades(this.tiradas);
-        this.filterOrders();
-      },
+      next: (lista) => this.mostrarLista(lista),
       error: () => {
         this.msg = {
           type: 'danger',
@@ -237,6 +231,14 @@ export class MontagemComponent implements OnInit {
     });
   }
 
+  private mostrarLista(lista: orders[]): void {
+    this.tiradas = this.ordenarLista(
+      lista.filter((o) => this.statusVisiveis.has(o.status ?? -1)),
+    );
+    this.precarregarComplexidades(this.tiradas);
+    this.filterOrders();
+  }
+
   filterOrders(): void {
     if (!this.searchTerm) {
       this.filteredTiradas = [...this.tiradas];
@@ -289,18 +291,17 @@ export class MontagemComponent implements OnInit {
     return 0;
   }
 
+  // feed de deltas do quadro: linhas completas, já mescladas pelo serviço
   private ouvirWebsocket(): void {
-    this.ws.watchOrders().subscribe((msg) => {
-      let received: any;
-      try {
-        received = JSON.parse(msg.body);
-      } catch {
-        return;
+    this.ws.watchBoardOrders().subscribe((event: BoardOrderEvent) => {
+      if (event.type === 'snapshot') {
+        this.mostrarLista(event.orders);
+      } else if (event.type === 'delete') {
+        this.tiradas = this.tiradas.filter((o) => o.id !== event.id);
+        this.filterOrders();
+      } else {
+        this.atualizarLista(event.order);
       }
-      const order: orders =
-        received && received.payload ? received.payload : received;
-      if (!order || typeof order !== 'object') return;
-      this.atualizarLista(order);
     });
   }
 
@@ -609,7 +610,7 @@ export class MontagemComponent implements OnInit {
   }
 
   private precarregarComplexidades(lista: orders[]): void {
-    lista.forEach((order) => this.carregarComplexidade(order));
+    this.carregarComplexidades(lista);
   }
 
   private recarregarComplexidade(order: orders): void {
@@ -619,49 +620,59 @@ export class MontagemComponent implements OnInit {
     }
     const estado = this.complexidadeEstadoPorNr[chave];
     const precisaForcar = estado === 'empty';
-    this.carregarComplexidade(order, precisaForcar);
+    this.carregarComplexidades([order], precisaForcar);
   }
 
-  private carregarComplexidade(order: orders, force = false): void {
-    if (!this.canViewDxfAnalysis()) {
+  // Um POST /api/dxf-analysis/latest para todos os cards, em vez de uma requisição por pedido
+  private carregarComplexidades(lista: orders[], force = false): void {
+    const nrs: string[] = [];
+    for (const order of lista) {
       const nr = this.normalizarNr(order.nr);
-      if (nr) {
+      if (!nr) {
+        continue;
+      }
+      if (!this.canViewDxfAnalysis()) {
         delete this.complexidadePorNr[nr];
         this.complexidadeEstadoPorNr[nr] = 'empty';
+        continue;
       }
-      return;
-    }
-    const nr = this.normalizarNr(order.nr);
-    if (!nr) {
-      return;
-    }
-    const estadoAtual = this.complexidadeEstadoPorNr[nr];
-    if (estadoAtual === 'loading') {
-      return;
+      const estadoAtual = this.complexidadeEstadoPorNr[nr];
+      if (estadoAtual === 'loading') {
+        continue;
+      }
+      if (!force && (estadoAtual === 'ready' || estadoAtual === 'empty')) {
+        continue;
+      }
+      this.complexidadeEstadoPorNr[nr] = 'loading';
+      nrs.push(nr);
     }
-    if (!force && (estadoAtual === 'ready' || estadoAtual === 'empty')) {
+    if (!nrs.length) {
       return;
     }
 
-    this.complexidadeEstadoPorNr[nr] = 'loading';
-    this.dxfAnalysisService.getLatestByOrder(nr).subscribe({
-      next: (analysis) => {
-        if (analysis) {
-          this.complexidadePorNr[nr] = this.extrairPontuacao(analysis);
-          this.complexidadeEstadoPorNr[nr] = 'ready';
-        } else {
-          delete this.complexidadePorNr[nr];
-          this.complexidadeEstadoPorNr[nr] = 'empty';
+    this.dxfAnalysisService.getLatestByOrders(nrs).subscribe({
+      next: (porNr) => {
+        for (const nr of nrs) {
+          const analysis = porNr[nr];
+          if (analysis) {
+            this.complexidadePorNr[nr] = this.extrairPontuacao(analysis);
+            this.complexidadeEstadoPorNr[nr] = 'ready';
+          } else {
+            delete this.complexidadePorNr[nr];
+            this.complexidadeEstadoPorNr[nr] = 'empty';
+          }
         }
       },
       error: () => {
-        delete this.complexidadePorNr[nr];
-        this.complexidadeEstadoPorNr[nr] = 'empty';
+        for (const nr of nrs) {
+          delete this.complexidadePorNr[nr];
+          this.complexidadeEstadoPorNr[nr] = 'empty';
+        }
       },
     });
   }
 
-  private extrairPontuacao(analysis: DxfAnalysis): number {
+  private extrairPontuacao(analysis: DxfAnalysis | DxfAnalysisSummary): number {
     const base = analysis.scoreStars ?? analysis.score ?? 0;
     const ajustado = Math.max(0, Math.min(5, base));
     return Math.round(ajustado * 10) / 10;
@@ -704,13 +715,20 @@ export class MontagemComponent implements OnInit {
   private resolvePublicImageUrls(analysis: DxfAnalysis): string[] {
     const urls: string[] = [];
 
+    // o card usa a miniatura da API; a imagem inteira e o storage ficam como fallback
+    for (const apiUrl of [analysis.thumbnailUrl, analysis.imageUrl]) {
+      if (apiUrl && apiUrl.trim()) {
+        this.pushUniqueUrl(urls, apiUrl.trim());
+      }
+    }
+
     if (this.imagePublicBaseUrl && analysis.imageKey) {
       const base = this.normalizeBaseUrl(this.imagePublicBaseUrl);
       const key = analysis.imageKey.startsWith('/') ? analysis.imageKey.substring(1) : analysis.imageKey;
       this.pushUniqueUrl(urls, `${base}/${key}`);
     }
 
-    const candidates = [analysis.imageUrl, analysis.imageUri];
+    const candidates = [analysis.imageUri];
     for (const c of candidates) {
       if (c && c.trim()) {
         const trimmed = c.trim();
@@ -85,7 +85,8 @@ describe('OrderDetailsModalComponent', () => {
       fileName: 'NR123.DXF',
       fileHash: 'sha256:test',
       imagePath: 'render/path.png',
-      imageUrl: 'http://cdn/path.png',
+      imageUrl: '/api/dxf-analysis/analysis-1/image',
+      thumbnailUrl: '/api/dxf-analysis/analysis-1/thumbnail',
       imageBucket: 'facas',
       imageKey: 'renders/path.png',
       imageUri: 'http://cdn/path.png',
@@ -165,6 +166,12 @@ describe('OrderDetailsModalComponent', () => {
     openWithOrder('123');
 
     let img: HTMLImageElement | null = fixture.nativeElement.querySelector('.dxf-last-session img');
+    expect(img?.src).toContain('/api/dxf-analysis/analysis-1/image');
+
+    img?.dispatchEvent(new Event('error'));
+    fixture.detectChanges();
+
+    img = fixture.nativeElement.querySelector('.dxf-last-session img');
     expect(img?.src).toContain('/facas-renders/renders/path.png');
 
     img?.dispatchEvent(new Event('error'));
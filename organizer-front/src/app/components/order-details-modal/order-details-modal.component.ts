@@ -443,12 +443,16 @@ export class OrderDetailsModalComponent implements OnInit, OnChanges, OnDestroy
 
   private resolvePublicImageUrls(analysis: DxfAnalysis): string[] {
     const urls: string[] = [];
+    // imagem inteira servida pela API; o storage fica como fallback
+    if (analysis.imageUrl && analysis.imageUrl.trim()) {
+      this.pushUniqueUrl(urls, analysis.imageUrl.trim());
+    }
     const baseBuilt = this.buildFromBase(analysis.imageKey);
     if (baseBuilt) {
       this.pushUniqueUrl(urls, baseBuilt);
     }
 
-    const directCandidates = [analysis.imageUrl, analysis.imageUri].map((value) => this.pickHttpUrl(value));
+    const directCandidates = [analysis.imageUri].map((value) => this.pickHttpUrl(value));
     for (const candidate of directCandidates) {
       if (candidate) {
         this.pushUniqueUrl(urls, candidate);
@@ -11,11 +11,7 @@ import { DxfAnalysisService } from '../../services/dxf-analysis.service';
 import { orders } from '../../models/orders';
 
 class MockWebsocketService {
-  watchOrders() {
-    return EMPTY;
-  }
-
-  watchPriorities() {
+  watchBoardOrders() {
     return EMPTY;
   }
 
@@ -9,7 +9,7 @@ import {
 } from '@angular/forms';
 import { orders } from '../../models/orders';
 import { Subscription, interval } from 'rxjs';
-import { WebsocketService } from '../../services/websocket.service';
+import { BoardOrderEvent, WebsocketService } from '../../services/websocket.service';
 import { OrderService } from '../../services/orders.service';
 import { DxfAnalysisService } from '../../services/dxf-analysis.service';
 import { AuthService } from '../../services/auth.service';
@@ -81,7 +81,6 @@ export class OrdersComponent implements OnInit, OnDestroy {
     if (this.isBrowser()) {
       this.loadOrders();
       this.listenForWebSocketUpdates();
-      this.listenForWebSocketPrioridade();
     }
 
     this.authService.user$.subscribe(user => {
@@ -109,19 +108,7 @@ export class OrdersComponent implements OnInit, OnDestroy {
 
     this.orderService.getOrders().subscribe({
       next: (orders: orders[]) => {
-        let filteredOrders = orders.filter(order =>
-          this.shouldDisplayOrder(order)
-        );
-
-        if (this.filteredPriority) {
-          filteredOrders = filteredOrders.filter(
-            order => order.prioridade === this.filteredPriority
-          );
-        }
-
-        this.orders = filteredOrders.sort((a, b) =>
-          this.comparePriorities(a.prioridade, b.prioridade)
-        );
+        this.showOrders(orders);
         this.loadingOrders = false;
       },
       error: (error) => {
@@ -133,6 +120,22 @@ export class OrdersComponent implements OnInit, OnDestroy {
     });
   }
 
+  private showOrders(orders: orders[]) {
+    let filteredOrders = orders.filter(order =>
+      this.shouldDisplayOrder(order)
+    );
+
+    if (this.filteredPriority) {
+      filteredOrders = filteredOrders.filter(
+        order => order.prioridade === this.filteredPriority
+      );
+    }
+
+    this.orders = filteredOrders.sort((a, b) =>
+      this.comparePriorities(a.prioridade, b.prioridade)
+    );
+  }
+
   shouldDisplayOrder(order: orders): boolean {
     const status = this.normalizeStatus(order.status);
     return [
@@ -142,9 +145,19 @@ export class OrdersComponent implements OnInit, OnDestroy {
     ].includes(status);
   }
 
+ // feed de deltas do quadro (inclui as mudanças de prioridade)
  listenForWebSocketUpdates() {
-  this.websocketService.watchOrders().subscribe((message: any) => {
-    const received: orders = JSON.parse(message.body);
+  this.websocketService.watchBoardOrders().subscribe((event: BoardOrderEvent) => {
+    if (event.type === 'snapshot') {
+      this.showOrders(event.orders);
+      return;
+    }
+    if (event.type === 'delete') {
+      this.orders = this.orders.filter(o => o.id !== event.id);
+      return;
+    }
+
+    const received: orders = event.order;
     const idx = this.orders.findIndex(o => o.id === received.id);
 
     if (this.shouldDisplayOrder(received)) {
@@ -165,31 +178,6 @@ export class OrdersComponent implements OnInit, OnDestroy {
   });
 }
 
-//listenForWebSocketDelete() {
-  //this.websocketService.watchDeleteOrders().subscribe((message: any) => {
-    //const received: orders = JSON.parse(message.body);
-    //this.orders = this.orders.filter(o => o.id !== received.id);
-  //});
-
-
- listenForWebSocketPrioridade() {
-  this.websocketService.watchPriorities().subscribe((message: any) => {
-    const received: orders = JSON.parse(message.body);
-    const idx = this.orders.findIndex(o => o.id === received.id);
-
-    if (this.shouldDisplayOrder(received)) {
-      if (idx !== -1) this.orders[idx] = received;
-      else this.orders = [...this.orders, received];
-    } else {
-      if (idx !== -1) this.orders = this.orders.filter(o => o.id !== received.id);
-    }
-
-    this.orders = [...this.orders].sort((a, b) =>
-      this.comparePriorities(a.prioridade, b.prioridade)
-    );
-  });
-}
-
   openCreateOrderModal() {
     this.createOrderForm.reset();
     const modal = new (window as any).bootstrap.Modal(document.getElementById('createOrderModal')!);
@@ -382,13 +370,20 @@ export class OrdersComponent implements OnInit, OnDestroy {
   private resolvePublicImageUrls(analysis: DxfAnalysis): string[] {
     const urls: string[] = [];
 
+    // o card usa a miniatura da API; a imagem inteira e o storage ficam como fallback
+    for (const apiUrl of [analysis.thumbnailUrl, analysis.imageUrl]) {
+      if (apiUrl && apiUrl.trim()) {
+        this.pushUniqueUrl(urls, apiUrl.trim());
+      }
+    }
+
     if (this.imagePublicBaseUrl && analysis.imageKey) {
       const base = this.normalizeBaseUrl(this.imagePublicBaseUrl);
       const key = analysis.imageKey.startsWith('/') ? analysis.imageKey.substring(1) : analysis.imageKey;
       this.pushUniqueUrl(urls, `${base}/${key}`);
     }
 
-    const candidates = [analysis.imageUrl, analysis.imageUri];
+    const candidates = [analysis.imageUri];
     for (const c of candidates) {
       if (c && c.trim()) {
         const trimmed = c.trim();
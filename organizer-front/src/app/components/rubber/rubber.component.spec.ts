@@ -7,11 +7,7 @@ import { RubberComponent } from './rubber.component';
 import { WebsocketService } from '../../services/websocket.service';
 
 class MockWebsocketService {
-  watchOrders() {
-    return EMPTY;
-  }
-
-  watchPriorities() {
+  watchBoardOrders() {
     return EMPTY;
   }
 
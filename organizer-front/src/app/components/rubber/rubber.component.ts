@@ -2,7 +2,7 @@ import { Component, OnInit } from '@angular/core';
 import { FormBuilder, Validators, ReactiveFormsModule, FormsModule } from '@angular/forms';
 import { CommonModule } from '@angular/common';
 import { DateTime } from 'luxon';
-import { WebsocketService } from '../../services/websocket.service';
+import { BoardOrderEvent, WebsocketService } from '../../services/websocket.service';
 import { OrderService } from '../../services/orders.service';
 import { orders } from '../../models/orders';
 import { OrderStatus } from '../../models/order-status.enum';
@@ -184,12 +184,7 @@ export class RubberComponent implements OnInit {
 
   private carregarParaBorracha(): void {
     this.orderService.getOrders().subscribe({
-      next: (lista) => {
-        this.paraBorracha = this.ordenarLista(
-          lista.filter((o) => this.elegivelParaBorracha(o)),
-        );
-        this.filterOrders();
-      },
+      next: (lista) => this.mostrarLista(lista),
       error: () => {
         this.msg = {
           type: 'danger',
@@ -199,6 +194,13 @@ export class RubberComponent implements OnInit {
     });
   }
 
+  private mostrarLista(lista: orders[]): void {
+    this.paraBorracha = this.ordenarLista(
+      lista.filter((o) => this.elegivelParaBorracha(o)),
+    );
+    this.filterOrders();
+  }
+
   filterOrders(): void {
     if (!this.searchTerm) {
       this.filteredParaBorracha = [...this.paraBorracha];
@@ -211,19 +213,17 @@ export class RubberComponent implements OnInit {
     }
   }
 
+  // feed de deltas do quadro: linhas completas, já mescladas pelo serviço
   private ouvirWebsocket(): void {
-    this.ws.watchOrders().subscribe((msg) => {
-      let received: any;
-      try {
-        received = JSON.parse(msg.body);
-      } catch {
-        return;
+    this.ws.watchBoardOrders().subscribe((event: BoardOrderEvent) => {
+      if (event.type === 'snapshot') {
+        this.mostrarLista(event.orders);
+      } else if (event.type === 'delete') {
+        this.paraBorracha = this.paraBorracha.filter((o) => o.id !== event.id);
+        this.filterOrders();
+      } else {
+        this.atualizarLista(event.order);
       }
-      const order: orders =
-        received && received.payload ? received.payload : received;
-      if (!order || typeof order !== 'object') return;
-
-      this.atualizarLista(order);
     });
   }
 
@@ -419,13 +419,20 @@ export class RubberComponent implements OnInit {
   private resolvePublicImageUrls(analysis: DxfAnalysis): string[] {
     const urls: string[] = [];
 
+    // o card usa a miniatura da API; a imagem inteira e o storage ficam como fallback
+    for (const apiUrl of [analysis.thumbnailUrl, analysis.imageUrl]) {
+      if (apiUrl && apiUrl.trim()) {
+        this.pushUniqueUrl(urls, apiUrl.trim());
+      }
+    }
+
     if (this.imagePublicBaseUrl && analysis.imageKey) {
       const base = this.normalizeBaseUrl(this.imagePublicBaseUrl);
       const key = analysis.imageKey.startsWith('/') ? analysis.imageKey.substring(1) : analysis.imageKey;
       this.pushUniqueUrl(urls, `${base}/${key}`);
     }
 
-    const candidates = [analysis.imageUrl, analysis.imageUri];
+    const candidates = [analysis.imageUri];
     for (const c of candidates) {
       if (c && c.trim()) {
         const trimmed = c.trim();
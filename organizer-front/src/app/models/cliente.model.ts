@@ -39,3 +39,12 @@ export interface Cliente {
   defaultPapelCalibrado?: boolean;
   enderecos?: ClienteEndereco[];
 }
+
+/** Página de GET /api/clientes/search-cursor (busca por relevância com cursor). */
+export interface ClienteSearchPage {
+  items: Cliente[];
+  nextCursor: string | null;
+  hasMore: boolean;
+  total: number | null;
+  totalEstimated: boolean;
+}
@@ -14,7 +14,10 @@ export interface DxfAnalysis {
   fileName: string;
   fileHash: string | null;
   imagePath: string | null;
+  /** Imagem servida pela API (/api/dxf-analysis/{id}/image); o storage fica por trás. */
   imageUrl: string | null;
+  /** Miniatura para os cards (/api/dxf-analysis/{id}/thumbnail). */
+  thumbnailUrl: string | null;
   imageBucket: string | null;
   imageKey: string | null;
   imageUri: string | null;
@@ -30,3 +33,15 @@ export interface DxfAnalysis {
   metrics: Record<string, unknown> | null;
   explanations: string[] | null;
 }
+
+/** Resumo da última análise de um pedido para os cards do quadro (POST /api/dxf-analysis/latest). */
+export interface DxfAnalysisSummary {
+  analysisId: string;
+  orderNr: string | null;
+  score: number | null;
+  scoreLabel: string | null;
+  scoreStars: number | null;
+  imageUrl: string | null;
+  thumbnailUrl: string | null;
+  analyzedAt: string;
+}
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { environment } from '../enviroment';
-import { Cliente, ClienteEndereco } from '../models/cliente.model';
+import { Cliente, ClienteEndereco, ClienteSearchPage } from '../models/cliente.model';
 import { Observable } from 'rxjs';
 
 @Injectable({ providedIn: 'root' })
@@ -10,13 +10,15 @@ export class ClienteService {
 
   constructor(private http: HttpClient) {}
 
-  search(query: string, page: number = 0, size: number = 20): Observable<any> {
+  // busca por relevância (nome/apelido) com cursor; total estimado para não contar a tabela toda
+  search(query: string, cursor: string | null = null, limit: number = 20): Observable<ClienteSearchPage> {
     let params = new HttpParams()
-      .set('page', page.toString())
-      .set('size', size.toString());
-    if (query) params = params.set('search', query);
-    
-    return this.http.get<any>(this.apiUrl, { params });
+      .set('limit', limit.toString())
+      .set('count', 'estimate');
+    if (query) params = params.set('q', query);
+    if (cursor) params = params.set('cursor', cursor);
+
+    return this.http.get<ClienteSearchPage>(`${this.apiUrl}/search-cursor`, { params });
   }
 
   getById(id: number): Observable<Cliente> {
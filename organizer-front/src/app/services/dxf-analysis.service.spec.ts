@@ -53,6 +53,27 @@ describe('DxfAnalysisService', () => {
     req.flush({}, { status: 500, statusText: 'Server Error' });
   });
 
+  it('fetches latest summaries for several orders in one request', () => {
+    const mockSummaries = { '123': { analysisId: 'a1', scoreStars: 3.5 } };
+
+    service.getLatestByOrders(['123', '456', '123']).subscribe((result) => {
+      expect(result).toEqual(mockSummaries as any);
+    });
+
+    const req = httpMock.expectOne(`${baseUrl}/latest`);
+    expect(req.request.method).toBe('POST');
+    expect(req.request.body).toEqual(['123', '456']);
+    req.flush(mockSummaries);
+  });
+
+  it('skips the request when there are no orders', () => {
+    service.getLatestByOrders([]).subscribe((result) => {
+      expect(result).toEqual({});
+    });
+
+    httpMock.expectNone(`${baseUrl}/latest`);
+  });
+
   it('fetches history with provided limit', () => {
     const mockHistory = [{ analysisId: 'h1' }] as unknown as DxfAnalysis[];
 
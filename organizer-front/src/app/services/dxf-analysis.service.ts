@@ -1,8 +1,11 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable, catchError, of, throwError } from 'rxjs';
+import { Observable, catchError, forkJoin, map, of, throwError } from 'rxjs';
 import { environment } from '../enviroment';
-import { DxfAnalysis } from '../models/dxf-analysis';
+import { DxfAnalysis, DxfAnalysisSummary } from '../models/dxf-analysis';
+
+// mesmo limite do backend (app.dxf.analysis.latest-batch-max-items)
+const LATEST_BATCH_MAX = 500;
 
 @Injectable({
   providedIn: 'root',
@@ -24,6 +27,21 @@ export class DxfAnalysisService {
     );
   }
 
+  /** Última análise de vários pedidos em uma requisição por bloco; pedidos sem análise ficam de fora. */
+  getLatestByOrders(orderNrs: string[]): Observable<Record<string, DxfAnalysisSummary>> {
+    const nrs = Array.from(new Set(orderNrs.filter((nr) => !!nr)));
+    if (!nrs.length) {
+      return of({});
+    }
+    const blocos: string[][] = [];
+    for (let i = 0; i < nrs.length; i += LATEST_BATCH_MAX) {
+      blocos.push(nrs.slice(i, i + LATEST_BATCH_MAX));
+    }
+    return forkJoin(
+      blocos.map((bloco) => this.http.post<Record<string, DxfAnalysisSummary>>(`${this.baseUrl}/latest`, bloco))
+    ).pipe(map((partes) => Object.assign({}, ...partes)));
+  }
+
   listHistory(orderNr: string, limit = 5): Observable<DxfAnalysis[]> {
     const encoded = encodeURIComponent(orderNr);
     return this.http
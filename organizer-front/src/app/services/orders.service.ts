@@ -13,10 +13,16 @@ export class OrderService {
 
   constructor(private http: HttpClient) {}
 
+  // Quadro: só pedidos ativos (sem Retirada/Entregue)
   getOrders(): Observable<orders[]> {
     return this.http.get<orders[]>(`${this.baseUrl}`);
   }
 
+  // Inclui Retirada/Entregue (histórico inteiro); para listas longas prefira POST /api/orders/search-cursor
+  getAllOrders(): Observable<orders[]> {
+    return this.http.get<orders[]>(`${this.baseUrl}`, { params: { scope: 'all' } });
+  }
+
   getOrderById(id: number): Observable<orders | null> {
     return this.http.get<orders | null>(`${this.baseUrl}/${id}`);
   }
@@ -1,6 +1,6 @@
 import { TestBed } from '@angular/core/testing';
 
-import { WebsocketService } from './websocket.service';
+import { OrderDelta, WebsocketService } from './websocket.service';
 
 describe('WebsocketService', () => {
   let service: WebsocketService;
@@ -13,4 +13,45 @@ describe('WebsocketService', () => {
   it('should be created', () => {
     expect(service).toBeTruthy();
   });
+
+  describe('feed de deltas do quadro', () => {
+    let board: any;
+    let sync: jasmine.Spy;
+
+    const delta = (seq: number, fields: Record<string, any>, full = false, id = 1): OrderDelta => ({
+      epoch: 'e1', seq, type: 'upsert', id, full, fields,
+    });
+
+    beforeEach(() => {
+      board = service as any;
+      sync = spyOn(service, 'requestOrderSync');
+      board.onBoardSync({ epoch: 'e1', seq: 10, snapshot: true, deltas: [], orders: [{ id: 1, nr: '100', status: 0 }] });
+    });
+
+    it('aplica delta parcial sobre a linha do snapshot', () => {
+      const events = board.onBoardDelta(delta(11, { status: 1 }));
+
+      expect(events).toEqual([{ type: 'upsert', order: { id: 1, nr: '100', status: 1 } }]);
+      expect(sync).not.toHaveBeenCalled();
+    });
+
+    it('salto de seq pede a lacuna e aplica o guardado depois da resposta', () => {
+      expect(board.onBoardDelta(delta(13, { status: 2 }))).toEqual([]);
+      expect(sync).toHaveBeenCalledWith(10, 'e1');
+
+      const events = board.onBoardSync({ epoch: 'e1', seq: 12, snapshot: false, deltas: [delta(11, { status: 1 }), delta(12, { nr: '101' })] });
+
+      expect(events.map((e: any) => e.order)).toEqual([
+        { id: 1, nr: '100', status: 1 },
+        { id: 1, nr: '101', status: 1 },
+        { id: 1, nr: '101', status: 2 },
+      ]);
+    });
+
+    it('delta parcial de pedido desconhecido pede snapshot', () => {
+      expect(board.onBoardDelta(delta(11, { status: 1 }, false, 2))).toEqual([]);
+
+      expect(sync).toHaveBeenCalledWith(null, 'e1');
+    });
+  });
 });
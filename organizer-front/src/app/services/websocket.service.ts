@@ -1,9 +1,33 @@
 import { Injectable } from '@angular/core';
-import { EMPTY, Observable } from 'rxjs';
+import { EMPTY, Observable, Subscription, from, merge, of } from 'rxjs';
 import { RxStompService } from '@stomp/ng2-stompjs';
 import { RxStompConfig } from '@stomp/rx-stomp';
 import { environment } from '../enviroment';
-import { map } from 'rxjs/operators';
+import { map, mergeMap, share } from 'rxjs/operators';
+
+/** Evento do feed incremental /topic/orders/delta (apenas campos alterados). */
+export interface OrderDelta {
+  epoch: string;
+  seq: number;
+  type: 'upsert' | 'delete';
+  id: number;
+  full: boolean;
+  fields: Record<string, any>;
+}
+
+export interface OrderSyncResponse {
+  epoch: string;
+  seq: number;
+  snapshot: boolean;
+  deltas: OrderDelta[];
+  orders?: any[] | null;
+}
+
+/** Alteração do quadro já aplicada sobre o estado local: linhas completas, nunca campos soltos. */
+export type BoardOrderEvent =
+  | { type: 'snapshot'; orders: any[] }
+  | { type: 'upsert'; order: any }
+  | { type: 'delete'; id: number };
 
 export interface StatusEvent {
   kind: string;          // "filewatcher"
@@ -22,6 +46,14 @@ export interface StatusEvent {
 export class WebsocketService {
   private rxStompService?: RxStompService;
 
+  // estado do feed de deltas (pedidos ativos), compartilhado pelos quadros
+  private boardRows = new Map<number, any>();
+  private boardEpoch: string | null = null;
+  private boardSeq: number | null = null;
+  private boardSyncPending = false;
+  private boardBuffered: OrderDelta[] = [];
+  private boardOrders$?: Observable<BoardOrderEvent>;
+
   constructor() {
     if (typeof window !== 'undefined' && environment.wsUrl) {
       this.rxStompService = new RxStompService();
@@ -46,12 +78,171 @@ export class WebsocketService {
   }
 
   public watchOrders(): Observable<any> {
-    return this.rxStompService?.watch('/topic/orders') ?? EMPTY;
+    if (!this.rxStompService) {
+      return EMPTY;
+    }
+    return this.rxStompService
+      .watch('/topic/orders')
+      .pipe(mergeMap((msg) => this.expandBatch(msg)));
+  }
+
+  /**
+   * O backend pode publicar um lote de pedidos num unico frame (array JSON),
+   * em /topic/orders e /topic/prioridades.
+   * Reemite cada item como uma mensagem propria para manter os consumidores atuais.
+   */
+  private expandBatch(msg: any): Observable<any> {
+    let parsed: any;
+    try {
+      parsed = JSON.parse(msg.body);
+    } catch {
+      return of(msg);
+    }
+    if (!Array.isArray(parsed)) {
+      return of(msg);
+    }
+    return from(parsed.map((item: any) => ({ ...msg, body: JSON.stringify(item) })));
+  }
+
+  /**
+   * Feed incremental: cada evento traz seq; se a seq recebida nao for a seguinte
+   * a ultima aplicada (ou o epoch mudar), chame requestOrderSync para recuperar a lacuna.
+   */
+  public watchOrderDeltas(): Observable<OrderDelta> {
+    if (!this.rxStompService) {
+      return EMPTY;
+    }
+    return this.rxStompService
+      .watch('/topic/orders/delta')
+      .pipe(map((msg) => JSON.parse(msg.body) as OrderDelta));
+  }
+
+  public watchOrderSync(): Observable<OrderSyncResponse> {
+    if (!this.rxStompService) {
+      return EMPTY;
+    }
+    return this.rxStompService
+      .watch('/user/queue/orders/sync')
+      .pipe(map((msg) => JSON.parse(msg.body) as OrderSyncResponse));
+  }
+
+  public requestOrderSync(since: number | null, epoch: string | null): void {
+    const headers: Record<string, string> = {};
+    if (since != null) headers['since'] = String(since);
+    if (epoch) headers['epoch'] = epoch;
+    this.rxStompService?.publish({ destination: '/app/orders/sync', headers, body: '' });
+  }
+
+  /**
+   * Quadros (pedidos ativos) pelo feed de deltas: aplica cada delta sobre a última linha conhecida
+   * e emite a linha completa. Ao conectar (e a cada reconexão) pede /app/orders/sync a partir da
+   * última seq; um salto de seq ou epoch novo também ressincroniza, e os deltas que chegam enquanto
+   * a resposta não vem ficam guardados para depois dela.
+   */
+  public watchBoardOrders(): Observable<BoardOrderEvent> {
+    const stomp = this.rxStompService;
+    if (!stomp) {
+      return EMPTY;
+    }
+    if (!this.boardOrders$) {
+      this.boardOrders$ = new Observable<BoardOrderEvent>((subscriber) => {
+        const emit = (events: BoardOrderEvent[]) => events.forEach((e) => subscriber.next(e));
+        const subs = new Subscription();
+        subs.add(
+          merge(
+            this.watchOrderDeltas().pipe(map((d) => this.onBoardDelta(d))),
+            this.watchOrderSync().pipe(map((r) => this.onBoardSync(r))),
+          ).subscribe(emit),
+        );
+        // as inscrições acima são refeitas antes deste aviso, então a resposta não se perde
+        subs.add(stomp.connected$.subscribe(() => this.requestBoardSync()));
+        return () => subs.unsubscribe();
+      }).pipe(share());
+    }
+    return this.boardOrders$;
+  }
+
+  private requestBoardSync(): void {
+    this.boardSyncPending = true;
+    this.requestOrderSync(this.boardSeq, this.boardEpoch);
+  }
+
+  private onBoardDelta(delta: OrderDelta): BoardOrderEvent[] {
+    if (this.boardSyncPending) {
+      this.boardBuffered.push(delta);
+      return [];
+    }
+    if (delta.epoch === this.boardEpoch && this.boardSeq != null && delta.seq <= this.boardSeq) {
+      return [];
+    }
+    if (delta.epoch !== this.boardEpoch || this.boardSeq == null || delta.seq !== this.boardSeq + 1) {
+      this.boardBuffered.push(delta);
+      this.requestBoardSync();
+      return [];
+    }
+    return this.applyBoardDelta(delta);
+  }
+
+  private onBoardSync(resp: OrderSyncResponse): BoardOrderEvent[] {
+    const events: BoardOrderEvent[] = [];
+    this.boardSyncPending = false;
+    if (resp.snapshot) {
+      const orders = resp.orders ?? [];
+      this.boardRows = new Map(orders.map((o) => [o.id, o] as [number, any]));
+      this.boardEpoch = resp.epoch;
+      this.boardSeq = resp.seq;
+      events.push({ type: 'snapshot', orders });
+    } else {
+      for (const d of resp.deltas) {
+        if (this.boardSyncPending) {
+          // um delta sem base pediu snapshot: ele cobre o resto
+          return events;
+        }
+        if (this.boardSeq == null || d.seq > this.boardSeq) {
+          events.push(...this.applyBoardDelta(d));
+        }
+      }
+      this.boardSeq = Math.max(this.boardSeq ?? resp.seq, resp.seq);
+    }
+
+    // deltas de epoch anterior (servidor reiniciado) já estão no snapshot
+    const buffered = this.boardBuffered
+      .filter((d) => d.epoch === resp.epoch)
+      .sort((a, b) => a.seq - b.seq);
+    this.boardBuffered = [];
+    for (const d of buffered) {
+      events.push(...this.onBoardDelta(d));
+    }
+    return events;
+  }
+
+  private applyBoardDelta(delta: OrderDelta): BoardOrderEvent[] {
+    this.boardEpoch = delta.epoch;
+    this.boardSeq = delta.seq;
+    if (delta.type === 'delete') {
+      this.boardRows.delete(delta.id);
+      return [{ type: 'delete', id: delta.id }];
+    }
+    const base = delta.full ? {} : this.boardRows.get(delta.id);
+    if (!base) {
+      // delta parcial de pedido que não temos: só um snapshot recompõe a linha
+      this.boardSeq = null;
+      this.requestBoardSync();
+      return [];
+    }
+    const order = { ...base, ...delta.fields };
+    this.boardRows.set(delta.id, order);
+    return [{ type: 'upsert', order }];
   }
 
   public watchPriorities(): Observable<any> {
-    return this.rxStompService?.watch('/topic/prioridades') ?? EMPTY;
- }
+    if (!this.rxStompService) {
+      return EMPTY;
+    }
+    return this.rxStompService
+      .watch('/topic/prioridades')
+      .pipe(mergeMap((msg) => this.expandBatch(msg)));
+  }
 
   public watchDxfAnalysis(): Observable<any> {
     if (!this.rxStompService) {
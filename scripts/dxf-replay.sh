@@ -6,6 +6,8 @@ LASER_DIR="/home/laser"
 FACAS_OK_DIR="${LASER_DIR}/FACASOK"
 DXF_SOURCE_DIR="/home/ynz/Documents"
 DXF_TARGET_DIR="/home/dobras"
+# REPLAY_FACTOR=10 copia cada DXF 10 vezes (nomes _r1.._r9 além do original) para teste de carga
+REPLAY_FACTOR="${REPLAY_FACTOR:-1}"
 
 echo ">> Criando placeholder do CNC em ${LASER_DIR}..."
 sudo touch "${LASER_DIR}/${FILE_NAME}"
@@ -13,7 +15,13 @@ sudo touch "${LASER_DIR}/${FILE_NAME}"
 echo ">> Movendo CNC para ${FACAS_OK_DIR}..."
 sudo mv "${LASER_DIR}/${FILE_NAME}" "${FACAS_OK_DIR}/${FILE_NAME}"
 
-echo ">> Copiando DXFs de ${DXF_SOURCE_DIR} para ${DXF_TARGET_DIR}..."
+echo ">> Copiando DXFs de ${DXF_SOURCE_DIR} para ${DXF_TARGET_DIR} (x${REPLAY_FACTOR})..."
 sudo cp -f "${DXF_SOURCE_DIR}"/*.dxf "${DXF_TARGET_DIR}/"
+for ((i = 1; i < REPLAY_FACTOR; i++)); do
+  for dxf in "${DXF_SOURCE_DIR}"/*.dxf; do
+    base="$(basename "${dxf}" .dxf)"
+    sudo cp -f "${dxf}" "${DXF_TARGET_DIR}/${base}_r${i}.dxf"
+  done
+done
 
 echo "Fluxo DXF disparado. Execute 'docker compose up --build' separadamente se necessário."
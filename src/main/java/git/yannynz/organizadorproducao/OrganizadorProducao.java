@@ -1,6 +1,7 @@
 package git.yannynz.organizadorproducao;
 
 import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
+import git.yannynz.organizadorproducao.config.RabbitListenerProperties;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -11,7 +12,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @SpringBootApplication
 @EnableScheduling
 @EnableAsync
-@EnableConfigurationProperties(DXFAnalysisProperties.class)
+@EnableConfigurationProperties({DXFAnalysisProperties.class, RabbitListenerProperties.class})
 public class OrganizadorProducao implements CommandLineRunner {
 
     public static void main(String[] args) {
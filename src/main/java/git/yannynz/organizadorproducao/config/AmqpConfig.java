@@ -1,9 +1,14 @@
 package git.yannynz.organizadorproducao.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import git.yannynz.organizadorproducao.service.OpImportService;
+import git.yannynz.organizadorproducao.service.ConsumerFailureRecoverer;
+import git.yannynz.organizadorproducao.service.OpBatchImportService;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
 import git.yannynz.organizadorproducao.monitoring.MessageProcessingMetrics;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Bean;
@@ -34,32 +39,64 @@ public class AmqpConfig {
     }
 }
 
+/**
+ * Consumidor de {@code op.imported} em lote: cada lote vira uma chamada ao
+ * {@link OpBatchImportService}. JSON inválido e OPs que falharam vão individualmente para o
+ * {@link ConsumerFailureRecoverer} (retentativa com atraso ou quarentena); as demais são
+ * confirmadas junto com o lote.
+ */
 @Component
 class OpImportedListener {
 
-    private final OpImportService service;
+    private final OpBatchImportService batchImport;
+    private final ConsumerFailureRecoverer failureRecoverer;
     private final MessageProcessingMetrics processingMetrics;
     private final ObjectMapper mapper = new ObjectMapper();
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OpImportedListener.class);
 
-    public OpImportedListener(OpImportService service, MessageProcessingMetrics processingMetrics) {
-        this.service = service;
+    public OpImportedListener(OpBatchImportService batchImport, ConsumerFailureRecoverer failureRecoverer,
+                              MessageProcessingMetrics processingMetrics) {
+        this.batchImport = batchImport;
+        this.failureRecoverer = failureRecoverer;
         this.processingMetrics = processingMetrics;
     }
 
-    @RabbitListener(queues = "op.imported")
-    public void onMessage(String json) throws Exception {
-        log.info("[AMQP] op.imported received bytes={} payloadSample={}...",
-            (json == null ? 0 : json.length()), (json == null ? null : json.substring(0, Math.min(120, json.length()))));
+    @RabbitListener(queues = "op.imported", containerFactory = "opImportBatchListenerFactory")
+    public void onMessages(List<Message> messages) throws Exception {
+        log.info("[AMQP] op.imported lote recebido: {} mensagem(ns)", messages.size());
         processingMetrics.recordProcessing("op.imported", () -> {
-            try {
-                var req = mapper.readValue(json, OpImportRequestDTO.class);
-                log.info("[AMQP] parsed: numeroOp={}, dataOp={}", req.getNumeroOp(), req.getDataOp());
-                service.importar(req);
-            } catch (Exception ex) {
-                log.error("[AMQP] error parsing/dispatching message: {}", ex.getMessage(), ex);
-                throw ex;
+            List<Message> aceitas = new ArrayList<>(messages.size());
+            List<OpImportRequestDTO> reqs = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                String json = new String(message.getBody(), StandardCharsets.UTF_8);
+                try {
+                    reqs.add(mapper.readValue(json, OpImportRequestDTO.class));
+                    aceitas.add(message);
+                } catch (Exception ex) {
+                    log.error("[AMQP] op.imported inválida: {} payloadSample={}...", ex.getMessage(),
+                        json.substring(0, Math.min(120, json.length())));
+                    recover(message, ex);
+                }
+            }
+
+            List<OpImportResult> results = batchImport.importar(reqs);
+            for (int i = 0; i < results.size(); i++) {
+                OpImportResult result = results.get(i);
+                if (result.falhou()) {
+                    // a exceção original decide: conversão/argumento inválido vai direto à quarentena
+                    recover(aceitas.get(i), result.causa() != null ? result.causa()
+                        : new IllegalStateException("Falha ao importar OP " + result.numeroOp() + ": " + result.erro()));
+                }
             }
         });
     }
+
+    // uma falha ao encaminhar não pode devolver o lote inteiro (OPs já importadas) ao recoverer da factory
+    private void recover(Message message, Throwable cause) {
+        try {
+            failureRecoverer.recover(message, cause);
+        } catch (RuntimeException e) {
+            log.error("[AMQP] op.imported sem retry/quarentena: {}", e.getMessage());
+        }
+    }
 }
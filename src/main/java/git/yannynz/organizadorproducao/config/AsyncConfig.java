@@ -1,31 +1,69 @@
 package git.yannynz.organizadorproducao.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-import java.util.concurrent.Executor;
-
+/**
+ * Executores nomeados por carga de trabalho, todos limitados e instrumentados via
+ * {@link InstrumentedExecutors}:
+ * <ul>
+ *   <li>{@code opLinkExecutor} — vínculo OP ↔ pedido ({@code tryLinkAsync}) e {@code @Async} sem nome;</li>
+ *   <li>{@code dxfExecutor} — trabalho pós-commit das análises DXF (view + WebSocket);</li>
+ *   <li>{@code retry} — retentativas atrasadas, em {@code RetryScheduler};</li>
+ *   <li>{@code broadcast} — flush do {@code CoalescingBroadcaster}.</li>
+ * </ul>
+ * Os dois últimos são donos do próprio executor agendado: um bean de {@code TaskScheduler} aqui
+ * tomaria o lugar do scheduler dos {@code @Scheduled}.
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class AsyncConfig {
-  @Bean(name = "opExecutor")
-  public Executor opExecutor() {
-    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
-    ex.setThreadNamePrefix("op-async-");
-    ex.setCorePoolSize(2);
-    ex.setMaxPoolSize(4);
-    ex.setQueueCapacity(100);
-    ex.initialize();
-    return ex;
+
+  private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
+
+  private final boolean virtualThreads;
+
+  public AsyncConfig(@Value("${app.executors.virtual-threads:false}") boolean virtualThreads) {
+    this.virtualThreads = virtualThreads && supportsVirtualThreads();
+    if (virtualThreads && !this.virtualThreads) {
+      log.warn("[EXECUTOR] app.executors.virtual-threads=true ignorado: requer Java 21+ (atual {})",
+          Runtime.version().feature());
+    }
   }
 
-  // em alguma @Configuration do seu projeto
-@org.springframework.scheduling.annotation.EnableScheduling
-class SchedulingConfig {}
+  /** Também atende {@code @Async} sem nome explícito (e-mail), pelo alias {@code taskExecutor}. */
+  @Bean(name = {"opLinkExecutor", "taskExecutor"})
+  public AsyncTaskExecutor opLinkExecutor(MeterRegistry registry,
+      @Value("${app.executors.link.core:2}") int core,
+      @Value("${app.executors.link.max:4}") int max,
+      @Value("${app.executors.link.queue:500}") int queue) {
+    return create("link", core, max, queue, registry);
+  }
 
-}
+  @Bean(name = "dxfExecutor")
+  public AsyncTaskExecutor dxfExecutor(MeterRegistry registry,
+      @Value("${app.executors.dxf.core:1}") int core,
+      @Value("${app.executors.dxf.max:2}") int max,
+      @Value("${app.executors.dxf.queue:200}") int queue) {
+    return create("dxf", core, max, queue, registry);
+  }
+
+  private AsyncTaskExecutor create(String name, int core, int max, int queue, MeterRegistry registry) {
+    // em virtual threads a fila some: o limite passa a ser de tarefas simultâneas
+    if (virtualThreads)
+      return InstrumentedExecutors.virtual(name, max, registry);
+    return InstrumentedExecutors.pool(name, core, max, queue, registry);
+  }
 
+  private static boolean supportsVirtualThreads() {
+    return Runtime.version().feature() >= 21;
+  }
+}
@@ -38,6 +38,21 @@ public class DXFAnalysisProperties {
      */
     private String orderNumberPattern = "(?i)(?:NR|CL)\\s*(\\d+)";
 
+    /**
+     * Maximum number of orders kept in the "latest analysis per order" cache.
+     */
+    private int latestCacheMaxSize = 5000;
+
+    /**
+     * Maximum number of orders accepted by a single bulk latest-analysis request.
+     */
+    private int latestBatchMaxItems = 500;
+
+    /**
+     * Local proxy/cache used by the image endpoints when the render is not under {@link #imageLocalRoots}.
+     */
+    private ImageCache imageCache = new ImageCache();
+
     public String getRequestQueue() {
         return requestQueue;
     }
@@ -85,4 +100,96 @@ public class DXFAnalysisProperties {
     public void setOrderNumberPattern(String orderNumberPattern) {
         this.orderNumberPattern = orderNumberPattern;
     }
+
+    public int getLatestCacheMaxSize() {
+        return latestCacheMaxSize;
+    }
+
+    public void setLatestCacheMaxSize(int latestCacheMaxSize) {
+        this.latestCacheMaxSize = latestCacheMaxSize;
+    }
+
+    public int getLatestBatchMaxItems() {
+        return latestBatchMaxItems;
+    }
+
+    public void setLatestBatchMaxItems(int latestBatchMaxItems) {
+        this.latestBatchMaxItems = latestBatchMaxItems;
+    }
+
+    public ImageCache getImageCache() {
+        return imageCache;
+    }
+
+    public void setImageCache(ImageCache imageCache) {
+        this.imageCache = imageCache != null ? imageCache : new ImageCache();
+    }
+
+    public static class ImageCache {
+
+        /**
+         * When false, images outside the local roots are only redirected to the storage URL.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory holding proxied renders and generated thumbnails.
+         */
+        private String dir = System.getProperty("java.io.tmpdir") + "/organizador-dxf-images";
+
+        /**
+         * Size bound of {@link #dir}; least recently served files are removed first.
+         */
+        private long maxBytes = 512L * 1024 * 1024;
+
+        /**
+         * Width (px) of thumbnails served by {@code /api/dxf-analysis/{analysisId}/thumbnail}.
+         */
+        private int thumbnailWidth = 320;
+
+        /**
+         * Timeout for fetching a render from the storage URL.
+         */
+        private long fetchTimeoutMs = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDir() {
+            return dir;
+        }
+
+        public void setDir(String dir) {
+            this.dir = dir;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getThumbnailWidth() {
+            return thumbnailWidth;
+        }
+
+        public void setThumbnailWidth(int thumbnailWidth) {
+            this.thumbnailWidth = thumbnailWidth;
+        }
+
+        public long getFetchTimeoutMs() {
+            return fetchTimeoutMs;
+        }
+
+        public void setFetchTimeoutMs(long fetchTimeoutMs) {
+            this.fetchTimeoutMs = fetchTimeoutMs;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package git.yannynz.organizadorproducao.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Fábrica dos executores nomeados da aplicação. Todo executor exporta, com a tag {@code name}:
+ * <ul>
+ *   <li>{@code organizador_executor_active} — tarefas executando agora;</li>
+ *   <li>{@code organizador_executor_queued} — tarefas aguardando thread (só pools com fila);</li>
+ *   <li>{@code organizador_executor_rejected_total} — tarefas recusadas pela fila cheia.</li>
+ * </ul>
+ * Rejeição nunca é silenciosa: é contada, logada e a tarefa roda na thread de quem submeteu
+ * (contrapressão no listener/requisição em vez de perder o trabalho).
+ */
+public final class InstrumentedExecutors {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentedExecutors.class);
+
+    private InstrumentedExecutors() {}
+
+    /** Pool de threads de plataforma com fila limitada. */
+    public static ThreadPoolTaskExecutor pool(String name, int core, int max, int queueCapacity, MeterRegistry registry) {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setThreadNamePrefix(name + "-");
+        ex.setCorePoolSize(core);
+        ex.setMaxPoolSize(Math.max(core, max));
+        ex.setQueueCapacity(queueCapacity);
+        ex.setRejectedExecutionHandler(callerRuns(name, registry));
+        ex.setWaitForTasksToCompleteOnShutdown(true);
+        ex.setAwaitTerminationSeconds(10);
+        ex.initialize();
+        // gauges sobre o wrapper: o container chama initialize() de novo e troca o pool interno
+        Gauge.builder("organizador_executor_active", ex, ThreadPoolTaskExecutor::getActiveCount)
+            .description("Tarefas em execução no executor")
+            .tag("name", name)
+            .register(registry);
+        Gauge.builder("organizador_executor_queued", ex, ThreadPoolTaskExecutor::getQueueSize)
+            .description("Tarefas aguardando thread no executor")
+            .tag("name", name)
+            .register(registry);
+        return ex;
+    }
+
+    /**
+     * Uma virtual thread por tarefa, para trabalho que passa a maior parte do tempo bloqueado em
+     * banco/rede. Sem fila: acima de {@code concurrencyLimit} quem submete espera.
+     */
+    public static SimpleAsyncTaskExecutor virtual(String name, int concurrencyLimit, MeterRegistry registry) {
+        AtomicInteger active = new AtomicInteger();
+        SimpleAsyncTaskExecutor ex = new SimpleAsyncTaskExecutor(name + "-");
+        ex.setVirtualThreads(true);
+        ex.setConcurrencyLimit(Math.max(1, concurrencyLimit));
+        ex.setTaskDecorator(task -> () -> {
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        Gauge.builder("organizador_executor_active", active, AtomicInteger::get)
+            .description("Tarefas em execução no executor")
+            .tag("name", name)
+            .register(registry);
+        rejectedCounter(name, registry);
+        return ex;
+    }
+
+    /** Exporta as métricas de um {@link ThreadPoolExecutor} criado fora desta fábrica. */
+    public static void monitor(String name, ThreadPoolExecutor ex, MeterRegistry registry) {
+        Gauge.builder("organizador_executor_active", ex, ThreadPoolExecutor::getActiveCount)
+            .description("Tarefas em execução no executor")
+            .tag("name", name)
+            .register(registry);
+        Gauge.builder("organizador_executor_queued", ex, e -> e.getQueue().size())
+            .description("Tarefas aguardando thread no executor")
+            .tag("name", name)
+            .register(registry);
+        rejectedCounter(name, registry);
+    }
+
+    /** Conta e loga a rejeição e executa a tarefa em quem submeteu. */
+    public static RejectedExecutionHandler callerRuns(String name, MeterRegistry registry) {
+        Counter rejected = rejectedCounter(name, registry);
+        RejectedExecutionHandler delegate = new ThreadPoolExecutor.CallerRunsPolicy();
+        return (task, executor) -> {
+            rejected.increment();
+            log.warn("[EXECUTOR] {} saturado (ativas={}, fila={}); executando na thread chamadora",
+                    name, executor.getActiveCount(), executor.getQueue().size());
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    private static Counter rejectedCounter(String name, MeterRegistry registry) {
+        return Counter.builder("organizador_executor_rejected_total")
+            .description("Tarefas recusadas pelo executor (fila cheia)")
+            .tag("name", name)
+            .register(registry);
+    }
+}
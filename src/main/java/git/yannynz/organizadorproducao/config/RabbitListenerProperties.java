@@ -0,0 +1,187 @@
+package git.yannynz.organizadorproducao.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Concorrência e prefetch por fila dos {@code @RabbitListener}, aplicados pelas factories de
+ * {@link RabbitListenerStringConfig}. A chave é o nome da fila; nomes com ponto usam colchetes:
+ * <pre>
+ * app.rabbit.listeners[facas.analysis.result].concurrency=1
+ * app.rabbit.listeners[facas.analysis.result].max-concurrency=2
+ * app.rabbit.listeners[facas.analysis.result].prefetch=250
+ * </pre>
+ * Filas sem entrada ficam com o padrão da factory.
+ * <p>
+ * {@code app.rabbit.retry.*} controla a retentativa com atraso das filas em {@code queues}: a
+ * n-ésima falha espera {@code initial-delay-ms * multiplier^(n-1)} numa fila
+ * {@code <fila>.retry.<atraso>} (TTL + dead-letter de volta à fila original); ao atingir
+ * {@code max-attempts} a mensagem vai para a quarentena.
+ */
+@ConfigurationProperties(prefix = "app.rabbit")
+public class RabbitListenerProperties {
+
+    private Map<String, Listener> listeners = new LinkedHashMap<>();
+
+    private Retry retry = new Retry();
+
+    public Map<String, Listener> getListeners() {
+        return listeners;
+    }
+
+    public void setListeners(Map<String, Listener> listeners) {
+        this.listeners = listeners != null ? listeners : new LinkedHashMap<>();
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public void setRetry(Retry retry) {
+        this.retry = retry != null ? retry : new Retry();
+    }
+
+    /** Aplica a configuração da fila do container (um container por listener, uma fila cada). */
+    public void apply(SimpleMessageListenerContainer container) {
+        for (String queue : container.getQueueNames()) {
+            Listener cfg = listeners.get(queue);
+            if (cfg != null) {
+                cfg.apply(container);
+                return;
+            }
+        }
+    }
+
+    public static class Listener {
+
+        /**
+         * Consumidores iniciais. Acima de 1 a ordem entre mensagens da fila deixa de ser garantida.
+         */
+        private Integer concurrency;
+
+        /**
+         * Teto de consumidores; o container sobe além de {@code concurrency} sob backlog.
+         */
+        private Integer maxConcurrency;
+
+        /**
+         * Mensagens não confirmadas por consumidor.
+         */
+        private Integer prefetch;
+
+        void apply(SimpleMessageListenerContainer container) {
+            int initial = concurrency != null ? Math.max(1, concurrency) : 1;
+            // o container valida concurrent <= max: o teto vai primeiro
+            if (maxConcurrency != null) {
+                container.setMaxConcurrentConsumers(Math.max(initial, maxConcurrency));
+            }
+            if (concurrency != null) {
+                container.setConcurrentConsumers(initial);
+            }
+            if (prefetch != null) {
+                container.setPrefetchCount(Math.max(1, prefetch));
+            }
+        }
+
+        public Integer getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(Integer concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public Integer getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(Integer maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Integer getPrefetch() {
+            return prefetch;
+        }
+
+        public void setPrefetch(Integer prefetch) {
+            this.prefetch = prefetch;
+        }
+    }
+
+    public static class Retry {
+
+        /**
+         * Filas cujos consumidores passam pela retentativa com atraso e quarentena.
+         */
+        private List<String> queues = new ArrayList<>();
+
+        /**
+         * Tentativas totais (incluindo a primeira entrega) antes da quarentena.
+         */
+        private int maxAttempts = 4;
+
+        private long initialDelayMs = 1000;
+
+        private double multiplier = 4.0;
+
+        public boolean covers(String queue) {
+            return queue != null && queues.contains(queue);
+        }
+
+        /** Atraso antes da tentativa seguinte à falha de número {@code failure} (1 = primeira). */
+        public long delayFor(int failure) {
+            return Math.round(Math.max(1, initialDelayMs) * Math.pow(Math.max(1.0, multiplier), Math.max(0, failure - 1)));
+        }
+
+        /** Atrasos distintos usados antes da quarentena (uma fila de retry por atraso). */
+        public List<Long> delays() {
+            List<Long> delays = new ArrayList<>();
+            for (int failure = 1; failure < maxAttempts; failure++) {
+                long delay = delayFor(failure);
+                if (!delays.contains(delay))
+                    delays.add(delay);
+            }
+            return delays;
+        }
+
+        public static String retryQueue(String queue, long delayMs) {
+            return queue + ".retry." + delayMs;
+        }
+
+        public List<String> getQueues() {
+            return queues;
+        }
+
+        public void setQueues(List<String> queues) {
+            this.queues = queues != null ? queues : new ArrayList<>();
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = Math.max(1, maxAttempts);
+        }
+
+        public long getInitialDelayMs() {
+            return initialDelayMs;
+        }
+
+        public void setInitialDelayMs(long initialDelayMs) {
+            this.initialDelayMs = initialDelayMs;
+        }
+
+        public double getMultiplier() {
+            return multiplier;
+        }
+
+        public void setMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+        }
+    }
+}
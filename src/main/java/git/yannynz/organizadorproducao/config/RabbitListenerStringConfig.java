@@ -1,29 +1,102 @@
 package git.yannynz.organizadorproducao.config;
 
+import git.yannynz.organizadorproducao.service.ConsumerFailureRecoverer;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.SimpleMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+// All factories start from Boot's configurer, so spring.rabbitmq.listener.simple.* apply and
+// spring.threads.virtual.enabled=true (Java 21+) runs the consumers on virtual threads.
+// Per-queue concurrency/prefetch come from app.rabbit.listeners[<queue>].* (RabbitListenerProperties).
+// A failed delivery is never requeued in place: ConsumerFailureRecoverer sends it to a delayed retry
+// queue or to the quarantine table, and the original delivery is acked.
 @Configuration
 public class RabbitListenerStringConfig {
 
+    private final SimpleRabbitListenerContainerFactoryConfigurer configurer;
+    private final RabbitListenerProperties listenerProperties;
+    private final ConsumerFailureRecoverer failureRecoverer;
+
+    public RabbitListenerStringConfig(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                      RabbitListenerProperties listenerProperties,
+                                      ConsumerFailureRecoverer failureRecoverer) {
+        this.configurer = configurer;
+        this.listenerProperties = listenerProperties;
+        this.failureRecoverer = failureRecoverer;
+    }
+
     // Default factory used by @RabbitListener without explicit containerFactory
     @Bean(name = "rabbitListenerContainerFactory")
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
-        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(new SimpleMessageConverter()); // deliver raw body as String when possible
-        return factory;
+        return stringFactory(connectionFactory); // deliver raw body as String when possible
     }
 
     // Explicit factory referenced by FileWatcher listeners
     @Bean
     public SimpleRabbitListenerContainerFactory stringListenerFactory(ConnectionFactory connectionFactory) {
+        return stringFactory(connectionFactory);
+    }
+
+    // Batch factory for the laser/facasOk FileWatcher queues: delivers up to batchSize messages
+    // (or whatever arrived within batchReceiveTimeout) as a List<String>; ack/reject per batch.
+    @Bean
+    public SimpleRabbitListenerContainerFactory stringBatchListenerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${app.filewatcher.batch.size:50}") int batchSize,
+            @Value("${app.filewatcher.batch.receive-timeout-ms:250}") long receiveTimeoutMs) {
+        return batchFactory(connectionFactory, batchSize, receiveTimeoutMs);
+    }
+
+    // Batch factory for op.imported: an ERP re-export arrives as thousands of OPs, imported a block
+    // at a time (OpBatchImportService). The listener takes List<Message> and routes failed items
+    // through the recoverer itself, so only the failing OPs are retried.
+    @Bean
+    public SimpleRabbitListenerContainerFactory opImportBatchListenerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${app.ops.import.batch.consumer-size:200}") int batchSize,
+            @Value("${app.ops.import.batch.receive-timeout-ms:500}") long receiveTimeoutMs) {
+        return batchFactory(connectionFactory, batchSize, receiveTimeoutMs);
+    }
+
+    // Batch factory for DXF analysis results: a replay or a re-render of a folder publishes hundreds of
+    // results at once, upserted a block at a time (DXFAnalysisBatchService).
+    @Bean
+    public SimpleRabbitListenerContainerFactory dxfResultBatchListenerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${app.dxf.analysis.batch.consumer-size:100}") int batchSize,
+            @Value("${app.dxf.analysis.batch.receive-timeout-ms:250}") long receiveTimeoutMs) {
+        return batchFactory(connectionFactory, batchSize, receiveTimeoutMs);
+    }
+
+    private SimpleRabbitListenerContainerFactory batchFactory(ConnectionFactory connectionFactory,
+                                                              int batchSize, long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = stringFactory(connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setBatchReceiveTimeout(receiveTimeoutMs);
+        factory.setPrefetchCount(Math.max(batchSize, 250));
+        // a failed batch was already rolled back; each message goes through the recoverer
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory stringFactory(ConnectionFactory connectionFactory) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setConnectionFactory(connectionFactory);
+        configurer.configure(factory, connectionFactory);
+        // the configurer picks up the Jackson converter bean; listeners here parse the String themselves
         factory.setMessageConverter(new SimpleMessageConverter());
+        factory.setContainerCustomizer(listenerProperties::apply);
+        // no in-process retry: the single attempt goes straight to the recoverer
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(failureRecoverer)
+                .build());
         return factory;
     }
 }
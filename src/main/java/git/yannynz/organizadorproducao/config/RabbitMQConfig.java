@@ -1,6 +1,11 @@
 package git.yannynz.organizadorproducao.config;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -36,4 +41,25 @@ public class RabbitMQConfig {
     public Queue dxfAnalysisResultQueue(DXFAnalysisProperties properties) {
         return new Queue(properties.getResultQueue(), true);
     }
+
+    /**
+     * Filas de espera da retentativa ({@code <fila>.retry.<atraso>}): a mensagem expira pelo TTL e
+     * volta, via dead-letter no exchange padrão, para a fila original. As filas principais não
+     * ganham argumentos novos (redeclarar fila existente com outros argumentos falha no broker).
+     */
+    @Bean
+    public Declarables consumerRetryQueues(RabbitListenerProperties listenerProperties) {
+        RabbitListenerProperties.Retry retry = listenerProperties.getRetry();
+        List<Declarable> queues = new ArrayList<>();
+        for (String queue : retry.getQueues()) {
+            for (long delay : retry.delays()) {
+                queues.add(QueueBuilder.durable(RabbitListenerProperties.Retry.retryQueue(queue, delay))
+                        .ttl((int) Math.min(Integer.MAX_VALUE, delay))
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(queue)
+                        .build());
+            }
+        }
+        return new Declarables(queues);
+    }
 }
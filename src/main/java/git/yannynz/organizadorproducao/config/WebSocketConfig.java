@@ -20,7 +20,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/topic/prioridades");
+        // /queue: respostas individuais (@SendToUser), ex.: /user/queue/orders/sync
+        config.enableSimpleBroker("/topic", "/topic/prioridades", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Base64;
@@ -11,13 +12,31 @@ import java.util.List;
 
 public final class CursorPaging {
     public record Key(Instant dataEntrega, Long id) {}
+    /** Cursor da busca de clientes: relevância, último serviço e id (ver {@code ClienteRepositoryImpl}). */
+    public record ClienteKey(BigDecimal score, Instant ultimoServicoEm, Long id) {}
     public record PageEnvelope<T>(List<T> items, String nextCursor, boolean hasMore) {}
 
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
-        public static String encode(Key key) {
+    public static String encode(Key key) {
+        return write(key);
+    }
+
+    public static Key decode(String cursor) {
+        return read(cursor, Key.class);
+    }
+
+    public static String encode(ClienteKey key) {
+        return write(key);
+    }
+
+    public static ClienteKey decodeCliente(String cursor) {
+        return read(cursor, ClienteKey.class);
+    }
+
+    private static String write(Object key) {
         if (key == null) return null;
         try {
             String json = MAPPER.writeValueAsString(key);
@@ -28,12 +47,12 @@ public final class CursorPaging {
         }
     }
 
-    public static Key decode(String cursor) {
+    private static <K> K read(String cursor, Class<K> type) {
         if (cursor == null || cursor.isBlank()) return null;
         try {
             byte[] decoded = Base64.getUrlDecoder().decode(cursor);
             String json = new String(decoded, StandardCharsets.UTF_8);
-            return MAPPER.readValue(json, Key.class);
+            return MAPPER.readValue(json, type);
         } catch (Exception e) {
             throw new IllegalArgumentException("Cursor inválido", e);
         }
@@ -2,6 +2,6 @@ package git.yannynz.organizadorproducao.config.pagination;
 
 public enum CursorStrategy {
     ID,       // super performático: ORDER BY id DESC (usa PK)
-    DATE_ID   // exatidão por dataEntrega DESC, id DESC (sem novo índice)
+    DATE_ID   // exatidão por dataEntrega DESC, id DESC (idx_orders_data_entrega_id)
 }
 
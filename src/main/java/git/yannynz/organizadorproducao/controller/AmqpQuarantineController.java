@@ -0,0 +1,36 @@
+package git.yannynz.organizadorproducao.controller;
+
+import git.yannynz.organizadorproducao.model.dto.QuarantinedMessage;
+import git.yannynz.organizadorproducao.service.MessageQuarantineService;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/amqp/quarantine")
+public class AmqpQuarantineController {
+
+    private final MessageQuarantineService quarantine;
+
+    public AmqpQuarantineController(MessageQuarantineService quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    @GetMapping
+    public List<QuarantinedMessage> pending(@RequestParam(required = false) String queue,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        return quarantine.pending(queue, limit);
+    }
+
+    /** Reenvia pendentes à fila de origem em ritmo controlado; responde com as mensagens reservadas. */
+    @PostMapping("/replay")
+    public ResponseEntity<List<QuarantinedMessage>> replay(@RequestParam(required = false) String queue,
+                                                           @RequestParam(defaultValue = "100") int limit,
+                                                           @RequestParam(defaultValue = "10") double ratePerSecond) {
+        return ResponseEntity.accepted().body(quarantine.replay(queue, limit, ratePerSecond));
+    }
+}
@@ -1,5 +1,6 @@
 package git.yannynz.organizadorproducao.controller;
 
+import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
 import git.yannynz.organizadorproducao.model.Cliente;
 import git.yannynz.organizadorproducao.model.ClienteEndereco;
 import git.yannynz.organizadorproducao.service.ClienteService;
@@ -7,6 +8,7 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +27,39 @@ public class ClienteController {
         return service.search(search, pageable);
     }
 
+    /**
+     * Autocomplete de clientes: relevância por nome/apelido e paginação por cursor
+     * ({@code nextCursor}). {@code count=estimate|exact} inclui o total.
+     */
+    @GetMapping("/search-cursor")
+    public ResponseEntity<?> searchCursor(@RequestParam(name = "q", required = false) String q,
+                                          @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                          @RequestParam(name = "cursor", required = false) String cursor,
+                                          @RequestParam(name = "count", required = false) String count) {
+        int pageSize = Math.max(1, Math.min(limit, 100));
+
+        ClienteService.CountMode countMode = ClienteService.CountMode.NONE;
+        if (count != null && !count.isBlank()) {
+            try {
+                countMode = ClienteService.CountMode.valueOf(count.trim().toUpperCase());
+            } catch (IllegalArgumentException ignore) {
+                // fica sem contagem
+            }
+        }
+
+        CursorPaging.ClienteKey after;
+        try {
+            after = (cursor == null || "null".equalsIgnoreCase(cursor.trim()) || "undefined".equalsIgnoreCase(cursor.trim()))
+                    ? null
+                    : CursorPaging.decodeCliente(cursor.trim());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest()
+                    .body("cursor inválido (use exatamente o 'nextCursor' retornado pela API)");
+        }
+
+        return ResponseEntity.ok(service.searchByCursor(q, pageSize, after, countMode));
+    }
+
     @GetMapping("/{id}")
     public Cliente getById(@PathVariable Long id) {
         return service.findById(id).orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
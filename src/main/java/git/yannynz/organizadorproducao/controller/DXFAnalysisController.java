@@ -1,17 +1,24 @@
 package git.yannynz.organizadorproducao.controller;
 
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisInFlightView;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestDTO;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestResponse;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisSummary;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisView;
+import git.yannynz.organizadorproducao.service.DXFAnalysisInFlightRegistry;
 import git.yannynz.organizadorproducao.service.DXFAnalysisRequestPublisher;
 import git.yannynz.organizadorproducao.service.DXFAnalysisService;
+import git.yannynz.organizadorproducao.service.DXFImageService;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,21 +29,37 @@ public class DXFAnalysisController {
 
     private final DXFAnalysisService analysisService;
     private final DXFAnalysisRequestPublisher requestPublisher;
+    private final DXFImageService imageService;
+    private final DXFAnalysisInFlightRegistry inFlight;
 
     public DXFAnalysisController(DXFAnalysisService analysisService,
-                                 DXFAnalysisRequestPublisher requestPublisher) {
+                                 DXFAnalysisRequestPublisher requestPublisher,
+                                 DXFImageService imageService,
+                                 DXFAnalysisInFlightRegistry inFlight) {
         this.analysisService = analysisService;
         this.requestPublisher = requestPublisher;
+        this.imageService = imageService;
+        this.inFlight = inFlight;
     }
 
     @GetMapping("/order/{orderNr}")
     public ResponseEntity<DXFAnalysisView> getLatestByOrder(@PathVariable String orderNr) {
-        return analysisService.findLatestByOrderNr(orderNr)
-                .map(analysisService::toView)
+        return analysisService.findLatestViewByOrderNr(orderNr)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Cards do quadro: pedido → resumo da última análise, numa consulta só (pedidos sem análise ficam de fora)
+    @PostMapping("/latest")
+    public ResponseEntity<Map<String, DXFAnalysisSummary>> getLatestByOrders(@RequestBody List<String> orderNrs) {
+        return ResponseEntity.ok(analysisService.findLatestSummaries(orderNrs));
+    }
+
+    @GetMapping("/inflight")
+    public ResponseEntity<List<DXFAnalysisInFlightView>> listInFlight() {
+        return ResponseEntity.ok(inFlight.snapshot());
+    }
+
     @GetMapping("/order/{orderNr}/history")
     public ResponseEntity<List<DXFAnalysisView>> listHistory(@PathVariable String orderNr,
                                                              @RequestParam(name = "limit", defaultValue = "5") int limit) {
@@ -53,14 +76,22 @@ public class DXFAnalysisController {
     }
 
     @GetMapping("/{analysisId}/image")
-    public ResponseEntity<?> getImage(@PathVariable String analysisId) {
-        return analysisService.loadAnalysisImage(analysisId);
+    public ResponseEntity<?> getImage(@PathVariable String analysisId,
+                                      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return imageService.image(analysisId, ifNoneMatch);
+    }
+
+    // Miniatura para os cards (gerada no primeiro acesso; sem cache de imagens, reduzida em memória ou 404)
+    @GetMapping("/{analysisId}/thumbnail")
+    public ResponseEntity<?> getThumbnail(@PathVariable String analysisId,
+                                          @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return imageService.thumbnail(analysisId, ifNoneMatch);
     }
 
     @PostMapping("/request")
     public ResponseEntity<DXFAnalysisRequestResponse> requestAnalysis(@Valid @RequestBody DXFAnalysisRequestDTO request) {
-        String analysisId = requestPublisher.publish(request);
-        DXFAnalysisRequestResponse response = new DXFAnalysisRequestResponse(analysisId, request.orderNumber());
-        return ResponseEntity.accepted().body(response);
+        DXFAnalysisRequestResponse response = requestPublisher.submit(request);
+        // cacheHit: a análise já existe (200); senão foi (ou já estava) enfileirada para o worker (202)
+        return response.cacheHit() ? ResponseEntity.ok(response) : ResponseEntity.accepted().body(response);
     }
 }
@@ -0,0 +1,27 @@
+package git.yannynz.organizadorproducao.controller;
+
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisSummary;
+import git.yannynz.organizadorproducao.service.DXFAnalysisService;
+import java.util.List;
+import java.util.Map;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+@Controller
+public class DXFAnalysisWebSocketController {
+
+    private final DXFAnalysisService analysisService;
+
+    public DXFAnalysisWebSocketController(DXFAnalysisService analysisService) {
+        this.analysisService = analysisService;
+    }
+
+    // Mesmo que POST /api/dxf-analysis/latest: os tablets atualizam os scores do quadro numa mensagem só
+    @MessageMapping("/dxf-analysis/latest")
+    @SendToUser(destinations = "/queue/dxf-analysis/latest", broadcast = false)
+    public Map<String, DXFAnalysisSummary> getLatestByOrders(@Payload List<String> orderNrs) {
+        return analysisService.findLatestSummaries(orderNrs);
+    }
+}
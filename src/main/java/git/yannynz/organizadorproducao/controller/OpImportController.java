@@ -2,8 +2,12 @@ package git.yannynz.organizadorproducao.controller;
 
 import git.yannynz.organizadorproducao.model.OpImport;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
 import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.service.OpBatchImportService;
 import git.yannynz.organizadorproducao.service.OpImportService;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,10 +19,15 @@ public class OpImportController {
 
   private final OpImportService service;
   private final OpImportRepository repo;
+  private final OpBatchImportService batchService;
+  private final int batchMaxItems;
 
-  public OpImportController(OpImportService service, OpImportRepository repo) {
+  public OpImportController(OpImportService service, OpImportRepository repo, OpBatchImportService batchService,
+      @Value("${app.ops.import.batch.max-items:5000}") int batchMaxItems) {
     this.service = service;
     this.repo = repo;
+    this.batchService = batchService;
+    this.batchMaxItems = batchMaxItems;
   }
 
   @PostMapping("/import")
@@ -27,6 +36,16 @@ public class OpImportController {
     return ResponseEntity.accepted().build();
   }
 
+  // Reexportação do ERP: um resultado por OP, na ordem enviada (ERRO não derruba as demais)
+  @PostMapping("/import/batch")
+  public ResponseEntity<List<OpImportResult>> importarLote(@RequestBody List<OpImportRequestDTO> reqs) {
+    if (reqs.size() > batchMaxItems) {
+      throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+          "Lote com " + reqs.size() + " OPs excede o limite de " + batchMaxItems);
+    }
+    return ResponseEntity.ok(batchService.importar(reqs));
+  }
+
   @PatchMapping("/{id}/vincular-faca/{facaId}")
   public ResponseEntity<Void> vincular(@PathVariable Long id, @PathVariable Long facaId) {
     OpImport op = repo.findById(id)
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Objects;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -19,9 +20,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import git.yannynz.organizadorproducao.domain.user.User;
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.service.OrderBoardService;
 import git.yannynz.organizadorproducao.service.OrderService;
 import git.yannynz.organizadorproducao.service.OpImportService;
 import git.yannynz.organizadorproducao.service.OrderStatusRules;
@@ -42,6 +46,12 @@ public class OrderController {
     @Autowired
     private OpImportService opImportService;
 
+    @Autowired
+    private git.yannynz.organizadorproducao.service.OrderExportService orderExportService;
+
+    @Autowired
+    private OrderBoardService orderBoardService;
+
     @GetMapping("/{id}/history")
     public ResponseEntity<List<git.yannynz.organizadorproducao.model.OrderHistory>> getOrderHistory(@PathVariable Long id) {
         return ResponseEntity.ok(orderHistoryService.getHistory(id));
@@ -101,9 +111,44 @@ public class OrderController {
         }
     }
 
+    /**
+     * Quadro de pedidos: só ativos por padrão ({@code scope=all} inclui Retirada/Entregue),
+     * paginado quando {@code page} é informado. Os ativos respondem 304 se a ETag não mudou;
+     * {@code scope=all} vai sempre ao banco: a seq do feed não anda para pedidos finalizados.
+     */
     @GetMapping
-    public List<Order> getAllOrders() {
-        return orderService.getAllOrders();
+    public ResponseEntity<List<OrderBoardRow>> getAllOrders(
+            @RequestParam(name = "scope", defaultValue = "active") String scope,
+            @RequestParam(name = "page", required = false) Integer page,
+            @RequestParam(name = "size", required = false) Integer size,
+            WebRequest request) {
+        if ("all".equalsIgnoreCase(scope)) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(orderBoardService.rows(true, page, size));
+        }
+        String etag = "W/\"" + orderBoardService.version() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<OrderBoardRow> rows = orderBoardService.rows(false, page, size);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(rows);
+    }
+
+    /** Pedidos ativos agrupados por status e prioridade, servidos do quadro em memória. */
+    @GetMapping("/board")
+    public ResponseEntity<java.util.Map<Integer, java.util.Map<String, List<OrderBoardRow>>>> getBoard(WebRequest request) {
+        String etag = "W/\"" + orderBoardService.version() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(orderBoardService.grouped());
     }
 
     @GetMapping("/{id}")
@@ -310,7 +355,24 @@ public ResponseEntity<?> searchDeliveredCursor(
     return ResponseEntity.ok(envelope);
 }
 
+// Export completo com os filtros do search-cursor, sem paginação (NDJSON padrão ou CSV)
+@PostMapping("/export")
+public void exportOrders(
+        @RequestParam(name = "format", required = false) String formatParam,
+        @RequestBody(required = false) git.yannynz.organizadorproducao.model.dto.OrderSearchDTO filters,
+        jakarta.servlet.http.HttpServletResponse response
+) throws java.io.IOException {
+    git.yannynz.organizadorproducao.service.OrderExportService.Format format;
+    try {
+        format = git.yannynz.organizadorproducao.service.OrderExportService.Format.parse(formatParam);
+    } catch (IllegalArgumentException ex) {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), "format inválido (use ndjson ou csv)");
+        return;
+    }
 
-
-
+    response.setContentType(format.contentType());
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Content-Disposition", "attachment; filename=\"pedidos." + format.extension() + "\"");
+    orderExportService.export(filters, format, response.getOutputStream());
+}
 }
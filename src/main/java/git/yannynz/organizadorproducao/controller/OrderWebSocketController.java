@@ -2,13 +2,20 @@ package git.yannynz.organizadorproducao.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import git.yannynz.organizadorproducao.service.WebSocketMessage;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.model.dto.OrderSyncResponse;
+import git.yannynz.organizadorproducao.service.OrderBoardService;
+import git.yannynz.organizadorproducao.service.CoalescingBroadcaster;
+import git.yannynz.organizadorproducao.service.OrderDeltaFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import git.yannynz.organizadorproducao.model.Order;
@@ -20,12 +27,36 @@ public class OrderWebSocketController {
     @Autowired
     private OrderService orderService;
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private CoalescingBroadcaster broadcaster;
+    @Autowired
+    private OrderDeltaFeed orderDeltaFeed;
+    @Autowired
+    private OrderBoardService orderBoardService;
 
+    // Quadro (pedidos ativos) só para quem pediu (antes era difundido a todos os inscritos de /topic/orders)
     @MessageMapping("/orders")
-    @SendTo("/topic/orders")
-    public List<Order> getAllOrders() {
-        return orderService.getAllOrders();
+    @SendToUser(destinations = "/queue/orders", broadcast = false)
+    public List<OrderBoardRow> getAllOrders() {
+        return orderBoardService.activeRows();
+    }
+
+    // Quadro agrupado (status → prioridade → pedidos), direto da memória
+    @MessageMapping("/orders/board")
+    @SendToUser(destinations = "/queue/orders/board", broadcast = false)
+    public Map<Integer, Map<String, List<OrderBoardRow>>> getBoard() {
+        return orderBoardService.grouped();
+    }
+
+    /**
+     * Ressincroniza o feed {@code /topic/orders/delta}: cabeçalhos STOMP {@code since} (última seq
+     * aplicada) e {@code epoch}. Responde em {@code /user/queue/orders/sync} com os deltas perdidos
+     * ou, se a lacuna for grande demais, com um snapshot.
+     */
+    @MessageMapping("/orders/sync")
+    @SendToUser(destinations = "/queue/orders/sync", broadcast = false)
+    public OrderSyncResponse sync(@Header(name = "since", required = false) Long since,
+                                  @Header(name = "epoch", required = false) String epoch) {
+        return orderDeltaFeed.sync(epoch, since, orderBoardService::activeRows);
     }
 
     @MessageMapping("/orders/{id}")
@@ -34,16 +65,15 @@ public class OrderWebSocketController {
         return orderService.getOrderById(id).orElse(null);
     }
 
+    // create/update/delete: publicados em /topic/orders só pelo CoalescingBroadcaster (após o commit)
     @MessageMapping("/orders/create")
-    @SendTo("/topic/orders")
-    public Order createOrder(Order order) {
-        System.out.println("Pedido criado e enviado via WebSocket: " + order);
-        return orderService.saveOrder(order);
+    public void createOrder(Order order) {
+        Order savedOrder = orderService.saveOrder(order);
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, savedOrder);
     }
 
     @MessageMapping("/orders/update")
-    @SendTo("/topic/orders")
-    public Order updateOrder(Order order) {
+    public void updateOrder(Order order) {
         Optional<Order> existingOrder = orderService.getOrderById(order.getId());
         if (existingOrder.isPresent()) {
             Order updatedOrder = existingOrder.get();
@@ -73,22 +103,14 @@ public class OrderWebSocketController {
             updatedOrder.setPapelCalibrado(order.isPapelCalibrado());
 
             Order savedOrder = orderService.saveOrder(updatedOrder);
-            System.out.println("Pedido atualizado: " + savedOrder);
-            
-            WebSocketMessage message = new WebSocketMessage("update", savedOrder);
-            messagingTemplate.convertAndSend("/topic/orders", message);
-
-            return savedOrder;
+            broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, savedOrder);
         }
-        return null;
     }
 
     @MessageMapping("/orders/delete/{id}")
-    @SendTo("/topic/orders")
-    public Long deleteOrder(Long id) {
+    public void deleteOrder(@DestinationVariable Long id) {
         orderService.deleteOrder(id);
-        System.out.println("Pedido deletado via WebSocket: " + id);
-        return id;
+        broadcaster.publishDelete(CoalescingBroadcaster.ORDERS, id);
     }
 
 }
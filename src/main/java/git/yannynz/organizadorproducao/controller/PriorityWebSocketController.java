@@ -1,11 +1,13 @@
 package git.yannynz.organizadorproducao.controller;
 
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.service.CoalescingBroadcaster;
+import git.yannynz.organizadorproducao.service.OrderBoardService;
 import git.yannynz.organizadorproducao.service.OrderService;
-import git.yannynz.organizadorproducao.service.WebSocketMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
@@ -18,13 +20,17 @@ public class PriorityWebSocketController {
     private OrderService orderService;
     
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private CoalescingBroadcaster broadcaster;
+
+    @Autowired
+    private OrderBoardService orderBoardService;
 
     
+    // Quadro (pedidos ativos) só para quem pediu (antes era difundido a todos os inscritos de /topic/prioridades)
     @MessageMapping("/prioridades")
-    public void getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        messagingTemplate.convertAndSend("/topic/prioridades", orders);
+    @SendToUser(destinations = "/queue/prioridades", broadcast = false)
+    public List<OrderBoardRow> getAllOrders() {
+        return orderBoardService.activeRows();
     }
 
    
@@ -39,8 +45,7 @@ public class PriorityWebSocketController {
             System.out.println("Prioridade atualizada: " + savedOrder);
 
             // Enviar atualização via WebSocket para o tópico /topic/prioridades
-            WebSocketMessage message = new WebSocketMessage("update", savedOrder);
-            messagingTemplate.convertAndSend("/topic/prioridades", message);
+            broadcaster.publishOrder(CoalescingBroadcaster.PRIORIDADES, "update", savedOrder);
         }
     }
 }
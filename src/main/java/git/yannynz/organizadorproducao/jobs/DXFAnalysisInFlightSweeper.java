@@ -0,0 +1,38 @@
+package git.yannynz.organizadorproducao.jobs;
+
+import git.yannynz.organizadorproducao.service.DXFAnalysisInFlightRegistry;
+import git.yannynz.organizadorproducao.service.DXFAnalysisRequestPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Varre os pedidos de análise DXF sem resultado ({@link DXFAnalysisInFlightRegistry#sweep}) e republica
+ * no worker os que ainda têm tentativa; os demais ficam marcados como expirados no registro.
+ */
+@Component
+public class DXFAnalysisInFlightSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(DXFAnalysisInFlightSweeper.class);
+
+    private final DXFAnalysisInFlightRegistry inFlight;
+    private final DXFAnalysisRequestPublisher publisher;
+
+    public DXFAnalysisInFlightSweeper(DXFAnalysisInFlightRegistry inFlight, DXFAnalysisRequestPublisher publisher) {
+        this.inFlight = inFlight;
+        this.publisher = publisher;
+    }
+
+    @Scheduled(fixedDelayString = "${app.dxf.analysis.request.sweep-interval-ms:60000}", initialDelay = 30_000)
+    public void sweep() {
+        for (DXFAnalysisInFlightRegistry.Republish expired : inFlight.sweep()) {
+            try {
+                publisher.republish(expired);
+            } catch (RuntimeException e) {
+                // segue no registro: o próximo passe após o TTL tenta de novo ou marca como expirado
+                log.warn("[DXF] falha ao republicar pedido {}: {}", expired.analysisId(), e.getMessage());
+            }
+        }
+    }
+}
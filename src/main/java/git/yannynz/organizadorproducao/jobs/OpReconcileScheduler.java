@@ -0,0 +1,134 @@
+package git.yannynz.organizadorproducao.jobs;
+
+import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.service.OpImportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconciliação incremental OP ↔ pedido.
+ * <p>
+ * Sem marca d'água o passe percorre todas as OPs (em lotes). Os seguintes só revisitam
+ * OPs alteradas, pedidos alterados (via {@code updated_at}) e OPs ainda sem faca dentro da
+ * janela configurada. A marca d'água só avança quando o passe termina sem erro e recua
+ * {@code overlap} para cobrir transações que commitaram depois da leitura. Ela é gravada em
+ * {@code job_watermark} e lida no primeiro passe, então um restart não refaz o passe completo.
+ */
+@Component
+public class OpReconcileScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(OpReconcileScheduler.class);
+
+    static final String JOB = "op_reconcile";
+    private static final String SELECT_WATERMARK = "SELECT watermark FROM job_watermark WHERE job = ?";
+    private static final String UPSERT_WATERMARK =
+            "INSERT INTO job_watermark (job, watermark, updated_at) VALUES (?, ?, now()) "
+                    + "ON CONFLICT (job) DO UPDATE SET watermark = EXCLUDED.watermark, updated_at = now()";
+
+    private final OpImportService opImportService;
+    private final OpImportRepository opImportRepository;
+    private final JdbcTemplate jdbc;
+    private final int chunkSize;
+    private final Duration overlap;
+    private final Duration unlinkedWindow;
+
+    private final AtomicInteger backlog = new AtomicInteger(0);
+    private final Timer passTimer;
+    private final Counter processed;
+
+    private volatile OffsetDateTime watermark;
+    private volatile boolean watermarkLoaded;
+
+    public OpReconcileScheduler(OpImportService opImportService,
+                                OpImportRepository opImportRepository,
+                                MeterRegistry meterRegistry,
+                                JdbcTemplate jdbc,
+                                @Value("${app.ops.reconcile.chunk-size:200}") int chunkSize,
+                                @Value("${app.ops.reconcile.overlap-seconds:60}") long overlapSeconds,
+                                @Value("${app.ops.reconcile.unlinked-window-days:7}") long unlinkedWindowDays) {
+        this.opImportService = opImportService;
+        this.opImportRepository = opImportRepository;
+        this.jdbc = jdbc;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.overlap = Duration.ofSeconds(overlapSeconds);
+        this.unlinkedWindow = Duration.ofDays(unlinkedWindowDays);
+
+        Gauge.builder("organizador_op_reconcile_backlog", backlog, AtomicInteger::get)
+            .description("OPs pendentes no passe de reconciliação em andamento")
+            .register(meterRegistry);
+        this.passTimer = Timer.builder("organizador_op_reconcile_pass_seconds")
+            .description("Duração de cada passe de reconciliação OP ↔ pedido")
+            .register(meterRegistry);
+        this.processed = Counter.builder("organizador_op_reconcile_ops_total")
+            .description("OPs avaliadas pela reconciliação")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ops.reconcile.interval-ms:50000}", initialDelay = 15_000)
+    public void reconcile() {
+        OffsetDateTime inicio = OffsetDateTime.now();
+        if (!watermarkLoaded) {
+            watermark = loadWatermark();
+            watermarkLoaded = true;
+        }
+        OffsetDateTime desde = watermark;
+        Timer.Sample sample = Timer.start();
+        try {
+            List<Long> ids = desde == null
+                    ? opImportRepository.findAllIds()
+                    : opImportRepository.findIdsToReconcile(desde, inicio.minus(unlinkedWindow),
+                            desde.toZonedDateTime());
+            backlog.set(ids.size());
+
+            int avaliadas = 0;
+            for (int i = 0; i < ids.size(); i += chunkSize) {
+                List<Long> lote = ids.subList(i, Math.min(i + chunkSize, ids.size()));
+                int n = opImportService.reconcileChunk(lote);
+                avaliadas += n;
+                processed.increment(n);
+                backlog.addAndGet(-lote.size());
+            }
+
+            watermark = inicio.minus(overlap);
+            saveWatermark(watermark);
+            log.info("[RECONCILE] Passe {} concluído: {} OPs avaliadas",
+                    desde == null ? "completo" : "incremental", avaliadas);
+        } catch (Exception e) {
+            log.error("[RECONCILE] Falha no passe de reconciliação; será refeito a partir de {}: {}",
+                    desde, e.getMessage(), e);
+        } finally {
+            sample.stop(passTimer);
+        }
+    }
+
+    private OffsetDateTime loadWatermark() {
+        try {
+            List<OffsetDateTime> rows = jdbc.queryForList(SELECT_WATERMARK, OffsetDateTime.class, JOB);
+            return rows.isEmpty() ? null : rows.get(0);
+        } catch (Exception e) {
+            log.warn("[RECONCILE] Falha ao ler marca d'água; primeiro passe será completo: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // falha ao gravar não derruba o passe: a marca em memória segue valendo até o próximo restart
+    private void saveWatermark(OffsetDateTime value) {
+        try {
+            jdbc.update(UPSERT_WATERMARK, JOB, value);
+        } catch (Exception e) {
+            log.warn("[RECONCILE] Falha ao gravar marca d'água {}: {}", value, e.getMessage());
+        }
+    }
+}
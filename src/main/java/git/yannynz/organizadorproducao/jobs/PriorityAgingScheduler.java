@@ -0,0 +1,98 @@
+package git.yannynz.organizadorproducao.jobs;
+
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import git.yannynz.organizadorproducao.service.CoalescingBroadcaster;
+import git.yannynz.organizadorproducao.service.OrderDeltaFeed;
+import git.yannynz.organizadorproducao.service.ProductionBoard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Envelhecimento periódico de prioridade (VERDE → AZUL após 48h, AZUL → AMARELO após 24h,
+ * contados a partir de {@code dataH}).
+ * <p>
+ * Na mesma transação, os ids elegíveis são travados e o update é feito no banco em uma só
+ * instrução; apenas esses pedidos são recarregados e publicados em {@code /topic/prioridades} pelo
+ * {@link CoalescingBroadcaster} (um frame por janela).
+ */
+@Component
+public class PriorityAgingScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PriorityAgingScheduler.class);
+
+    static final long HORAS_VERDE_PARA_AZUL = 48;
+    static final long HORAS_AZUL_PARA_AMARELO = 24;
+
+    private final OrderRepository orderRepository;
+    private final CoalescingBroadcaster broadcaster;
+    private final OrderDeltaFeed deltaFeed;
+    private final ProductionBoard board;
+    private final Clock clock;
+    private final Timer passTimer;
+    private final Counter changed;
+
+    @Autowired
+    public PriorityAgingScheduler(OrderRepository orderRepository,
+                                  CoalescingBroadcaster broadcaster,
+                                  OrderDeltaFeed deltaFeed,
+                                  ProductionBoard board,
+                                  MeterRegistry meterRegistry) {
+        this(orderRepository, broadcaster, deltaFeed, board, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    PriorityAgingScheduler(OrderRepository orderRepository,
+                           CoalescingBroadcaster broadcaster,
+                           OrderDeltaFeed deltaFeed,
+                           ProductionBoard board,
+                           MeterRegistry meterRegistry,
+                           Clock clock) {
+        this.orderRepository = orderRepository;
+        this.broadcaster = broadcaster;
+        this.deltaFeed = deltaFeed;
+        this.board = board;
+        this.clock = clock;
+        this.passTimer = Timer.builder("organizador_priority_aging_seconds")
+            .description("Duração de cada execução do envelhecimento de prioridade")
+            .register(meterRegistry);
+        this.changed = Counter.builder("organizador_priority_aging_changed_total")
+            .description("Pedidos que tiveram a prioridade elevada pelo envelhecimento")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedRate = 60000)
+    @Transactional
+    public void escalate() {
+        Timer.Sample sample = Timer.start();
+        try {
+            OffsetDateTime agora = OffsetDateTime.now(clock);
+            List<Long> ids = orderRepository.lockPrioritiesToEscalate(
+                    agora.minusHours(HORAS_VERDE_PARA_AZUL),
+                    agora.minusHours(HORAS_AZUL_PARA_AMARELO));
+            if (ids.isEmpty()) {
+                return;
+            }
+            orderRepository.escalatePriorities(ids);
+
+            changed.increment(ids.size());
+            List<Order> alterados = orderRepository.findAllById(ids);
+            log.info("[PRIORIDADE] {} pedidos com prioridade elevada: {}", alterados.size(), ids);
+            // o update nativo não passa pelos listeners JPA
+            alterados.forEach(deltaFeed::recordUpsert);
+            board.recordAll(alterados);
+            broadcaster.publishOrders(CoalescingBroadcaster.PRIORIDADES, alterados);
+        } finally {
+            sample.stop(passTimer);
+        }
+    }
+}
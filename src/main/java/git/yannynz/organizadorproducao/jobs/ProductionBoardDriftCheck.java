@@ -0,0 +1,73 @@
+package git.yannynz.organizadorproducao.jobs;
+
+import git.yannynz.organizadorproducao.service.ProductionBoard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Confere o {@link ProductionBoard} em memória contra o banco. Divergência indica um caminho de
+ * escrita que não passa pelos listeners JPA (update nativo, outro processo); com
+ * {@code app.board.drift.repair} o quadro é corrigido na hora.
+ */
+@Component
+public class ProductionBoardDriftCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionBoardDriftCheck.class);
+
+    private final ProductionBoard board;
+    private final boolean repair;
+    private final AtomicInteger lastDrift = new AtomicInteger();
+    private final Counter missing;
+    private final Counter extra;
+    private final Counter stale;
+
+    public ProductionBoardDriftCheck(ProductionBoard board,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.board.drift.repair:true}") boolean repair) {
+        this.board = board;
+        this.repair = repair;
+        Gauge.builder("organizador_board_drift", lastDrift, AtomicInteger::get)
+            .description("Divergências do quadro em memória na última verificação")
+            .register(meterRegistry);
+        this.missing = driftCounter(meterRegistry, "missing");
+        this.extra = driftCounter(meterRegistry, "extra");
+        this.stale = driftCounter(meterRegistry, "stale");
+    }
+
+    private static Counter driftCounter(MeterRegistry registry, String kind) {
+        return Counter.builder("organizador_board_drift_total")
+            .description("Divergências encontradas entre o quadro em memória e o banco")
+            .tag("kind", kind)
+            .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.board.drift.interval-ms:300000}",
+               initialDelayString = "${app.board.drift.interval-ms:300000}")
+    public void check() {
+        if (!board.isReady()) {
+            return;
+        }
+        try {
+            ProductionBoard.Drift drift = board.checkDrift(repair);
+            lastDrift.set(drift.total());
+            missing.increment(drift.missing());
+            extra.increment(drift.extra());
+            stale.increment(drift.stale());
+            if (drift.total() > 0) {
+                log.warn("[BOARD] Quadro divergente do banco: {} faltando, {} sobrando, {} desatualizados{}",
+                        drift.missing(), drift.extra(), drift.stale(), repair ? " (corrigido)" : "");
+            } else {
+                log.debug("[BOARD] Quadro consistente ({} pedidos)", board.size());
+            }
+        } catch (Exception e) {
+            log.error("[BOARD] Falha na verificação do quadro: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package git.yannynz.organizadorproducao.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import git.yannynz.organizadorproducao.repository.ClienteNomeCacheListener;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -10,6 +11,7 @@ import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "clientes")
+@EntityListeners(ClienteNomeCacheListener.class)
 public class Cliente {
 
   @Id
@@ -31,6 +31,10 @@ public class DXFAnalysis {
     @Column(name = "order_nr", length = 64)
     private String orderNr;
 
+    // NR sem prefixo (NR/CL), chave da busca "última análise do pedido"
+    @Column(name = "order_nr_key", length = 64)
+    private String orderNrKey;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id")
     private Order order;
@@ -161,6 +165,14 @@ public class DXFAnalysis {
         this.orderNr = orderNr;
     }
 
+    public String getOrderNrKey() {
+        return orderNrKey;
+    }
+
+    public void setOrderNrKey(String orderNrKey) {
+        this.orderNrKey = orderNrKey;
+    }
+
     public Order getOrder() {
         return order;
     }
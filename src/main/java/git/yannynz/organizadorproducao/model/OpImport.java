@@ -4,11 +4,14 @@ import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.type.SqlTypes;
 import com.fasterxml.jackson.databind.JsonNode;
 
 @Entity
+@DynamicUpdate
 @Table(name = "op_import", uniqueConstraints = {
         @UniqueConstraint(name = "uk_op_import_numero_op", columnNames = "numero_op")
 })
@@ -56,6 +59,10 @@ public class OpImport {
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
+
     @Column(name = "data_requerida_entrega")
     private ZonedDateTime dataRequeridaEntrega;
 
@@ -309,4 +316,12 @@ public class OpImport {
     public void setCreatedAt(OffsetDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(OffsetDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
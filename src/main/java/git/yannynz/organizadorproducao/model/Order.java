@@ -1,6 +1,11 @@
 package git.yannynz.organizadorproducao.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+import git.yannynz.organizadorproducao.repository.OrderNrCacheListener;
+import git.yannynz.organizadorproducao.service.OrderDeltaListener;
+import git.yannynz.organizadorproducao.service.ProductionBoardListener;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -8,8 +13,9 @@ import java.time.ZonedDateTime;
 import java.util.Objects;
 
 @Entity
+@DynamicUpdate
 @Table(name = "orders")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, OrderNrCacheListener.class, OrderDeltaListener.class, ProductionBoardListener.class})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -75,6 +81,10 @@ public class Order {
     @Column(name = "updated_by_user_id")
     private Long updatedBy;
 
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private ZonedDateTime updatedAt;
+
     public Order() {
     }
 
@@ -366,6 +376,14 @@ public class Order {
         this.updatedBy = updatedBy;
     }
 
+    public ZonedDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(ZonedDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     @Override
     public String toString() {
         return "Order{" +
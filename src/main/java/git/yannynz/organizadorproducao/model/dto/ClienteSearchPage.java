@@ -0,0 +1,21 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import git.yannynz.organizadorproducao.model.Cliente;
+import java.util.List;
+
+/**
+ * Página de {@code GET /api/clientes/search-cursor}.
+ *
+ * @param items          clientes da página, do mais relevante ao menos relevante
+ * @param nextCursor     cursor da próxima página (nulo na última)
+ * @param hasMore        se há mais páginas
+ * @param total          total de clientes que casam com a busca; nulo quando não pedido
+ * @param totalEstimated true quando {@code total} é estimativa ou limite inferior ("1000+")
+ */
+public record ClienteSearchPage(
+        List<Cliente> items,
+        String nextCursor,
+        boolean hasMore,
+        Long total,
+        boolean totalEstimated
+) {}
@@ -0,0 +1,26 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Pedido de análise DXF publicado e ainda sem resultado ({@code GET /api/dxf-analysis/inflight}).
+ *
+ * @param attempts   publicações do pedido (1 + republicações do sweeper)
+ * @param expired    sem resultado dentro de {@code app.dxf.analysis.request.inflight-ttl-ms} e sem
+ *                   republicação pendente; um resultado que ainda chegar é contado como atrasado
+ * @param waitingOrders pedidos (NR) do mesmo {@code fileHash} que recebem a análise quando ela chegar,
+ *                   com o {@code analysisId} da cópia de cada um (o devolvido ao pedido que se juntou)
+ */
+public record DXFAnalysisInFlightView(
+        String analysisId,
+        String fileHash,
+        String orderNumber,
+        Instant requestedAt,
+        Instant lastPublishedAt,
+        long ageMs,
+        int attempts,
+        boolean expired,
+        Map<String, String> waitingOrders
+) {
+}
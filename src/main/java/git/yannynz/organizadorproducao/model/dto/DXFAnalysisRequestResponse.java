@@ -1,7 +1,12 @@
 package git.yannynz.organizadorproducao.model.dto;
 
+/**
+ * @param cacheHit true quando o pedido foi atendido por uma análise já concluída do mesmo arquivo
+ *                 (disponível em {@code GET /api/dxf-analysis/{analysisId}} sem esperar o worker)
+ */
 public record DXFAnalysisRequestResponse(
         String analysisId,
-        String orderNumber
+        String orderNumber,
+        boolean cacheHit
 ) {
 }
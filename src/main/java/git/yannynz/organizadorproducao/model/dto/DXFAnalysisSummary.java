@@ -0,0 +1,24 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Resumo da última análise DXF de um pedido para os cards do quadro ({@code POST /api/dxf-analysis/latest}
+ * e {@code /app/dxf-analysis/latest}): só o que o card mostra, com os mesmos nomes JSON de
+ * {@link DXFAnalysisView}.
+ */
+public record DXFAnalysisSummary(
+        String analysisId,
+        String orderNr,
+        Double score,
+        String scoreLabel,
+        Double scoreStars,
+        String imageUrl,
+        String thumbnailUrl,
+        OffsetDateTime analyzedAt
+) {
+    public static DXFAnalysisSummary of(DXFAnalysisView view) {
+        return new DXFAnalysisSummary(view.analysisId(), view.orderNr(), view.score(), view.scoreLabel(),
+                view.scoreStars(), view.imageUrl(), view.thumbnailUrl(), view.analyzedAt());
+    }
+}
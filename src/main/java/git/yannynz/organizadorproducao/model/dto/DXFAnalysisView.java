@@ -20,6 +20,7 @@ public record DXFAnalysisView(
         String fileHash,
         String imagePath,
         String imageUrl,
+        String thumbnailUrl,
         String imageBucket,
         String imageKey,
         String imageUri,
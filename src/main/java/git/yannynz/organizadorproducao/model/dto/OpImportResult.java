@@ -0,0 +1,47 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Resultado da importação de uma OP (item de {@code POST /api/ops/import/batch}).
+ *
+ * @param numeroOp  número da OP recebida
+ * @param status    "CRIADA", "ATUALIZADA", "IGNORADA" (sem numeroOp) ou "ERRO"
+ * @param orderId   pedido de mesmo NR, quando existe
+ * @param linkedNow true quando a importação ligou a OP ao pedido (facaId)
+ * @param erro      motivo em IGNORADA/ERRO
+ * @param causa     exceção original do ERRO (fora do JSON): o consumidor decide retry/quarentena por ela
+ */
+public record OpImportResult(
+        String numeroOp,
+        String status,
+        Long orderId,
+        boolean linkedNow,
+        String erro,
+        @JsonIgnore Throwable causa
+) {
+    public static final String CRIADA = "CRIADA";
+    public static final String ATUALIZADA = "ATUALIZADA";
+    public static final String IGNORADA = "IGNORADA";
+    public static final String ERRO = "ERRO";
+
+    public OpImportResult(String numeroOp, String status, Long orderId, boolean linkedNow, String erro) {
+        this(numeroOp, status, orderId, linkedNow, erro, null);
+    }
+
+    public static OpImportResult ignorada(String numeroOp, String motivo) {
+        return new OpImportResult(numeroOp, IGNORADA, null, false, motivo);
+    }
+
+    public static OpImportResult erro(String numeroOp, String motivo) {
+        return erro(numeroOp, motivo, null);
+    }
+
+    public static OpImportResult erro(String numeroOp, String motivo, Throwable causa) {
+        return new OpImportResult(numeroOp, ERRO, null, false, motivo, causa);
+    }
+
+    public boolean falhou() {
+        return ERRO.equals(status);
+    }
+}
@@ -0,0 +1,46 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Linha dos quadros (GET /api/orders, /app/orders, /app/prioridades): os campos escalares do
+ * pedido, com os mesmos nomes JSON da entidade, mais os nomes de cliente/transportadora já
+ * resolvidos na consulta. Não carrega associações, então serializar não dispara lazy loading.
+ */
+public record OrderBoardRow(
+        Long id,
+        String nr,
+        String cliente,
+        String prioridade,
+        ZonedDateTime dataH,
+        int status,
+        ZonedDateTime dataEntrega,
+        String entregador,
+        String observacao,
+        String veiculo,
+        ZonedDateTime dataHRetorno,
+        String recebedor,
+        String montador,
+        ZonedDateTime dataMontagem,
+        String emborrachador,
+        ZonedDateTime dataEmborrachamento,
+        boolean emborrachada,
+        ZonedDateTime dataCortada,
+        ZonedDateTime dataTirada,
+        String destacador,
+        String modalidadeEntrega,
+        ZonedDateTime dataRequeridaEntrega,
+        String usuarioImportacao,
+        boolean pertinax,
+        boolean poliester,
+        boolean papelCalibrado,
+        boolean vaiVinco,
+        String vincador,
+        ZonedDateTime dataVinco,
+        String horarioFuncAplicado,
+        Boolean foraHorario,
+        Long clienteId,
+        String clienteNomeOficial,
+        Long transportadoraId,
+        String transportadoraNome
+) {}
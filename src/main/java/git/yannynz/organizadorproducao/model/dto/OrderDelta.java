@@ -0,0 +1,25 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.util.Map;
+
+/**
+ * Evento do feed incremental de pedidos ({@code /topic/orders/delta}).
+ *
+ * @param epoch  identifica a instância do servidor; muda a cada restart (seq recomeça)
+ * @param seq    sequência monotônica dentro do epoch
+ * @param type   "upsert" ou "delete"
+ * @param id     id do pedido
+ * @param full   true quando {@code fields} traz o pedido inteiro (primeira vez que o servidor o vê)
+ * @param fields apenas os campos alterados (nome JSON → novo valor); vazio em "delete"
+ */
+public record OrderDelta(
+        String epoch,
+        long seq,
+        String type,
+        Long id,
+        boolean full,
+        Map<String, Object> fields
+) {
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+}
@@ -0,0 +1,47 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Linha plana do export de histórico ({@code /api/orders/export}). Projeção direta da consulta:
+ * sem entidade gerenciada nem proxies de {@code Cliente}/{@code Transportadora}.
+ */
+public record OrderExportRow(
+        Long id,
+        String nr,
+        String cliente,
+        String clienteOficial,
+        String prioridade,
+        Integer status,
+        ZonedDateTime dataH,
+        ZonedDateTime dataEntrega,
+        String entregador,
+        String veiculo,
+        String recebedor,
+        ZonedDateTime dataHRetorno,
+        String montador,
+        ZonedDateTime dataMontagem,
+        String emborrachador,
+        ZonedDateTime dataEmborrachamento,
+        String modalidadeEntrega,
+        ZonedDateTime dataRequeridaEntrega,
+        String transportadora,
+        String observacao
+) {
+    /** Cabeçalho CSV, na ordem dos componentes. */
+    public static final String[] COLUMNS = {
+            "id", "nr", "cliente", "clienteOficial", "prioridade", "status", "dataH", "dataEntrega",
+            "entregador", "veiculo", "recebedor", "dataHRetorno", "montador", "dataMontagem",
+            "emborrachador", "dataEmborrachamento", "modalidadeEntrega", "dataRequeridaEntrega",
+            "transportadora", "observacao"
+    };
+
+    public Object[] values() {
+        return new Object[] {
+                id, nr, cliente, clienteOficial, prioridade, status, dataH, dataEntrega,
+                entregador, veiculo, recebedor, dataHRetorno, montador, dataMontagem,
+                emborrachador, dataEmborrachamento, modalidadeEntrega, dataRequeridaEntrega,
+                transportadora, observacao
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.util.List;
+
+/**
+ * Resposta de {@code /app/orders/sync}: os deltas perdidos desde {@code since} ou, quando a
+ * lacuna não cabe mais no buffer (ou o epoch mudou), um snapshot completo.
+ *
+ * @param epoch    epoch atual do servidor
+ * @param seq      última sequência coberta pela resposta; o cliente continua a partir dela
+ * @param snapshot true quando {@code orders} substitui o estado local
+ * @param deltas   deltas em ordem de seq (vazio quando snapshot)
+ * @param orders   pedidos do snapshot (null quando não é snapshot)
+ */
+public record OrderSyncResponse(
+        String epoch,
+        long seq,
+        boolean snapshot,
+        List<OrderDelta> deltas,
+        List<?> orders
+) {}
@@ -0,0 +1,15 @@
+package git.yannynz.organizadorproducao.model.dto;
+
+import java.time.OffsetDateTime;
+
+/** Mensagem AMQP em quarentena ({@code amqp_quarantine}). */
+public record QuarantinedMessage(
+        Long id,
+        String queue,
+        String body,
+        String contentType,
+        int attempts,
+        String error,
+        OffsetDateTime createdAt,
+        OffsetDateTime replayedAt) {
+}
@@ -1,5 +1,6 @@
 package git.yannynz.organizadorproducao.repository;
 
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import git.yannynz.organizadorproducao.model.ClienteEndereco;
@@ -7,6 +8,8 @@ import git.yannynz.organizadorproducao.model.ClienteEndereco;
 public interface ClienteEnderecoRepository extends JpaRepository<ClienteEndereco, Long> {
 
     List<ClienteEndereco> findByClienteId(Long clienteId);
+
+    List<ClienteEndereco> findByClienteIdIn(Collection<Long> clienteIds);
     
     java.util.Optional<ClienteEndereco> findByClienteIdAndIsDefaultTrue(Long clienteId);
 }
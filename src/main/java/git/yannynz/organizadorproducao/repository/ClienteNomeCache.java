@@ -0,0 +1,150 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.model.Cliente;
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache LRU limitado de nome normalizado → id do cliente, na frente de
+ * {@link ClienteRepository#findByNomeNormalizadoOrApelido(String)}.
+ * <p>
+ * Cada pedido novo e cada OP resolvem o cliente pelo nome; num acerto o cliente é carregado pela
+ * PK e conferido contra o nome oficial e os apelidos carregados, então uma entrada velha nunca
+ * devolve cliente errado. Nomes sem cliente também ficam guardados (o FileWatcher repete os mesmos
+ * nomes não cadastrados). O {@link ClienteNomeCacheListener} descarta as entradas dos nomes de
+ * qualquer cliente criado, alterado ou removido, depois do commit.
+ */
+@Component
+public class ClienteNomeCache {
+
+    private final ClienteRepository clienteRepository;
+    private final Map<String, Long> ids;
+    private final Map<String, Boolean> misses;
+    // muda a cada evict: uma consulta que começou antes não grava "sem cliente" velho
+    private final AtomicLong generation = new AtomicLong();
+
+    public ClienteNomeCache(ClienteRepository clienteRepository,
+                            @Value("${app.clientes.nome-cache.max-size:5000}") int maxSize) {
+        this.clienteRepository = clienteRepository;
+        this.ids = lru(maxSize);
+        this.misses = lru(maxSize);
+    }
+
+    private static <V> Map<String, V> lru(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Equivalente a {@link ClienteRepository#findByNomeNormalizadoOrApelido(String)}, servido pelo cache quando possível.
+     */
+    public Optional<Cliente> findByNome(String normalized) {
+        if (normalized == null || normalized.isBlank()) {
+            return Optional.empty();
+        }
+        if (misses.containsKey(normalized)) {
+            return Optional.empty();
+        }
+
+        Long id = ids.get(normalized);
+        if (id != null) {
+            Optional<Cliente> hit = clienteRepository.findById(id);
+            if (hit.isPresent() && matches(hit.get(), normalized)) {
+                return hit;
+            }
+            ids.remove(normalized, id);
+        }
+
+        long gen = generation.get();
+        Optional<Cliente> found = clienteRepository.findByNomeNormalizadoOrApelido(normalized);
+        if (found.isPresent()) {
+            if (found.get().getId() != null) {
+                ids.put(normalized, found.get().getId());
+            }
+        } else if (generation.get() == gen) {
+            misses.put(normalized, Boolean.TRUE);
+        }
+        return found;
+    }
+
+    /**
+     * Descarta as entradas dos nomes pelos quais o cliente é encontrado: um "sem cliente" para esses
+     * nomes deixa de valer e, se eles apontavam para outro cliente, a consulta decide de novo qual
+     * prevalece. Entradas que já apontam para este cliente ficam (o acerto é conferido na leitura),
+     * então salvar um cliente sem mexer nos nomes não esvazia o cache.
+     */
+    public void evict(Cliente cliente) {
+        if (cliente == null) {
+            return;
+        }
+        evict(cliente.getId(), cliente.getNomeNormalizado(), cliente.getApelidos());
+    }
+
+    /** Como {@link #evict(Cliente)}, com os nomes já copiados (o listener roda depois do commit). */
+    public void evict(Long clienteId, String nomeNormalizado, Collection<String> apelidos) {
+        generation.incrementAndGet();
+        evictNome(nomeNormalizado, clienteId);
+        if (apelidos != null) {
+            for (String apelido : apelidos) {
+                evictNome(semAcento(apelido), clienteId);
+            }
+        }
+    }
+
+    /** Cliente removido: some também das entradas que apontavam para ele por nomes antigos. */
+    public void evictId(Long clienteId) {
+        if (clienteId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        synchronized (ids) {
+            ids.values().removeIf(clienteId::equals);
+        }
+    }
+
+    private void evictNome(String nome, Long clienteId) {
+        if (nome == null || nome.isBlank()) {
+            return;
+        }
+        ids.computeIfPresent(nome, (k, atual) -> atual.equals(clienteId) ? atual : null);
+        misses.remove(nome);
+    }
+
+    // mesma regra da consulta: nome_normalizado igual ou apelido com upper(unaccent(trim(a))) igual
+    static boolean matches(Cliente cliente, String normalized) {
+        if (normalized.equals(cliente.getNomeNormalizado())) {
+            return true;
+        }
+        for (String apelido : cliente.getApelidos()) {
+            if (normalized.equals(semAcento(apelido))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Normalização dos apelidos usada pela consulta e pela tabela {@code cliente_nome_lookup}. */
+    public static String semAcento(String s) {
+        if (s == null) {
+            return "";
+        }
+        return Normalizer.normalize(s.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toUpperCase();
+    }
+
+    public int size() {
+        return ids.size() + misses.size();
+    }
+}
@@ -0,0 +1,54 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.model.Cliente;
+import git.yannynz.organizadorproducao.service.TransactionHooks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantém o {@link ClienteNomeCache} coerente com qualquer caminho que crie, altere ou remova clientes
+ * (cadastro, enriquecimento por OP, {@code linkAliases}). Resolvido de forma preguiçosa como o
+ * {@link OrderNrCacheListener}.
+ * <p>
+ * O descarte (e a troca de geração) só acontece depois do commit: antes dele uma consulta concorrente
+ * ainda não vê o cliente novo e gravaria um "sem cliente" que nada mais apagaria.
+ */
+@Component
+public class ClienteNomeCacheListener {
+
+    private final ObjectProvider<ClienteNomeCache> cache;
+
+    public ClienteNomeCacheListener(ObjectProvider<ClienteNomeCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Cliente cliente) {
+        Long id = cliente.getId();
+        String nome = cliente.getNomeNormalizado();
+        List<String> apelidos = apelidos(cliente);
+        cache.ifAvailable(c -> TransactionHooks.afterCommit(() -> c.evict(id, nome, apelidos)));
+    }
+
+    @PostRemove
+    public void onRemove(Cliente cliente) {
+        Long id = cliente.getId();
+        String nome = cliente.getNomeNormalizado();
+        List<String> apelidos = apelidos(cliente);
+        cache.ifAvailable(c -> TransactionHooks.afterCommit(() -> {
+            c.evictId(id);
+            c.evict(id, nome, apelidos);
+        }));
+    }
+
+    // cópia tirada no flush: o hook roda depois, fora da sessão
+    private static List<String> apelidos(Cliente cliente) {
+        return cliente.getApelidos() == null ? List.of() : new ArrayList<>(cliente.getApelidos());
+    }
+}
@@ -1,5 +1,7 @@
 package git.yannynz.organizadorproducao.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -8,24 +10,32 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import git.yannynz.organizadorproducao.model.Cliente;
 
-public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+public interface ClienteRepository extends JpaRepository<Cliente, Long>, ClienteRepositoryCustom {
 
     Optional<Cliente> findByNomeNormalizado(String nomeNormalizado);
 
+    /**
+     * Cliente pelo nome normalizado oficial ou por um apelido, via {@code cliente_nome_lookup}
+     * (mantida por trigger). O nome oficial ganha do apelido de outro cliente.
+     */
     @Query(value = """
-              select * from clientes c
-              where c.nome_normalizado = :normalized
-                 or exists (
-                    select 1
-                    from jsonb_array_elements_text(coalesce(c.apelidos, '[]'::jsonb)) a
-                    where upper(unaccent(trim(a))) = :normalized
-                 )
-              order by case when c.nome_normalizado = :normalized then 0 else 1 end
+              select c.* from clientes c
+              join cliente_nome_lookup l on l.cliente_id = c.id
+              where l.nome = :normalized
+              order by l.oficial desc, c.id
               limit 1
             """,
             nativeQuery = true)
     Optional<Cliente> findByNomeNormalizadoOrApelido(@Param("normalized") String normalized);
 
+    /** Versão em lote de {@link #findByNomeNormalizadoOrApelido}: todos os candidatos dos nomes informados. */
+    @Query(value = """
+              select c.* from clientes c
+              where c.id in (select l.cliente_id from cliente_nome_lookup l where l.nome in (:normalized))
+            """,
+            nativeQuery = true)
+    List<Cliente> findByNomeNormalizadoOrApelidoIn(@Param("normalized") Collection<String> normalized);
+
     @Query(value = """
               select * from clientes c
               where (:search is null or
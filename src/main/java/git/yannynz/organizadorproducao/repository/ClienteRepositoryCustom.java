@@ -0,0 +1,21 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
+import java.util.List;
+
+public interface ClienteRepositoryCustom {
+
+    /**
+     * Chaves da página seguinte a {@code after} (até {@code limit} linhas), ordenadas por relevância,
+     * último serviço e id, todos decrescentes.
+     *
+     * @param normalized termo já normalizado (maiúsculo, sem acento); nulo lista todos por último serviço
+     */
+    List<CursorPaging.ClienteKey> searchKeys(String normalized, int limit, CursorPaging.ClienteKey after);
+
+    /** Quantos clientes casam com o termo, contando no máximo {@code cap} (nulo = sem limite). */
+    long countMatches(String normalized, Integer cap);
+
+    /** Estimativa do total de clientes pelas estatísticas do planner; -1 se a tabela nunca foi analisada. */
+    long estimateTotal();
+}
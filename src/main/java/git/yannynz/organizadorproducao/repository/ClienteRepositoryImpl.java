@@ -0,0 +1,147 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Busca de clientes por trigrama sobre {@code cliente_nome_lookup} (nome oficial + apelidos) com
+ * paginação keyset.
+ * <p>
+ * Com termo, a relevância é 1 para nome/apelido que começa com o termo e {@code word_similarity}
+ * (arredondada) para os demais; casam os nomes que contêm o termo ou são parecidos com ele
+ * ({@code <%}, tolera erro de digitação). Empates seguem {@code ultimo_servico_em} e {@code id}.
+ * Sem termo a relevância é 0 e a ordem é a de {@code idx_clientes_ultimo_servico_id}.
+ */
+@Repository
+public class ClienteRepositoryImpl implements ClienteRepositoryCustom {
+
+    // ultimo_servico_em nulo vai para o fim da ordem decrescente
+    private static final String ULTIMO = "coalesce(c.ultimo_servico_em, '-infinity'::timestamptz)";
+
+    private static final String MATCH =
+            "(l.nome like :contains escape '\\' or cast(:q as text) <% l.nome)";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<CursorPaging.ClienteKey> searchKeys(String normalized, int limit, CursorPaging.ClienteKey after) {
+        boolean termo = normalized != null && !normalized.isBlank();
+        StringBuilder sql = new StringBuilder();
+        if (termo) {
+            sql.append("""
+                    select c.id, m.score, c.ultimo_servico_em
+                    from (
+                        select l.cliente_id,
+                               max(case when l.nome like :prefix escape '\\' then 1
+                                        else round(word_similarity(cast(:q as text), l.nome)::numeric, 3) end) as score
+                        from cliente_nome_lookup l
+                        where\s""").append(MATCH).append("""
+
+                        group by l.cliente_id
+                    ) m
+                    join clientes c on c.id = m.cliente_id
+                    """);
+        } else {
+            sql.append("select c.id, 0 as score, c.ultimo_servico_em from clientes c\n");
+        }
+
+        if (after != null && after.id() != null) {
+            String ultimo = after.ultimoServicoEm() != null ? "cast(:afterUltimo as timestamptz)" : "'-infinity'::timestamptz";
+            if (termo) {
+                sql.append("where (m.score, ").append(ULTIMO).append(", c.id) < (cast(:afterScore as numeric), ")
+                        .append(ultimo).append(", :afterId)\n");
+            } else {
+                sql.append("where (").append(ULTIMO).append(", c.id) < (").append(ultimo).append(", :afterId)\n");
+            }
+        }
+
+        sql.append(termo ? "order by m.score desc, " : "order by ")
+                .append(ULTIMO).append(" desc, c.id desc\nlimit :limit");
+
+        Query query = em.createNativeQuery(sql.toString());
+        if (termo) {
+            bindTermo(query, normalized);
+            query.setParameter("prefix", escapeLike(normalized) + "%");
+        }
+        if (after != null && after.id() != null) {
+            query.setParameter("afterId", after.id());
+            if (termo) {
+                query.setParameter("afterScore", after.score() != null ? after.score() : BigDecimal.ZERO);
+            }
+            if (after.ultimoServicoEm() != null) {
+                query.setParameter("afterUltimo", OffsetDateTime.ofInstant(after.ultimoServicoEm(), ZoneOffset.UTC));
+            }
+        }
+        query.setParameter("limit", Math.max(1, limit));
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<CursorPaging.ClienteKey> keys = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            keys.add(new CursorPaging.ClienteKey(
+                    termo ? toBigDecimal(row[1]) : null,
+                    toInstant(row[2]),
+                    ((Number) row[0]).longValue()));
+        }
+        return keys;
+    }
+
+    @Override
+    public long countMatches(String normalized, Integer cap) {
+        boolean termo = normalized != null && !normalized.isBlank();
+        String inner = termo
+                ? "select distinct l.cliente_id from cliente_nome_lookup l where " + MATCH
+                : "select c.id from clientes c";
+        Query query = em.createNativeQuery("select count(*) from (" + inner
+                + (cap != null ? " limit :cap" : "") + ") s");
+        if (termo) {
+            bindTermo(query, normalized);
+        }
+        if (cap != null) {
+            query.setParameter("cap", cap);
+        }
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    @Override
+    public long estimateTotal() {
+        Object n = em.createNativeQuery("select reltuples::bigint from pg_class where oid = 'clientes'::regclass")
+                .getSingleResult();
+        return n != null ? ((Number) n).longValue() : -1;
+    }
+
+    private static void bindTermo(Query query, String normalized) {
+        query.setParameter("q", normalized);
+        query.setParameter("contains", "%" + escapeLike(normalized) + "%");
+    }
+
+    static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static BigDecimal toBigDecimal(Object v) {
+        if (v == null) return BigDecimal.ZERO;
+        if (v instanceof BigDecimal b) return b.stripTrailingZeros();
+        return new BigDecimal(v.toString()).stripTrailingZeros();
+    }
+
+    private static Instant toInstant(Object v) {
+        if (v == null) return null;
+        if (v instanceof Instant i) return i;
+        if (v instanceof OffsetDateTime o) return o.toInstant();
+        if (v instanceof Timestamp t) return t.toInstant();
+        if (v instanceof java.time.ZonedDateTime z) return z.toInstant();
+        throw new IllegalStateException("Tipo inesperado para ultimo_servico_em: " + v.getClass());
+    }
+}
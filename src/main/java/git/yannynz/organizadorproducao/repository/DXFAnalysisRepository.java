@@ -1,6 +1,7 @@
 package git.yannynz.organizadorproducao.repository;
 
 import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Pageable;
@@ -10,11 +11,37 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface DXFAnalysisRepository extends JpaRepository<DXFAnalysis, Long> {
+public interface DXFAnalysisRepository extends JpaRepository<DXFAnalysis, Long>, DXFAnalysisRepositoryCustom {
     Optional<DXFAnalysis> findByAnalysisId(String analysisId);
+    List<DXFAnalysis> findByAnalysisIdIn(Collection<String> analysisIds);
     Optional<DXFAnalysis> findTopByOrderNrOrderByAnalyzedAtDesc(String orderNr);
     List<DXFAnalysis> findTop5ByOrderNrOrderByAnalyzedAtDesc(String orderNr);
     List<DXFAnalysis> findByOrderNrOrderByAnalyzedAtDesc(String orderNr, Pageable pageable);
+    List<DXFAnalysis> findByOrderNrKeyOrderByAnalyzedAtDesc(String orderNrKey, Pageable pageable);
+
+    /**
+     * Análise mais recente com imagem do pedido ou, se nenhuma tiver, a mais recente: cada ramo é um
+     * {@code limit 1} num índice (o primeiro no parcial das linhas com imagem) e {@code prio} decide
+     * entre os dois, já que {@code union all} não garante a ordem das linhas.
+     */
+    @Query(value = """
+            select d.* from (
+                (select d.id, 0 as prio from dxf_analysis d
+                 where d.order_nr_key = :key
+                   and (coalesce(d.image_key, '') <> '' or coalesce(d.image_uri, '') <> '' or coalesce(d.image_path, '') <> '')
+                 order by d.analyzed_at desc
+                 limit 1)
+                union all
+                (select d.id, 1 as prio from dxf_analysis d
+                 where d.order_nr_key = :key
+                 order by d.analyzed_at desc
+                 limit 1)
+            ) p
+            join dxf_analysis d on d.id = p.id
+            order by p.prio
+            limit 1
+            """, nativeQuery = true)
+    Optional<DXFAnalysis> findLatestByOrderNrKey(@Param("key") String key);
 
     @Query("""
             select d from DXFAnalysis d
@@ -39,4 +66,44 @@ public interface DXFAnalysisRepository extends JpaRepository<DXFAnalysis, Long>
             order by d.analyzedAt desc
             """)
     List<DXFAnalysis> findLatestWithImageByFileHash(@Param("fileHash") String fileHash, Pageable pageable);
+
+    /** Análise mais recente do arquivo, preferindo as com imagem (mesma regra de {@link #findLatestByOrderNrKey}). */
+    @Query(value = """
+            select d.* from (
+                (select d.id, 0 as prio from dxf_analysis d
+                 where d.file_hash = :fileHash
+                   and (coalesce(d.image_key, '') <> '' or coalesce(d.image_uri, '') <> '' or coalesce(d.image_path, '') <> '')
+                 order by d.analyzed_at desc
+                 limit 1)
+                union all
+                (select d.id, 1 as prio from dxf_analysis d
+                 where d.file_hash = :fileHash
+                 order by d.analyzed_at desc
+                 limit 1)
+            ) p
+            join dxf_analysis d on d.id = p.id
+            order by p.prio
+            limit 1
+            """, nativeQuery = true)
+    Optional<DXFAnalysis> findLatestByFileHash(@Param("fileHash") String fileHash);
+
+    Optional<DXFAnalysis> findTopByFileHashAndOrderNrKeyOrderByAnalyzedAtDesc(String fileHash, String orderNrKey);
+
+    /** Versão em lote de {@link #findLatestWithImageByFileHash}: a análise com imagem mais recente de cada hash. */
+    @Query(value = """
+            select distinct on (d.file_hash) d.* from dxf_analysis d
+            where d.file_hash in (:fileHashes)
+              and (coalesce(d.image_key, '') <> '' or coalesce(d.image_uri, '') <> '' or coalesce(d.image_path, '') <> '')
+            order by d.file_hash, d.analyzed_at desc
+            """, nativeQuery = true)
+    List<DXFAnalysis> findLatestWithImageByFileHashIn(@Param("fileHashes") Collection<String> fileHashes);
+
+    /** Versão em lote de {@link #findLatestWithImageByOrderNr}: a análise com imagem mais recente de cada NR. */
+    @Query(value = """
+            select distinct on (d.order_nr) d.* from dxf_analysis d
+            where d.order_nr in (:orderNrs)
+              and (coalesce(d.image_key, '') <> '' or coalesce(d.image_uri, '') <> '' or coalesce(d.image_path, '') <> '')
+            order by d.order_nr, d.analyzed_at desc
+            """, nativeQuery = true)
+    List<DXFAnalysis> findLatestWithImageByOrderNrIn(@Param("orderNrs") Collection<String> orderNrs);
 }
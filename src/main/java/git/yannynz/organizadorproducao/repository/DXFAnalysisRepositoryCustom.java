@@ -0,0 +1,23 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import java.util.Collection;
+import java.util.List;
+
+public interface DXFAnalysisRepositoryCustom {
+
+    /**
+     * Grava as análises com {@code INSERT ... ON CONFLICT (analysis_id) DO UPDATE} num único batch JDBC.
+     * Os campos de storage da imagem ausentes no payload mantêm o valor já gravado, como em
+     * {@code DXFAnalysisService#persistFromPayload}. Os ids gerados não voltam para as entidades.
+     */
+    void upsertAll(List<DXFAnalysis> analyses);
+
+    /**
+     * Última análise de cada {@code order_nr_key} (a mais recente com imagem; senão a mais recente) num
+     * único {@code DISTINCT ON}, mesma regra de {@link DXFAnalysisRepository#findLatestByOrderNrKey}.
+     * Só vêm as colunas do resumo do card e as da URL da imagem: as entidades não são gerenciadas e os
+     * JSONs ficam de fora.
+     */
+    List<DXFAnalysis> findLatestSummariesByOrderNrKeyIn(Collection<String> orderNrKeys);
+}
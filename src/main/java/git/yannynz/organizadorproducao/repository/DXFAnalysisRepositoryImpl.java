@@ -0,0 +1,146 @@
+package git.yannynz.organizadorproducao.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class DXFAnalysisRepositoryImpl implements DXFAnalysisRepositoryCustom {
+
+    private static final String UPSERT = """
+            INSERT INTO dxf_analysis (
+                analysis_id, order_nr, order_nr_key, order_id, file_name, file_hash,
+                image_path, image_width, image_height, image_bucket, image_key, image_uri, image_checksum,
+                image_size_bytes, image_content_type, image_upload_status, image_upload_message,
+                image_uploaded_at, image_etag,
+                score, score_label, score_stars, total_cut_length_mm, curve_count, intersection_count,
+                min_radius_mm, cache_hit, analyzed_at,
+                metrics_json, explanations_json, raw_payload_json, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?,
+                    ?, ?, ?, ?, ?, ?, ?,
+                    ?, ?, ?, ?,
+                    ?, ?,
+                    ?, ?, ?, ?, ?, ?,
+                    ?, ?, ?,
+                    cast(? as jsonb), cast(? as jsonb), cast(? as jsonb), ?, ?)
+            ON CONFLICT (analysis_id) DO UPDATE SET
+                order_nr = EXCLUDED.order_nr,
+                order_nr_key = EXCLUDED.order_nr_key,
+                order_id = EXCLUDED.order_id,
+                file_name = EXCLUDED.file_name,
+                file_hash = EXCLUDED.file_hash,
+                image_path = EXCLUDED.image_path,
+                image_width = EXCLUDED.image_width,
+                image_height = EXCLUDED.image_height,
+                image_bucket = coalesce(EXCLUDED.image_bucket, dxf_analysis.image_bucket),
+                image_key = coalesce(EXCLUDED.image_key, dxf_analysis.image_key),
+                image_uri = coalesce(EXCLUDED.image_uri, dxf_analysis.image_uri),
+                image_checksum = coalesce(EXCLUDED.image_checksum, dxf_analysis.image_checksum),
+                image_size_bytes = coalesce(EXCLUDED.image_size_bytes, dxf_analysis.image_size_bytes),
+                image_content_type = coalesce(EXCLUDED.image_content_type, dxf_analysis.image_content_type),
+                image_upload_status = coalesce(EXCLUDED.image_upload_status, dxf_analysis.image_upload_status),
+                image_upload_message = coalesce(EXCLUDED.image_upload_message, dxf_analysis.image_upload_message),
+                image_uploaded_at = coalesce(EXCLUDED.image_uploaded_at, dxf_analysis.image_uploaded_at),
+                image_etag = coalesce(EXCLUDED.image_etag, dxf_analysis.image_etag),
+                score = EXCLUDED.score,
+                score_label = EXCLUDED.score_label,
+                score_stars = EXCLUDED.score_stars,
+                total_cut_length_mm = EXCLUDED.total_cut_length_mm,
+                curve_count = EXCLUDED.curve_count,
+                intersection_count = EXCLUDED.intersection_count,
+                min_radius_mm = EXCLUDED.min_radius_mm,
+                cache_hit = EXCLUDED.cache_hit,
+                analyzed_at = EXCLUDED.analyzed_at,
+                metrics_json = EXCLUDED.metrics_json,
+                explanations_json = EXCLUDED.explanations_json,
+                raw_payload_json = EXCLUDED.raw_payload_json,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String LATEST_SUMMARIES = """
+            SELECT DISTINCT ON (d.order_nr_key)
+                   d.order_nr_key, d.analysis_id, d.order_nr, d.score, d.score_label, d.score_stars, d.analyzed_at,
+                   d.image_path, d.image_bucket, d.image_key, d.image_uri
+              FROM dxf_analysis d
+             WHERE d.order_nr_key = ANY (?)
+             ORDER BY d.order_nr_key,
+                      (coalesce(d.image_key, '') <> '' OR coalesce(d.image_uri, '') <> '' OR coalesce(d.image_path, '') <> '') DESC,
+                      d.analyzed_at DESC
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public DXFAnalysisRepositoryImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void upsertAll(List<DXFAnalysis> analyses) {
+        if (analyses == null || analyses.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(analyses.size());
+        for (DXFAnalysis a : analyses) {
+            rows.add(new Object[] {
+                    a.getAnalysisId(), a.getOrderNr(), a.getOrderNrKey(), a.getOrder() != null ? a.getOrder().getId() : null,
+                    a.getFileName(), a.getFileHash(),
+                    a.getImagePath(), a.getImageWidth(), a.getImageHeight(), a.getImageBucket(), a.getImageKey(),
+                    a.getImageUri(), a.getImageChecksum(),
+                    a.getImageSizeBytes(), a.getImageContentType(), a.getImageUploadStatus(), a.getImageUploadMessage(),
+                    a.getImageUploadedAt(), a.getImageEtag(),
+                    a.getScore(), a.getScoreLabel(), a.getScoreStars(), a.getTotalCutLengthMm(), a.getCurveCount(),
+                    a.getIntersectionCount(),
+                    a.getMinRadiusMm(), a.isCacheHit(), a.getAnalyzedAt(),
+                    json(a.getMetrics()), json(a.getExplanations()), json(a.getRawPayload()),
+                    a.getCreatedAt(), a.getUpdatedAt()
+            });
+        }
+        jdbc.batchUpdate(UPSERT, rows);
+    }
+
+    @Override
+    public List<DXFAnalysis> findLatestSummariesByOrderNrKeyIn(Collection<String> orderNrKeys) {
+        if (orderNrKeys == null || orderNrKeys.isEmpty()) {
+            return List.of();
+        }
+        String[] keys = orderNrKeys.toArray(String[]::new);
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LATEST_SUMMARIES);
+            ps.setArray(1, con.createArrayOf("varchar", keys));
+            return ps;
+        }, (rs, rowNum) -> {
+            DXFAnalysis a = new DXFAnalysis();
+            a.setOrderNrKey(rs.getString("order_nr_key"));
+            a.setAnalysisId(rs.getString("analysis_id"));
+            a.setOrderNr(rs.getString("order_nr"));
+            a.setScore(doubleOrNull(rs, "score"));
+            a.setScoreLabel(rs.getString("score_label"));
+            a.setScoreStars(doubleOrNull(rs, "score_stars"));
+            a.setAnalyzedAt(rs.getObject("analyzed_at", OffsetDateTime.class));
+            a.setImagePath(rs.getString("image_path"));
+            a.setImageBucket(rs.getString("image_bucket"));
+            a.setImageKey(rs.getString("image_key"));
+            a.setImageUri(rs.getString("image_uri"));
+            return a;
+        });
+    }
+
+    private static Double doubleOrNull(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value != null ? value.doubleValue() : null;
+    }
+
+    // o payload já é JSON válido: serializa direto, sem passar pelo mapper do Hibernate
+    private static String json(JsonNode node) {
+        return node != null ? node.toString() : null;
+    }
+}
@@ -2,10 +2,34 @@ package git.yannynz.organizadorproducao.repository;
 
 import git.yannynz.organizadorproducao.model.OpImport;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface OpImportRepository extends JpaRepository<OpImport, Long> {
   Optional<OpImport> findByNumeroOp(String numeroOp);
+  List<OpImport> findByNumeroOpIn(Collection<String> numerosOp);
   Optional<OpImport> findTopByFacaIdOrderByCreatedAtDesc(Long facaId);
-}
 
+  @Query("select o.id from OpImport o order by o.id")
+  List<Long> findAllIds();
+
+  /**
+   * OPs que precisam de reconciliação desde o último passe: alteradas, ainda sem faca
+   * (dentro da janela) ou cujo pedido de mesmo NR foi alterado.
+   */
+  @Query("""
+      select o.id from OpImport o
+      where o.updatedAt > :since
+         or (o.facaId is null and o.createdAt > :unlinkedSince)
+         or o.numeroOp in (select f.nr from Order f where f.updatedAt > :ordersSince)
+      order by o.id
+      """)
+  List<Long> findIdsToReconcile(@Param("since") OffsetDateTime since,
+                                @Param("unlinkedSince") OffsetDateTime unlinkedSince,
+                                @Param("ordersSince") ZonedDateTime ordersSince);
+}
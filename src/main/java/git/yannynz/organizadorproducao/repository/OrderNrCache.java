@@ -0,0 +1,130 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.model.Order;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache LRU limitado de NR → id do pedido mais recente, e dos NRs sem pedido.
+ * <p>
+ * Evita o {@code SELECT ... WHERE nr = ? ORDER BY id DESC} a cada evento de arquivo,
+ * importação de OP ou resultado DXF: {@link #findLatestByNr} carrega pela PK (sem consulta se o
+ * pedido já está no contexto de persistência). NRs sem pedido (OP ou arquivo que chega antes do
+ * pedido) também ficam guardados e não consultam o banco.
+ * <p>
+ * O cache é mantido pelo {@link OrderNrCacheListener} (persist/update/remove de {@link Order}), com
+ * os pedidos salvos registrados só depois do commit; um pedido que troca de NR sai do NR antigo. Todo
+ * acerto é conferido contra o NR carregado, então uma entrada velha nunca devolve pedido errado.
+ */
+@Component
+public class OrderNrCache {
+
+    private final OrderRepository orderRepository;
+    private final Map<String, Long> ids;
+    // id → NR com que foi registrado: quando o pedido troca de NR, a entrada antiga sai
+    private final Map<Long, String> nrs;
+    private final Map<String, Boolean> misses;
+    // muda a cada remember: uma consulta que começou antes não grava "sem pedido" velho
+    private final AtomicLong generation = new AtomicLong();
+
+    public OrderNrCache(OrderRepository orderRepository,
+                        @Value("${app.orders.nr-cache.max-size:5000}") int maxSize) {
+        this.orderRepository = orderRepository;
+        this.ids = lru(maxSize);
+        this.nrs = lru(maxSize);
+        this.misses = lru(maxSize);
+    }
+
+    private static <K, V> Map<K, V> lru(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Equivalente a {@link OrderRepository#findTopByNrOrderByIdDesc(String)}, servido pelo cache quando possível.
+     */
+    public Optional<Order> findLatestByNr(String nr) {
+        if (nr == null) {
+            return orderRepository.findTopByNrOrderByIdDesc(null);
+        }
+
+        Long id = ids.get(nr);
+        if (id != null) {
+            Optional<Order> hit = orderRepository.findById(id);
+            if (hit.isPresent() && nr.equals(hit.get().getNr())) {
+                return hit;
+            }
+            ids.remove(nr, id);
+        } else if (misses.containsKey(nr)) {
+            return Optional.empty();
+        }
+
+        long gen = generation.get();
+        Optional<Order> found = orderRepository.findTopByNrOrderByIdDesc(nr);
+        if (found.isPresent()) {
+            remember(found.get());
+        } else {
+            rememberMiss(nr, gen);
+        }
+        return found;
+    }
+
+    // um pedido commitado durante a consulta mudou a geração (ou já está em ids): prevalece
+    private void rememberMiss(String nr, long gen) {
+        synchronized (misses) {
+            if (generation.get() == gen && !ids.containsKey(nr)) {
+                misses.put(nr, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Registra o pedido commitado ({@code nr}/{@code id} lidos no flush); para NRs duplicados prevalece
+     * o maior id. Se o pedido estava registrado com outro NR, a entrada antiga sai.
+     */
+    public void remember(Long id, String nr) {
+        if (id == null || nr == null) {
+            return;
+        }
+        String previous = nrs.put(id, nr);
+        if (previous != null && !previous.equals(nr)) {
+            ids.remove(previous, id);
+        }
+        ids.merge(nr, id, (atual, novo) -> novo > atual ? novo : atual);
+        synchronized (misses) {
+            generation.incrementAndGet();
+            misses.remove(nr);
+        }
+    }
+
+    public void remember(Order order) {
+        if (order != null) {
+            remember(order.getId(), order.getNr());
+        }
+    }
+
+    public void evict(Order order) {
+        if (order == null || order.getNr() == null) {
+            return;
+        }
+        if (order.getId() == null) {
+            ids.remove(order.getNr());
+        } else {
+            ids.remove(order.getNr(), order.getId());
+            nrs.remove(order.getId());
+        }
+    }
+
+    public int size() {
+        return ids.size() + misses.size();
+    }
+}
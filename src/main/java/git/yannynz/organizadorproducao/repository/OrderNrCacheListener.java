@@ -0,0 +1,39 @@
+package git.yannynz.organizadorproducao.repository;
+
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.service.TransactionHooks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantém o {@link OrderNrCache} coerente com qualquer caminho que salve ou remova pedidos.
+ * O cache é resolvido de forma preguiçosa porque o listener nasce junto com o EntityManagerFactory.
+ * <p>
+ * O flush acontece antes do commit: o pedido salvo só entra no cache depois dele (num rollback um id
+ * que não existe esconderia o pedido real); remover antes é inofensivo, no pior caso vira consulta.
+ */
+@Component
+public class OrderNrCacheListener {
+
+    private final ObjectProvider<OrderNrCache> cache;
+
+    public OrderNrCacheListener(ObjectProvider<OrderNrCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Order order) {
+        Long id = order.getId();
+        String nr = order.getNr();
+        cache.ifAvailable(c -> TransactionHooks.afterCommit(() -> c.remember(id, nr)));
+    }
+
+    @PostRemove
+    public void onRemove(Order order) {
+        cache.ifAvailable(c -> c.evict(order));
+    }
+}
@@ -1,8 +1,16 @@
 package git.yannynz.organizadorproducao.repository;
 
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,6 +19,62 @@ public interface OrderRepository extends JpaRepository<Order, Long>, OrderReposi
         Optional<Order> findByNr(String nr);
         List<Order> findByStatusIn(List<Integer> statuses);
         Optional<Order> findTopByNrOrderByIdDesc(String nr);
+
         List<Order> findByNrOrderByIdDesc(String nr);
+        List<Order> findByNrInOrderByIdDesc(Collection<String> nrs);
         List<Order> findByEntregadorAndStatus(String entregador, Integer status);
+
+        String BOARD_ROW_SELECT = """
+              select new git.yannynz.organizadorproducao.model.dto.OrderBoardRow(
+                     o.id, o.nr, o.cliente, o.prioridade, o.dataH, o.status, o.dataEntrega, o.entregador,
+                     o.observacao, o.veiculo, o.dataHRetorno, o.recebedor, o.montador, o.dataMontagem,
+                     o.emborrachador, o.dataEmborrachamento, o.emborrachada, o.dataCortada, o.dataTirada,
+                     o.destacador, o.modalidadeEntrega, o.dataRequeridaEntrega, o.usuarioImportacao,
+                     o.pertinax, o.poliester, o.papelCalibrado, o.vaiVinco, o.vincador, o.dataVinco,
+                     o.horarioFuncAplicado, o.foraHorario, c.id, c.nomeOficial, t.id, t.nomeOficial)
+                from Order o
+                left join o.clienteRef c
+                left join o.transportadora t
+            """;
+
+        /** Quadro em uma consulta: projeção plana com cliente/transportadora por join (sem N+1). */
+        @Query(BOARD_ROW_SELECT + " where o.status in :statuses order by o.id desc")
+        List<OrderBoardRow> findBoardRows(@Param("statuses") Collection<Integer> statuses, Pageable pageable);
+
+        @Query(BOARD_ROW_SELECT + " order by o.id desc")
+        List<OrderBoardRow> findAllBoardRows(Pageable pageable);
+
+        /**
+         * Ids que o envelhecimento de prioridade vai elevar: VERDE criado até {@code limiteVerde}
+         * (vira AZUL) e AZUL criado até {@code limiteAzul} (vira AMARELO). As linhas ficam travadas
+         * até o fim da transação do chamador. Os status ativos ficam literais para casar com o
+         * índice parcial {@code idx_orders_priority_aging}.
+         */
+        @Query(value = """
+              select o.id from orders o
+               where o.status in (0, 1, 6, 7, 8)
+                 and o.data_h is not null
+                 and ((o.prioridade = 'VERDE' and o.data_h <= :limiteVerde)
+                   or (o.prioridade = 'AZUL' and o.data_h <= :limiteAzul))
+                 for update
+            """,
+            nativeQuery = true)
+        List<Long> lockPrioritiesToEscalate(@Param("limiteVerde") OffsetDateTime limiteVerde,
+                                            @Param("limiteAzul") OffsetDateTime limiteAzul);
+
+        /**
+         * Sobe um degrau de prioridade (VERDE → AZUL, AZUL → AMARELO) dos ids informados em uma
+         * única instrução. Limpa o contexto de persistência para que as leituras seguintes vejam
+         * a prioridade nova.
+         */
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Transactional
+        @Query(value = """
+              update orders
+                 set prioridade = case prioridade when 'VERDE' then 'AZUL' else 'AMARELO' end,
+                     updated_at = now()
+               where id in (:ids)
+            """,
+            nativeQuery = true)
+        int escalatePriorities(@Param("ids") Collection<Long> ids);
 }
@@ -2,12 +2,20 @@ package git.yannynz.organizadorproducao.repository;
 
 import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderExportRow;
 import git.yannynz.organizadorproducao.model.dto.OrderSearchDTO;
 import git.yannynz.organizadorproducao.service.SearchResult;
 import git.yannynz.organizadorproducao.config.pagination.CursorStrategy;
+import java.util.stream.Stream;
 
 public interface OrderRepositoryCustom {
     SearchResult<Order> searchDeliveredByCursor(OrderSearchDTO filters, int limit,
             CursorPaging.Key after, CursorStrategy strategy);
+
+    /**
+     * Mesmos filtros da busca, como cursor JDBC forward-only ({@code fetchSize} linhas por ida ao banco).
+     * Precisa de transação aberta e o stream deve ser fechado pelo chamador.
+     */
+    Stream<OrderExportRow> streamForExport(OrderSearchDTO filters, int fetchSize);
 }
 
@@ -2,6 +2,7 @@ package git.yannynz.organizadorproducao.repository;
 
 import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderExportRow;
 import git.yannynz.organizadorproducao.model.dto.OrderSearchDTO;
 import git.yannynz.organizadorproducao.service.SearchResult;
 import git.yannynz.organizadorproducao.config.pagination.CursorStrategy;
@@ -16,10 +17,15 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public class OrderRepositoryImpl implements OrderRepositoryCustom {
 
+    private static final char ESCAPE = '\\';
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
     @PersistenceContext
     private EntityManager em;
 
@@ -31,8 +37,7 @@ public SearchResult<Order> searchDeliveredByCursor(OrderSearchDTO f, int limit,
     CriteriaQuery<Order> cq = cb.createQuery(Order.class);
     Root<Order> root = cq.from(Order.class);
 
-    List<Predicate> preds = new ArrayList<>();
-    // ... (TODOS os filtros que já te passei antes: text, status, ranges, q)
+    List<Predicate> preds = filters(cb, root, f);
 
     // === KEYSET por estratégia ===
     List<Order> rows;
@@ -48,7 +53,8 @@ public SearchResult<Order> searchDeliveredByCursor(OrderSearchDTO f, int limit,
         cq.orderBy(cb.desc(root.get("id")));
 
     } else { // DATE_ID
-        // cursor composto (dataEntrega,id) sem índice novo
+        // cursor composto (dataEntrega,id) sobre idx_orders_data_entrega_id; sem data não há posição no cursor
+        preds.add(cb.isNotNull(root.get("dataEntrega")));
         if (after != null && after.id() != null && after.dataEntrega() != null) {
             var last = ZonedDateTime.ofInstant(after.dataEntrega(), ZoneOffset.UTC);
             preds.add(
@@ -85,5 +91,99 @@ public SearchResult<Order> searchDeliveredByCursor(OrderSearchDTO f, int limit,
     return new SearchResult<>(rows, hasMore, lastKey);
 }
 
+    @Override
+    public Stream<OrderExportRow> streamForExport(OrderSearchDTO f, int fetchSize) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<OrderExportRow> cq = cb.createQuery(OrderExportRow.class);
+        Root<Order> root = cq.from(Order.class);
+        Join<Object, Object> cliente = root.join("clienteRef", JoinType.LEFT);
+        Join<Object, Object> transportadora = root.join("transportadora", JoinType.LEFT);
+
+        cq.select(cb.construct(OrderExportRow.class,
+                root.get("id"), root.get("nr"), root.get("cliente"), cliente.get("nomeOficial"),
+                root.get("prioridade"), root.get("status"), root.get("dataH"), root.get("dataEntrega"),
+                root.get("entregador"), root.get("veiculo"), root.get("recebedor"), root.get("dataHRetorno"),
+                root.get("montador"), root.get("dataMontagem"), root.get("emborrachador"),
+                root.get("dataEmborrachamento"), root.get("modalidadeEntrega"), root.get("dataRequeridaEntrega"),
+                transportadora.get("nomeOficial"), root.get("observacao")));
+        List<Predicate> preds = filters(cb, root, f);
+        cq.where(cb.and(preds.toArray(new Predicate[0])));
+        cq.orderBy(cb.desc(root.get("id")));
+
+        return em.createQuery(cq)
+                .setHint(HINT_FETCH_SIZE, Math.max(1, fetchSize))
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<Order> root, OrderSearchDTO f) {
+        List<Predicate> preds = new ArrayList<>();
+        if (f == null) return preds;
+
+        // busca livre: mesma expressão de idx_orders_search_trgm (V20261018_4)
+        if (hasText(f.getQ())) {
+            Expression<String> doc = cb.function("orders_search_text", String.class,
+                    root.get("nr"), root.get("cliente"), root.get("observacao"), root.get("entregador"),
+                    root.get("veiculo"), root.get("recebedor"), root.get("montador"), root.get("prioridade"));
+            preds.add(cb.like(doc, normalizedContains(cb, f.getQ()), ESCAPE));
+        }
+
+        if (hasText(f.getNr())) preds.add(cb.equal(root.get("nr"), f.getNr().trim()));
+        if (hasText(f.getCliente())) {
+            // idx_orders_cliente_trgm
+            Expression<String> cliente = cb.lower(cb.function("f_unaccent", String.class, root.get("cliente")));
+            preds.add(cb.like(cliente, normalizedContains(cb, f.getCliente()), ESCAPE));
+        }
+        if (hasText(f.getPrioridade())) preds.add(cb.equal(root.get("prioridade"), f.getPrioridade().trim().toUpperCase()));
+
+        if (f.getStatus() != null) preds.add(cb.equal(root.get("status"), f.getStatus()));
+        if (f.getStatusIn() != null && !f.getStatusIn().isEmpty()) preds.add(root.get("status").in(f.getStatusIn()));
+
+        contains(cb, root, preds, "entregador", f.getEntregador());
+        contains(cb, root, preds, "observacao", f.getObservacao());
+        contains(cb, root, preds, "veiculo", f.getVeiculo());
+        contains(cb, root, preds, "recebedor", f.getRecebedor());
+        contains(cb, root, preds, "montador", f.getMontador());
+        contains(cb, root, preds, "emborrachador", f.getEmborrachador());
+
+        range(cb, root, preds, "dataH", f.getDataH());
+        range(cb, root, preds, "dataEntrega", f.getDataEntrega());
+        range(cb, root, preds, "dataHRetorno", f.getDataHRetorno());
+        range(cb, root, preds, "dataMontagem", f.getDataMontagem());
+
+        if (f.getDataEmborrachamento() != null) {
+            // data única: o dia inteiro no fuso informado
+            ZonedDateTime inicio = f.getDataEmborrachamento().toLocalDate().atStartOfDay(f.getDataEmborrachamento().getZone());
+            preds.add(cb.greaterThanOrEqualTo(root.get("dataEmborrachamento"), inicio));
+            preds.add(cb.lessThan(root.get("dataEmborrachamento"), inicio.plusDays(1)));
+        }
+        return preds;
+    }
+
+    private static void contains(CriteriaBuilder cb, Root<Order> root, List<Predicate> preds, String attr, String value) {
+        if (!hasText(value)) return;
+        Expression<String> col = cb.lower(cb.function("f_unaccent", String.class, root.get(attr)));
+        preds.add(cb.like(col, normalizedContains(cb, value), ESCAPE));
+    }
+
+    private static void range(CriteriaBuilder cb, Root<Order> root, List<Predicate> preds, String attr,
+                              OrderSearchDTO.Range r) {
+        if (r == null) return;
+        if (r.getFrom() != null) preds.add(cb.greaterThanOrEqualTo(root.get(attr), r.getFrom()));
+        if (r.getTo() != null) preds.add(cb.lessThanOrEqualTo(root.get(attr), r.getTo()));
+    }
+
+    /** {@code %termo%} com curingas do usuário escapados, normalizado no banco como a coluna. */
+    private static Expression<String> normalizedContains(CriteriaBuilder cb, String raw) {
+        String escaped = raw.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return cb.lower(cb.function("f_unaccent", String.class, cb.literal("%" + escaped + "%")));
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
 }
 
@@ -6,6 +6,7 @@ import git.yannynz.organizadorproducao.model.OpImport;
 import git.yannynz.organizadorproducao.model.dto.EnderecoSugeridoDTO;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
 import git.yannynz.organizadorproducao.repository.ClienteEnderecoRepository;
+import git.yannynz.organizadorproducao.repository.ClienteNomeCache;
 import git.yannynz.organizadorproducao.repository.ClienteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,10 +16,16 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -27,25 +34,97 @@ public class ClienteAutoEnrichmentService {
 
     private final ClienteRepository clienteRepo;
     private final ClienteEnderecoRepository enderecoRepo;
+    private final ClienteNomeCache nomeCache;
     private final Logger log = LoggerFactory.getLogger(ClienteAutoEnrichmentService.class);
 
     public ClienteAutoEnrichmentService(
             ClienteRepository clienteRepo,
-            ClienteEnderecoRepository enderecoRepo) {
+            ClienteEnderecoRepository enderecoRepo,
+            ClienteNomeCache nomeCache) {
         this.clienteRepo = clienteRepo;
         this.enderecoRepo = enderecoRepo;
+        this.nomeCache = nomeCache;
+    }
+
+    /**
+     * Clientes e endereços de um lote de OPs, carregados por {@link #prefetch} em duas consultas
+     * {@code IN}. Clientes e endereços criados durante o lote também entram aqui, para que as OPs
+     * seguintes do mesmo cliente os reaproveitem sem nova consulta.
+     */
+    public static final class Lote {
+        private final Set<String> consultados = new HashSet<>();
+        private final Map<String, Cliente> porNome = new HashMap<>();
+        private final Map<Long, List<ClienteEndereco>> enderecos = new HashMap<>();
+    }
+
+    /**
+     * Pré-carrega os clientes (por nome normalizado ou apelido) e seus endereços para
+     * {@link #upsertFromOp(OpImport, OpImportRequestDTO, Lote)}.
+     */
+    public Lote prefetch(Collection<OpImportRequestDTO> dtos) {
+        Lote lote = new Lote();
+        for (OpImportRequestDTO dto : dtos) {
+            if (dto != null && dto.getClienteNomeOficial() != null && !dto.getClienteNomeOficial().isBlank()) {
+                lote.consultados.add(normalizar(dto.getClienteNomeOficial()));
+            }
+        }
+        if (lote.consultados.isEmpty()) {
+            return lote;
+        }
+
+        List<Cliente> candidatos = clienteRepo.findByNomeNormalizadoOrApelidoIn(lote.consultados);
+        // nome oficial prevalece sobre apelido, como em findByNomeNormalizadoOrApelido
+        for (Cliente c : candidatos) {
+            if (lote.consultados.contains(c.getNomeNormalizado())) {
+                lote.porNome.putIfAbsent(c.getNomeNormalizado(), c);
+            }
+        }
+        for (Cliente c : candidatos) {
+            for (String apelido : c.getApelidos()) {
+                String chave = ClienteNomeCache.semAcento(apelido);
+                if (lote.consultados.contains(chave)) {
+                    lote.porNome.putIfAbsent(chave, c);
+                }
+            }
+        }
+
+        Set<Long> ids = new HashSet<>();
+        lote.porNome.values().forEach(c -> ids.add(c.getId()));
+        ids.forEach(id -> lote.enderecos.put(id, new ArrayList<>()));
+        if (!ids.isEmpty()) {
+            for (ClienteEndereco e : enderecoRepo.findByClienteIdIn(ids)) {
+                lote.enderecos.computeIfAbsent(e.getCliente().getId(), k -> new ArrayList<>()).add(e);
+            }
+        }
+        return lote;
     }
 
     @Transactional
     public ClienteEndereco upsertFromOp(OpImport op, OpImportRequestDTO dto) {
+        return upsertFromOp(op, dto, null);
+    }
+
+    /**
+     * Igual a {@link #upsertFromOp(OpImport, OpImportRequestDTO)}, mas resolve cliente e endereços
+     * pelo {@link Lote} pré-carregado (consulta o banco só para nomes fora do lote).
+     */
+    @Transactional
+    public ClienteEndereco upsertFromOp(OpImport op, OpImportRequestDTO dto, Lote lote) {
         if (dto.getClienteNomeOficial() == null || dto.getClienteNomeOficial().isBlank()) {
             return null;
         }
 
         String nomeNormalizado = normalizar(dto.getClienteNomeOficial());
 
-        Cliente cliente = clienteRepo.findByNomeNormalizadoOrApelido(nomeNormalizado)
-                .orElseGet(() -> createCliente(dto, nomeNormalizado));
+        Cliente cliente = findCliente(nomeNormalizado, lote)
+                .orElseGet(() -> {
+                    Cliente novo = createCliente(dto, nomeNormalizado);
+                    if (lote != null) {
+                        lote.porNome.put(nomeNormalizado, novo);
+                        lote.enderecos.put(novo.getId(), new ArrayList<>());
+                    }
+                    return novo;
+                });
 
         boolean dirty = false;
         
@@ -102,7 +181,7 @@ public class ClienteAutoEnrichmentService {
         ClienteEndereco endereco = null;
         if (dto.getEnderecosSugeridos() != null && !dto.getEnderecosSugeridos().isEmpty()) {
             EnderecoSugeridoDTO sug = dto.getEnderecosSugeridos().get(0);
-            List<ClienteEndereco> existentes = enderecoRepo.findByClienteId(cliente.getId());
+            List<ClienteEndereco> existentes = findEnderecos(cliente.getId(), lote);
 
             Optional<ClienteEndereco> match = existentes.stream()
                     .filter(e -> isAddressMatch(e, sug))
@@ -116,11 +195,19 @@ public class ClienteAutoEnrichmentService {
                 }
             } else {
                 endereco = createEndereco(cliente, sug, existentes.isEmpty());
+                if (lote != null && lote.enderecos.containsKey(cliente.getId())) {
+                    lote.enderecos.get(cliente.getId()).add(endereco);
+                }
             }
 
             if (endereco != null) {
                 maybePromoteDefault(existentes, endereco);
             }
+        } else if (lote != null && lote.enderecos.containsKey(cliente.getId())) {
+            endereco = lote.enderecos.get(cliente.getId()).stream()
+                    .filter(e -> Boolean.TRUE.equals(e.getIsDefault()))
+                    .findFirst()
+                    .orElse(null);
         } else {
             endereco = enderecoRepo.findByClienteIdAndIsDefaultTrue(cliente.getId()).orElse(null);
         }
@@ -133,6 +220,21 @@ public class ClienteAutoEnrichmentService {
         return endereco;
     }
 
+    private Optional<Cliente> findCliente(String nomeNormalizado, Lote lote) {
+        if (lote != null && lote.consultados.contains(nomeNormalizado)) {
+            return Optional.ofNullable(lote.porNome.get(nomeNormalizado));
+        }
+        return nomeCache.findByNome(nomeNormalizado);
+    }
+
+    private List<ClienteEndereco> findEnderecos(Long clienteId, Lote lote) {
+        if (lote != null && lote.enderecos.containsKey(clienteId)) {
+            // cópia: o laço de upsert não deve ver o endereço que ele mesmo acrescenta ao lote
+            return new ArrayList<>(lote.enderecos.get(clienteId));
+        }
+        return enderecoRepo.findByClienteId(clienteId);
+    }
+
     private Cliente createCliente(OpImportRequestDTO dto, String nomeNormalizado) {
         Cliente c = new Cliente();
         c.setNomeOficial(dto.getClienteNomeOficial().trim());
@@ -2,7 +2,7 @@ package git.yannynz.organizadorproducao.service;
 
 import git.yannynz.organizadorproducao.model.Cliente;
 import git.yannynz.organizadorproducao.model.Order;
-import git.yannynz.organizadorproducao.repository.ClienteRepository;
+import git.yannynz.organizadorproducao.repository.ClienteNomeCache;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
@@ -11,10 +11,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class ClienteDefaultsService {
 
-    private final ClienteRepository clienteRepository;
+    private final ClienteNomeCache clienteNomeCache;
 
-    public ClienteDefaultsService(ClienteRepository clienteRepository) {
-        this.clienteRepository = clienteRepository;
+    public ClienteDefaultsService(ClienteNomeCache clienteNomeCache) {
+        this.clienteNomeCache = clienteNomeCache;
     }
 
     public boolean applyDefaults(Order order) {
@@ -68,7 +68,7 @@ public class ClienteDefaultsService {
         if (!hasText(normalized)) {
             return Optional.empty();
         }
-        return clienteRepository.findByNomeNormalizadoOrApelido(normalized);
+        return clienteNomeCache.findByNome(normalized);
     }
 
     private String normalize(String value) {
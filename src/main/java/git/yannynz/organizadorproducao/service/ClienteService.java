@@ -1,14 +1,21 @@
 package git.yannynz.organizadorproducao.service;
 
+import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
 import git.yannynz.organizadorproducao.model.Cliente;
 import git.yannynz.organizadorproducao.model.ClienteEndereco;
+import git.yannynz.organizadorproducao.model.dto.ClienteSearchPage;
 import git.yannynz.organizadorproducao.repository.ClienteEnderecoRepository;
+import git.yannynz.organizadorproducao.repository.ClienteNomeCache;
 import git.yannynz.organizadorproducao.repository.ClienteRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ArrayList;
 
@@ -17,22 +24,71 @@ import git.yannynz.organizadorproducao.repository.TransportadoraRepository;
 @Service
 public class ClienteService {
 
+    /** Contagem pedida junto com a página da busca por cursor. */
+    public enum CountMode { NONE, ESTIMATE, EXACT }
+
     private final ClienteRepository repo;
     private final ClienteEnderecoRepository enderecoRepo;
     private final TransportadoraRepository transportadoraRepo;
+    private final int countCap;
 
     public ClienteService(ClienteRepository repo,
                           ClienteEnderecoRepository enderecoRepo,
-                          TransportadoraRepository transportadoraRepo) {
+                          TransportadoraRepository transportadoraRepo,
+                          @Value("${app.clientes.search.count-cap:1000}") int countCap) {
         this.repo = repo;
         this.enderecoRepo = enderecoRepo;
         this.transportadoraRepo = transportadoraRepo;
+        this.countCap = Math.max(1, countCap);
     }
 
     public Page<Cliente> search(String query, Pageable pageable) {
         return repo.search(query, pageable);
     }
 
+    /**
+     * Busca do autocomplete: clientes cujo nome ou apelido contém o termo ou se parece com ele,
+     * do mais relevante ao menos relevante, paginada por cursor. Sem termo lista por último serviço.
+     * Com {@link CountMode#ESTIMATE} o total vem das estatísticas da tabela (sem termo) ou é contado
+     * até {@code app.clientes.search.count-cap} (com termo).
+     */
+    @Transactional(readOnly = true)
+    public ClienteSearchPage searchByCursor(String search, int limit, CursorPaging.ClienteKey after, CountMode count) {
+        String termo = (search == null || search.isBlank()) ? null : ClienteNomeCache.semAcento(search);
+
+        List<CursorPaging.ClienteKey> keys = repo.searchKeys(termo, limit + 1, after);
+        boolean hasMore = keys.size() > limit;
+        if (hasMore) {
+            keys = keys.subList(0, limit);
+        }
+
+        Map<Long, Cliente> porId = new HashMap<>();
+        repo.findAllById(keys.stream().map(CursorPaging.ClienteKey::id).toList())
+                .forEach(c -> porId.put(c.getId(), c));
+        List<Cliente> items = keys.stream()
+                .map(k -> porId.get(k.id()))
+                .filter(Objects::nonNull)
+                .toList();
+        String nextCursor = hasMore ? CursorPaging.encode(keys.get(keys.size() - 1)) : null;
+
+        Long total = null;
+        boolean estimated = false;
+        if (count == CountMode.EXACT) {
+            total = repo.countMatches(termo, null);
+        } else if (count == CountMode.ESTIMATE) {
+            if (termo == null) {
+                long estimate = repo.estimateTotal();
+                total = estimate >= 0 ? estimate : repo.countMatches(null, null);
+                estimated = estimate >= 0;
+            } else {
+                long n = repo.countMatches(termo, countCap + 1);
+                estimated = n > countCap;
+                total = Math.min(n, countCap);
+            }
+        }
+        return new ClienteSearchPage(items, nextCursor, hasMore, total, estimated);
+    }
+
     public Optional<Cliente> findById(Long id) {
         return repo.findById(id);
     }
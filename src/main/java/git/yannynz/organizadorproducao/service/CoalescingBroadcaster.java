@@ -0,0 +1,229 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.yannynz.organizadorproducao.config.InstrumentedExecutors;
+import git.yannynz.organizadorproducao.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publicador STOMP com coalescência por (tópico, id).
+ * <p>
+ * Eventos do mesmo pedido dentro da janela ({@code app.ws.coalesce.window-ms}) são reduzidos
+ * à última escrita; ao fim da janela cada tópico recebe um único frame (o objeto, se sobrou um,
+ * ou um array — o front expande em {@code websocket.service.ts}). O envio ao broker acontece
+ * numa thread própria: listeners Rabbit, controllers e jobs só enfileiram.
+ * <p>
+ * Pedidos entram na fila só após o commit e já copiados para um mapa (mesmo JSON da entidade):
+ * a thread de envio nunca toca entidade gerenciada nem publica linha que sofreu rollback.
+ * <p>
+ * {@link #publishNow} não coalesce e mantém a ordem de chegada (feed de deltas numerado).
+ */
+@Component
+public class CoalescingBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(CoalescingBroadcaster.class);
+
+    public static final String ORDERS = "/topic/orders";
+    public static final String PRIORIDADES = "/topic/prioridades";
+
+    private static final TypeReference<LinkedHashMap<String, Object>> FIELDS = new TypeReference<>() {};
+
+    private record Key(String topic, Object id) {}
+
+    private final SimpMessagingTemplate ws;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+    private final long windowMs;
+    private final int maxPending;
+    private final ScheduledThreadPoolExecutor executor;
+
+    // guardados por this
+    private LinkedHashMap<Key, Object> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Counter coalesced;
+    private final Counter events;
+    private final ConcurrentMap<String, Counter> frames = new ConcurrentHashMap<>();
+
+    public CoalescingBroadcaster(SimpMessagingTemplate ws,
+                                 ObjectMapper mapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.ws.coalesce.window-ms:50}") long windowMs,
+                                 @Value("${app.ws.coalesce.max-pending:2000}") int maxPending) {
+        this.ws = ws;
+        this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
+        this.windowMs = Math.max(0, windowMs);
+        this.maxPending = Math.max(1, maxPending);
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "ws-broadcast");
+            t.setDaemon(true);
+            return t;
+        });
+        InstrumentedExecutors.monitor("broadcast", executor, meterRegistry);
+
+        Gauge.builder("organizador_ws_pending_events", depth, AtomicInteger::get)
+            .description("Eventos aguardando a janela de coalescência do WebSocket")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("organizador_ws_events_coalesced_total")
+            .description("Eventos substituídos por uma escrita mais nova do mesmo pedido na janela")
+            .register(meterRegistry);
+        this.events = Counter.builder("organizador_ws_events_total")
+            .description("Eventos recebidos pelo publicador WebSocket")
+            .register(meterRegistry);
+    }
+
+    /** Publica o pedido após o commit da transação corrente (ou já, se não houver). */
+    public void publishOrder(String topic, Order order) {
+        publishOrder(topic, null, order);
+    }
+
+    /** Como {@link #publishOrder(String, Order)}, embrulhado em {@link WebSocketMessage}{@code (action, pedido)}. */
+    public void publishOrder(String topic, String action, Order order) {
+        if (order == null)
+            return;
+        TransactionHooks.afterCommit(() -> {
+            Map<String, Object> snapshot = snapshot(order);
+            if (snapshot == null)
+                return;
+            // pedido ainda sem id não tem com quem coalescer
+            Object id = order.getId() != null ? order.getId() : new Object();
+            publish(topic, id, action != null ? new WebSocketMessage(action, snapshot) : snapshot);
+        });
+    }
+
+    /**
+     * Remoção do pedido como {@link WebSocketMessage}{@code ("delete", {id})}, após o commit; substitui
+     * qualquer versão do mesmo pedido ainda na janela.
+     */
+    public void publishDelete(String topic, Long id) {
+        if (id == null)
+            return;
+        TransactionHooks.afterCommit(() -> publish(topic, id, new WebSocketMessage("delete", Map.of("id", id))));
+    }
+
+    public void publishOrders(String topic, Collection<Order> orders) {
+        if (orders == null)
+            return;
+        for (Order order : orders) {
+            publishOrder(topic, order);
+        }
+    }
+
+    private Map<String, Object> snapshot(Order order) {
+        try {
+            return mapper.convertValue(order, FIELDS);
+        } catch (IllegalArgumentException e) {
+            log.warn("[WS] Falha ao serializar pedido {} para publicação: {}", order.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Enfileira {@code payload} para {@code topic}; um evento posterior com o mesmo id o substitui.
+     * O payload é enviado em outra thread: não passe entidades JPA.
+     */
+    public void publish(String topic, Object id, Object payload) {
+        boolean agendar = false;
+        boolean imediato;
+        synchronized (this) {
+            if (pending.put(new Key(topic, id), payload) != null) {
+                coalesced.increment();
+            }
+            if (!flushScheduled) {
+                flushScheduled = true;
+                agendar = true;
+            }
+            imediato = pending.size() >= maxPending;
+            depth.set(pending.size());
+        }
+        events.increment();
+        if (imediato) {
+            submit(this::flush, 0);
+        } else if (agendar) {
+            submit(this::flush, windowMs);
+        }
+    }
+
+    /** Envia sem coalescer, na mesma thread e ordem dos demais frames. */
+    public void publishNow(String topic, Object payload) {
+        events.increment();
+        submit(() -> send(topic, payload), 0);
+    }
+
+    private void submit(Runnable task, long delayMs) {
+        try {
+            if (delayMs <= 0) {
+                executor.execute(task);
+            } else {
+                executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // encerrando: o flush final do shutdown entrega o que estiver pendente
+            log.debug("[WS] Publicador encerrado, evento mantido para o flush final");
+        }
+    }
+
+    void flush() {
+        LinkedHashMap<Key, Object> lote;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                flushScheduled = false;
+                return;
+            }
+            lote = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+            depth.set(0);
+        }
+
+        Map<String, List<Object>> porTopico = new LinkedHashMap<>();
+        lote.forEach((key, payload) -> porTopico.computeIfAbsent(key.topic(), t -> new ArrayList<>()).add(payload));
+        porTopico.forEach((topic, payloads) -> send(topic, payloads.size() == 1 ? payloads.get(0) : payloads));
+    }
+
+    private void send(String topic, Object payload) {
+        try {
+            ws.convertAndSend(topic, payload);
+            frames.computeIfAbsent(topic, t -> Counter.builder("organizador_ws_frames_total")
+                    .description("Frames STOMP enviados pelo publicador")
+                    .tag("topic", t)
+                    .register(meterRegistry)).increment();
+        } catch (Exception e) {
+            log.warn("[WS] Falha ao publicar em {}: {}", topic, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            // entrega o que ainda estiver na janela antes de encerrar
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
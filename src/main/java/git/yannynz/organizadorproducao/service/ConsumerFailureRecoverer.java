@@ -0,0 +1,120 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import git.yannynz.organizadorproducao.config.RabbitListenerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Destino das mensagens cujo listener falhou, aplicado a todas as factories de listener.
+ * <ul>
+ *   <li>fila sem retentativa configurada: rejeitada sem requeue (sem laço infinito);</li>
+ *   <li>mensagem inválida (JSON/conversão/argumento): direto para a quarentena;</li>
+ *   <li>demais falhas: republicada em {@code <fila>.retry.<atraso>} com {@code x-attempts}
+ *       incrementado, até {@code app.rabbit.retry.max-attempts}; depois, quarentena.</li>
+ * </ul>
+ * A entrega original é sempre confirmada: a thread do consumidor nunca fica presa na mesma mensagem.
+ */
+@Component
+public class ConsumerFailureRecoverer implements MessageBatchRecoverer {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerFailureRecoverer.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MessageQuarantineService quarantine;
+    private final RabbitListenerProperties.Retry retry;
+    private final MeterRegistry meterRegistry;
+
+    public ConsumerFailureRecoverer(RabbitTemplate rabbitTemplate,
+                                    MessageQuarantineService quarantine,
+                                    RabbitListenerProperties listenerProperties,
+                                    MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.quarantine = quarantine;
+        this.retry = listenerProperties.getRetry();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        for (Message message : messages) {
+            recover(message, cause);
+        }
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        MessageProperties props = message.getMessageProperties();
+        String queue = props.getConsumerQueue();
+        if (!retry.covers(queue)) {
+            count(queue, "dropped");
+            throw new AmqpRejectAndDontRequeueException("Falha sem retentativa configurada na fila " + queue, cause);
+        }
+
+        int failures = attempts(props) + 1;
+        try {
+            if (isPoison(cause) || failures >= retry.getMaxAttempts()) {
+                quarantine.quarantine(queue, message, failures, cause);
+                count(queue, "quarantined");
+                return;
+            }
+            long delay = retry.delayFor(failures);
+            props.setHeader(MessageQuarantineService.ATTEMPTS_HEADER, failures);
+            rabbitTemplate.send("", RabbitListenerProperties.Retry.retryQueue(queue, delay), message);
+            count(queue, "retried");
+            log.info("[AMQP] falha {} de {} na fila {}; nova tentativa em {} ms: {}",
+                    failures, retry.getMaxAttempts(), queue, delay, MessageQuarantineService.describe(cause));
+        } catch (RuntimeException e) {
+            // sem retry nem quarentena disponíveis: registra o corpo para não perder a mensagem em silêncio
+            count(queue, "dropped");
+            log.error("[AMQP] mensagem da fila {} descartada (falha ao encaminhar: {}). Corpo: {}",
+                    queue, e.getMessage(), new String(message.getBody(), StandardCharsets.UTF_8), cause);
+            throw new AmqpRejectAndDontRequeueException("Falha ao encaminhar mensagem com erro da fila " + queue, e);
+        }
+    }
+
+    static int attempts(MessageProperties props) {
+        Object value = props.getHeader(MessageQuarantineService.ATTEMPTS_HEADER);
+        if (value instanceof Number n)
+            return n.intValue();
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString());
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return 0;
+    }
+
+    /** Erros que nenhuma nova tentativa resolve. */
+    static boolean isPoison(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof JsonProcessingException
+                    || t instanceof MessageConversionException
+                    || t instanceof IllegalArgumentException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(String queue, String outcome) {
+        Counter.builder("organizador_amqp_failures_total")
+                .description("Mensagens com falha no consumidor, por destino (retried, quarantined, dropped)")
+                .tag("queue", queue == null ? "desconhecida" : queue)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,90 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Persistência em lote dos resultados de análise DXF (consumidor de {@code facas.analysis.result}).
+ * <p>
+ * Divide a lista em blocos de {@code app.dxf.analysis.batch.chunk-size} e grava cada bloco com
+ * {@link DXFAnalysisService#persistBatch} numa transação. Se o bloco falhar, ele é refeito item a
+ * item com {@link DXFAnalysisService#persistFromPayload}, para que o erro fique só no payload culpado,
+ * como no {@link OpBatchImportService}.
+ */
+@Service
+public class DXFAnalysisBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(DXFAnalysisBatchService.class);
+
+    /** Resultado de um payload: a análise gravada ou o erro que a impediu. */
+    public record Resultado(DXFAnalysis analise, RuntimeException erro) {
+        public boolean falhou() {
+            return erro != null;
+        }
+    }
+
+    private final DXFAnalysisService analysisService;
+    private final int chunkSize;
+    private final Counter fallbacks;
+
+    public DXFAnalysisBatchService(DXFAnalysisService analysisService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.dxf.analysis.batch.chunk-size:200}") int chunkSize) {
+        this.analysisService = analysisService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.fallbacks = Counter.builder("organizador_dxf_analysis_batch_fallback_total")
+                .description("Blocos de resultados DXF refeitos item a item após falha no lote")
+                .register(meterRegistry);
+    }
+
+    /** @return um resultado por payload, na ordem recebida */
+    public List<Resultado> persistir(List<JsonNode> payloads) {
+        if (payloads == null || payloads.isEmpty())
+            return List.of();
+
+        List<Resultado> results = new ArrayList<>(payloads.size());
+        for (int from = 0; from < payloads.size(); from += chunkSize) {
+            results.addAll(persistirBloco(payloads.subList(from, Math.min(payloads.size(), from + chunkSize))));
+        }
+        return results;
+    }
+
+    private List<Resultado> persistirBloco(List<JsonNode> chunk) {
+        try {
+            List<DXFAnalysis> saved = analysisService.persistBatch(chunk);
+            // analysisId repetido no bloco vira uma linha só: cada payload aponta para a gravada
+            List<Resultado> results = new ArrayList<>(chunk.size());
+            Map<String, DXFAnalysis> byId = new HashMap<>();
+            saved.forEach(a -> byId.put(a.getAnalysisId(), a));
+            for (JsonNode payload : chunk) {
+                results.add(new Resultado(byId.get(payload.path("analysisId").asText(null)), null));
+            }
+            return results;
+        } catch (RuntimeException e) {
+            fallbacks.increment();
+            log.warn("[DXF] lote de {} resultado(s) falhou ({}); refazendo item a item", chunk.size(), e.getMessage());
+        }
+
+        List<Resultado> results = new ArrayList<>(chunk.size());
+        for (JsonNode payload : chunk) {
+            try {
+                results.add(new Resultado(analysisService.persistFromPayload(payload), null));
+            } catch (RuntimeException e) {
+                log.error("[DXF] falha ao gravar resultado {}: {}",
+                        payload != null ? payload.path("analysisId").asText(null) : null, e.getMessage(), e);
+                results.add(new Resultado(null, e));
+            }
+        }
+        return results;
+    }
+}
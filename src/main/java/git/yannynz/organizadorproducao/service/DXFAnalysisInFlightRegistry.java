@@ -0,0 +1,342 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisInFlightView;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pedidos de análise DXF publicados em {@code facas.analysis.request} que ainda não têm resultado, por
+ * {@code analysisId} (o worker devolve o mesmo id em {@code facas.analysis.result}).
+ * <p>
+ * Pedidos com {@code fileHash} também ficam por hash: um segundo pedido do mesmo arquivo não vai para o
+ * worker, espera o primeiro, e recebe já o {@code analysisId} da cópia que será gravada para o seu NR.
+ * Quando o resultado chega ({@link #complete}), o pedido sai do registro, a latência ponta a ponta é
+ * medida e a análise é replicada, com esses ids, para os pedidos (NR) que esperavam nela
+ * ({@link DXFAnalysisService#reuseForOrder}).
+ * <p>
+ * {@link #sweep} (chamado pelo {@code DXFAnalysisInFlightSweeper}) trata os pedidos sem resultado após
+ * {@code app.dxf.analysis.request.inflight-ttl-ms}: republica até
+ * {@code republish-max-attempts} vezes com o mesmo id; depois disso marca como expirado, libera o hash e
+ * mantém o pedido visível por {@code expired-retention-ms} para contar o resultado atrasado. Pelo
+ * mesmo prazo o registro lembra os pedidos concluídos, para contar como duplicado (e não replicar de
+ * novo) um segundo resultado do mesmo {@code analysisId}.
+ */
+@Component
+public class DXFAnalysisInFlightRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(DXFAnalysisInFlightRegistry.class);
+
+    /**
+     * Resultado de {@link #begin}.
+     *
+     * @param analysisId       o id que o chamador consulta: o publicado ou, com {@code joined}, o da cópia
+     *                         que será gravada para o seu pedido (o próprio pedido em andamento quando é do
+     *                         mesmo NR ou sem NR)
+     * @param pendingAnalysisId o pedido publicado no worker
+     */
+    public record Registration(String analysisId, boolean joined, String pendingAnalysisId) {
+    }
+
+    /** Pedido vencido que deve ser publicado de novo com o mesmo {@code analysisId}. */
+    public record Republish(String analysisId, DXFAnalysisRequestDTO request, int attempt) {
+    }
+
+    private static final class Pending {
+        final String analysisId;
+        final String fileHash;
+        final String orderNumber;
+        final DXFAnalysisRequestDTO request;
+        final Instant requestedAt;
+        /** NR que espera a análise → {@code analysisId} da cópia que ele vai receber. */
+        final Map<String, String> waitingOrders = new LinkedHashMap<>();
+        Instant publishedAt;
+        Instant expiredAt;
+        int attempts = 1;
+
+        Pending(String analysisId, String fileHash, String orderNumber, DXFAnalysisRequestDTO request, Instant now) {
+            this.analysisId = analysisId;
+            this.fileHash = fileHash;
+            this.orderNumber = orderNumber;
+            this.request = request;
+            this.requestedAt = now;
+            this.publishedAt = now;
+        }
+    }
+
+    private final DXFAnalysisService analysisService;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration retention;
+    private final int republishMaxAttempts;
+    private final Clock clock;
+    private final Map<String, Pending> byHash = new HashMap<>();
+    private final Map<String, Pending> byAnalysisId = new HashMap<>();
+    /** {@code analysisId} concluído → quando, em ordem de conclusão. */
+    private final Map<String, Instant> completed = new LinkedHashMap<>();
+    private final Timer endToEnd;
+    private final Timer resultLag;
+
+    @Autowired
+    public DXFAnalysisInFlightRegistry(DXFAnalysisService analysisService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.dxf.analysis.request.inflight-ttl-ms:600000}") long ttlMs,
+                                       @Value("${app.dxf.analysis.request.republish-max-attempts:0}") int republishMaxAttempts,
+                                       @Value("${app.dxf.analysis.request.expired-retention-ms:3600000}") long retentionMs) {
+        this(analysisService, meterRegistry, ttlMs, republishMaxAttempts, retentionMs, Clock.systemUTC());
+    }
+
+    DXFAnalysisInFlightRegistry(DXFAnalysisService analysisService, MeterRegistry meterRegistry, long ttlMs,
+                                int republishMaxAttempts, long retentionMs, Clock clock) {
+        this.analysisService = analysisService;
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofMillis(Math.max(1, ttlMs));
+        this.republishMaxAttempts = Math.max(0, republishMaxAttempts);
+        this.retention = Duration.ofMillis(Math.max(0, retentionMs));
+        this.clock = clock;
+
+        Gauge.builder("organizador_dxf_analysis_inflight", this, r -> r.countByState(false))
+                .description("Pedidos de análise DXF publicados aguardando resultado")
+                .tag("state", "outstanding")
+                .register(meterRegistry);
+        Gauge.builder("organizador_dxf_analysis_inflight", this, r -> r.countByState(true))
+                .description("Pedidos de análise DXF publicados aguardando resultado")
+                .tag("state", "expired")
+                .register(meterRegistry);
+        this.endToEnd = Timer.builder("organizador_dxf_analysis_end_to_end_seconds")
+                .description("Tempo entre a publicação do pedido de análise DXF e a gravação do resultado")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.resultLag = Timer.builder("organizador_dxf_analysis_result_lag_seconds")
+                .description("Tempo entre o timestamp da análise no worker e a gravação do resultado")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra um pedido a publicar. Com {@code fileHash}, reserva o hash ou junta {@code orderNumber} ao
+     * pedido já em andamento; sem hash, sempre registra um pedido novo. Quem recebe {@code joined=false}
+     * publica com o id devolvido (ou chama {@link #abort} se falhar).
+     */
+    public synchronized Registration begin(String fileHash, String orderNumber, DXFAnalysisRequestDTO request) {
+        Instant now = clock.instant();
+        Pending current = fileHash != null ? byHash.get(fileHash) : null;
+        if (current != null && overdue(current, now)) {
+            // o sweeper ainda não passou: o pedido novo publica, o antigo segue só para medir o atraso
+            log.warn("[DXF] pedido {} do hash {} sem resultado após {} ms; liberando o hash",
+                    current.analysisId, fileHash, ttl.toMillis());
+            expire(current, now);
+            countExpired("flagged");
+            current = null;
+        }
+        if (current != null) {
+            String own = current.analysisId;
+            String nr = orderNumber != null && !orderNumber.isBlank() ? orderNumber.trim() : null;
+            if (nr != null && !nr.equals(current.orderNumber != null ? current.orderNumber.trim() : null)) {
+                // o id da cópia sai agora: o chamador consulta por ele quando o resultado chegar
+                own = current.waitingOrders.computeIfAbsent(nr, k -> UUID.randomUUID().toString());
+            }
+            return new Registration(own, true, current.analysisId);
+        }
+        Pending pending = new Pending(UUID.randomUUID().toString(), fileHash, orderNumber, request, now);
+        if (fileHash != null) {
+            byHash.put(fileHash, pending);
+        }
+        byAnalysisId.put(pending.analysisId, pending);
+        return new Registration(pending.analysisId, false, pending.analysisId);
+    }
+
+    /** A publicação falhou: o pedido sai do registro e o hash fica livre para o próximo pedido. */
+    public synchronized void abort(String analysisId) {
+        Pending pending = byAnalysisId.get(analysisId);
+        if (pending != null) {
+            remove(pending);
+        }
+    }
+
+    /**
+     * Resultado gravado: encerra o pedido, mede a latência ponta a ponta e replica a análise para os
+     * pedidos que esperavam nela. Resultado de um pedido já concluído (reentrega, payload repetido no lote)
+     * conta como duplicado; sem pedido registrado (análise disparada fora daqui ou pedido de antes do
+     * restart) só é contado.
+     */
+    public void complete(DXFAnalysis analysis) {
+        if (analysis == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        if (analysis.getAnalyzedAt() != null) {
+            Duration lag = Duration.between(analysis.getAnalyzedAt().toInstant(), now);
+            if (!lag.isNegative()) {
+                resultLag.record(lag);
+            }
+        }
+
+        Pending pending;
+        List<Map.Entry<String, String>> waiting;
+        synchronized (this) {
+            pending = byAnalysisId.get(analysis.getAnalysisId());
+            if (pending == null) {
+                countResult(completed.containsKey(analysis.getAnalysisId()) ? "duplicate" : "unmatched");
+                return;
+            }
+            remove(pending);
+            if (!retention.isZero()) {
+                completed.put(pending.analysisId, now);
+            }
+            waiting = new ArrayList<>(pending.waitingOrders.entrySet());
+        }
+        Duration elapsed = Duration.between(pending.requestedAt, now);
+        endToEnd.record(elapsed);
+        if (pending.expiredAt != null) {
+            log.info("[DXF] resultado do pedido {} chegou {} ms após a publicação, depois de expirado",
+                    pending.analysisId, elapsed.toMillis());
+            countResult("late");
+        } else {
+            countResult("matched");
+        }
+
+        for (Map.Entry<String, String> order : waiting) {
+            try {
+                analysisService.reuseForOrder(analysis, order.getKey(), null, order.getValue());
+            } catch (RuntimeException e) {
+                log.warn("[DXF] falha ao replicar análise {} para o pedido {}: {}",
+                        analysis.getAnalysisId(), order.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Passe sobre os pedidos sem resultado: os vencidos com republicação disponível voltam com o mesmo id
+     * (quem chama publica), os demais são marcados como expirados; expirados além da retenção saem do
+     * registro.
+     */
+    public List<Republish> sweep() {
+        Instant now = clock.instant();
+        List<Republish> republish = new ArrayList<>();
+        List<Pending> flagged = new ArrayList<>();
+        int dropped = 0;
+        synchronized (this) {
+            Iterator<Pending> it = byAnalysisId.values().iterator();
+            while (it.hasNext()) {
+                Pending pending = it.next();
+                if (pending.expiredAt != null) {
+                    if (pending.expiredAt.plus(retention).isBefore(now)) {
+                        it.remove();
+                        dropped++;
+                    }
+                } else if (overdue(pending, now)) {
+                    if (pending.request != null && pending.attempts <= republishMaxAttempts) {
+                        pending.attempts++;
+                        pending.publishedAt = now;
+                        republish.add(new Republish(pending.analysisId, pending.request, pending.attempts));
+                    } else {
+                        expire(pending, now);
+                        flagged.add(pending);
+                    }
+                }
+            }
+            Iterator<Instant> done = completed.values().iterator();
+            while (done.hasNext() && done.next().plus(retention).isBefore(now)) {
+                done.remove();
+            }
+        }
+        for (Pending pending : flagged) {
+            log.warn("[DXF] pedido {} (NR {}, hash {}) sem resultado após {} tentativa(s) de {} ms; marcado como expirado",
+                    pending.analysisId, pending.orderNumber, pending.fileHash, pending.attempts, ttl.toMillis());
+            countExpired("flagged");
+        }
+        for (Republish r : republish) {
+            log.warn("[DXF] pedido {} sem resultado após {} ms; republicando (tentativa {})",
+                    r.analysisId(), ttl.toMillis(), r.attempt());
+            countExpired("republished");
+        }
+        if (dropped > 0) {
+            log.debug("[DXF] {} pedido(s) expirado(s) descartado(s) do registro", dropped);
+        }
+        return republish;
+    }
+
+    /** Pedidos em andamento e expirados ainda retidos, mais antigos primeiro. */
+    public List<DXFAnalysisInFlightView> snapshot() {
+        Instant now = clock.instant();
+        List<DXFAnalysisInFlightView> views = new ArrayList<>();
+        synchronized (this) {
+            for (Pending p : byAnalysisId.values()) {
+                views.add(new DXFAnalysisInFlightView(p.analysisId, p.fileHash, p.orderNumber, p.requestedAt,
+                        p.publishedAt, Duration.between(p.requestedAt, now).toMillis(), p.attempts,
+                        p.expiredAt != null, new LinkedHashMap<>(p.waitingOrders)));
+            }
+        }
+        views.sort(Comparator.comparing(DXFAnalysisInFlightView::requestedAt));
+        return views;
+    }
+
+    private boolean overdue(Pending pending, Instant now) {
+        return pending.publishedAt.plus(ttl).isBefore(now);
+    }
+
+    // chamado com o monitor: o hash fica livre, o pedido segue no registro até a retenção
+    private void expire(Pending pending, Instant now) {
+        pending.expiredAt = now;
+        if (pending.fileHash != null) {
+            byHash.remove(pending.fileHash, pending);
+        }
+    }
+
+    private void remove(Pending pending) {
+        if (pending.fileHash != null) {
+            byHash.remove(pending.fileHash, pending);
+        }
+        byAnalysisId.remove(pending.analysisId);
+    }
+
+    private synchronized int countByState(boolean expired) {
+        int n = 0;
+        for (Pending pending : byAnalysisId.values()) {
+            if ((pending.expiredAt != null) == expired) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public synchronized int size() {
+        return byAnalysisId.size();
+    }
+
+    private void countExpired(String action) {
+        Counter.builder("organizador_dxf_analysis_expired_total")
+                .description("Pedidos de análise DXF sem resultado no prazo, por ação (republished, flagged)")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void countResult(String match) {
+        Counter.builder("organizador_dxf_analysis_results_total")
+                .description("Resultados de análise DXF gravados, por casamento com o pedido (matched, late, duplicate, unmatched)")
+                .tag("match", match)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -2,12 +2,16 @@ package git.yannynz.organizadorproducao.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
@@ -27,17 +31,83 @@ public class DXFAnalysisRequestPublisher {
     private final ObjectMapper objectMapper;
     private final DXFAnalysisProperties properties;
     private final Pattern orderPattern;
+    private final DXFAnalysisService analysisService;
+    private final DXFAnalysisInFlightRegistry inFlight;
+    private final MeterRegistry meterRegistry;
 
     public DXFAnalysisRequestPublisher(RabbitTemplate rabbitTemplate,
                                        ObjectMapper objectMapper,
-                                       DXFAnalysisProperties properties) {
+                                       DXFAnalysisProperties properties,
+                                       DXFAnalysisService analysisService,
+                                       DXFAnalysisInFlightRegistry inFlight,
+                                       MeterRegistry meterRegistry) {
         this.rabbitTemplate = rabbitTemplate;
         this.objectMapper = objectMapper;
         this.properties = properties;
         this.orderPattern = Pattern.compile(properties.getOrderNumberPattern());
+        this.analysisService = analysisService;
+        this.inFlight = inFlight;
+        this.meterRegistry = meterRegistry;
     }
 
+    /**
+     * Pedido de análise de {@code POST /api/dxf-analysis/request}. Com {@code fileHash} e sem
+     * {@code forceReprocess}, o worker só é acionado quando o arquivo nunca foi analisado: uma análise
+     * concluída do mesmo hash é devolvida na hora ({@code cacheHit=true}, copiada para o pedido quando é
+     * de outro NR) e um pedido do mesmo hash ainda sem resultado é reaproveitado
+     * ({@link DXFAnalysisInFlightRegistry}), devolvendo o {@code analysisId} da cópia que o NR vai receber.
+     */
+    public DXFAnalysisRequestResponse submit(DXFAnalysisRequestDTO request) {
+        validate(request);
+        String fileHash = StringUtils.hasText(request.fileHash()) ? request.fileHash().trim() : null;
+        if (fileHash == null || Boolean.TRUE.equals(request.forceReprocess())) {
+            count("published");
+            return new DXFAnalysisRequestResponse(publish(request), request.orderNumber(), false);
+        }
+
+        String fileName = resolveFileName(request);
+        String orderNumber = resolveOrderNumber(request.orderNumber(), fileName);
+        Optional<DXFAnalysis> reusable = analysisService.findReusableByFileHash(fileHash, orderNumber, fileName);
+        if (reusable.isPresent()) {
+            count("cache_hit");
+            log.info("DXF analysis request para o hash {} atendido pela análise {}", fileHash, reusable.get().getAnalysisId());
+            return new DXFAnalysisRequestResponse(reusable.get().getAnalysisId(), request.orderNumber(), true);
+        }
+
+        DXFAnalysisInFlightRegistry.Registration registration = inFlight.begin(fileHash, orderNumber, request);
+        if (registration.joined()) {
+            count("collapsed");
+            log.info("DXF analysis request para o hash {} aguarda o pedido em andamento {} (análise do pedido: {})",
+                    fileHash, registration.pendingAnalysisId(), registration.analysisId());
+            return new DXFAnalysisRequestResponse(registration.analysisId(), request.orderNumber(), false);
+        }
+        publishTracked(request, registration.analysisId());
+        count("published");
+        return new DXFAnalysisRequestResponse(registration.analysisId(), request.orderNumber(), false);
+    }
+
+    /** Publica sempre um pedido novo no worker (registrado em {@link DXFAnalysisInFlightRegistry} sem reservar o hash). */
     public String publish(DXFAnalysisRequestDTO request) {
+        validate(request);
+        String orderNumber = resolveOrderNumber(request.orderNumber(), resolveFileName(request));
+        return publishTracked(request, inFlight.begin(null, orderNumber, request).analysisId());
+    }
+
+    /** Republica um pedido vencido com o mesmo {@code analysisId} (sweeper de {@link DXFAnalysisInFlightRegistry}). */
+    public void republish(DXFAnalysisInFlightRegistry.Republish expired) {
+        publish(expired.request(), expired.analysisId());
+    }
+
+    private String publishTracked(DXFAnalysisRequestDTO request, String analysisId) {
+        try {
+            return publish(request, analysisId);
+        } catch (RuntimeException e) {
+            inFlight.abort(analysisId);
+            throw e;
+        }
+    }
+
+    private static void validate(DXFAnalysisRequestDTO request) {
         if (request == null) {
             throw new IllegalArgumentException("DXF analysis request body cannot be null");
         }
@@ -45,8 +115,9 @@ public class DXFAnalysisRequestPublisher {
         if (!StringUtils.hasText(request.filePath())) {
             throw new IllegalArgumentException("DXF analysis request requires 'filePath'");
         }
+    }
 
-        String analysisId = UUID.randomUUID().toString();
+    private String publish(DXFAnalysisRequestDTO request, String analysisId) {
         String normalizedFileName = resolveFileName(request);
         String orderNumber = resolveOrderNumber(request.orderNumber(), normalizedFileName);
 
@@ -111,6 +182,14 @@ public class DXFAnalysisRequestPublisher {
         return null;
     }
 
+    private void count(String outcome) {
+        Counter.builder("organizador_dxf_analysis_requests_total")
+                .description("Pedidos de análise DXF, por desfecho (published, cache_hit, collapsed)")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
     private String getVersion() {
         String version = DXFAnalysisRequestPublisher.class.getPackage().getImplementationVersion();
         return version != null ? version : "dev";
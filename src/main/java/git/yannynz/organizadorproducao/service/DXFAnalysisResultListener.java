@@ -4,8 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
 import git.yannynz.organizadorproducao.monitoring.MessageProcessingMetrics;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
@@ -14,39 +18,64 @@ public class DXFAnalysisResultListener {
 
     private static final Logger log = LoggerFactory.getLogger(DXFAnalysisResultListener.class);
 
-    private final DXFAnalysisService analysisService;
+    private final DXFAnalysisBatchService batchService;
+    private final ConsumerFailureRecoverer failureRecoverer;
     private final MessageProcessingMetrics messageProcessingMetrics;
     private final ObjectMapper objectMapper;
     private final DXFAnalysisProperties properties;
+    private final DXFAnalysisInFlightRegistry inFlight;
 
-    public DXFAnalysisResultListener(DXFAnalysisService analysisService,
+    public DXFAnalysisResultListener(DXFAnalysisBatchService batchService,
+                                     ConsumerFailureRecoverer failureRecoverer,
                                      MessageProcessingMetrics messageProcessingMetrics,
                                      ObjectMapper objectMapper,
-                                     DXFAnalysisProperties properties) {
-        this.analysisService = analysisService;
+                                     DXFAnalysisProperties properties,
+                                     DXFAnalysisInFlightRegistry inFlight) {
+        this.inFlight = inFlight;
+        this.batchService = batchService;
+        this.failureRecoverer = failureRecoverer;
         this.messageProcessingMetrics = messageProcessingMetrics;
         this.objectMapper = objectMapper;
         this.properties = properties;
     }
 
+    /**
+     * Resultados chegam em lote (dxfResultBatchListenerFactory); payload ilegível ou que falhou ao
+     * gravar vai sozinho para o {@link ConsumerFailureRecoverer}, o resto do lote é confirmado. O pedido
+     * em andamento é fechado com a linha relida do banco que {@link DXFAnalysisBatchService} devolve.
+     */
     @RabbitListener(
             queues = "${app.dxf.analysis.result-queue:facas.analysis.result}",
-            containerFactory = "stringListenerFactory"
+            containerFactory = "dxfResultBatchListenerFactory"
     )
-    public void consumeResult(String payload) {
-        if (payload == null || payload.isBlank()) {
-            log.debug("Ignorando mensagem vazia na fila de resultados de DXF.");
-            return;
-        }
-
+    public void consumeResults(List<Message> messages) throws Exception {
         String queueName = properties.getResultQueue();
-        try {
-            messageProcessingMetrics.recordProcessing(queueName, () -> {
-                JsonNode json = objectMapper.readTree(payload);
-                analysisService.persistFromPayload(json);
-            });
-        } catch (Exception e) {
-            log.error("Erro ao processar resultado de análise DXF: {}", e.getMessage(), e);
-        }
+        messageProcessingMetrics.recordProcessing(queueName, () -> {
+            List<Message> aceitas = new ArrayList<>(messages.size());
+            List<JsonNode> payloads = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+                if (payload.isBlank()) {
+                    log.debug("Ignorando mensagem vazia na fila de resultados de DXF.");
+                    continue;
+                }
+                try {
+                    payloads.add(objectMapper.readTree(payload));
+                    aceitas.add(message);
+                } catch (Exception e) {
+                    log.error("Erro ao processar resultado de análise DXF: {}", e.getMessage());
+                    failureRecoverer.recover(message, e);
+                }
+            }
+
+            List<DXFAnalysisBatchService.Resultado> results = batchService.persistir(payloads);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).falhou()) {
+                    failureRecoverer.recover(aceitas.get(i), results.get(i).erro());
+                } else {
+                    inFlight.complete(results.get(i).analise());
+                }
+            }
+        });
     }
 }
@@ -4,20 +4,33 @@ import com.fasterxml.jackson.databind.JsonNode;
 import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
 import git.yannynz.organizadorproducao.model.DXFAnalysis;
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisSummary;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisView;
 import git.yannynz.organizadorproducao.repository.DXFAnalysisRepository;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,11 +39,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriUtils;
 
 @Service
 public class DXFAnalysisService {
@@ -39,6 +54,7 @@ public class DXFAnalysisService {
 
     private final DXFAnalysisRepository analysisRepository;
     private final OrderRepository orderRepository;
+    private final OrderNrCache orderNrCache;
     private final SimpMessagingTemplate messagingTemplate;
     private final DXFAnalysisProperties properties;
     private final Pattern orderPattern;
@@ -47,18 +63,26 @@ public class DXFAnalysisService {
     private final Counter analysisFailedCounter;
     private final DistributionSummary imageSizeSummary;
     private final Timer analysisTimer;
+    private final Executor dxfExecutor;
+    private final DXFLatestAnalysisCache latestCache;
 
     public DXFAnalysisService(DXFAnalysisRepository analysisRepository,
                               OrderRepository orderRepository,
+                              OrderNrCache orderNrCache,
                               SimpMessagingTemplate messagingTemplate,
                               MeterRegistry meterRegistry,
-                              DXFAnalysisProperties properties) {
+                              DXFAnalysisProperties properties,
+                              @Qualifier("dxfExecutor") Executor dxfExecutor) {
         this.analysisRepository = analysisRepository;
+        this.dxfExecutor = dxfExecutor;
         this.orderRepository = orderRepository;
+        this.orderNrCache = orderNrCache;
         this.messagingTemplate = messagingTemplate;
         this.properties = properties;
         this.orderPattern = Pattern.compile(properties.getOrderNumberPattern());
         this.meterRegistry = meterRegistry;
+        this.latestCache = new DXFLatestAnalysisCache(properties.getLatestCacheMaxSize());
+        meterRegistry.gauge("organizador_dxf_latest_cache_size", latestCache, DXFLatestAnalysisCache::size);
         this.analysisTotalCounter = meterRegistry.counter("organizador_dxf_analysis_total", "status", "success");
         this.analysisFailedCounter = meterRegistry.counter("organizador_dxf_analysis_failed_total");
         this.imageSizeSummary = DistributionSummary.builder("organizador_dxf_image_size_bytes")
@@ -75,131 +99,25 @@ public class DXFAnalysisService {
     public DXFAnalysis persistFromPayload(JsonNode payload) {
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            if (payload == null || payload.isNull() || payload.isMissingNode()) {
-                throw new IllegalArgumentException("DXF analysis payload must not be null");
-            }
-
-            String analysisId = text(payload, "analysisId");
-            if (analysisId == null || analysisId.isBlank()) {
-                throw new IllegalArgumentException("DXF analysis payload is missing 'analysisId'");
-            }
+            String analysisId = requireAnalysisId(payload);
 
             DXFAnalysis entity = analysisRepository.findByAnalysisId(analysisId)
                     .orElseGet(DXFAnalysis::new);
-            entity.setAnalysisId(analysisId);
-
-            JsonNode fileNode = firstNonMissing(
-                    payload.path("file"),
-                    payload.path("dxf"),
-                    payload.path("input")
-            );
-            entity.setFileName(textOrFallback(fileNode, "name", text(payload, "fileName")));
-            entity.setFileHash(textOrFallback(fileNode, "hash", text(payload, "fileHash")));
-
-            String orderNrCandidate = resolveOrderNumber(payload, entity.getFileName());
-            entity.setOrderNr(orderNrCandidate);
+            String previousKey = entity.getOrderNrKey();
+            applyPayload(entity, payload);
 
+            String orderNrCandidate = entity.getOrderNr();
             if (orderNrCandidate != null
                     && (entity.getOrder() == null || !orderNrCandidate.equalsIgnoreCase(entity.getOrder().getNr()))) {
-                final String lookupOrderNr = orderNrCandidate;
-                orderRepository.findTopByNrOrderByIdDesc(lookupOrderNr)
-                        .or(() -> orderRepository.findByNr(lookupOrderNr))
-                        .ifPresentOrElse(entity::setOrder, () -> entity.setOrder(null));
-            }
-
-            JsonNode scoringNode = payload.path("score");
-            Double scoreValue = null;
-            String scoreLabel = null;
-            if (isConcrete(scoringNode)) {
-                if (scoringNode.isNumber()) {
-                    scoreValue = scoringNode.doubleValue();
-                } else {
-                    scoreValue = doubleOrNull(scoringNode, "value", "score");
-                    scoreLabel = textOrFallback(scoringNode, "label", null);
-                }
-            }
-            if (scoreValue == null) {
-                scoreValue = doubleOrNull(payload, "score");
-            }
-            if (scoreLabel == null) {
-                scoreLabel = textOrFallback(payload, "scoreLabel", null);
-            }
-            entity.setScore(scoreValue);
-            entity.setScoreLabel(scoreLabel);
-            entity.setScoreStars(scoreValue != null ? normalizeScoreStars(scoreValue) : null);
-
-            JsonNode metricsNode = payload.path("metrics");
-            if (isConcrete(metricsNode)) {
-                entity.setMetrics(metricsNode);
-                entity.setTotalCutLengthMm(doubleOrNull(metricsNode,
-                        "totalCutLengthMm", "total_cut_length_mm", "totalLengthMm", "totalCutLength"));
-                entity.setCurveCount(intOrNull(metricsNode, "curveCount", "curves", "numCurves"));
-                entity.setIntersectionCount(intOrNull(metricsNode, "intersectionCount", "intersections", "numIntersections"));
-                entity.setMinRadiusMm(doubleOrNull(metricsNode, "minRadiusMm", "min_radius_mm", "minArcRadius"));
-            } else {
-                entity.setMetrics(null);
-                entity.setTotalCutLengthMm(null);
-                entity.setCurveCount(null);
-                entity.setIntersectionCount(null);
-                entity.setMinRadiusMm(null);
-            }
-
-            JsonNode explanationsNode = firstNonMissing(
-                    payload.path("explanations"),
-                    scoringNode.path("explanations"));
-            entity.setExplanations(normalizeExplanations(explanationsNode));
-
-            JsonNode imageNode = payload.path("image");
-            if (!isConcrete(imageNode)) {
-                imageNode = payload.path("render");
-            }
-            entity.setImagePath(textOrFallback(imageNode, "path", null));
-            entity.setImageWidth(intOrNull(imageNode, "width"));
-            entity.setImageHeight(intOrNull(imageNode, "height"));
-            entity.setImageBucket(textOrFallback(imageNode, "storageBucket", entity.getImageBucket()));
-            entity.setImageKey(textOrFallback(imageNode, "storageKey", entity.getImageKey()));
-            entity.setImageUri(textOrFallback(imageNode, "storageUri", entity.getImageUri()));
-            entity.setImageChecksum(textOrFallback(imageNode, "checksum", entity.getImageChecksum()));
-            final Long imageSize = longOrNull(imageNode, "sizeBytes");
-            entity.setImageSizeBytes(imageSize != null ? imageSize : entity.getImageSizeBytes());
-            entity.setImageContentType(textOrFallback(imageNode, "contentType", entity.getImageContentType()));
-            entity.setImageUploadStatus(textOrFallback(imageNode, "uploadStatus", entity.getImageUploadStatus()));
-            entity.setImageUploadMessage(textOrFallback(imageNode, "uploadMessage", entity.getImageUploadMessage()));
-            JsonNode uploadedAtNode = imageNode.path("uploadedAtUtc");
-            if (!isConcrete(uploadedAtNode)) {
-                uploadedAtNode = imageNode.path("uploadedAt");
-            }
-            final OffsetDateTime uploadedAt = parseDate(uploadedAtNode).orElse(null);
-            entity.setImageUploadedAt(uploadedAt != null ? uploadedAt : entity.getImageUploadedAt());
-            entity.setImageEtag(textOrFallback(imageNode, "etag", entity.getImageEtag()));
-
-            if ("error".equalsIgnoreCase(entity.getImageUploadStatus())
-                    || "failed".equalsIgnoreCase(entity.getImageUploadStatus())) {
-                log.warn("DXF image upload flagged as {} for analysis {}: {}",
-                        entity.getImageUploadStatus(),
-                        entity.getAnalysisId(),
-                        entity.getImageUploadMessage());
+                entity.setOrder(orderReference(orderNrCandidate).orElse(null));
             }
 
             backfillImageIfMissing(entity);
 
-            entity.setCacheHit(payload.path("cacheHit").asBoolean(false));
-
-            OffsetDateTime analyzedAt = resolveAnalysisTimestamp(payload);
-            entity.setAnalyzedAt(analyzedAt != null ? analyzedAt : OffsetDateTime.now());
-
-            if (payload.isContainerNode()) {
-                entity.setRawPayload(payload.deepCopy());
-            } else {
-                entity.setRawPayload(payload);
-            }
-
             DXFAnalysis saved = analysisRepository.save(entity);
-            analysisTotalCounter.increment();
-            if (entity.getImageSizeBytes() != null && entity.getImageSizeBytes() > 0) {
-                imageSizeSummary.record(entity.getImageSizeBytes());
-            }
-            recordUploadStatusMetric(entity.getImageUploadStatus());
+            recordPersisted(saved);
+            evictLatest(previousKey);
+            evictLatest(saved.getOrderNrKey());
             broadcast(saved);
             return saved;
         } catch (RuntimeException ex) {
@@ -210,44 +128,346 @@ public class DXFAnalysisService {
         }
     }
 
-    public Optional<DXFAnalysis> findLatestByOrderNr(String orderNr) {
-        if (orderNr == null || orderNr.isBlank()) {
-            return Optional.empty();
+    /**
+     * Versão em lote de {@link #persistFromPayload} para o consumidor de resultados: monta todas as
+     * análises, resolve pedidos e imagens de fallback com uma consulta {@code IN} cada e grava tudo com
+     * um upsert em batch ({@link DXFAnalysisRepository#upsertAll}), sem ler as análises existentes.
+     * Um {@code analysisId} repetido no lote fica com o último payload. Qualquer erro derruba o lote
+     * inteiro; quem chama refaz item a item ({@link DXFAnalysisBatchService}).
+     * <p>
+     * Devolve (e transmite) as linhas relidas do banco numa consulta {@code IN}: o upsert não preenche
+     * o id e mantém a imagem já gravada quando o payload não traz uma.
+     */
+    @Transactional
+    public List<DXFAnalysis> persistBatch(List<JsonNode> payloads) {
+        if (payloads == null || payloads.isEmpty()) {
+            return List.of();
         }
-        List<String> candidates = buildOrderCandidates(orderNr);
-        DXFAnalysis latest = null;
-        for (String candidate : candidates) {
-            Optional<DXFAnalysis> found = analysisRepository.findTopByOrderNrOrderByAnalyzedAtDesc(candidate);
-            if (found.isEmpty()) {
-                continue;
+        long start = System.nanoTime();
+
+        Map<String, DXFAnalysis> byAnalysisId = new LinkedHashMap<>();
+        for (JsonNode payload : payloads) {
+            DXFAnalysis entity = new DXFAnalysis();
+            applyPayload(entity, payload);
+            byAnalysisId.remove(entity.getAnalysisId());
+            byAnalysisId.put(entity.getAnalysisId(), entity);
+        }
+        List<DXFAnalysis> entities = new ArrayList<>(byAnalysisId.values());
+
+        Set<String> orderNrs = new HashSet<>();
+        entities.forEach(e -> {
+            if (hasText(e.getOrderNr())) {
+                orderNrs.add(e.getOrderNr());
             }
-            DXFAnalysis current = found.get();
-            if (latest == null || isAfter(current.getAnalyzedAt(), latest.getAnalyzedAt())) {
-                latest = current;
+        });
+        Map<String, Order> orders = new HashMap<>();
+        if (!orderNrs.isEmpty()) {
+            // mais recente primeiro: putIfAbsent fica com o maior id de cada NR
+            orderRepository.findByNrInOrderByIdDesc(orderNrs).forEach(o -> orders.putIfAbsent(o.getNr(), o));
+        }
+        entities.forEach(e -> e.setOrder(e.getOrderNr() != null ? orders.get(e.getOrderNr()) : null));
+
+        backfillImagesIfMissing(entities);
+
+        entities.forEach(DXFAnalysis::onCreate);
+        analysisRepository.upsertAll(entities);
+
+        Map<String, DXFAnalysis> stored = new HashMap<>();
+        analysisRepository.findByAnalysisIdIn(byAnalysisId.keySet()).forEach(a -> stored.put(a.getAnalysisId(), a));
+        List<DXFAnalysis> saved = new ArrayList<>(entities.size());
+        for (DXFAnalysis entity : entities) {
+            DXFAnalysis row = stored.get(entity.getAnalysisId());
+            if (row == null) {
+                throw new IllegalStateException("DXF analysis " + entity.getAnalysisId() + " not found after upsert");
             }
+            saved.add(row);
         }
 
-        if (latest != null && hasImage(latest)) {
-            return Optional.of(latest);
+        long perItem = (System.nanoTime() - start) / saved.size();
+        for (DXFAnalysis analysis : saved) {
+            analysisTimer.record(perItem, TimeUnit.NANOSECONDS);
+            recordPersisted(analysis);
+            evictLatest(analysis.getOrderNrKey());
+            broadcast(analysis);
         }
+        return saved;
+    }
 
-        DXFAnalysis latestWithImage = null;
-        for (String candidate : candidates) {
-            List<DXFAnalysis> withImage = analysisRepository.findLatestWithImageByOrderNr(candidate, PageRequest.of(0, 1));
-            if (withImage.isEmpty()) {
-                continue;
+    private String requireAnalysisId(JsonNode payload) {
+        if (payload == null || payload.isNull() || payload.isMissingNode()) {
+            throw new IllegalArgumentException("DXF analysis payload must not be null");
+        }
+        String analysisId = text(payload, "analysisId");
+        if (analysisId == null || analysisId.isBlank()) {
+            throw new IllegalArgumentException("DXF analysis payload is missing 'analysisId'");
+        }
+        return analysisId;
+    }
+
+    /** Copia o payload para a entidade; pedido e imagem de fallback ficam com quem chama. */
+    private void applyPayload(DXFAnalysis entity, JsonNode payload) {
+        entity.setAnalysisId(requireAnalysisId(payload));
+
+        JsonNode fileNode = firstNonMissing(
+                payload.path("file"),
+                payload.path("dxf"),
+                payload.path("input")
+        );
+        entity.setFileName(textOrFallback(fileNode, "name", text(payload, "fileName")));
+        entity.setFileHash(textOrFallback(fileNode, "hash", text(payload, "fileHash")));
+
+        entity.setOrderNr(resolveOrderNumber(payload, entity.getFileName()));
+        entity.setOrderNrKey(normalizeOrderNumber(entity.getOrderNr()));
+
+        JsonNode scoringNode = payload.path("score");
+        Double scoreValue = null;
+        String scoreLabel = null;
+        if (isConcrete(scoringNode)) {
+            if (scoringNode.isNumber()) {
+                scoreValue = scoringNode.doubleValue();
+            } else {
+                scoreValue = doubleOrNull(scoringNode, "value", "score");
+                scoreLabel = textOrFallback(scoringNode, "label", null);
+            }
+        }
+        if (scoreValue == null) {
+            scoreValue = doubleOrNull(payload, "score");
+        }
+        if (scoreLabel == null) {
+            scoreLabel = textOrFallback(payload, "scoreLabel", null);
+        }
+        entity.setScore(scoreValue);
+        entity.setScoreLabel(scoreLabel);
+        entity.setScoreStars(scoreValue != null ? normalizeScoreStars(scoreValue) : null);
+
+        JsonNode metricsNode = payload.path("metrics");
+        if (isConcrete(metricsNode)) {
+            entity.setMetrics(metricsNode);
+            entity.setTotalCutLengthMm(doubleOrNull(metricsNode,
+                    "totalCutLengthMm", "total_cut_length_mm", "totalLengthMm", "totalCutLength"));
+            entity.setCurveCount(intOrNull(metricsNode, "curveCount", "curves", "numCurves"));
+            entity.setIntersectionCount(intOrNull(metricsNode, "intersectionCount", "intersections", "numIntersections"));
+            entity.setMinRadiusMm(doubleOrNull(metricsNode, "minRadiusMm", "min_radius_mm", "minArcRadius"));
+        } else {
+            entity.setMetrics(null);
+            entity.setTotalCutLengthMm(null);
+            entity.setCurveCount(null);
+            entity.setIntersectionCount(null);
+            entity.setMinRadiusMm(null);
+        }
+
+        JsonNode explanationsNode = firstNonMissing(
+                payload.path("explanations"),
+                scoringNode.path("explanations"));
+        entity.setExplanations(normalizeExplanations(explanationsNode));
+
+        JsonNode imageNode = payload.path("image");
+        if (!isConcrete(imageNode)) {
+            imageNode = payload.path("render");
+        }
+        entity.setImagePath(textOrFallback(imageNode, "path", null));
+        entity.setImageWidth(intOrNull(imageNode, "width"));
+        entity.setImageHeight(intOrNull(imageNode, "height"));
+        entity.setImageBucket(textOrFallback(imageNode, "storageBucket", entity.getImageBucket()));
+        entity.setImageKey(textOrFallback(imageNode, "storageKey", entity.getImageKey()));
+        entity.setImageUri(textOrFallback(imageNode, "storageUri", entity.getImageUri()));
+        entity.setImageChecksum(textOrFallback(imageNode, "checksum", entity.getImageChecksum()));
+        final Long imageSize = longOrNull(imageNode, "sizeBytes");
+        entity.setImageSizeBytes(imageSize != null ? imageSize : entity.getImageSizeBytes());
+        entity.setImageContentType(textOrFallback(imageNode, "contentType", entity.getImageContentType()));
+        entity.setImageUploadStatus(textOrFallback(imageNode, "uploadStatus", entity.getImageUploadStatus()));
+        entity.setImageUploadMessage(textOrFallback(imageNode, "uploadMessage", entity.getImageUploadMessage()));
+        JsonNode uploadedAtNode = imageNode.path("uploadedAtUtc");
+        if (!isConcrete(uploadedAtNode)) {
+            uploadedAtNode = imageNode.path("uploadedAt");
+        }
+        final OffsetDateTime uploadedAt = parseDate(uploadedAtNode).orElse(null);
+        entity.setImageUploadedAt(uploadedAt != null ? uploadedAt : entity.getImageUploadedAt());
+        entity.setImageEtag(textOrFallback(imageNode, "etag", entity.getImageEtag()));
+
+        if ("error".equalsIgnoreCase(entity.getImageUploadStatus())
+                || "failed".equalsIgnoreCase(entity.getImageUploadStatus())) {
+            log.warn("DXF image upload flagged as {} for analysis {}: {}",
+                    entity.getImageUploadStatus(),
+                    entity.getAnalysisId(),
+                    entity.getImageUploadMessage());
+        }
+
+        entity.setCacheHit(payload.path("cacheHit").asBoolean(false));
+
+        OffsetDateTime analyzedAt = resolveAnalysisTimestamp(payload);
+        entity.setAnalyzedAt(analyzedAt != null ? analyzedAt : OffsetDateTime.now());
+
+        // o payload vem de readTree no consumidor e não é reaproveitado: guarda sem deepCopy
+        entity.setRawPayload(payload);
+    }
+
+    private void recordPersisted(DXFAnalysis entity) {
+        analysisTotalCounter.increment();
+        if (entity.getImageSizeBytes() != null && entity.getImageSizeBytes() > 0) {
+            imageSizeSummary.record(entity.getImageSizeBytes());
+        }
+        recordUploadStatusMetric(entity.getImageUploadStatus());
+    }
+
+    /**
+     * Análise mais recente do pedido, preferindo a mais recente com imagem. Todas as variantes do NR
+     * (120184, NR120184, "NR 120184", CL120184) caem na mesma {@code order_nr_key}: uma consulta só.
+     */
+    public Optional<DXFAnalysis> findLatestByOrderNr(String orderNr) {
+        String key = normalizeOrderNumber(orderNr);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return analysisRepository.findLatestByOrderNrKey(key);
+    }
+
+    /** {@link #findLatestByOrderNr} já como view, servido pelo cache por pedido. */
+    public Optional<DXFAnalysisView> findLatestViewByOrderNr(String orderNr) {
+        String key = normalizeOrderNumber(orderNr);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return latestCache.get(key, k -> analysisRepository.findLatestByOrderNrKey(k).map(this::toView));
+    }
+
+    /**
+     * Última análise de vários pedidos de uma vez, para os cards do quadro: as chaves já no cache por
+     * pedido saem dele e as demais vêm de um único {@code DISTINCT ON}
+     * ({@link DXFAnalysisRepository#findLatestSummariesByOrderNrKeyIn}).
+     *
+     * @return pedido (como recebido) → resumo, na ordem recebida; pedidos sem análise ficam de fora
+     */
+    public Map<String, DXFAnalysisSummary> findLatestSummaries(Collection<String> orderNrs) {
+        if (orderNrs == null || orderNrs.isEmpty()) {
+            return Map.of();
+        }
+        int maxItems = properties.getLatestBatchMaxItems();
+        if (orderNrs.size() > maxItems) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Lote com " + orderNrs.size() + " pedidos excede o limite de " + maxItems);
+        }
+
+        Map<String, String> keyByOrderNr = new LinkedHashMap<>();
+        for (String orderNr : orderNrs) {
+            String key = normalizeOrderNumber(orderNr);
+            if (key != null) {
+                keyByOrderNr.putIfAbsent(orderNr, key);
+            }
+        }
+
+        Map<String, DXFAnalysisSummary> byKey = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String key : keyByOrderNr.values()) {
+            Optional<DXFAnalysisView> cached = latestCache.peek(key);
+            if (cached == null) {
+                missing.add(key);
+            } else {
+                cached.ifPresent(view -> byKey.put(key, DXFAnalysisSummary.of(view)));
             }
-            DXFAnalysis item = withImage.get(0);
-            if (latestWithImage == null || isAfter(item.getAnalyzedAt(), latestWithImage.getAnalyzedAt())) {
-                latestWithImage = item;
+        }
+        if (!missing.isEmpty()) {
+            analysisRepository.findLatestSummariesByOrderNrKeyIn(missing)
+                    .forEach(a -> byKey.put(a.getOrderNrKey(), DXFAnalysisSummary.of(toView(a))));
+        }
+
+        Map<String, DXFAnalysisSummary> result = new LinkedHashMap<>();
+        keyByOrderNr.forEach((orderNr, key) -> {
+            DXFAnalysisSummary summary = byKey.get(key);
+            if (summary != null) {
+                result.put(orderNr, summary);
             }
+        });
+        return result;
+    }
+
+    /**
+     * Análise já concluída do mesmo arquivo ({@code fileHash}) para atender um pedido de análise sem
+     * passar pelo worker; ver {@link #reuseForOrder}.
+     */
+    @Transactional
+    public Optional<DXFAnalysis> findReusableByFileHash(String fileHash, String orderNr, String fileName) {
+        if (!hasText(fileHash)) {
+            return Optional.empty();
         }
+        return analysisRepository.findLatestByFileHash(fileHash.trim())
+                .map(source -> reuseForOrder(source, orderNr, fileName, null));
+    }
 
-        if (latestWithImage != null) {
-            return Optional.of(latestWithImage);
+    /**
+     * A análise de {@code source} para o pedido {@code orderNr}: ela mesma quando é do pedido (ou não há
+     * pedido), a cópia já feita para esse pedido ou uma cópia nova com {@code cacheHit=true}, gravada com
+     * {@code copyId} (o id já devolvido a quem esperava por ela; {@code null} gera um novo) e difundida como
+     * um resultado do worker. Broadcast e invalidação do cache só saem depois do commit.
+     */
+    @Transactional
+    public DXFAnalysis reuseForOrder(DXFAnalysis source, String orderNr, String fileName, String copyId) {
+        String key = normalizeOrderNumber(orderNr);
+        if (key == null || key.equals(source.getOrderNrKey())) {
+            return source;
+        }
+        if (hasText(source.getFileHash())) {
+            Optional<DXFAnalysis> own = analysisRepository
+                    .findTopByFileHashAndOrderNrKeyOrderByAnalyzedAtDesc(source.getFileHash(), key);
+            if (own.isPresent()) {
+                return own.get();
+            }
         }
 
-        return Optional.ofNullable(latest);
+        DXFAnalysis copy = copyOf(source);
+        copy.setAnalysisId(hasText(copyId) ? copyId : UUID.randomUUID().toString());
+        copy.setOrderNr(key);
+        copy.setOrderNrKey(key);
+        if (hasText(fileName)) {
+            copy.setFileName(fileName);
+        }
+        copy.setCacheHit(true);
+        copy.setAnalyzedAt(OffsetDateTime.now());
+        if (source.getRawPayload() instanceof ObjectNode raw) {
+            ObjectNode payload = raw.deepCopy();
+            payload.put("analysisId", copy.getAnalysisId());
+            payload.put("cacheHit", true);
+            payload.put("clonedFrom", source.getAnalysisId());
+            copy.setRawPayload(payload);
+        }
+        orderReference(key).ifPresent(copy::setOrder);
+
+        DXFAnalysis saved = analysisRepository.save(copy);
+        // ambos registram afterCommit: um cliente avisado antes do commit leria a análise anterior
+        evictLatest(key);
+        broadcast(saved);
+        log.info("Análise DXF {} reaproveitada para o pedido {} como {}", source.getAnalysisId(), key, saved.getAnalysisId());
+        return saved;
+    }
+
+    private static DXFAnalysis copyOf(DXFAnalysis source) {
+        DXFAnalysis copy = new DXFAnalysis();
+        copy.setFileName(source.getFileName());
+        copy.setFileHash(source.getFileHash());
+        copy.setImagePath(source.getImagePath());
+        copy.setImageWidth(source.getImageWidth());
+        copy.setImageHeight(source.getImageHeight());
+        copy.setImageBucket(source.getImageBucket());
+        copy.setImageKey(source.getImageKey());
+        copy.setImageUri(source.getImageUri());
+        copy.setImageChecksum(source.getImageChecksum());
+        copy.setImageSizeBytes(source.getImageSizeBytes());
+        copy.setImageContentType(source.getImageContentType());
+        copy.setImageUploadStatus(source.getImageUploadStatus());
+        copy.setImageUploadMessage(source.getImageUploadMessage());
+        copy.setImageUploadedAt(source.getImageUploadedAt());
+        copy.setImageEtag(source.getImageEtag());
+        copy.setScore(source.getScore());
+        copy.setScoreLabel(source.getScoreLabel());
+        copy.setScoreStars(source.getScoreStars());
+        copy.setTotalCutLengthMm(source.getTotalCutLengthMm());
+        copy.setCurveCount(source.getCurveCount());
+        copy.setIntersectionCount(source.getIntersectionCount());
+        copy.setMinRadiusMm(source.getMinRadiusMm());
+        copy.setMetrics(source.getMetrics());
+        copy.setExplanations(source.getExplanations());
+        copy.setRawPayload(source.getRawPayload());
+        return copy;
     }
 
     public Optional<DXFAnalysis> findByAnalysisId(String analysisId) {
@@ -262,18 +482,8 @@ public class DXFAnalysisService {
             return List.of();
         }
         int safeLimit = Math.max(1, Math.min(limit, 25));
-        String normalized = normalizeOrderNumber(orderNr);
-        List<DXFAnalysis> entities = analysisRepository.findByOrderNrOrderByAnalyzedAtDesc(
-                normalized != null ? normalized : orderNr.trim(), PageRequest.of(0, safeLimit));
-        if (entities.isEmpty() && normalized != null) {
-            entities = analysisRepository.findByOrderNrOrderByAnalyzedAtDesc(orderNr.trim(), PageRequest.of(0, safeLimit));
-        }
-        if (entities.isEmpty() && normalized != null) {
-            entities = analysisRepository.findByOrderNrOrderByAnalyzedAtDesc("NR" + normalized, PageRequest.of(0, safeLimit));
-        }
-        if (entities.isEmpty() && normalized != null) {
-            entities = analysisRepository.findByOrderNrOrderByAnalyzedAtDesc("CL" + normalized, PageRequest.of(0, safeLimit));
-        }
+        List<DXFAnalysis> entities = analysisRepository.findByOrderNrKeyOrderByAnalyzedAtDesc(
+                normalizeOrderNumber(orderNr), PageRequest.of(0, safeLimit));
         return entities.stream().map(this::toView).toList();
     }
 
@@ -281,7 +491,11 @@ public class DXFAnalysisService {
         if (analysis == null) {
             return null;
         }
-        String imageUrl = resolveImageUrl(analysis);
+        // os cards carregam a imagem pela API (arquivo local/cache, ETag, Range); o storage fica por trás
+        boolean hasImage = hasText(analysis.getAnalysisId()) && (hasText(analysis.getImageKey())
+                || hasText(analysis.getImageUri()) || hasText(analysis.getImagePath()));
+        String imageUrl = hasImage ? imageEndpoint(analysis.getAnalysisId(), "image") : null;
+        String thumbnailUrl = hasImage ? imageEndpoint(analysis.getAnalysisId(), "thumbnail") : null;
         Long orderId = analysis.getOrder() != null ? analysis.getOrder().getId() : null;
         return new DXFAnalysisView(
                 analysis.getAnalysisId(),
@@ -300,6 +514,7 @@ public class DXFAnalysisService {
                 analysis.getFileHash(),
                 analysis.getImagePath(),
                 imageUrl,
+                thumbnailUrl,
                 analysis.getImageBucket(),
                 analysis.getImageKey(),
                 analysis.getImageUri(),
@@ -317,27 +532,59 @@ public class DXFAnalysisService {
         );
     }
 
+    private static String imageEndpoint(String analysisId, String kind) {
+        return "/api/dxf-analysis/" + UriUtils.encodePathSegment(analysisId, StandardCharsets.UTF_8) + "/" + kind;
+    }
+
     public ResponseEntity<?> loadAnalysisImage(String analysisId) {
         DXFAnalysis analysis = analysisRepository.findByAnalysisId(analysisId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Análise DXF não encontrada"));
+        return redirectToImage(analysis);
+    }
 
-        String directUrl = resolveImageUrl(analysis);
-        if (isHttpUrl(directUrl)) {
-            return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(directUrl)).build();
-        }
+    /** Redireciona para a URL pública da imagem; 404 quando ela não é HTTP. */
+    public ResponseEntity<?> redirectToImage(DXFAnalysis analysis) {
+        return resolveHttpImageUrl(analysis)
+                .<ResponseEntity<?>>map(url -> ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Imagem DXF não disponível no storage configurado"));
+    }
 
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Imagem DXF não disponível no storage configurado");
+    /** URL da imagem no storage, quando é HTTP (a view aponta para {@code /image}, que a usa por trás). */
+    public Optional<String> resolveHttpImageUrl(DXFAnalysis analysis) {
+        String directUrl = resolveImageUrl(analysis);
+        return isHttpUrl(directUrl) ? Optional.of(directUrl) : Optional.empty();
     }
 
+    /**
+     * A view é montada ainda na transação; a serialização e o envio ficam no {@code dxfExecutor}
+     * após o commit, liberando a thread do listener.
+     */
     private void broadcast(DXFAnalysis analysis) {
         String topic = properties.getWebsocketTopic();
         if (topic == null || topic.isBlank()) {
             return;
         }
-        try {
-            messagingTemplate.convertAndSend(topic, toView(analysis));
-        } catch (Exception e) {
-            log.warn("Failed to broadcast DXF analysis {} to WebSocket topic {}: {}", analysis.getAnalysisId(), topic, e.getMessage());
+        String analysisId = analysis.getAnalysisId();
+        DXFAnalysisView view = toView(analysis);
+        TransactionHooks.afterCommit(() -> dxfExecutor.execute(() -> {
+            try {
+                messagingTemplate.convertAndSend(topic, view);
+            } catch (Exception e) {
+                log.warn("Failed to broadcast DXF analysis {} to WebSocket topic {}: {}", analysisId, topic, e.getMessage());
+            }
+        }));
+    }
+
+    // acerto do cache conferido pela PK: um id velho (pedido renomeado ou removido) nunca vira FK
+    private Optional<Order> orderReference(String orderNr) {
+        return orderNrCache.findLatestByNr(orderNr);
+    }
+
+    // depois do commit: antes dele a consulta ainda enxergaria a análise anterior e a gravaria de volta
+    private void evictLatest(String orderNrKey) {
+        if (orderNrKey != null) {
+            TransactionHooks.afterCommit(() -> latestCache.evict(orderNrKey));
         }
     }
 
@@ -823,6 +1070,77 @@ public class DXFAnalysisService {
         return latest;
     }
 
+    /**
+     * {@link #backfillImageIfMissing} para um lote: uma consulta por hash e uma por NR (com as
+     * variantes NR/CL), mais as análises com imagem do próprio lote.
+     */
+    private void backfillImagesIfMissing(List<DXFAnalysis> entities) {
+        List<DXFAnalysis> missing = entities.stream().filter(e -> !hasImage(e)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Set<String> hashes = new HashSet<>();
+        Set<String> orderCandidates = new HashSet<>();
+        for (DXFAnalysis entity : missing) {
+            if (hasText(entity.getFileHash())) {
+                hashes.add(entity.getFileHash());
+            }
+            if (hasText(entity.getOrderNr())) {
+                orderCandidates.addAll(buildOrderCandidates(entity.getOrderNr()));
+            }
+        }
+
+        Map<String, DXFAnalysis> byHash = new HashMap<>();
+        Map<String, DXFAnalysis> byOrderNr = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            analysisRepository.findLatestWithImageByFileHashIn(hashes)
+                    .forEach(a -> keepLatest(byHash, a.getFileHash(), a));
+        }
+        if (!orderCandidates.isEmpty()) {
+            analysisRepository.findLatestWithImageByOrderNrIn(orderCandidates)
+                    .forEach(a -> keepLatest(byOrderNr, a.getOrderNr(), a));
+        }
+        for (DXFAnalysis entity : entities) {
+            if (!hasImage(entity)) {
+                continue;
+            }
+            if (entity.getFileHash() != null && hashes.contains(entity.getFileHash())) {
+                keepLatest(byHash, entity.getFileHash(), entity);
+            }
+            if (entity.getOrderNr() != null && orderCandidates.contains(entity.getOrderNr())) {
+                keepLatest(byOrderNr, entity.getOrderNr(), entity);
+            }
+        }
+
+        for (DXFAnalysis entity : missing) {
+            DXFAnalysis fallback = hasText(entity.getFileHash()) ? byHash.get(entity.getFileHash()) : null;
+            if (fallback == null && hasText(entity.getOrderNr())) {
+                for (String candidate : buildOrderCandidates(entity.getOrderNr())) {
+                    DXFAnalysis item = byOrderNr.get(candidate);
+                    if (item != null && (fallback == null || isAfter(item.getAnalyzedAt(), fallback.getAnalyzedAt()))) {
+                        fallback = item;
+                    }
+                }
+            }
+            if (fallback == null) {
+                continue;
+            }
+            copyImageInfo(fallback, entity);
+            log.info("DXF image backfilled analysisId={} order={} hash={}",
+                    entity.getAnalysisId(),
+                    entity.getOrderNr(),
+                    entity.getFileHash());
+        }
+    }
+
+    private void keepLatest(Map<String, DXFAnalysis> latest, String key, DXFAnalysis candidate) {
+        DXFAnalysis current = latest.get(key);
+        if (current == null || isAfter(candidate.getAnalyzedAt(), current.getAnalyzedAt())) {
+            latest.put(key, candidate);
+        }
+    }
+
     private void copyImageInfo(DXFAnalysis source, DXFAnalysis target) {
         target.setImagePath(source.getImagePath());
         target.setImageWidth(source.getImageWidth());
@@ -0,0 +1,175 @@
+package git.yannynz.organizadorproducao.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Diretório de arquivos limitado por tamanho, com descarte LRU: renders trazidos do storage e
+ * miniaturas geradas por {@link DXFImageService}.
+ * <p>
+ * O índice (nome → bytes, em ordem de acesso) fica em memória e é remontado na subida a partir do
+ * diretório, mais antigos primeiro. Cada arquivo é escrito num temporário e movido no lugar, então
+ * quem lê nunca vê arquivo pela metade; duas threads pedindo o mesmo nome geram o arquivo uma vez só.
+ * O arquivo devolvido por {@link #get} ou {@link #computeIfAbsent} ainda vai ser lido pela resposta
+ * (inclusive em {@code Range}), então fica protegido do descarte por {@link #READ_LEASE}: nesse
+ * intervalo o diretório pode passar um pouco do limite.
+ */
+final class DXFImageDiskCache {
+
+    @FunctionalInterface
+    interface Writer {
+        void write(Path target) throws IOException;
+    }
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /** Tempo que um arquivo recém-entregue fica fora do descarte enquanto o cliente o baixa. */
+    static final Duration READ_LEASE = Duration.ofMinutes(1);
+
+    private final Path dir;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Long> servedAt = new HashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private long totalBytes;
+
+    DXFImageDiskCache(Path dir, long maxBytes) throws IOException {
+        this(dir, maxBytes, Clock.systemUTC());
+    }
+
+    DXFImageDiskCache(Path dir, long maxBytes, Clock clock) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.clock = clock;
+        try (Stream<Path> files = Files.list(this.dir)) {
+            files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(DXFImageDiskCache::lastModified))
+                    .forEach(this::load);
+        }
+        synchronized (this) {
+            evict(null);
+        }
+    }
+
+    private void load(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            if (name.endsWith(TMP_SUFFIX)) {
+                Files.deleteIfExists(file); // sobra de uma escrita interrompida
+                return;
+            }
+            long size = Files.size(file);
+            sizes.put(name, size);
+            totalBytes += size;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /** @return o arquivo em cache (marcado como usado e em leitura agora) ou {@code null} */
+    Path get(String name) {
+        synchronized (this) {
+            if (sizes.get(name) == null) {
+                return null;
+            }
+            servedAt.put(name, clock.millis());
+        }
+        Path file = dir.resolve(name);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        synchronized (this) {
+            Long size = sizes.remove(name);
+            servedAt.remove(name);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        return null;
+    }
+
+    /** Devolve o arquivo em cache ou o gera com {@code writer}, descartando os menos usados se passar do limite. */
+    Path computeIfAbsent(String name, Writer writer) throws IOException {
+        Path hit = get(name);
+        if (hit != null) {
+            return hit;
+        }
+        Object lock = locks.computeIfAbsent(name, k -> new Object());
+        try {
+            synchronized (lock) {
+                hit = get(name);
+                if (hit != null) {
+                    return hit;
+                }
+                Path tmp = Files.createTempFile(dir, "img-", TMP_SUFFIX);
+                try {
+                    writer.write(tmp);
+                    Path target = dir.resolve(name);
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    long size = Files.size(target);
+                    synchronized (this) {
+                        Long previous = sizes.put(name, size);
+                        totalBytes += size - (previous != null ? previous : 0L);
+                        servedAt.put(name, clock.millis());
+                        evict(name);
+                    }
+                    return target;
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        } finally {
+            locks.remove(name, lock);
+        }
+    }
+
+    // chamado com o monitor: o arquivo recém-gravado (keep) e os ainda em leitura ficam mesmo acima do limite
+    private void evict(String keep) {
+        long leasedSince = clock.millis() - READ_LEASE.toMillis();
+        Iterator<Map.Entry<String, Long>> it = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            Long served = servedAt.get(eldest.getKey());
+            if (eldest.getKey().equals(keep) || (served != null && served > leasedSince)) {
+                continue;
+            }
+            it.remove();
+            servedAt.remove(eldest.getKey());
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(dir.resolve(eldest.getKey()));
+            } catch (IOException ignored) {
+                // fica órfão no disco até a próxima subida, mas fora da conta
+            }
+        }
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    synchronized int size() {
+        return sizes.size();
+    }
+}
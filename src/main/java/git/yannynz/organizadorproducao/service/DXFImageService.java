@@ -0,0 +1,334 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Imagens das análises DXF ({@code /api/dxf-analysis/{analysisId}/image} e {@code /thumbnail}).
+ * <p>
+ * O render é servido do disco quando está sob {@code app.dxf.analysis.image-local-roots}; senão, com
+ * {@code app.dxf.analysis.image-cache.enabled}, é trazido uma vez do storage para um diretório
+ * limitado ({@link DXFImageDiskCache}) chaveado por {@code imageChecksum}/{@code imageEtag}. A
+ * miniatura é gerada no primeiro acesso e fica no mesmo diretório; sem o cache, a de um arquivo local
+ * é reduzida em memória a cada pedido. A resposta é um {@link FileSystemResource} com {@code ETag}: o
+ * Spring MVC responde {@code Range} (206) e o {@code If-None-Match} é conferido aqui antes de tocar no
+ * disco ou no storage. Sem arquivo local e sem cache, {@code /image} continua redirecionando para o
+ * storage e {@code /thumbnail} responde 404 (o front cai em {@code /image}).
+ */
+@Service
+public class DXFImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(DXFImageService.class);
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+
+    private final DXFAnalysisService analysisService;
+    private final MeterRegistry meterRegistry;
+    private final List<Path> localRoots = new ArrayList<>();
+    private final DXFImageDiskCache diskCache;
+    private final HttpClient httpClient;
+    private final Duration fetchTimeout;
+    private final int thumbnailWidth;
+
+    public DXFImageService(DXFAnalysisService analysisService,
+                           DXFAnalysisProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.analysisService = analysisService;
+        this.meterRegistry = meterRegistry;
+        for (String root : properties.getImageLocalRoots()) {
+            if (root != null && !root.isBlank()) {
+                localRoots.add(Path.of(root.trim()).toAbsolutePath().normalize());
+            }
+        }
+        DXFAnalysisProperties.ImageCache cfg = properties.getImageCache();
+        this.diskCache = cfg.isEnabled() ? openDiskCache(cfg) : null;
+        this.fetchTimeout = Duration.ofMillis(Math.max(1, cfg.getFetchTimeoutMs()));
+        this.thumbnailWidth = Math.max(16, cfg.getThumbnailWidth());
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(fetchTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        if (diskCache != null) {
+            meterRegistry.gauge("organizador_dxf_image_cache_bytes", diskCache, DXFImageDiskCache::sizeBytes);
+        }
+    }
+
+    private static DXFImageDiskCache openDiskCache(DXFAnalysisProperties.ImageCache cfg) {
+        try {
+            return new DXFImageDiskCache(Path.of(cfg.getDir()), cfg.getMaxBytes());
+        } catch (IOException | RuntimeException e) {
+            log.warn("[DXF-IMG] cache de imagens desativado: diretório {} indisponível ({})", cfg.getDir(), e.getMessage());
+            return null;
+        }
+    }
+
+    public ResponseEntity<?> image(String analysisId, String ifNoneMatch) {
+        return serve(analysisId, false, ifNoneMatch);
+    }
+
+    public ResponseEntity<?> thumbnail(String analysisId, String ifNoneMatch) {
+        return serve(analysisId, true, ifNoneMatch);
+    }
+
+    /** Local: arquivo sob uma raiz; remoto: URL do storage a trazer para o cache. */
+    private record Source(Path file, String url, String name) {
+    }
+
+    private ResponseEntity<?> serve(String analysisId, boolean thumbnail, String ifNoneMatch) {
+        DXFAnalysis analysis = analysisService.findByAnalysisId(analysisId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Análise DXF não encontrada"));
+
+        Source source = resolveSource(analysis);
+        if (source == null) {
+            if (thumbnail) {
+                // a miniatura não pode virar a imagem inteira: sem origem para reduzir, não há miniatura
+                count("unavailable");
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Miniatura DXF indisponível");
+            }
+            count("redirect");
+            return analysisService.redirectToImage(analysis);
+        }
+
+        String etag = "\"" + source.name().substring(0, 32) + (thumbnail ? "-t" + thumbnailWidth : "") + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            count("not_modified");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+
+        Path original = source.file();
+        if (original == null) {
+            try {
+                original = diskCache.computeIfAbsent(source.name(), tmp -> download(source.url(), tmp));
+            } catch (IOException e) {
+                log.warn("[DXF-IMG] falha ao trazer imagem da análise {} de {}: {}", analysisId, source.url(), e.getMessage());
+                if (thumbnail) {
+                    count("unavailable");
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Miniatura DXF indisponível");
+                }
+                count("redirect");
+                return analysisService.redirectToImage(analysis);
+            }
+        }
+        count(source.file() != null ? "local" : "cache");
+
+        if (thumbnail) {
+            Path from = original;
+            try {
+                Resource thumb = diskCache != null
+                        ? new FileSystemResource(diskCache.computeIfAbsent(source.name() + "-t" + thumbnailWidth,
+                                tmp -> writeThumbnail(from, tmp, thumbnailWidth)))
+                        : new ByteArrayResource(thumbnailBytes(from, thumbnailWidth));
+                return ok(etag, MediaType.IMAGE_PNG, thumb);
+            } catch (IOException e) {
+                // formato que o ImageIO não lê: o cliente recebe o original
+                log.warn("[DXF-IMG] miniatura da análise {} não gerada: {}", analysisId, e.getMessage());
+                etag = "\"" + source.name().substring(0, 32) + "\"";
+            }
+        }
+
+        return ok(etag, contentType(analysis), new FileSystemResource(original));
+    }
+
+    private static ResponseEntity<Resource> ok(String etag, MediaType contentType, Resource body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .contentType(contentType)
+                .body(body);
+    }
+
+    private Source resolveSource(DXFAnalysis analysis) {
+        Path local = findLocal(analysis);
+        String version = version(analysis);
+        if (local != null) {
+            String key = version != null ? version : "local:" + local + ":" + fileStamp(local);
+            return new Source(local, null, sha256(key));
+        }
+        if (diskCache == null) {
+            return null;
+        }
+        return analysisService.resolveHttpImageUrl(analysis)
+                .map(url -> new Source(null, url, sha256(version != null ? version : "url:" + url)))
+                .orElse(null);
+    }
+
+    // checksum/etag do storage identificam o conteúdo: a mesma imagem em análises diferentes fica uma vez só
+    private static String version(DXFAnalysis analysis) {
+        if (hasText(analysis.getImageChecksum())) {
+            return "checksum:" + analysis.getImageChecksum().trim();
+        }
+        if (hasText(analysis.getImageEtag())) {
+            return "etag:" + analysis.getImageEtag().trim().replaceFirst("^W/", "").replace("\"", "");
+        }
+        return null;
+    }
+
+    /**
+     * Procura {@code imagePath} e depois {@code imageKey} sob as raízes locais. Os workers gravam caminhos
+     * relativos ao próprio diretório (ex.: {@code ./artifacts/renders/sha/x.png}) ou absolutos de outra
+     * máquina, então cada sufixo do caminho é tentado em cada raiz; {@code ..} nunca é aceito.
+     */
+    Path findLocal(DXFAnalysis analysis) {
+        if (localRoots.isEmpty()) {
+            return null;
+        }
+        for (String raw : new String[] {analysis.getImagePath(), analysis.getImageKey()}) {
+            if (!hasText(raw)) {
+                continue;
+            }
+            List<String> segments = new ArrayList<>();
+            for (String segment : raw.trim().replace('\\', '/').split("/")) {
+                if (segment.equals("..")) {
+                    segments.clear();
+                    break;
+                }
+                if (!segment.isEmpty() && !segment.equals(".") && !segment.endsWith(":")) {
+                    segments.add(segment);
+                }
+            }
+            for (int from = 0; from < segments.size(); from++) {
+                String relative = String.join("/", segments.subList(from, segments.size()));
+                for (Path root : localRoots) {
+                    Path candidate = root.resolve(relative).normalize();
+                    if (candidate.startsWith(root) && Files.isRegularFile(candidate)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void download(String url, Path target) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(fetchTimeout).GET().build();
+        HttpResponse<Path> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(target));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrompido ao buscar " + url);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " ao buscar " + url);
+        }
+    }
+
+    static void writeThumbnail(Path source, Path target, int maxWidth) throws IOException {
+        if (!ImageIO.write(scale(source, maxWidth), "png", target.toFile())) {
+            throw new IOException("sem writer PNG disponível");
+        }
+    }
+
+    static byte[] thumbnailBytes(Path source, int maxWidth) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(scale(source, maxWidth), "png", out)) {
+            throw new IOException("sem writer PNG disponível");
+        }
+        return out.toByteArray();
+    }
+
+    private static BufferedImage scale(Path source, int maxWidth) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null) {
+            throw new IOException("formato de imagem não suportado: " + source.getFileName());
+        }
+        int width = Math.min(maxWidth, image.getWidth());
+        int height = Math.max(1, Math.round(image.getHeight() * (float) width / image.getWidth()));
+        BufferedImage thumb = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = thumb.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return thumb;
+    }
+
+    private static MediaType contentType(DXFAnalysis analysis) {
+        if (hasText(analysis.getImageContentType())) {
+            try {
+                return MediaType.parseMediaType(analysis.getImageContentType().trim());
+            } catch (RuntimeException ignored) {
+                // valor inválido vindo do worker: cai no PNG dos renders
+            }
+        }
+        return MediaType.IMAGE_PNG;
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (!hasText(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.replaceFirst("^W/", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String fileStamp(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file);
+        } catch (IOException e) {
+            return "0";
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private void count(String source) {
+        Counter.builder("organizador_dxf_image_requests_total")
+                .description("Imagens DXF servidas, por origem")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+}
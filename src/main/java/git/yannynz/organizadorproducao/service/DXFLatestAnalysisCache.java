@@ -0,0 +1,68 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisView;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache LRU limitado de {@code order_nr_key} → view da última análise do pedido, na frente de
+ * {@code GET /api/dxf-analysis/order/{orderNr}} (cada card de pedido renderizado faz essa chamada).
+ * <p>
+ * Pedidos sem análise também ficam guardados. {@link DXFAnalysisService} descarta a chave após o
+ * commit de cada resultado novo de {@code facas.analysis.result}, que é o único caminho que grava
+ * {@code dxf_analysis}.
+ */
+final class DXFLatestAnalysisCache {
+
+    private final Map<String, Optional<DXFAnalysisView>> views;
+    // muda a cada evict: uma consulta que começou antes do commit não grava a view velha
+    private final AtomicLong generation = new AtomicLong();
+
+    DXFLatestAnalysisCache(int maxSize) {
+        int limit = Math.max(1, maxSize);
+        this.views = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<DXFAnalysisView>> eldest) {
+                return size() > limit;
+            }
+        });
+    }
+
+    Optional<DXFAnalysisView> get(String key, Function<String, Optional<DXFAnalysisView>> loader) {
+        Optional<DXFAnalysisView> cached = views.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long gen = generation.get();
+        Optional<DXFAnalysisView> loaded = loader.apply(key);
+        synchronized (views) {
+            if (generation.get() == gen) {
+                views.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /** Entrada em cache sem consultar: {@code null} quando a chave não está no cache. */
+    Optional<DXFAnalysisView> peek(String key) {
+        return views.get(key);
+    }
+
+    void evict(String key) {
+        if (key == null) {
+            return;
+        }
+        synchronized (views) {
+            generation.incrementAndGet();
+            views.remove(key);
+        }
+    }
+
+    int size() {
+        return views.size();
+    }
+}
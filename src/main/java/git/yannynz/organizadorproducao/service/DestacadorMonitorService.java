@@ -1,8 +1,8 @@
 package git.yannynz.organizadorproducao.service;
 
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,56 +11,69 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 @Service
 public class DestacadorMonitorService {
 
     /* Servico dedicado a registrar eventos de destaque de facas e monitorar seus status  */
 
-    private enum Sexo { M, F, DESCONHECIDO }
-
     private static final ZoneId TZ_SP = ZoneId.of("America/Sao_Paulo");
     private static final DateTimeFormatter FMT = DateTimeFormatter
             .ofPattern("dd/MM HH:mm")
             .withLocale(new Locale("pt","BR"));
 
-    // detecta tokens separados por _ ou - (sem confundir com VERMELHO etc.)
-    private static final Pattern MACHO = Pattern.compile("(?i)(?:^|[_-])MACHO(?:[_-]|\\.|$)");
-    private static final Pattern FEMEA = Pattern.compile("(?i)(?:^|[_-])F[ÊE]MEA(?:[_-]|\\.|$)");
-
-    private static final Pattern NR_OR_CL = Pattern.compile("(?i)(?:NR|CL)(\\d+)");
-
     private final OrderRepository orderRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final CoalescingBroadcaster broadcaster;
+    private final FileNameClassifier fileNameClassifier;
+    private final OrderNrCache orderNrCache;
 
     public DestacadorMonitorService(OrderRepository orderRepository,
-                                    SimpMessagingTemplate messagingTemplate) {
+                                    CoalescingBroadcaster broadcaster,
+                                    FileNameClassifier fileNameClassifier,
+                                    OrderNrCache orderNrCache) {
         this.orderRepository = orderRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.broadcaster = broadcaster;
+        this.fileNameClassifier = fileNameClassifier;
+        this.orderNrCache = orderNrCache;
     }
 
     @Transactional
     public void registrarAguardandoCorte(String fileName) {
-        anexarLinha(fileName, "a cortar");
+        anexarLinha(fileNameClassifier.classify(fileName), "a cortar");
     }
 
     @Transactional
     public void registrarCortado(String fileName) {
-        anexarLinha(fileName, "cortado");
+        anexarLinha(fileNameClassifier.classify(fileName), "cortado");
+    }
+
+    /**
+     * Variante usada pelo consumo em lote: ajusta a observação de um pedido já carregado,
+     * sem salvar nem publicar. Retorna true se a observação mudou.
+     */
+    boolean anotarAguardandoCorte(Order order, FileNameClassifier.Classificacao arquivo) {
+        return arquivo.hasDestaque() && aplicarLinha(order, arquivo.sexo(), "a cortar");
+    }
+
+    boolean anotarCortado(Order order, FileNameClassifier.Classificacao arquivo) {
+        return arquivo.hasDestaque() && aplicarLinha(order, arquivo.sexo(), "cortado");
     }
 
     /* ======= privados ======= */
 
-   private void anexarLinha(String fileName, String etapa) {
-    Optional<String> nrOpt = extractOrderNumber(fileName);
-    if (nrOpt.isEmpty()) return;
+   private void anexarLinha(FileNameClassifier.Classificacao arquivo, String etapa) {
+    if (!arquivo.hasDestaque()) return; // sem NR/CL ou genérico (sem M/F)
 
-    Sexo sexo = detectSexo(fileName);
-    if (sexo == Sexo.DESCONHECIDO) return; // não registra genérico
+    orderNrCache.findLatestByNr(arquivo.referencia()).ifPresent(order -> {
+        aplicarLinha(order, arquivo.sexo(), etapa);
+        orderRepository.save(order);
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, order);
+    });
+}
 
-    orderRepository.findByNr(nrOpt.get()).ifPresent(order -> {
-        String obs = Optional.ofNullable(order.getObservacao()).orElse("");
+   private boolean aplicarLinha(Order order, FileNameClassifier.Sexo sexo, String etapa) {
+        String original = Optional.ofNullable(order.getObservacao()).orElse("");
+        String obs = original;
 
         final String LM  = "• Destaque M: "   + etapa;
         final String LF  = "• Destaque F: "   + etapa;
@@ -105,10 +118,9 @@ public class DestacadorMonitorService {
         // limpeza leve de linhas em branco repetidas
         obs = obs.replaceAll("(?m)^[ \\t]+$", "");
 
-        order.setObservacao(obs.trim());
-        orderRepository.save(order);
-        messagingTemplate.convertAndSend("/topic/orders", order);
-    });
+        obs = obs.trim();
+        order.setObservacao(obs);
+        return !obs.equals(original);
 }
 
 /* ===== helpers ===== */
@@ -133,19 +145,4 @@ private String appendLine(String obs, String line) {
     if (obs == null || obs.isBlank()) return line;
     return obs.endsWith(System.lineSeparator()) ? obs + line : obs + System.lineSeparator() + line;
 }
-
-    private Optional<String> extractOrderNumber(String fileName) {
-        if (fileName == null) return Optional.empty();
-        var m = NR_OR_CL.matcher(fileName);
-        return m.find() ? Optional.of(m.group(1)) : Optional.empty();
-    }
-
-    private Sexo detectSexo(String fileName) {
-        if (fileName == null) return Sexo.DESCONHECIDO;
-        String base = fileName; // nome completo já funciona com os padrões acima
-        if (MACHO.matcher(base).find()) return Sexo.M;
-        if (FEMEA.matcher(base).find()) return Sexo.F;
-        return Sexo.DESCONHECIDO;
-    }
 }
-
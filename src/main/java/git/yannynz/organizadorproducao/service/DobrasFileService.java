@@ -2,25 +2,19 @@ package git.yannynz.organizadorproducao.service;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Locale;
 import java.util.Optional;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.model.Order;
 import git.yannynz.organizadorproducao.monitoring.MessageProcessingMetrics;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import git.yannynz.organizadorproducao.model.Order;
-import git.yannynz.organizadorproducao.repository.OrderRepository;
 
 /**
  * Serviço dedicado a processar eventos de "Dobras" vindos do RabbitMQ.
@@ -29,7 +23,8 @@ import git.yannynz.organizadorproducao.repository.OrderRepository;
  *
  * Regras:
  *  - Aceita apenas: NR<espaco opcional><numero>.(m.DXF|DXF.FCD), case-insensitive
- *  - Extrai o NR e atualiza o pedido para status = 6 ("Tirada"), se necessário
+ *  - Eventos repetidos (rescan/restart do watcher) são descartados pelo {@link FileEventDeduplicator}
+ *  - Extrai o NR e atualiza o pedido para status = 6 ("Tirada"), se ainda não estiver
  *  - Publica a atualização via WebSocket em /topic/orders
  */
 @Service
@@ -40,37 +35,37 @@ public class DobrasFileService {
 
     private static final Logger log = LoggerFactory.getLogger(DobrasFileService.class);
 
-    private static final Pattern DOBRAS_NR_PATTERN = Pattern.compile(
-            "NR\\s*(\\d+)",
-            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE
-    );
-
-    private static final Set<String> DOBRAS_SUFFIXES = Set.of(
-            ".M.DXF",
-            ".DXF.FCD"
-    );
-
     private final ObjectMapper objectMapper;
     private final OrderRepository orderRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final CoalescingBroadcaster broadcaster;
     private final MessageProcessingMetrics messageProcessingMetrics;
+    private final FileNameClassifier fileNameClassifier;
+    private final OrderNrCache orderNrCache;
+    private final FileEventDeduplicator deduplicator;
 
     public DobrasFileService(ObjectMapper objectMapper,
                              OrderRepository orderRepository,
-                             SimpMessagingTemplate messagingTemplate,
-                             MessageProcessingMetrics messageProcessingMetrics) {
+                             CoalescingBroadcaster broadcaster,
+                             MessageProcessingMetrics messageProcessingMetrics,
+                             FileNameClassifier fileNameClassifier,
+                             OrderNrCache orderNrCache,
+                             FileEventDeduplicator deduplicator) {
         this.objectMapper = objectMapper;
         this.orderRepository = orderRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.broadcaster = broadcaster;
         this.messageProcessingMetrics = messageProcessingMetrics;
+        this.fileNameClassifier = fileNameClassifier;
+        this.orderNrCache = orderNrCache;
+        this.deduplicator = deduplicator;
     }
 
     @RabbitListener(queues = QUEUE_NAME, containerFactory = "stringListenerFactory")
-    public void handleDobrasQueue(String message) {
+    public void handleDobrasQueue(String message) throws Exception {
         try {
             messageProcessingMetrics.recordProcessing(QUEUE_NAME, () -> processMessage(message));
         } catch (Exception e) {
             log.error("[DOBRAS] Erro ao processar mensagem na fila {}: {}", QUEUE_NAME, e.getMessage(), e);
+            throw e; // retentativa/quarentena ficam com o ConsumerFailureRecoverer
         }
     }
 
@@ -88,6 +83,12 @@ public class DobrasFileService {
             return;
         }
 
+        String key = deduplicator.key(QUEUE_NAME, json, message);
+        if (deduplicator.isDuplicate(QUEUE_NAME, key)) {
+            log.debug("[DOBRAS] Evento repetido descartado: {}", fileName);
+            return;
+        }
+
         Optional<String> nrOpt = extractOrderNumber(fileName);
         if (nrOpt.isEmpty()) {
             // Não é do padrão de fim de dobra -> ignorar silenciosamente
@@ -97,62 +98,34 @@ public class DobrasFileService {
 
         String orderNumber = nrOpt.get();
         updateOrderStatusToTirada(orderNumber);
+        deduplicator.remember(QUEUE_NAME, key);
     }
 
     /**
      * Extrai o NR do nome do arquivo, se casar com o padrão esperado.
      */
     private Optional<String> extractOrderNumber(String fileName) {
-        if (fileName == null) {
-            return Optional.empty();
-        }
-
-        String trimmed = fileName.trim();
-        if (trimmed.isEmpty()) {
-            return Optional.empty();
-        }
-
-        String upper = trimmed.toUpperCase(Locale.ROOT);
-
-        boolean hasValidSuffix = false;
-        for (String suffix : DOBRAS_SUFFIXES) {
-            if (upper.endsWith(suffix)) {
-                hasValidSuffix = true;
-                break;
-            }
-        }
-
-        if (!hasValidSuffix) {
-            return Optional.empty();
-        }
-
-        Matcher matcher = DOBRAS_NR_PATTERN.matcher(upper);
-        if (matcher.find()) {
-            return Optional.of(matcher.group(1));
-        }
-
-        return Optional.empty();
+        return Optional.ofNullable(fileNameClassifier.classify(fileName).dobrasOrderNumber());
     }
 
     /**
      * Atualiza o status do pedido para "Tirada" (6), se necessário, e notifica via WebSocket.
-     * A operação é idempotente (só salva se houver mudança).
+     * A operação é idempotente: pedido já tirado não é salvo nem publicado de novo.
      */
     @Transactional
     protected void updateOrderStatusToTirada(String orderNumber) {
-        orderRepository.findByNr(orderNumber).ifPresentOrElse(order -> {
+        orderNrCache.findLatestByNr(orderNumber).ifPresentOrElse(order -> {
             int current = order.getStatus();
+            if (current == STATUS_TIRADA) {
+                log.debug("[DOBRAS] Pedido {} já está tirado; nada a fazer", orderNumber);
+                return;
+            }
             ZonedDateTime agora = ZonedDateTime.now(ZoneId.of("America/Sao_Paulo"));
             order.setStatus(STATUS_TIRADA);
             order.setDataTirada(agora);
             orderRepository.save(order);
-            messagingTemplate.convertAndSend("/topic/orders", order);
-
-            if (current != STATUS_TIRADA) {
-                log.info("[DOBRAS] Status do pedido {} atualizado de {} para {}", orderNumber, current, STATUS_TIRADA);
-            } else {
-                log.info("[DOBRAS] Pedido {} reforçado como tirado (reprocessamento)", orderNumber);
-            }
+            broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, order);
+            log.info("[DOBRAS] Status do pedido {} atualizado de {} para {}", orderNumber, current, STATUS_TIRADA);
         }, () -> log.warn("[DOBRAS] Pedido não encontrado (NR={})", orderNumber));
     }
 }
@@ -0,0 +1,208 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Descarta eventos repetidos do FileWatcher (rescan e restart do watcher reenviam o mesmo arquivo).
+ * <p>
+ * A chave é {@code (fila, file_name, timestamp)}; sem {@code timestamp} na mensagem, o hash do corpo
+ * substitui o carimbo. As chaves ficam numa janela de tempo em memória, limitada em tamanho, e a
+ * checagem não toca o banco. Com {@code app.filewatcher.dedup.persistent=true} as chaves também vão
+ * para {@code file_event_dedup} e são recarregadas no boot.
+ * <p>
+ * Só chaves de eventos processados com sucesso são lembradas ({@link #remember}), para que uma
+ * falha não faça o reenvio ser descartado.
+ */
+@Component
+public class FileEventDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(FileEventDeduplicator.class);
+
+    private static final String INSERT =
+            "INSERT INTO file_event_dedup (event_key, queue, seen_at) VALUES (?, ?, ?) ON CONFLICT (event_key) DO NOTHING";
+
+    private final JdbcTemplate jdbc;
+    private final long windowMs;
+    private final int maxSize;
+    private final boolean persistent;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Counter> suppressed = new ConcurrentHashMap<>();
+
+    // chave -> instante em que foi lembrada; ordem de inserção = ordem de expiração. Guardado por this.
+    private final LinkedHashMap<String, Long> seen = new LinkedHashMap<>();
+
+    @Autowired
+    public FileEventDeduplicator(MeterRegistry meterRegistry,
+                                 JdbcTemplate jdbc,
+                                 @Value("${app.filewatcher.dedup.window-ms:21600000}") long windowMs,
+                                 @Value("${app.filewatcher.dedup.max-size:50000}") int maxSize,
+                                 @Value("${app.filewatcher.dedup.persistent:false}") boolean persistent) {
+        this(meterRegistry, jdbc, windowMs, maxSize, persistent, Clock.systemUTC());
+    }
+
+    FileEventDeduplicator(MeterRegistry meterRegistry, JdbcTemplate jdbc, long windowMs, int maxSize,
+                          boolean persistent, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.jdbc = jdbc;
+        this.windowMs = Math.max(1, windowMs);
+        this.maxSize = Math.max(16, maxSize);
+        this.persistent = persistent && jdbc != null;
+        this.clock = clock;
+        Gauge.builder("organizador_filewatcher_dedup_keys", this, FileEventDeduplicator::size)
+            .description("Chaves de eventos do FileWatcher mantidas para de-dup")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        if (!persistent)
+            return;
+        try {
+            Timestamp from = new Timestamp(clock.millis() - windowMs);
+            List<Map<String, Object>> rows = jdbc.queryForList(
+                    "SELECT event_key, seen_at FROM file_event_dedup WHERE seen_at >= ? ORDER BY seen_at DESC LIMIT ?",
+                    from, maxSize);
+            synchronized (this) {
+                // do mais antigo para o mais novo, preservando a ordem de expiração
+                for (int i = rows.size() - 1; i >= 0; i--) {
+                    Map<String, Object> row = rows.get(i);
+                    seen.put(((String) row.get("event_key")).trim(), ((Timestamp) row.get("seen_at")).getTime());
+                }
+            }
+            log.info("[DEDUP] {} chave(s) recarregadas de file_event_dedup", rows.size());
+        } catch (RuntimeException e) {
+            log.warn("[DEDUP] falha ao recarregar chaves persistidas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Chave do evento ou {@code null} quando não há {@code file_name} (evento não é de-duplicado).
+     */
+    public String key(String queue, JsonNode json, String rawMessage) {
+        if (json == null)
+            return null;
+        String fileName = json.path("file_name").asText(null);
+        if (fileName == null || fileName.isBlank())
+            return null;
+        JsonNode ts = json.get("timestamp");
+        String stamp = ts != null && !ts.isNull() && !ts.asText().isBlank()
+                ? ts.asText()
+                : sha256(Objects.toString(rawMessage, ""));
+        return sha256(queue + '\n' + fileName.trim() + '\n' + stamp);
+    }
+
+    /** {@code true} se a chave já foi processada dentro da janela; conta a supressão por fila. */
+    public boolean isDuplicate(String queue, String key) {
+        if (key == null)
+            return false;
+        boolean dup;
+        synchronized (this) {
+            expire(clock.millis());
+            dup = seen.containsKey(key);
+        }
+        if (dup) {
+            suppressed.computeIfAbsent(queue, q -> Counter.builder("organizador_filewatcher_duplicates_suppressed_total")
+                    .description("Eventos do FileWatcher descartados por já terem sido processados")
+                    .tag("queue", q)
+                    .register(meterRegistry)).increment();
+        }
+        return dup;
+    }
+
+    public void remember(String queue, String key) {
+        if (key != null)
+            remember(queue, List.of(key));
+    }
+
+    /** Lembra chaves de eventos processados com sucesso (chamar após o commit). */
+    public void remember(String queue, Collection<String> keys) {
+        List<String> fresh = new ArrayList<>(keys.size());
+        long now = clock.millis();
+        synchronized (this) {
+            for (String key : keys) {
+                if (key != null && seen.putIfAbsent(key, now) == null)
+                    fresh.add(key);
+            }
+            expire(now);
+        }
+        if (!persistent || fresh.isEmpty())
+            return;
+        try {
+            Timestamp at = new Timestamp(now);
+            jdbc.batchUpdate(INSERT, fresh, fresh.size(), (ps, key) -> {
+                ps.setString(1, key);
+                ps.setString(2, queue);
+                ps.setTimestamp(3, at);
+            });
+        } catch (RuntimeException e) {
+            // a memória ainda cobre a janela; só a sobrevivência a restart fica comprometida
+            log.warn("[DEDUP] falha ao persistir {} chave(s): {}", fresh.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.filewatcher.dedup.purge-interval-ms:3600000}",
+            initialDelayString = "${app.filewatcher.dedup.purge-interval-ms:3600000}")
+    public void purge() {
+        if (!persistent)
+            return;
+        try {
+            int removed = jdbc.update("DELETE FROM file_event_dedup WHERE seen_at < ?",
+                    new Timestamp(clock.millis() - windowMs));
+            if (removed > 0)
+                log.debug("[DEDUP] {} chave(s) expiradas removidas de file_event_dedup", removed);
+        } catch (RuntimeException e) {
+            log.warn("[DEDUP] falha ao expurgar file_event_dedup: {}", e.getMessage());
+        }
+    }
+
+    synchronized int size() {
+        return seen.size();
+    }
+
+    private void expire(long now) {
+        long limit = now - windowMs;
+        Iterator<Map.Entry<String, Long>> it = seen.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            if (e.getValue() >= limit && seen.size() <= maxSize)
+                break;
+            it.remove();
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
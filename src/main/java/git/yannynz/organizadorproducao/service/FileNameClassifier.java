@@ -0,0 +1,140 @@
+package git.yannynz.organizadorproducao.service;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Classificador único dos nomes de arquivo vindos do FileWatcher (laser, facasOk e dobras).
+ * Os padrões são compilados uma única vez e o componente não guarda estado, podendo ser
+ * compartilhado entre os listeners Rabbit. Cada chamada produz um {@link Classificacao}
+ * imutável que pode ser repassado entre serviços sem reprocessar o nome.
+ */
+@Component
+public class FileNameClassifier {
+
+    public enum Prefixo { NR, CL }
+
+    public enum Sexo { M, F, DESCONHECIDO }
+
+    /** NR/CL + numero + cliente + _PRIORIDADE, com .CNC opcional (pastas laser e facasOk). */
+    private static final Pattern LASER = Pattern.compile(
+            "(NR|CL)(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
+
+    /** Referência solta ao pedido, usada pelo monitor de destaque. */
+    private static final Pattern NR_OR_CL = Pattern.compile("(?i)(?:NR|CL)(\\d+)");
+
+    // detecta tokens separados por _ ou - (sem confundir com VERMELHO etc.)
+    private static final Pattern DESTAQUE = Pattern.compile(
+            "(?i)(?:^|[_-])(?:(MACHO)|F[ÊE]MEA)(?=[_-]|\\.|$)");
+
+    private static final Pattern DOBRAS_NR = Pattern.compile(
+            "NR\\s*(\\d+)",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    private static final String[] DOBRAS_SUFFIXES = { ".M.DXF", ".DXF.FCD" };
+
+    /**
+     * Resultado imutável da classificação de um nome de arquivo.
+     *
+     * @param fileName          nome original recebido
+     * @param prefixo           NR ou CL quando o nome segue o padrão laser/facasOk; null caso contrário
+     * @param orderNumber       número do pedido no padrão laser/facasOk
+     * @param cliente           cliente extraído (sem espaços nas pontas)
+     * @param prioridade        VERMELHO, AMARELO, AZUL ou VERDE
+     * @param referencia        primeiro NR/CL encontrado em qualquer posição do nome
+     * @param sexo              MACHO/FÊMEA indicado no nome
+     * @param dobrasOrderNumber NR extraído quando o nome termina em .m.DXF ou .DXF.FCD
+     */
+    public record Classificacao(
+            String fileName,
+            Prefixo prefixo,
+            String orderNumber,
+            String cliente,
+            String prioridade,
+            String referencia,
+            Sexo sexo,
+            String dobrasOrderNumber) {
+
+        public boolean isLaser() {
+            return prefixo != null;
+        }
+
+        public boolean isDobras() {
+            return dobrasOrderNumber != null;
+        }
+
+        public boolean hasDestaque() {
+            return referencia != null && sexo != Sexo.DESCONHECIDO;
+        }
+    }
+
+    private static final Classificacao VAZIA =
+            new Classificacao(null, null, null, null, null, null, Sexo.DESCONHECIDO, null);
+
+    public Classificacao classify(String fileName) {
+        if (fileName == null) {
+            return VAZIA;
+        }
+
+        Prefixo prefixo = null;
+        String orderNumber = null;
+        String cliente = null;
+        String prioridade = null;
+        String referencia;
+
+        Matcher laser = LASER.matcher(fileName);
+        if (laser.matches()) {
+            prefixo = Prefixo.valueOf(laser.group(1));
+            orderNumber = laser.group(2);
+            cliente = laser.group(3).trim();
+            prioridade = laser.group(4);
+            // o padrão laser ancora NR/CL no início: é a mesma referência que a busca solta acharia
+            referencia = orderNumber;
+        } else {
+            Matcher ref = NR_OR_CL.matcher(fileName);
+            referencia = ref.find() ? ref.group(1) : null;
+        }
+
+        Sexo sexo = referencia != null ? detectSexo(fileName) : Sexo.DESCONHECIDO;
+
+        return new Classificacao(fileName, prefixo, orderNumber, cliente, prioridade,
+                referencia, sexo, extractDobras(fileName));
+    }
+
+    private Sexo detectSexo(String fileName) {
+        Matcher m = DESTAQUE.matcher(fileName);
+        boolean femea = false;
+        while (m.find()) {
+            if (m.group(1) != null) {
+                return Sexo.M; // MACHO tem precedência, como no monitor original
+            }
+            femea = true;
+        }
+        return femea ? Sexo.F : Sexo.DESCONHECIDO;
+    }
+
+    private String extractDobras(String fileName) {
+        String trimmed = fileName.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+
+        String upper = trimmed.toUpperCase(Locale.ROOT);
+        boolean hasValidSuffix = false;
+        for (String suffix : DOBRAS_SUFFIXES) {
+            if (upper.endsWith(suffix)) {
+                hasValidSuffix = true;
+                break;
+            }
+        }
+        if (!hasValidSuffix) {
+            return null;
+        }
+
+        Matcher matcher = DOBRAS_NR.matcher(upper);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
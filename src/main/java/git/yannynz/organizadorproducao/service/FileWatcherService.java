@@ -1,15 +1,22 @@
 package git.yannynz.organizadorproducao.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.time.ZoneId;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -20,8 +27,10 @@ import git.yannynz.organizadorproducao.monitoring.MessageProcessingMetrics;
 @Service
 public class FileWatcherService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileWatcherService.class);
+
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private CoalescingBroadcaster broadcaster;
 
     @Autowired
     private OrderRepository orderRepository;
@@ -35,174 +44,251 @@ public class FileWatcherService {
     @Autowired
     private ClienteDefaultsService clienteDefaultsService;
 
+    @Autowired
+    private FileNameClassifier fileNameClassifier;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FileEventDeduplicator deduplicator;
+
+    @Autowired
+    private ConsumerFailureRecoverer failureRecoverer;
+
+    @Autowired
+    private TransactionOperations tx;
+
     /**
      * Ouve mensagens da fila RabbitMQ associada à pasta /laser.
-     * A mensagem contém informações simulando o "arquivo" ou seus dados.
+     * As mensagens chegam em lote (ver stringBatchListenerFactory); cada uma contém o "arquivo"
+     * ou seus dados. O lote inteiro é aplicado numa única transação; se ela falhar, cada mensagem é
+     * reaplicada na sua própria transação e só a que falhar segue para retry/quarentena.
      */
-    @RabbitListener(queues = "laser_notifications", containerFactory = "stringListenerFactory")
-    public void handleLaserQueue(String message) {
-        System.out.println("Mensagem recebida na fila 'laserQueue': " + message);
-        try {
-            messageProcessingMetrics.recordProcessing("laser_notifications", () -> {
-                ObjectMapper objectMapper = new ObjectMapper();
-                JsonNode jsonNode = objectMapper.readTree(message);
-                String fileName = jsonNode.get("file_name").asText(); // Extraindo file_name
-                destacadorMonitorService.registrarAguardandoCorte(fileName);
-                processFile(fileName);
-            });
-        } catch (Exception e) {
-            System.err.println("Erro ao processar mensagem JSON na fila 'laserQueue': " + e.getMessage());
+    @RabbitListener(queues = "laser_notifications", containerFactory = "stringBatchListenerFactory")
+    public void handleLaserQueue(List<Message> messages) throws Exception {
+        log.info("[WATCHER] Lote recebido em laser_notifications: {} mensagem(ns)", messages.size());
+        messageProcessingMetrics.recordProcessing("laser_notifications",
+                () -> consumirLote(messages, Pasta.LASER));
+    }
+
+    @RabbitListener(queues = "facas_notifications", containerFactory = "stringBatchListenerFactory")
+    public void handleFacasOkQueue(List<Message> messages) throws Exception {
+        log.info("[WATCHER] Lote recebido em facas_notifications: {} mensagem(ns)", messages.size());
+        messageProcessingMetrics.recordProcessing("facas_notifications",
+                () -> consumirLote(messages, Pasta.FACAS_OK));
+    }
+
+    private enum Pasta {
+        LASER("laser_notifications"), FACAS_OK("facas_notifications");
+
+        final String queue;
+
+        Pasta(String queue) {
+            this.queue = queue;
         }
     }
 
-    @RabbitListener(queues = "facas_notifications", containerFactory = "stringListenerFactory")
-    public void handleFacasOkQueue(String message) {
-        System.out.println("Mensagem recebida na fila 'facasOkQueue': " + message);
+    private record Entrada(Message message, String body, JsonNode json) {
+    }
+
+    private void consumirLote(List<Message> messages, Pasta pasta) {
+        List<Entrada> entradas = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                entradas.add(new Entrada(message, body, objectMapper.readTree(body)));
+            } catch (Exception e) {
+                // inválida para sempre: vai para a quarentena sem derrubar o resto do lote
+                log.warn("[WATCHER] Mensagem inválida ignorada no lote: {} ({})", body, e.getMessage());
+                recover(message, e, pasta);
+            }
+        }
+        if (entradas.isEmpty()) {
+            return;
+        }
+
         try {
-            messageProcessingMetrics.recordProcessing("facas_notifications", () -> {
-                ObjectMapper objectMapper = new ObjectMapper();
-                JsonNode jsonNode = objectMapper.readTree(message);
-                String fileName = jsonNode.get("file_name").asText(); // Extraindo file_name
-                destacadorMonitorService.registrarCortado(fileName);
-                trackFileInFacasOk(fileName);
-            });
-        } catch (Exception e) {
-            System.err.println("Erro ao processar mensagem JSON na fila 'facasOkQueue': " + e.getMessage());
+            tx.executeWithoutResult(status -> processarLote(entradas, pasta));
+            return;
+        } catch (RuntimeException e) {
+            if (entradas.size() == 1) {
+                log.error("[WATCHER] Erro ao processar mensagem de {}: {}", pasta.queue, e.getMessage(), e);
+                recover(entradas.get(0).message(), e, pasta);
+                return;
+            }
+            log.warn("[WATCHER] Lote de {} mensagem(ns) de {} falhou ({}); reaplicando uma a uma",
+                    entradas.size(), pasta.queue, e.getMessage());
         }
-    }
 
-    private void processFile(String fileName) {
-    System.out.println("Processando mensagem simulando arquivo na pasta laser: " + fileName);
+        for (Entrada entrada : entradas) {
+            try {
+                tx.executeWithoutResult(status -> processarLote(List.of(entrada), pasta));
+            } catch (RuntimeException e) {
+                log.error("[WATCHER] Erro ao processar mensagem de {}: {}", pasta.queue, e.getMessage(), e);
+                recover(entrada.message(), e, pasta);
+            }
+        }
+    }
 
-    // Padrões para identificar os tipos de arquivos
-    Pattern nrPattern = Pattern.compile("NR(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
-    Pattern clPattern = Pattern.compile("CL(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
+    private void recover(Message message, Exception cause, Pasta pasta) {
+        try {
+            failureRecoverer.recover(message, cause);
+        } catch (RuntimeException e) {
+            // o recoverer já registrou o corpo; não derruba as demais mensagens do lote
+            log.error("[WATCHER] Mensagem de {} sem retry/quarentena: {}", pasta.queue, e.getMessage());
+        }
+    }
 
-    Matcher nrMatcher = nrPattern.matcher(fileName);
-    Matcher clMatcher = clPattern.matcher(fileName);
+    private void processarLote(List<Entrada> entradas, Pasta pasta) {
+        List<FileNameClassifier.Classificacao> arquivos = new ArrayList<>(entradas.size());
+        Set<String> nrs = new LinkedHashSet<>();
+        Set<String> chaves = new LinkedHashSet<>();
+        for (Entrada entrada : entradas) {
+            // reenvio do watcher (rescan/restart): descartado antes de qualquer acesso ao banco
+            String chave = deduplicator.key(pasta.queue, entrada.json(), entrada.body());
+            if (chave != null && (deduplicator.isDuplicate(pasta.queue, chave) || !chaves.add(chave))) continue;
+            FileNameClassifier.Classificacao arquivo = parse(entrada.json(), entrada.body());
+            if (arquivo == null) continue;
+            arquivos.add(arquivo);
+            if (arquivo.isLaser()) nrs.add(arquivo.orderNumber());
+            if (arquivo.hasDestaque()) nrs.add(arquivo.referencia());
+        }
 
-    if (clMatcher.matches()) {
-        // Processamento para arquivos CL
-        String orderNumber = clMatcher.group(1);
-        String client = clMatcher.group(2).trim(); // Removendo espaços desnecessários
-        String priority = clMatcher.group(3);
+        // um único SELECT ... WHERE nr IN (...) para o lote inteiro
+        Map<String, Order> porNr = new LinkedHashMap<>();
+        if (!nrs.isEmpty()) {
+            for (Order o : orderRepository.findByNrInOrderByIdDesc(nrs)) {
+                porNr.putIfAbsent(o.getNr(), o); // mantém o mais recente por NR
+            }
+        }
 
-        if (orderRepository.findByNr(orderNumber).isPresent()) {
-            Order existing = orderRepository.findByNr(orderNumber).get();
-            if (!existing.getPrioridade().equalsIgnoreCase(priority)) {
-                String oldPriority = existing.getPrioridade();
-                existing.setPrioridade(priority);
-                orderRepository.save(existing);
-                messagingTemplate.convertAndSend("/topic/orders", existing);
-                System.out.println("Prioridade atualizada via Arquivo: " + orderNumber + " (" + oldPriority + " -> " + priority + ")");
+        Map<String, Order> alterados = new LinkedHashMap<>();
+        for (FileNameClassifier.Classificacao arquivo : arquivos) {
+            Order destaque = arquivo.hasDestaque() ? porNr.get(arquivo.referencia()) : null;
+            if (pasta == Pasta.LASER) {
+                if (destaque != null && destacadorMonitorService.anotarAguardandoCorte(destaque, arquivo)) {
+                    alterados.put(destaque.getNr(), destaque);
+                }
+                processFile(arquivo, porNr, alterados);
             } else {
-                System.out.println("Pedido com NR " + orderNumber + " já existe e prioridade mantém-se " + priority + ". Ignorando.");
+                if (destaque != null && destacadorMonitorService.anotarCortado(destaque, arquivo)) {
+                    alterados.put(destaque.getNr(), destaque);
+                }
+                trackFileInFacasOk(arquivo, porNr, alterados);
             }
+        }
+
+        // lembradas só se o lote commitar; num rollback o reenvio precisa passar
+        TransactionHooks.afterCommit(() -> deduplicator.remember(pasta.queue, chaves));
+
+        if (alterados.isEmpty()) {
             return;
         }
 
-        ZonedDateTime creationTime = ZonedDateTime.now(ZoneId.of("America/Sao_Paulo"));
-        System.out.println("Informações extraídas da mensagem (CL): NR=" + orderNumber + ", Cliente=" + client + ", Prioridade=" + priority);
+        List<Order> salvos = orderRepository.saveAll(alterados.values());
+        // o broadcaster junta o lote (e o que mais chegar na janela) num único frame
+        broadcaster.publishOrders(CoalescingBroadcaster.ORDERS, salvos);
+        log.info("[WATCHER] Lote aplicado: {} pedido(s) atualizados e enviados via WebSocket", salvos.size());
+    }
 
-        Order order = new Order();
-        order.setNr(orderNumber);
-        order.setCliente(client);
-        order.setPrioridade(priority);
-        order.setDataH(creationTime);
-        order.setStatus(0); // Status inicial para arquivos CL 
+    private FileNameClassifier.Classificacao parse(JsonNode jsonNode, String message) {
+        try {
+            String fileName = jsonNode.get("file_name").asText(); // Extraindo file_name
+            return fileNameClassifier.classify(fileName);
+        } catch (Exception e) {
+            log.warn("[WATCHER] Mensagem inválida ignorada no lote: {} ({})", message, e.getMessage());
+            return null;
+        }
+    }
 
-        clienteDefaultsService.applyDefaults(order);
+    private void processFile(FileNameClassifier.Classificacao arquivo,
+                             Map<String, Order> porNr,
+                             Map<String, Order> alterados) {
+        String fileName = arquivo.fileName();
+        log.debug("[WATCHER] Arquivo na pasta laser: {}", fileName);
 
-        Order savedOrder = orderRepository.save(order);
-        messagingTemplate.convertAndSend("/topic/orders", savedOrder);
-        System.out.println("Pedido criado e enviado via WebSocket: " + savedOrder);
-    } else if (nrMatcher.matches()) {
-        // Processamento para arquivos NR
-        String orderNumber = nrMatcher.group(1);
-        String client = nrMatcher.group(2).trim(); // Removendo espaços desnecessários
-        String priority = nrMatcher.group(3);
-
-        if (orderRepository.findByNr(orderNumber).isPresent()) {
-            Order existing = orderRepository.findByNr(orderNumber).get();
+        if (!arquivo.isLaser()) {
+            // Arquivo fora dos padrões esperados
+            log.debug("[WATCHER] Arquivo fora do padrão esperado, ignorado: {}", fileName);
+            return;
+        }
+
+        String orderNumber = arquivo.orderNumber();
+        String client = arquivo.cliente();
+        String priority = arquivo.prioridade();
+
+        Order existing = porNr.get(orderNumber);
+        if (existing != null) {
             if (!existing.getPrioridade().equalsIgnoreCase(priority)) {
                 String oldPriority = existing.getPrioridade();
                 existing.setPrioridade(priority);
-                orderRepository.save(existing);
-                messagingTemplate.convertAndSend("/topic/orders", existing);
-                System.out.println("Prioridade atualizada via Arquivo: " + orderNumber + " (" + oldPriority + " -> " + priority + ")");
+                alterados.put(orderNumber, existing);
+                log.info("[WATCHER] Prioridade atualizada via arquivo: {} ({} -> {})", orderNumber, oldPriority, priority);
             } else {
-                System.out.println("Pedido com NR " + orderNumber + " já existe e prioridade mantém-se " + priority + ". Ignorando.");
+                log.debug("[WATCHER] Pedido {} já existe com prioridade {}; ignorado", orderNumber, priority);
             }
             return;
         }
 
         ZonedDateTime creationTime = ZonedDateTime.now(ZoneId.of("America/Sao_Paulo"));
-        System.out.println("Informações extraídas da mensagem (NR): NR=" + orderNumber + ", Cliente=" + client + ", Prioridade=" + priority);
+        log.debug("[WATCHER] Arquivo {}: NR={}, Cliente={}, Prioridade={}", arquivo.prefixo(), orderNumber, client, priority);
 
         Order order = new Order();
         order.setNr(orderNumber);
         order.setCliente(client);
         order.setPrioridade(priority);
         order.setDataH(creationTime);
-        order.setStatus(0); // Status inicial para arquivos NR
+        order.setStatus(0); // Status inicial para arquivos NR e CL
 
         clienteDefaultsService.applyDefaults(order);
 
+        // salvo na hora para que mensagens seguintes do mesmo lote encontrem o pedido
         Order savedOrder = orderRepository.save(order);
-        messagingTemplate.convertAndSend("/topic/orders", savedOrder);
-        System.out.println("Pedido criado e enviado via WebSocket: " + savedOrder);
-    } else {
-        // Arquivo fora dos padrões esperados
-        System.out.println("A mensagem não corresponde ao padrão esperado e será ignorada: " + fileName);
+        porNr.put(orderNumber, savedOrder);
+        alterados.put(orderNumber, savedOrder);
+        log.info("[WATCHER] Pedido criado: id={}, nr={}", savedOrder.getId(), savedOrder.getNr());
     }
-}
-
-    private void trackFileInFacasOk(String fileName) {
-        System.out.println("Processando mensagem simulando arquivo na pasta facasOk: " + fileName);
-
-        // Padrão para identificar pedidos gerais (com NR...)
-        Pattern nrPattern = Pattern.compile("NR(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
-        // Padrão específico para pedidos de corte a laser (com CL...)
-        Pattern clPattern = Pattern.compile("CL(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
 
-        Matcher nrMatcher = nrPattern.matcher(fileName);
-        Matcher clMatcher = clPattern.matcher(fileName);
+    private void trackFileInFacasOk(FileNameClassifier.Classificacao arquivo,
+                                    Map<String, Order> porNr,
+                                    Map<String, Order> alterados) {
+        String fileName = arquivo.fileName();
+        log.debug("[WATCHER] Arquivo na pasta facasOk: {}", fileName);
 
-        if (clMatcher.matches()) {
+        if (arquivo.prefixo() == FileNameClassifier.Prefixo.CL) {
             // Pedido de corte a laser (CL...)
-            String orderNumber = clMatcher.group(1);
-            System.out.println("Pedido de corte a laser identificado. NR=" + orderNumber);
-            updateOrderStatus(orderNumber, 2); // Atualizar status para "pronta"
-        } else if (nrMatcher.matches()) {
+            log.debug("[WATCHER] Pedido de corte a laser identificado. NR={}", arquivo.orderNumber());
+            updateOrderStatus(arquivo.orderNumber(), 2, porNr, alterados); // Atualizar status para "pronta"
+        } else if (arquivo.prefixo() == FileNameClassifier.Prefixo.NR) {
             // Pedido regular (NR...)
-            String orderNumber = nrMatcher.group(1);
-            System.out.println("Pedido regular identificado. NR=" + orderNumber);
-            updateOrderStatus(orderNumber, 1); // Atualizar status para "cortada"
+            log.debug("[WATCHER] Pedido regular identificado. NR={}", arquivo.orderNumber());
+            updateOrderStatus(arquivo.orderNumber(), 1, porNr, alterados); // Atualizar status para "cortada"
         } else {
             // Arquivo fora dos padrões esperados
-            System.out.println("A mensagem não corresponde ao padrão esperado e será ignorada: " + fileName);
+            log.debug("[WATCHER] Arquivo fora do padrão esperado, ignorado: {}", fileName);
         }
     }
 
-    private void updateOrderStatus(String orderNumber, int newStatus) {
-        Optional<Order> orderOpt = orderRepository.findByNr(orderNumber);
-        if (orderOpt.isPresent()) {
-            Order order = orderOpt.get();
-            if (order.getStatus() != newStatus) {
-                order.setStatus(newStatus);
-                if (newStatus == 1 || newStatus == 2) { // 1=cortada, 2=pronta (CL)
+    private void updateOrderStatus(String orderNumber, int newStatus,
+                                   Map<String, Order> porNr,
+                                   Map<String, Order> alterados) {
+        Order order = porNr.get(orderNumber);
+        if (order == null) {
+            log.info("[WATCHER] Pedido não encontrado para o número: {}", orderNumber);
+            return;
+        }
+        if (order.getStatus() != newStatus) {
+            order.setStatus(newStatus);
+            if (newStatus == 1 || newStatus == 2) { // 1=cortada, 2=pronta (CL)
                 if (order.getDataCortada() == null) {
                     order.setDataCortada(ZonedDateTime.now(ZoneId.of("America/Sao_Paulo")));
                 }
             }
-                orderRepository.save(order);
-                messagingTemplate.convertAndSend("/topic/orders", order);
-                System.out.println("Status do pedido " + orderNumber + " atualizado para " + newStatus);
-            } else {
-                System.out.println("Status do pedido " + orderNumber + " já está atualizado para " + newStatus);
-            }
+            alterados.put(orderNumber, order);
+            log.info("[WATCHER] Status do pedido {} atualizado para {}", orderNumber, newStatus);
         } else {
-            System.out.println("Pedido não encontrado para o número: " + orderNumber);
+            log.debug("[WATCHER] Status do pedido {} já está em {}", orderNumber, newStatus);
         }
     }
 }
@@ -0,0 +1,188 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.QuarantinedMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Quarentena das mensagens que esgotaram as tentativas ou são inválidas ({@code amqp_quarantine})
+ * e o replay delas para a fila de origem.
+ * <p>
+ * O replay republica espaçado no {@link RetryScheduler}, na vazão pedida, para não despejar o
+ * backlog de uma vez no consumidor. {@code replayed_at} só é marcado depois que o envio deu certo:
+ * um restart no meio do replay deixa o resto pendente (entrega pelo menos uma vez).
+ * <p>
+ * A gravação roda em transação própria: o rollback do consumidor que a chamou não apaga a linha.
+ */
+@Service
+public class MessageQuarantineService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageQuarantineService.class);
+
+    /** Header com o número de entregas que falharam. */
+    public static final String ATTEMPTS_HEADER = "x-attempts";
+    /** Header com o id da quarentena de onde a mensagem foi reenviada. */
+    public static final String REPLAYED_FROM_HEADER = "x-replayed-from";
+
+    public static final int MAX_LIST = 500;
+    public static final int MAX_REPLAY = 5000;
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private static final RowMapper<QuarantinedMessage> ROW = MessageQuarantineService::toDto;
+
+    private final JdbcTemplate jdbc;
+    private final RabbitTemplate rabbitTemplate;
+    private final RetryScheduler retryScheduler;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Counter> replayed = new ConcurrentHashMap<>();
+    /** Ids já agendados neste processo e ainda não enviados, para dois replays não dobrarem o envio. */
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    public MessageQuarantineService(JdbcTemplate jdbc,
+                                    RabbitTemplate rabbitTemplate,
+                                    RetryScheduler retryScheduler,
+                                    MeterRegistry meterRegistry) {
+        this.jdbc = jdbc;
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryScheduler = retryScheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void quarantine(String queue, Message message, int attempts, Throwable cause) {
+        MessageProperties props = message.getMessageProperties();
+        quarantine(queue, new String(message.getBody(), StandardCharsets.UTF_8),
+                props != null ? props.getContentType() : null, attempts, describe(cause));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void quarantine(String queue, String body, String contentType, int attempts, String error) {
+        jdbc.update("INSERT INTO amqp_quarantine (queue, body, content_type, attempts, error) VALUES (?, ?, ?, ?, ?)",
+                queue, body == null ? "" : body, contentType, attempts, truncate(error));
+        log.warn("[QUARENTENA] mensagem da fila {} em quarentena após {} tentativa(s): {}", queue, attempts, truncate(error));
+    }
+
+    /** Pendentes (ainda não reenviadas), mais antigas primeiro. */
+    public List<QuarantinedMessage> pending(String queue, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LIST));
+        if (queue == null || queue.isBlank()) {
+            return jdbc.query("SELECT * FROM amqp_quarantine WHERE replayed_at IS NULL ORDER BY id LIMIT ?", ROW, size);
+        }
+        return jdbc.query("SELECT * FROM amqp_quarantine WHERE replayed_at IS NULL AND queue = ? ORDER BY id LIMIT ?",
+                ROW, queue, size);
+    }
+
+    /**
+     * Agenda até {@code limit} pendentes (da fila, se informada) para reenvio à fila de origem a
+     * {@code ratePerSecond} mensagens por segundo. Devolve as mensagens agendadas; cada uma sai das
+     * pendentes quando o envio for confirmado.
+     */
+    public List<QuarantinedMessage> replay(String queue, int limit, double ratePerSecond) {
+        int size = Math.max(1, Math.min(limit, MAX_REPLAY));
+        String filter = (queue == null || queue.isBlank()) ? "" : " AND queue = ?";
+        // sobra para pular as que um replay anterior ainda está enviando
+        int fetch = Math.min(size + scheduled.size(), 2 * MAX_REPLAY);
+        Object[] args = filter.isEmpty() ? new Object[]{fetch} : new Object[]{queue, fetch};
+        List<QuarantinedMessage> candidates = jdbc.query(
+                "SELECT * FROM amqp_quarantine WHERE replayed_at IS NULL" + filter + " ORDER BY id LIMIT ?",
+                ROW, args);
+
+        List<QuarantinedMessage> batch = new ArrayList<>(Math.min(size, candidates.size()));
+        for (QuarantinedMessage msg : candidates) {
+            if (batch.size() >= size)
+                break;
+            if (scheduled.add(msg.id()))
+                batch.add(msg);
+        }
+
+        long intervalMs = Math.max(1L, Math.round(1000.0 / Math.max(0.1, ratePerSecond)));
+        for (int i = 0; i < batch.size(); i++) {
+            QuarantinedMessage msg = batch.get(i);
+            try {
+                retryScheduler.schedule(() -> publish(msg), i * intervalMs);
+            } catch (RuntimeException e) {
+                batch.subList(i, batch.size()).forEach(m -> scheduled.remove(m.id()));
+                throw e;
+            }
+        }
+        log.info("[QUARENTENA] replay de {} mensagem(ns){} a {}/s", batch.size(),
+                filter.isEmpty() ? "" : " da fila " + queue, ratePerSecond);
+        return batch;
+    }
+
+    void publish(QuarantinedMessage msg) {
+        try {
+            MessageProperties props = new MessageProperties();
+            if (msg.contentType() != null)
+                props.setContentType(msg.contentType());
+            props.setHeader(REPLAYED_FROM_HEADER, msg.id());
+            rabbitTemplate.send("", msg.queue(), new Message(msg.body().getBytes(StandardCharsets.UTF_8), props));
+        } catch (RuntimeException e) {
+            // continua pendente para o próximo replay
+            log.warn("[QUARENTENA] falha no replay da mensagem {} para {}: {}", msg.id(), msg.queue(), e.getMessage());
+            scheduled.remove(msg.id());
+            return;
+        }
+        try {
+            jdbc.update("UPDATE amqp_quarantine SET replayed_at = now() WHERE id = ? AND replayed_at IS NULL", msg.id());
+            replayed.computeIfAbsent(msg.queue(), q -> Counter.builder("organizador_amqp_quarantine_replayed_total")
+                    .description("Mensagens reenviadas da quarentena para a fila de origem")
+                    .tag("queue", q)
+                    .register(meterRegistry)).increment();
+        } catch (RuntimeException e) {
+            // já foi enviada: no pior caso sai de novo num próximo replay
+            log.warn("[QUARENTENA] mensagem {} reenviada para {}, mas não marcada: {}", msg.id(), msg.queue(), e.getMessage());
+        } finally {
+            scheduled.remove(msg.id());
+        }
+    }
+
+    static String describe(Throwable cause) {
+        if (cause == null)
+            return null;
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root)
+            root = root.getCause();
+        return root == cause
+                ? cause.getClass().getSimpleName() + ": " + cause.getMessage()
+                : root.getClass().getSimpleName() + ": " + root.getMessage() + " (via " + cause.getClass().getSimpleName() + ")";
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH)
+            return error;
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static QuarantinedMessage toDto(ResultSet rs, int rowNum) throws SQLException {
+        return new QuarantinedMessage(
+                rs.getLong("id"),
+                rs.getString("queue"),
+                rs.getString("body"),
+                rs.getString("content_type"),
+                rs.getInt("attempts"),
+                rs.getString("error"),
+                rs.getObject("created_at", OffsetDateTime.class),
+                rs.getObject("replayed_at", OffsetDateTime.class));
+    }
+}
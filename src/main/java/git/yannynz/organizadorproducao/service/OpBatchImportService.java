@@ -0,0 +1,85 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Importação de OPs em lote ({@code POST /api/ops/import/batch} e consumidor de {@code op.imported}).
+ * <p>
+ * Divide a lista em blocos de {@code app.ops.import.batch.chunk-size} e aplica cada bloco com
+ * {@link OpImportService#importarLote} numa transação. Se o bloco falhar (item inválido, constraint,
+ * deadlock...), ele é refeito item a item com {@link OpImportService#importar}, cada um na sua
+ * transação, para que o erro fique só no item culpado.
+ */
+@Service
+public class OpBatchImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OpBatchImportService.class);
+
+    private final OpImportService opImportService;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final Counter fallbacks;
+
+    public OpBatchImportService(OpImportService opImportService,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.ops.import.batch.chunk-size:200}") int chunkSize) {
+        this.opImportService = opImportService;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.fallbacks = Counter.builder("organizador_op_import_batch_fallback_total")
+                .description("Blocos de importação de OP refeitos item a item após falha no lote")
+                .register(meterRegistry);
+    }
+
+    /** @return um resultado por item, na ordem recebida */
+    public List<OpImportResult> importar(List<OpImportRequestDTO> reqs) {
+        if (reqs == null || reqs.isEmpty())
+            return List.of();
+
+        List<OpImportResult> results = new ArrayList<>(reqs.size());
+        for (int from = 0; from < reqs.size(); from += chunkSize) {
+            List<OpImportRequestDTO> chunk = reqs.subList(from, Math.min(reqs.size(), from + chunkSize));
+            results.addAll(importarBloco(chunk));
+        }
+        results.forEach(r -> count(r.status()));
+        return results;
+    }
+
+    private List<OpImportResult> importarBloco(List<OpImportRequestDTO> chunk) {
+        try {
+            return opImportService.importarLote(chunk);
+        } catch (RuntimeException e) {
+            fallbacks.increment();
+            log.warn("[IMPORT] lote de {} OP(s) falhou ({}); refazendo item a item", chunk.size(), e.getMessage());
+        }
+
+        List<OpImportResult> results = new ArrayList<>(chunk.size());
+        for (OpImportRequestDTO req : chunk) {
+            try {
+                results.add(opImportService.importar(req));
+            } catch (RuntimeException e) {
+                String numeroOp = req != null ? req.getNumeroOp() : null;
+                log.error("[IMPORT] falha ao importar OP {}: {}", numeroOp, e.getMessage(), e);
+                results.add(OpImportResult.erro(numeroOp, MessageQuarantineService.describe(e), e));
+            }
+        }
+        return results;
+    }
+
+    private void count(String status) {
+        Counter.builder("organizador_op_import_items_total")
+                .description("OPs recebidas em lote, por resultado")
+                .tag("status", status)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -3,21 +3,32 @@ package git.yannynz.organizadorproducao.service;
 import git.yannynz.organizadorproducao.model.OpImport;
 import git.yannynz.organizadorproducao.model.Order;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
 import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
@@ -30,21 +41,31 @@ public class OpImportService {
     private final Logger log = LoggerFactory.getLogger(OpImportService.class);
 
     private final ClienteAutoEnrichmentService clienteAuto;
-    private final ClienteDefaultsService clienteDefaultsService;
+    private final OrderNrCache orderNrCache;
+    private final OpOrderSyncEngine syncEngine;
+    private final CoalescingBroadcaster broadcaster;
+    private final RetryScheduler retryScheduler;
+    private final TransactionOperations tx;
 
     public OpImportService(OpImportRepository repo, OrderRepository orderRepo, ObjectMapper mapper,
-            SimpMessagingTemplate ws, ClienteAutoEnrichmentService clienteAuto, ClienteDefaultsService clienteDefaultsService) {
+            SimpMessagingTemplate ws, ClienteAutoEnrichmentService clienteAuto, OrderNrCache orderNrCache,
+            OpOrderSyncEngine syncEngine, CoalescingBroadcaster broadcaster, RetryScheduler retryScheduler,
+            TransactionOperations tx) {
         this.repo = repo;
         this.orderRepo = orderRepo;
         this.mapper = mapper;
         this.ws = ws;
         this.clienteAuto = clienteAuto;
-        this.clienteDefaultsService = clienteDefaultsService;
+        this.orderNrCache = orderNrCache;
+        this.syncEngine = syncEngine;
+        this.broadcaster = broadcaster;
+        this.retryScheduler = retryScheduler;
+        this.tx = tx;
     }
 
     // ---- WS helpers ----
     private void notifyOrder(Order order) {
-        ws.convertAndSend("/topic/orders", order);
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, order);
     }
 
     private void notifyOpImported(OpImport saved, OpImportRequestDTO req, boolean linkedNow) {
@@ -96,44 +117,32 @@ public class OpImportService {
 
     /**
      * Tenta localizar pedido por NR e aplicar marcação; retorna true se aplicou.
+     * Chamado de dentro do próprio bean: quem chama abre a transação ({@link #tx}).
      */
-    @Transactional
     protected boolean tryPropagateToOrder(String numeroOp, boolean emborrachada) {
         if (!emborrachada || numeroOp == null || numeroOp.isBlank())
             return false;
 
         Optional<OpImport> maybeOp = repo.findByNumeroOp(numeroOp);
 
-        return orderRepo.findTopByNrOrderByIdDesc(numeroOp)
+        return orderNrCache.findLatestByNr(numeroOp)
                 .map(order -> markOrderAsEmborrachada(order, maybeOp))
                 .orElse(false);
     }
 
     /**
-     * Re-tenta de forma assíncrona (backoff simples) sem bloquear a thread do
-     * listener.
+     * Re-tenta após o commit do import, com backoff de 1.5s, 3s e 6s agendado no
+     * {@link RetryScheduler} (nenhuma thread fica dormindo entre as tentativas).
      */
-    @Async("opExecutor")
     protected void schedulePropagationRetries(String numeroOp, boolean emborrachada) {
         if (!emborrachada || numeroOp == null || numeroOp.isBlank())
             return;
 
-        int attempts = 3;
-        long waitMs = 1500L;
-
-        for (int i = 0; i < attempts; i++) {
-            try {
-                TimeUnit.MILLISECONDS.sleep(waitMs);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                return;
-            }
-            boolean applied = tryPropagateToOrder(numeroOp, emborrachada);
-            if (applied)
-                return;
-            waitMs *= 2; // backoff exponencial simples: 1.5s, 3s, 6s
-        }
-        // Se ainda não aplicou, o agendador periódico (reconcileOpsSemFaca) fará o
+        // cada tentativa roda na thread do RetryScheduler, fora da transação do import: abre a sua
+        TransactionHooks.afterCommit(() -> retryScheduler.retry("emborrachada " + numeroOp,
+                () -> Boolean.TRUE.equals(tx.execute(status -> tryPropagateToOrder(numeroOp, true))),
+                1500L, 3));
+        // Se ainda não aplicou, o agendador periódico (OpReconcileScheduler) fará o
         // restante.
     }
 
@@ -141,7 +150,7 @@ public class OpImportService {
     // Importação de OP
     // ---------------------------
     @Transactional
-    public void importar(OpImportRequestDTO req) {
+    public OpImportResult importar(OpImportRequestDTO req) {
         try {
             log.info("[IMPORT] recebida mensagem: numeroOp={}, dataOp={}",
                     (req != null ? req.getNumeroOp() : null), (req != null ? req.getDataOp() : null));
@@ -150,18 +159,179 @@ public class OpImportService {
         // Validações iniciais
         if (req == null) {
             log.warn("OpImportRequestDTO é null, ignorando import");
-            return;
+            return OpImportResult.ignorada(null, "request vazio");
         }
         String numeroOp = req.getNumeroOp();
         if (numeroOp == null || numeroOp.isBlank()) {
             log.warn("NumeroOp está vazio ou nulo no request, ignorando import");
-            return;
+            return OpImportResult.ignorada(numeroOp, "numeroOp vazio");
         }
 
         // Carrega ou cria OpImport
-        OpImport op = repo.findByNumeroOp(numeroOp)
-                .orElseGet(OpImport::new);
+        Optional<OpImport> existente = repo.findByNumeroOp(numeroOp);
+        OpImport op = existente.orElseGet(OpImport::new);
+
+        Optional<Order> maybeOrder = orderNrCache.findLatestByNr(numeroOp);
+
+        boolean shouldApplyEmborrachada = prepararOp(req, op);
 
+        // Enriquecimento automatico de cliente/endereco
+        try {
+            clienteAuto.upsertFromOp(op, req);
+        } catch (Exception e) {
+            log.error("Erro no enriquecimento de cliente para OP {}: {}", numeroOp, e.getMessage());
+        }
+
+        // Salvar OpImport
+        OpImport savedOp = repo.save(op);
+        try {
+            log.info("[IMPORT] OP salva: id={}, nr={}, emborrachada={}, dataOp={}",
+                    savedOp.getId(), savedOp.getNumeroOp(), savedOp.isEmborrachada(), savedOp.getDataOp());
+        } catch (Exception ignore) {
+        }
+
+        // Buscar e atualizar Order correspondente + linkar OP com pedido
+        boolean linkedNow = false;
+        if (maybeOrder.isPresent()) {
+            Order order = maybeOrder.get();
+            int changed = syncEngine.syncFromImport(savedOp, order);
+
+            // Removido: não anexar mais tags na observação; atualiza apenas campos
+            if (OpOrderSyncEngine.orderChanged(changed)) {
+                orderRepo.save(order);
+                notifyOrder(order);
+            }
+            if (OpOrderSyncEngine.opChanged(changed)) {
+                repo.save(savedOp);
+                linkedNow = (changed & OpOrderSyncEngine.OP_FACA_ID) != 0;
+            }
+        }
+
+        // Fallback de data/hora requerida com base na prioridade, se não foi definida
+        if (savedOp.getDataRequeridaEntrega() == null) {
+            orderNrCache.findLatestByNr(numeroOp).ifPresent(ord -> {
+                if (aplicarPrazoPorPrioridade(ord)) {
+                    orderRepo.save(ord);
+                    notifyOrder(ord);
+                }
+            });
+        }
+
+        // WS
+        notifyOpImported(savedOp, req, linkedNow);
+
+        // Retentativa de propagação emborrachada
+        if (shouldApplyEmborrachada) {
+            schedulePropagationRetries(numeroOp, true);
+        }
+
+        return new OpImportResult(numeroOp,
+                existente.isPresent() ? OpImportResult.ATUALIZADA : OpImportResult.CRIADA,
+                maybeOrder.map(Order::getId).orElse(null), linkedNow, null);
+    }
+
+    /**
+     * Importa um lote de OPs numa única transação, com as mesmas regras de {@link #importar}:
+     * OPs, pedidos e clientes do lote são carregados em poucas consultas {@code IN}, o
+     * enriquecimento roda em memória e as escritas saem em {@code saveAll} (agrupadas em batches
+     * JDBC de {@code hibernate.jdbc.batch_size}). OPs repetidas no lote são aplicadas em ordem
+     * sobre a mesma entidade. Qualquer falha desfaz o lote inteiro: as entidades do item já podem
+     * ter sido alteradas em memória e iriam no flush; o {@link OpBatchImportService} refaz o bloco
+     * item a item, cada um na sua transação.
+     *
+     * @return um resultado por item, na ordem recebida
+     */
+    @Transactional
+    public List<OpImportResult> importarLote(List<OpImportRequestDTO> reqs) {
+        if (reqs == null || reqs.isEmpty())
+            return List.of();
+
+        OpImportResult[] results = new OpImportResult[reqs.size()];
+        Set<String> nrs = new LinkedHashSet<>();
+        List<OpImportRequestDTO> validos = new ArrayList<>(reqs.size());
+        for (int i = 0; i < reqs.size(); i++) {
+            OpImportRequestDTO req = reqs.get(i);
+            if (req == null || req.getNumeroOp() == null || req.getNumeroOp().isBlank()) {
+                results[i] = OpImportResult.ignorada(req != null ? req.getNumeroOp() : null, "numeroOp vazio");
+                continue;
+            }
+            nrs.add(req.getNumeroOp());
+            validos.add(req);
+        }
+
+        Map<String, OpImport> ops = new HashMap<>();
+        Map<String, Order> pedidos = new HashMap<>();
+        if (!nrs.isEmpty()) {
+            for (OpImport o : repo.findByNumeroOpIn(nrs)) {
+                ops.put(o.getNumeroOp(), o);
+            }
+            for (Order f : orderRepo.findByNrInOrderByIdDesc(nrs)) {
+                pedidos.putIfAbsent(f.getNr(), f); // pedido mais recente por NR
+            }
+        }
+        ClienteAutoEnrichmentService.Lote clientes = clienteAuto.prefetch(validos);
+
+        Map<String, OpImport> opsAlteradas = new LinkedHashMap<>();
+        Map<Long, Order> pedidosAlterados = new LinkedHashMap<>();
+        List<Runnable> avisos = new ArrayList<>();
+        for (int i = 0; i < reqs.size(); i++) {
+            if (results[i] != null)
+                continue;
+            OpImportRequestDTO req = reqs.get(i);
+            String numeroOp = req.getNumeroOp();
+            OpImport existente = ops.get(numeroOp);
+            OpImport op = existente != null ? existente : new OpImport();
+            boolean shouldApplyEmborrachada = prepararOp(req, op);
+            try {
+                clienteAuto.upsertFromOp(op, req, clientes);
+            } catch (Exception e) {
+                log.error("Erro no enriquecimento de cliente para OP {}: {}", numeroOp, e.getMessage());
+            }
+
+            Order order = pedidos.get(numeroOp);
+            boolean linkedNow = false;
+            if (order != null) {
+                int changed = syncEngine.syncFromImport(op, order);
+                if (OpOrderSyncEngine.orderChanged(changed))
+                    pedidosAlterados.put(order.getId(), order);
+                linkedNow = OpOrderSyncEngine.opChanged(changed) && (changed & OpOrderSyncEngine.OP_FACA_ID) != 0;
+                if (op.getDataRequeridaEntrega() == null && aplicarPrazoPorPrioridade(order))
+                    pedidosAlterados.put(order.getId(), order);
+            }
+
+            ops.put(numeroOp, op);
+            opsAlteradas.put(numeroOp, op);
+            results[i] = new OpImportResult(numeroOp,
+                    existente != null ? OpImportResult.ATUALIZADA : OpImportResult.CRIADA,
+                    order != null ? order.getId() : null, linkedNow, null);
+
+            boolean linked = linkedNow;
+            avisos.add(() -> notifyOpImported(op, req, linked));
+            if (shouldApplyEmborrachada)
+                avisos.add(() -> schedulePropagationRetries(numeroOp, true));
+        }
+
+        repo.saveAll(opsAlteradas.values());
+        if (!pedidosAlterados.isEmpty()) {
+            List<Order> salvos = orderRepo.saveAll(pedidosAlterados.values());
+            avisos.add(() -> broadcaster.publishOrders(CoalescingBroadcaster.ORDERS, salvos));
+        }
+        // lote desfeito no commit não deve anunciar OPs nem pedidos
+        TransactionHooks.afterCommit(() -> avisos.forEach(Runnable::run));
+
+        log.info("[IMPORT] lote de {} OP(s): {} aplicadas, {} pedidos alterados",
+                reqs.size(), opsAlteradas.size(), pedidosAlterados.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Copia os campos do request para a OP e recalcula as flags de material respeitando as
+     * travas manuais.
+     *
+     * @return true se a marcação emborrachada deve ser propagada ao pedido
+     */
+    private boolean prepararOp(OpImportRequestDTO req, OpImport op) {
+        String numeroOp = req.getNumeroOp();
         op.setNumeroOp(numeroOp);
         op.setSharePath(req.getSharePath());
 
@@ -206,8 +376,6 @@ public class OpImportService {
             op.setUsuarioImportacao(req.getUsuarioImportacao().trim());
         }
 
-        Optional<Order> maybeOrder = orderRepo.findTopByNrOrderByIdDesc(numeroOp);
-
         boolean manualLockEmborrachada = op.isManualLockEmborrachada();
         boolean manualLockPertinax = op.isManualLockPertinax();
         boolean manualLockPoliester = op.isManualLockPoliester();
@@ -276,163 +444,44 @@ public class OpImportService {
                 manualLockPapelCalibrado,
                 manualLockVaiVinco);
 
-        boolean shouldApplyEmborrachada = newOpEmborrachada && !manualLockEmborrachada;
-
-        // Enriquecimento automatico de cliente/endereco
-        try {
-            clienteAuto.upsertFromOp(op, req);
-        } catch (Exception e) {
-            log.error("Erro no enriquecimento de cliente para OP {}: {}", numeroOp, e.getMessage());
-        }
-
-        // Salvar OpImport
-        OpImport savedOp = repo.save(op);
-        try {
-            log.info("[IMPORT] OP salva: id={}, nr={}, emborrachada={}, dataOp={}",
-                    savedOp.getId(), savedOp.getNumeroOp(), savedOp.isEmborrachada(), savedOp.getDataOp());
-        } catch (Exception ignore) {
-        }
-
-        // Buscar e atualizar Order correspondente
-        boolean orderUpdated = false;
-
-        if (maybeOrder.isPresent()) {
-            Order order = maybeOrder.get();
-
-            // Atualizar campos diretos
-            if (!isBlank(op.getDestacador()) && isBlank(order.getDestacador())) {
-                order.setDestacador(op.getDestacador());
-                orderUpdated = true;
-            }
-            if (!isBlank(op.getModalidadeEntrega()) && isBlank(order.getModalidadeEntrega())) {
-                order.setModalidadeEntrega(op.getModalidadeEntrega());
-                orderUpdated = true;
-            }
-            if (op.getDataRequeridaEntrega() != null && order.getDataRequeridaEntrega() == null) {
-                order.setDataRequeridaEntrega(op.getDataRequeridaEntrega());
-                orderUpdated = true;
-            }
-            if (!isBlank(op.getUsuarioImportacao()) && isBlank(order.getUsuarioImportacao())) {
-                order.setUsuarioImportacao(op.getUsuarioImportacao());
-                orderUpdated = true;
-            }
-            
-            // Propagate enriched client info
-            if (op.getClienteRef() != null) {
-                boolean clienteWasMissing = order.getClienteRef() == null;
-                if (clienteWasMissing) {
-                    order.setClienteRef(op.getClienteRef());
-                    orderUpdated = true;
-                    if (clienteDefaultsService.applyDefaults(order, op.getClienteRef())) {
-                        orderUpdated = true;
-                    }
-                }
-                // Se o cliente tem transportadora padrão definida e o pedido ainda não tem, preenche
-                if (op.getClienteRef().getTransportadora() != null && order.getTransportadora() == null) {
-                    order.setTransportadora(op.getClienteRef().getTransportadora());
-                    orderUpdated = true;
-                }
-            }
-
-            if (op.getEndereco() != null && order.getEndereco() == null) {
-                order.setEndereco(op.getEndereco());
-                orderUpdated = true;
-            }
-
-            if (shouldApplyEmborrachada && !order.isEmborrachada()) {
-                order.setEmborrachada(true);
-                orderUpdated = true;
-                log.info("[IMPORT] OP {} marcou pedido {} como emborrachada", numeroOp, order.getId());
-            }
-
-            if (Boolean.TRUE.equals(newVaiVinco) && !manualLockVaiVinco && !order.isVaiVinco()) {
-                order.setVaiVinco(true);
-                orderUpdated = true;
-                log.info("[IMPORT] OP {} marcou pedido {} como vaiVinco", numeroOp, order.getId());
-            }
-
-            // Default de modalidade quando ainda ausente
-            if (order.getModalidadeEntrega() == null || order.getModalidadeEntrega().isBlank()) {
-                order.setModalidadeEntrega("A ENTREGAR");
-                orderUpdated = true;
-            }
-
-            // Materiais especiais
-            if (Boolean.TRUE.equals(newPertinax) && !manualLockPertinax && !order.isPertinax()) {
-                order.setPertinax(true);
-                orderUpdated = true;
-                log.info("[IMPORT] OP {} marcou pedido {} como pertinax", numeroOp, order.getId());
-            }
-            if (Boolean.TRUE.equals(newPoliester) && !manualLockPoliester && !order.isPoliester()) {
-                order.setPoliester(true);
-                orderUpdated = true;
-                log.info("[IMPORT] OP {} marcou pedido {} como poliester", numeroOp, order.getId());
-            }
-            if (Boolean.TRUE.equals(newPapelCalibrado) && !manualLockPapelCalibrado && !order.isPapelCalibrado()) {
-                order.setPapelCalibrado(true);
-                orderUpdated = true;
-                log.info("[IMPORT] OP {} marcou pedido {} como papelCalibrado", numeroOp, order.getId());
-            }
-
-            // Removido: não anexar mais tags na observação; atualiza apenas campos
-            if (orderUpdated) {
-                orderRepo.save(order);
-                notifyOrder(order);
-            }
-        }
-
-        // Linkar OP com pedido
-        final boolean[] linkedNowHolder = { false };
-        maybeOrder.ifPresent(order -> {
-            if (savedOp.getFacaId() == null || !savedOp.getFacaId().equals(order.getId())) {
-                savedOp.setFacaId(order.getId());
-                repo.save(savedOp);
-                linkedNowHolder[0] = true;
-            }
-        });
-
-        // Fallback de data/hora requerida com base na prioridade, se não foi definida
-        if (savedOp.getDataRequeridaEntrega() == null) {
-            orderRepo.findTopByNrOrderByIdDesc(numeroOp).ifPresent(ord -> {
-                String pr = ord.getPrioridade();
-                if (pr != null) {
-                    java.time.ZoneId tz = java.time.ZoneId.of("America/Sao_Paulo");
-                    java.time.ZonedDateTime base = java.time.ZonedDateTime.now(tz).withHour(18).withMinute(0)
-                            .withSecond(0).withNano(0);
-                    java.time.ZonedDateTime dt = null;
-                    switch (pr) {
-                        case "VERMELHO":
-                            dt = base;
-                            break; // hoje 18:00
-                        case "AMARELO":
-                            dt = base.plusDays(1);
-                            break; // amanhã 18:00
-                        case "AZUL":
-                            dt = base.plusDays(2);
-                            break; // depois de amanhã 18:00
-                        default:
-                            break; // VERDE: sem prazo
-                    }
-                    if (dt != null) {
-                        ord.setDataRequeridaEntrega(dt);
-                        String obs = java.util.Optional.ofNullable(ord.getObservacao()).orElse("");
-                        String obsLower2 = obs.toLowerCase(java.util.Locale.ROOT);
-                        if (!obsLower2.contains("entrega="))
-                            appendTag(new StringBuilder(obs), "entrega=" + dt);
-                        orderRepo.save(ord);
-                        notifyOrder(ord);
-                    }
-                }
-            });
-        }
-
-        // WS
-        notifyOpImported(savedOp, req, linkedNowHolder[0]);
+        return newOpEmborrachada && !manualLockEmborrachada;
+    }
 
-        // Retentativa de propagação emborrachada
-        if (shouldApplyEmborrachada) {
-            schedulePropagationRetries(numeroOp, true);
+    /**
+     * Prazo padrão pela prioridade do pedido (VERMELHO hoje, AMARELO amanhã, AZUL depois de
+     * amanhã, sempre 18:00) quando a OP não trouxe data requerida.
+     *
+     * @return true se o pedido foi alterado
+     */
+    private boolean aplicarPrazoPorPrioridade(Order ord) {
+        String pr = ord.getPrioridade();
+        if (pr == null)
+            return false;
+        java.time.ZoneId tz = java.time.ZoneId.of("America/Sao_Paulo");
+        java.time.ZonedDateTime base = java.time.ZonedDateTime.now(tz).withHour(18).withMinute(0)
+                .withSecond(0).withNano(0);
+        java.time.ZonedDateTime dt = null;
+        switch (pr) {
+            case "VERMELHO":
+                dt = base;
+                break; // hoje 18:00
+            case "AMARELO":
+                dt = base.plusDays(1);
+                break; // amanhã 18:00
+            case "AZUL":
+                dt = base.plusDays(2);
+                break; // depois de amanhã 18:00
+            default:
+                break; // VERDE: sem prazo
         }
+        if (dt == null)
+            return false;
+        ord.setDataRequeridaEntrega(dt);
+        String obs = java.util.Optional.ofNullable(ord.getObservacao()).orElse("");
+        String obsLower2 = obs.toLowerCase(java.util.Locale.ROOT);
+        if (!obsLower2.contains("entrega="))
+            appendTag(new StringBuilder(obs), "entrega=" + dt);
+        return true;
     }
 
     // Converte string para ZonedDateTime aceitando formatos sem timezone
@@ -455,18 +504,6 @@ public class OpImportService {
         return ZonedDateTime.parse(str);
     }
 
-    private boolean isBlank(String value) {
-        return value == null || value.isBlank();
-    }
-
-    private boolean equalsInstant(ZonedDateTime a, ZonedDateTime b) {
-        if (a == b)
-            return true;
-        if (a == null || b == null)
-            return false;
-        return a.toInstant().equals(b.toInstant());
-    }
-
     // -- auxiliares --
 
     private void appendTag(StringBuilder sb, String tag) {
@@ -510,10 +547,10 @@ public class OpImportService {
     // ---------------------------
     // RabbitMQ
     // ---------------------------
-    // Listener definido em AmqpConfig (OpImportedListener) já chama
-    // service.importar(req)
+    // Listener definido em AmqpConfig (OpImportedListener) importa em lote via
+    // OpBatchImportService
     // Mantemos apenas o método assíncrono público caso seja útil em outros fluxos
-    @Async("opExecutor")
+    @Async("opLinkExecutor")
     @Transactional
     public void importarAsync(OpImportRequestDTO req) {
         importar(req);
@@ -522,241 +559,31 @@ public class OpImportService {
     // ---------------------------
     // Link do Pedido recém-criado com a OP (quando o Pedido nasce depois)
     // ---------------------------
-    @Async("opExecutor")
+    @Async("opLinkExecutor")
     @Transactional
     public void tryLinkAsync(String nr, Long facaId) {
         if (nr == null || nr.isBlank() || facaId == null)
             return;
 
         repo.findByNumeroOp(nr).ifPresent(op -> {
-            boolean dirty = false;
-            if (op.getFacaId() == null || !op.getFacaId().equals(facaId)) {
-                op.setFacaId(facaId);
-                dirty = true;
-            }
-            if (dirty)
-                repo.save(op);
-
-            orderRepo.findById(facaId).ifPresent(order -> {
-                boolean orderUpdated = false;
-                boolean opUpdated = false;
-
-                boolean alreadyLinked = op.getFacaId() != null && op.getFacaId().equals(facaId);
-
-                // Sincroniza Cliente/Transportadora/Endereco se ausente no pedido
-                if (op.getClienteRef() != null) {
-                    boolean clienteWasMissing = order.getClienteRef() == null;
-                    if (clienteWasMissing) {
-                        order.setClienteRef(op.getClienteRef());
-                        orderUpdated = true;
-                        if (clienteDefaultsService.applyDefaults(order, op.getClienteRef())) {
-                            orderUpdated = true;
-                        }
-                    }
-                    if (op.getClienteRef().getTransportadora() != null && order.getTransportadora() == null) {
-                        order.setTransportadora(op.getClienteRef().getTransportadora());
-                        orderUpdated = true;
-                    }
-                }
-                if (op.getEndereco() != null && order.getEndereco() == null) {
-                    order.setEndereco(op.getEndereco());
-                    orderUpdated = true;
-                }
-
-                boolean manualLockEmborrachada = op.isManualLockEmborrachada();
-
-                if (!alreadyLinked && op.isEmborrachada() && !order.isEmborrachada()) {
-                    order.setEmborrachada(true);
-                    orderUpdated = true;
-                    log.info("[LINK] Pedido {} recebeu emborrachada=true da OP {} (link tardio)", order.getId(),
-                            op.getNumeroOp());
-                } else {
-                    if (order.isEmborrachada()) {
-                        if (!op.isEmborrachada()) {
-                            op.setEmborrachada(true);
-                            opUpdated = true;
-                            log.info("[LINK] OP {} sincronizada com pedido {} emborrachada=true", op.getNumeroOp(),
-                                    order.getId());
-                        }
-                        if (manualLockEmborrachada) {
-                            op.setManualLockEmborrachada(false);
-                            opUpdated = true;
-                            log.info("[LINK] OP {} removeu lock manual emborrachada ao detectar pedido {}=true",
-                                    op.getNumeroOp(), order.getId());
-                        }
-                    } else if (op.isEmborrachada() && !manualLockEmborrachada) {
-                        order.setEmborrachada(true);
-                        orderUpdated = true;
-                        log.info("[LINK] Pedido {} ajustado para emborrachada=true a partir da OP {}", order.getId(),
-                                op.getNumeroOp());
-                    }
-                }
-
-                if (!isBlank(order.getDestacador())) {
-                    if (isBlank(op.getDestacador()) || !Objects.equals(order.getDestacador(), op.getDestacador())) {
-                        op.setDestacador(order.getDestacador());
-                        opUpdated = true;
-                    }
-                } else if (!isBlank(op.getDestacador())) {
-                    order.setDestacador(op.getDestacador());
-                    orderUpdated = true;
-                }
-
-                if (!isBlank(order.getModalidadeEntrega())) {
-                    if (isBlank(op.getModalidadeEntrega())
-                            || !Objects.equals(order.getModalidadeEntrega(), op.getModalidadeEntrega())) {
-                        op.setModalidadeEntrega(order.getModalidadeEntrega());
-                        opUpdated = true;
-                    }
-                } else if (!isBlank(op.getModalidadeEntrega())) {
-                    order.setModalidadeEntrega(op.getModalidadeEntrega());
-                    orderUpdated = true;
-                }
-
-                if (order.getDataRequeridaEntrega() != null) {
-                    if (!equalsInstant(order.getDataRequeridaEntrega(), op.getDataRequeridaEntrega())) {
-                        op.setDataRequeridaEntrega(order.getDataRequeridaEntrega());
-                        opUpdated = true;
-                    }
-                } else if (op.getDataRequeridaEntrega() != null) {
-                    order.setDataRequeridaEntrega(op.getDataRequeridaEntrega());
-                    orderUpdated = true;
-                }
-
-                if (!isBlank(order.getUsuarioImportacao())) {
-                    if (isBlank(op.getUsuarioImportacao())
-                            || !Objects.equals(order.getUsuarioImportacao(), op.getUsuarioImportacao())) {
-                        op.setUsuarioImportacao(order.getUsuarioImportacao());
-                        opUpdated = true;
-                    }
-                } else if (!isBlank(op.getUsuarioImportacao())) {
-                    order.setUsuarioImportacao(op.getUsuarioImportacao());
-                    orderUpdated = true;
-                }
-
-                Boolean opPertinax = op.getPertinax();
-                boolean lockPertinax = op.isManualLockPertinax();
-                if (order.isPertinax()) {
-                    if (!Boolean.TRUE.equals(opPertinax)) {
-                        op.setPertinax(true);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} recebeu pertinax=true do pedido {}", op.getNumeroOp(), order.getId());
-                    }
-                    if (lockPertinax) {
-                        op.setManualLockPertinax(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} removeu lock pertinax após pedido {}=true", op.getNumeroOp(),
-                                order.getId());
-                    }
-                } else {
-                    if (Boolean.TRUE.equals(opPertinax) && !lockPertinax) {
-                        order.setPertinax(true);
-                        orderUpdated = true;
-                        log.info("[LINK] Pedido {} recebeu pertinax=true da OP {}", order.getId(), op.getNumeroOp());
-                    } else if (lockPertinax && !Boolean.TRUE.equals(opPertinax)) {
-                        op.setManualLockPertinax(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} limpou lock pertinax pois pedido {} segue false", op.getNumeroOp(),
-                                order.getId());
-                    }
-                }
-
-                Boolean opPoliester = op.getPoliester();
-                boolean lockPoliester = op.isManualLockPoliester();
-                if (order.isPoliester()) {
-                    if (!Boolean.TRUE.equals(opPoliester)) {
-                        op.setPoliester(true);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} recebeu poliester=true do pedido {}", op.getNumeroOp(), order.getId());
-                    }
-                    if (lockPoliester) {
-                        op.setManualLockPoliester(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} removeu lock poliester após pedido {}=true", op.getNumeroOp(),
-                                order.getId());
-                    }
-                } else {
-                    if (Boolean.TRUE.equals(opPoliester) && !lockPoliester) {
-                        order.setPoliester(true);
-                        orderUpdated = true;
-                        log.info("[LINK] Pedido {} recebeu poliester=true da OP {}", order.getId(), op.getNumeroOp());
-                    } else if (lockPoliester && !Boolean.TRUE.equals(opPoliester)) {
-                        op.setManualLockPoliester(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} limpou lock poliester pois pedido {} segue false", op.getNumeroOp(),
-                                order.getId());
-                    }
-                }
-
-                Boolean opPapel = op.getPapelCalibrado();
-                boolean lockPapel = op.isManualLockPapelCalibrado();
-                if (order.isPapelCalibrado()) {
-                    if (!Boolean.TRUE.equals(opPapel)) {
-                        op.setPapelCalibrado(true);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} recebeu papelCalibrado=true do pedido {}", op.getNumeroOp(),
-                                order.getId());
-                    }
-                    if (lockPapel) {
-                        op.setManualLockPapelCalibrado(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} removeu lock papelCalibrado após pedido {}=true", op.getNumeroOp(),
-                                order.getId());
-                    }
-                } else {
-                    if (Boolean.TRUE.equals(opPapel) && !lockPapel) {
-                        order.setPapelCalibrado(true);
-                        orderUpdated = true;
-                        log.info("[LINK] Pedido {} recebeu papelCalibrado=true da OP {}", order.getId(),
-                                op.getNumeroOp());
-                    } else if (lockPapel && !Boolean.TRUE.equals(opPapel)) {
-                        op.setManualLockPapelCalibrado(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} limpou lock papelCalibrado pois pedido {} segue false", op.getNumeroOp(),
-                                order.getId());
-                    }
-                }
-
-                Boolean opVaiVinco = op.getVaiVinco();
-                boolean lockVaiVinco = op.isManualLockVaiVinco();
-                if (order.isVaiVinco()) {
-                    if (!Boolean.TRUE.equals(opVaiVinco)) {
-                        op.setVaiVinco(true);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} recebeu vaiVinco=true do pedido {}", op.getNumeroOp(), order.getId());
-                    }
-                    if (lockVaiVinco) {
-                        op.setManualLockVaiVinco(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} removeu lock vaiVinco após pedido {}=true", op.getNumeroOp(),
-                                order.getId());
-                    }
-                } else {
-                    if (Boolean.TRUE.equals(opVaiVinco) && !lockVaiVinco) {
-                        order.setVaiVinco(true);
-                        orderUpdated = true;
-                        log.info("[LINK] Pedido {} recebeu vaiVinco=true da OP {}", order.getId(), op.getNumeroOp());
-                    } else if (lockVaiVinco && !Boolean.TRUE.equals(opVaiVinco)) {
-                        op.setManualLockVaiVinco(false);
-                        opUpdated = true;
-                        log.info("[LINK] OP {} limpou lock vaiVinco pois pedido {} segue false", op.getNumeroOp(),
-                                order.getId());
-                    }
-                }
-
-                if (isBlank(order.getModalidadeEntrega())) {
-                    order.setModalidadeEntrega("A ENTREGAR");
-                    orderUpdated = true;
-                }
-
-                if (opUpdated) {
+            Optional<Order> maybeOrder = orderRepo.findById(facaId);
+            if (maybeOrder.isEmpty()) {
+                if (!facaId.equals(op.getFacaId())) {
+                    op.setFacaId(facaId);
                     repo.save(op);
                 }
-                if (orderUpdated) {
-                    orderRepo.save(order);
-                    notifyOrder(order);
-                }
-            });
+                return;
+            }
+
+            Order order = maybeOrder.get();
+            int changed = syncEngine.syncBidirectional(op, order, "[LINK]");
+            if (OpOrderSyncEngine.opChanged(changed)) {
+                repo.save(op);
+            }
+            if (OpOrderSyncEngine.orderChanged(changed)) {
+                orderRepo.save(order);
+                notifyOrder(order);
+            }
         });
     }
 
@@ -772,85 +599,16 @@ public class OpImportService {
         if (order == null || order.getNr() == null || order.getNr().isBlank())
             return;
 
-        repo.findByNumeroOp(order.getNr()).ifPresent(op -> {
-            boolean dirty = false;
-
-            if (previousEmborrachada != order.isEmborrachada()) {
-                if (!order.isEmborrachada() && op.isEmborrachada()) {
-                    if (!op.isManualLockEmborrachada()) {
-                        op.setManualLockEmborrachada(true);
-                        dirty = true;
-                        log.info("[ORDER] Pedido {} marcou lock emborrachada=false na OP {}", order.getId(),
-                                op.getNumeroOp());
-                    }
-                } else if (order.isEmborrachada() && op.isManualLockEmborrachada()) {
-                    op.setManualLockEmborrachada(false);
-                    dirty = true;
-                    log.info("[ORDER] Pedido {} removeu lock emborrachada na OP {}", order.getId(), op.getNumeroOp());
-                }
-            }
-
-            if (previousPertinax != order.isPertinax()) {
-                if (!order.isPertinax() && Boolean.TRUE.equals(op.getPertinax())) {
-                    if (!op.isManualLockPertinax()) {
-                        op.setManualLockPertinax(true);
-                        dirty = true;
-                        log.info("[ORDER] Pedido {} marcou lock pertinax=false na OP {}", order.getId(),
-                                op.getNumeroOp());
-                    }
-                } else if (order.isPertinax() && op.isManualLockPertinax()) {
-                    op.setManualLockPertinax(false);
-                    dirty = true;
-                    log.info("[ORDER] Pedido {} removeu lock pertinax na OP {}", order.getId(), op.getNumeroOp());
-                }
-            }
-
-            if (previousPoliester != order.isPoliester()) {
-                if (!order.isPoliester() && Boolean.TRUE.equals(op.getPoliester())) {
-                    if (!op.isManualLockPoliester()) {
-                        op.setManualLockPoliester(true);
-                        dirty = true;
-                        log.info("[ORDER] Pedido {} marcou lock poliester=false na OP {}", order.getId(),
-                                op.getNumeroOp());
-                    }
-                } else if (order.isPoliester() && op.isManualLockPoliester()) {
-                    op.setManualLockPoliester(false);
-                    dirty = true;
-                    log.info("[ORDER] Pedido {} removeu lock poliester na OP {}", order.getId(), op.getNumeroOp());
-                }
-            }
-
-            if (previousPapelCalibrado != order.isPapelCalibrado()) {
-                if (!order.isPapelCalibrado() && Boolean.TRUE.equals(op.getPapelCalibrado())) {
-                    if (!op.isManualLockPapelCalibrado()) {
-                        op.setManualLockPapelCalibrado(true);
-                        dirty = true;
-                        log.info("[ORDER] Pedido {} marcou lock papelCalibrado=false na OP {}", order.getId(),
-                                op.getNumeroOp());
-                    }
-                } else if (order.isPapelCalibrado() && op.isManualLockPapelCalibrado()) {
-                    op.setManualLockPapelCalibrado(false);
-                    dirty = true;
-                    log.info("[ORDER] Pedido {} removeu lock papelCalibrado na OP {}", order.getId(), op.getNumeroOp());
-                }
-            }
-
-            if (previousVaiVinco != order.isVaiVinco()) {
-                if (!order.isVaiVinco() && Boolean.TRUE.equals(op.getVaiVinco())) {
-                    if (!op.isManualLockVaiVinco()) {
-                        op.setManualLockVaiVinco(true);
-                        dirty = true;
-                        log.info("[ORDER] Pedido {} marcou lock vaiVinco=false na OP {}", order.getId(),
-                                op.getNumeroOp());
-                    }
-                } else if (order.isVaiVinco() && op.isManualLockVaiVinco()) {
-                    op.setManualLockVaiVinco(false);
-                    dirty = true;
-                    log.info("[ORDER] Pedido {} removeu lock vaiVinco na OP {}", order.getId(), op.getNumeroOp());
-                }
-            }
+        int flagsAnteriores = (previousEmborrachada ? OpOrderSyncEngine.ORDER_EMBORRACHADA : 0)
+                | (previousPertinax ? OpOrderSyncEngine.ORDER_PERTINAX : 0)
+                | (previousPoliester ? OpOrderSyncEngine.ORDER_POLIESTER : 0)
+                | (previousPapelCalibrado ? OpOrderSyncEngine.ORDER_PAPEL_CALIBRADO : 0)
+                | (previousVaiVinco ? OpOrderSyncEngine.ORDER_VAI_VINCO : 0);
+        if (flagsAnteriores == OpOrderSyncEngine.materialFlags(order))
+            return; // nada mudou nas flags: evita a consulta da OP
 
-            if (dirty) {
+        repo.findByNumeroOp(order.getNr()).ifPresent(op -> {
+            if (syncEngine.applyManualLocks(op, order, flagsAnteriores) != 0) {
                 repo.save(op);
             }
         });
@@ -859,238 +617,49 @@ public class OpImportService {
     // ---------------------------
     // Reconciliação periódica: liga OPs a faca
     // ---------------------------
-    @Scheduled(fixedDelay = 50_000) // 0.9 min
+    /**
+     * Reconcilia um lote de OPs (ids) com seus pedidos: uma carga das OPs e um único
+     * {@code nr IN (...)} para os pedidos. Chamado pelo OpReconcileScheduler.
+     *
+     * @return quantidade de OPs efetivamente avaliadas
+     */
     @Transactional
-    public void reconcileOpsSemFaca() {
-        repo.findAll().stream()
+    public int reconcileChunk(Collection<Long> opIds) {
+        if (opIds == null || opIds.isEmpty())
+            return 0;
+
+        List<OpImport> ops = repo.findAllById(opIds).stream()
                 .filter(o -> o.getNumeroOp() != null && !o.getNumeroOp().isBlank())
-                .forEach(o -> orderRepo.findTopByNrOrderByIdDesc(o.getNumeroOp()).ifPresent(f -> {
-                    boolean dirty = false;
-
-                    if (o.getFacaId() == null || !o.getFacaId().equals(f.getId())) {
-                        o.setFacaId(f.getId());
-                        dirty = true;
-                    }
-                    if (dirty)
-                        repo.save(o);
-
-                    boolean orderUpdated = false;
-                    boolean opUpdated = false;
-                    boolean linked = o.getFacaId() != null && o.getFacaId().equals(f.getId());
-
-                    // Sincroniza Cliente/Transportadora/Endereco
-                    if (o.getClienteRef() != null) {
-                        if (f.getClienteRef() == null) {
-                            f.setClienteRef(o.getClienteRef());
-                            orderUpdated = true;
-                        }
-                        if (o.getClienteRef().getTransportadora() != null && f.getTransportadora() == null) {
-                            f.setTransportadora(o.getClienteRef().getTransportadora());
-                            orderUpdated = true;
-                        }
-                    }
-                    if (o.getEndereco() != null && f.getEndereco() == null) {
-                        f.setEndereco(o.getEndereco());
-                        orderUpdated = true;
-                    }
-
-                    boolean lockEmborrachada = o.isManualLockEmborrachada();
-                    boolean lockPertinax = o.isManualLockPertinax();
-                    boolean lockPoliester = o.isManualLockPoliester();
-                    boolean lockPapel = o.isManualLockPapelCalibrado();
-                    boolean lockVaiVinco = o.isManualLockVaiVinco();
-
-                    if (!linked && o.isEmborrachada() && !f.isEmborrachada()) {
-                        f.setEmborrachada(true);
-                        orderUpdated = true;
-                        log.info("[RECONCILE] Pedido {} sincronizado para emborrachada=true via OP {}", f.getId(),
-                                o.getNumeroOp());
-                    } else {
-                        if (f.isEmborrachada()) {
-                            if (!o.isEmborrachada()) {
-                                o.setEmborrachada(true);
-                                opUpdated = true;
-                                log.info("[RECONCILE] OP {} recebeu emborrachada=true do pedido {}", o.getNumeroOp(),
-                                        f.getId());
-                            }
-                            if (lockEmborrachada) {
-                                o.setManualLockEmborrachada(false);
-                                opUpdated = true;
-                                log.info("[RECONCILE] OP {} removeu lock emborrachada após pedido {}=true",
-                                        o.getNumeroOp(), f.getId());
-                            }
-                        } else if (o.isEmborrachada() && !lockEmborrachada) {
-                            f.setEmborrachada(true);
-                            orderUpdated = true;
-                            log.info("[RECONCILE] Pedido {} recebeu emborrachada=true da OP {}", f.getId(),
-                                    o.getNumeroOp());
-                        }
-                    }
-
-                    if (!isBlank(f.getDestacador())) {
-                        if (isBlank(o.getDestacador()) || !Objects.equals(f.getDestacador(), o.getDestacador())) {
-                            o.setDestacador(f.getDestacador());
-                            opUpdated = true;
-                        }
-                    } else if (!isBlank(o.getDestacador())) {
-                        f.setDestacador(o.getDestacador());
-                        orderUpdated = true;
-                    }
-
-                    if (!isBlank(f.getModalidadeEntrega())) {
-                        if (isBlank(o.getModalidadeEntrega())
-                                || !Objects.equals(f.getModalidadeEntrega(), o.getModalidadeEntrega())) {
-                            o.setModalidadeEntrega(f.getModalidadeEntrega());
-                            opUpdated = true;
-                        }
-                    } else if (!isBlank(o.getModalidadeEntrega())) {
-                        f.setModalidadeEntrega(o.getModalidadeEntrega());
-                        orderUpdated = true;
-                    }
-
-                    if (f.getDataRequeridaEntrega() != null) {
-                        if (!equalsInstant(f.getDataRequeridaEntrega(), o.getDataRequeridaEntrega())) {
-                            o.setDataRequeridaEntrega(f.getDataRequeridaEntrega());
-                            opUpdated = true;
-                        }
-                    } else if (o.getDataRequeridaEntrega() != null) {
-                        f.setDataRequeridaEntrega(o.getDataRequeridaEntrega());
-                        orderUpdated = true;
-                    }
-
-                    if (!isBlank(f.getUsuarioImportacao())) {
-                        if (isBlank(o.getUsuarioImportacao())
-                                || !Objects.equals(f.getUsuarioImportacao(), o.getUsuarioImportacao())) {
-                            o.setUsuarioImportacao(f.getUsuarioImportacao());
-                            opUpdated = true;
-                        }
-                    } else if (!isBlank(o.getUsuarioImportacao())) {
-                        f.setUsuarioImportacao(o.getUsuarioImportacao());
-                        orderUpdated = true;
-                    }
-
-                    if (f.isPertinax()) {
-                        if (!Boolean.TRUE.equals(o.getPertinax())) {
-                            o.setPertinax(true);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} recebeu pertinax=true do pedido {}", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                        if (lockPertinax) {
-                            o.setManualLockPertinax(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} removeu lock pertinax após pedido {}=true", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                    } else {
-                        if (Boolean.TRUE.equals(o.getPertinax()) && !lockPertinax) {
-                            f.setPertinax(true);
-                            orderUpdated = true;
-                            log.info("[RECONCILE] Pedido {} recebeu pertinax=true da OP {}", f.getId(),
-                                    o.getNumeroOp());
-                        } else if (lockPertinax && !Boolean.TRUE.equals(o.getPertinax())) {
-                            o.setManualLockPertinax(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} limpou lock pertinax pois pedido {} permanece false",
-                                    o.getNumeroOp(), f.getId());
-                        }
-                    }
-
-                    if (f.isPoliester()) {
-                        if (!Boolean.TRUE.equals(o.getPoliester())) {
-                            o.setPoliester(true);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} recebeu poliester=true do pedido {}", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                        if (lockPoliester) {
-                            o.setManualLockPoliester(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} removeu lock poliester após pedido {}=true", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                    } else {
-                        if (Boolean.TRUE.equals(o.getPoliester()) && !lockPoliester) {
-                            f.setPoliester(true);
-                            orderUpdated = true;
-                            log.info("[RECONCILE] Pedido {} recebeu poliester=true da OP {}", f.getId(),
-                                    o.getNumeroOp());
-                        } else if (lockPoliester && !Boolean.TRUE.equals(o.getPoliester())) {
-                            o.setManualLockPoliester(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} limpou lock poliester pois pedido {} permanece false",
-                                    o.getNumeroOp(), f.getId());
-                        }
-                    }
-
-                    if (f.isPapelCalibrado()) {
-                        if (!Boolean.TRUE.equals(o.getPapelCalibrado())) {
-                            o.setPapelCalibrado(true);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} recebeu papelCalibrado=true do pedido {}", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                        if (lockPapel) {
-                            o.setManualLockPapelCalibrado(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} removeu lock papelCalibrado após pedido {}=true",
-                                    o.getNumeroOp(), f.getId());
-                        }
-                    } else {
-                        if (Boolean.TRUE.equals(o.getPapelCalibrado()) && !lockPapel) {
-                            f.setPapelCalibrado(true);
-                            orderUpdated = true;
-                            log.info("[RECONCILE] Pedido {} recebeu papelCalibrado=true da OP {}", f.getId(),
-                                    o.getNumeroOp());
-                        } else if (lockPapel && !Boolean.TRUE.equals(o.getPapelCalibrado())) {
-                            o.setManualLockPapelCalibrado(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} limpou lock papelCalibrado pois pedido {} permanece false",
-                                    o.getNumeroOp(), f.getId());
-                        }
-                    }
-
-                    Boolean opVaiVinco = o.getVaiVinco();
-                    if (f.isVaiVinco()) {
-                        if (!Boolean.TRUE.equals(opVaiVinco)) {
-                            o.setVaiVinco(true);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} recebeu vaiVinco=true do pedido {}", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                        if (lockVaiVinco) {
-                            o.setManualLockVaiVinco(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} removeu lock vaiVinco após pedido {}=true", o.getNumeroOp(),
-                                    f.getId());
-                        }
-                    } else {
-                        if (Boolean.TRUE.equals(opVaiVinco) && !lockVaiVinco) {
-                            f.setVaiVinco(true);
-                            orderUpdated = true;
-                            log.info("[RECONCILE] Pedido {} recebeu vaiVinco=true da OP {}", f.getId(),
-                                    o.getNumeroOp());
-                        } else if (lockVaiVinco && !Boolean.TRUE.equals(opVaiVinco)) {
-                            o.setManualLockVaiVinco(false);
-                            opUpdated = true;
-                            log.info("[RECONCILE] OP {} limpou lock vaiVinco pois pedido {} permanece false",
-                                    o.getNumeroOp(), f.getId());
-                        }
-                    }
-
-                    if (isBlank(f.getModalidadeEntrega())) {
-                        f.setModalidadeEntrega("A ENTREGAR");
-                        orderUpdated = true;
-                    }
-
-                    if (opUpdated) {
-                        repo.save(o);
-                    }
-                    if (orderUpdated) {
-                        orderRepo.save(f);
-                        notifyOrder(f); // idempotente
-                    }
-                }));
-        System.out.println("[ReconcileOps] Reconciliação periódica de OPs a faca concluída.");
+                .toList();
+        if (ops.isEmpty())
+            return 0;
+
+        Set<String> nrs = new HashSet<>();
+        ops.forEach(o -> nrs.add(o.getNumeroOp()));
+        Map<String, Order> porNr = new HashMap<>();
+        for (Order f : orderRepo.findByNrInOrderByIdDesc(nrs)) {
+            porNr.putIfAbsent(f.getNr(), f); // pedido mais recente por NR
+        }
+
+        List<OpImport> opsAlteradas = new ArrayList<>();
+        Map<Long, Order> pedidosAlterados = new LinkedHashMap<>();
+        for (OpImport o : ops) {
+            Order f = porNr.get(o.getNumeroOp());
+            if (f == null)
+                continue;
+            int changed = syncEngine.syncBidirectional(o, f, "[RECONCILE]");
+            if (OpOrderSyncEngine.opChanged(changed))
+                opsAlteradas.add(o);
+            if (OpOrderSyncEngine.orderChanged(changed))
+                pedidosAlterados.put(f.getId(), f);
+        }
+
+        if (!opsAlteradas.isEmpty())
+            repo.saveAll(opsAlteradas);
+        if (!pedidosAlterados.isEmpty()) {
+            List<Order> salvos = orderRepo.saveAll(pedidosAlterados.values());
+            TransactionHooks.afterCommit(() -> broadcaster.publishOrders(CoalescingBroadcaster.ORDERS, salvos));
+        }
+        return ops.size();
     }
 }
@@ -0,0 +1,344 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.OpImport;
+import git.yannynz.organizadorproducao.model.Order;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Regras únicas de sincronização OP ↔ pedido usadas por importar, tryLinkAsync,
+ * reconciliação e travas manuais.
+ * <p>
+ * Cada método aplica as regras de um par (OP, pedido) numa única passada e devolve uma
+ * máscara de bits com o que mudou ({@code ORDER_*} / {@code OP_*}); zero significa nada
+ * a gravar e nenhuma alocação foi feita. Quem chama decide o que salvar e notificar.
+ */
+@Component
+public class OpOrderSyncEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(OpOrderSyncEngine.class);
+
+    public static final String MODALIDADE_PADRAO = "A ENTREGAR";
+
+    // ---- campos do pedido ----
+    public static final int ORDER_CLIENTE = 1;
+    public static final int ORDER_DEFAULTS_CLIENTE = 1 << 1;
+    public static final int ORDER_TRANSPORTADORA = 1 << 2;
+    public static final int ORDER_ENDERECO = 1 << 3;
+    public static final int ORDER_DESTACADOR = 1 << 4;
+    public static final int ORDER_MODALIDADE = 1 << 5;
+    public static final int ORDER_DATA_REQUERIDA = 1 << 6;
+    public static final int ORDER_USUARIO = 1 << 7;
+    public static final int ORDER_EMBORRACHADA = 1 << 8;
+    public static final int ORDER_PERTINAX = 1 << 9;
+    public static final int ORDER_POLIESTER = 1 << 10;
+    public static final int ORDER_PAPEL_CALIBRADO = 1 << 11;
+    public static final int ORDER_VAI_VINCO = 1 << 12;
+    public static final int ORDER_MASK = (1 << 16) - 1;
+
+    // ---- campos da OP ----
+    public static final int OP_FACA_ID = 1 << 16;
+    public static final int OP_DESTACADOR = 1 << 17;
+    public static final int OP_MODALIDADE = 1 << 18;
+    public static final int OP_DATA_REQUERIDA = 1 << 19;
+    public static final int OP_USUARIO = 1 << 20;
+    public static final int OP_EMBORRACHADA = 1 << 21;
+    public static final int OP_PERTINAX = 1 << 22;
+    public static final int OP_POLIESTER = 1 << 23;
+    public static final int OP_PAPEL_CALIBRADO = 1 << 24;
+    public static final int OP_VAI_VINCO = 1 << 25;
+    public static final int OP_LOCKS = 1 << 26;
+    public static final int OP_MASK = ~ORDER_MASK;
+
+    /**
+     * Materiais/flags sincronizados entre OP e pedido, com as respectivas travas manuais.
+     * Declarado uma vez; as três regras (import, bidirecional e travas) iteram esta tabela.
+     */
+    enum Material {
+        EMBORRACHADA("emborrachada", ORDER_EMBORRACHADA, OP_EMBORRACHADA,
+                Order::isEmborrachada, Order::setEmborrachada,
+                OpImport::isEmborrachada, (op, v) -> op.setEmborrachada(Boolean.TRUE.equals(v)),
+                OpImport::isManualLockEmborrachada, OpImport::setManualLockEmborrachada),
+        PERTINAX("pertinax", ORDER_PERTINAX, OP_PERTINAX,
+                Order::isPertinax, Order::setPertinax,
+                OpImport::getPertinax, OpImport::setPertinax,
+                OpImport::isManualLockPertinax, OpImport::setManualLockPertinax),
+        POLIESTER("poliester", ORDER_POLIESTER, OP_POLIESTER,
+                Order::isPoliester, Order::setPoliester,
+                OpImport::getPoliester, OpImport::setPoliester,
+                OpImport::isManualLockPoliester, OpImport::setManualLockPoliester),
+        PAPEL_CALIBRADO("papelCalibrado", ORDER_PAPEL_CALIBRADO, OP_PAPEL_CALIBRADO,
+                Order::isPapelCalibrado, Order::setPapelCalibrado,
+                OpImport::getPapelCalibrado, OpImport::setPapelCalibrado,
+                OpImport::isManualLockPapelCalibrado, OpImport::setManualLockPapelCalibrado),
+        VAI_VINCO("vaiVinco", ORDER_VAI_VINCO, OP_VAI_VINCO,
+                Order::isVaiVinco, Order::setVaiVinco,
+                OpImport::getVaiVinco, OpImport::setVaiVinco,
+                OpImport::isManualLockVaiVinco, OpImport::setManualLockVaiVinco);
+
+        static final Material[] ALL = values();
+
+        final String label;
+        final int orderBit;
+        final int opBit;
+        private final Predicate<Order> orderGet;
+        private final BiConsumer<Order, Boolean> orderSet;
+        private final Function<OpImport, Boolean> opGet;
+        private final BiConsumer<OpImport, Boolean> opSet;
+        private final Predicate<OpImport> lockGet;
+        private final BiConsumer<OpImport, Boolean> lockSet;
+
+        Material(String label, int orderBit, int opBit,
+                 Predicate<Order> orderGet, BiConsumer<Order, Boolean> orderSet,
+                 Function<OpImport, Boolean> opGet, BiConsumer<OpImport, Boolean> opSet,
+                 Predicate<OpImport> lockGet, BiConsumer<OpImport, Boolean> lockSet) {
+            this.label = label;
+            this.orderBit = orderBit;
+            this.opBit = opBit;
+            this.orderGet = orderGet;
+            this.orderSet = orderSet;
+            this.opGet = opGet;
+            this.opSet = opSet;
+            this.lockGet = lockGet;
+            this.lockSet = lockSet;
+        }
+
+        boolean order(Order o) { return orderGet.test(o); }
+        void order(Order o, boolean v) { orderSet.accept(o, v); }
+        boolean op(OpImport op) { return Boolean.TRUE.equals(opGet.apply(op)); }
+        void op(OpImport op, boolean v) { opSet.accept(op, v); }
+        boolean lock(OpImport op) { return lockGet.test(op); }
+        void lock(OpImport op, boolean v) { lockSet.accept(op, v); }
+    }
+
+    private final ClienteDefaultsService clienteDefaultsService;
+
+    public OpOrderSyncEngine(ClienteDefaultsService clienteDefaultsService) {
+        this.clienteDefaultsService = clienteDefaultsService;
+    }
+
+    public static boolean orderChanged(int mask) {
+        return (mask & ORDER_MASK) != 0;
+    }
+
+    public static boolean opChanged(int mask) {
+        return (mask & OP_MASK) != 0;
+    }
+
+    /**
+     * Importação: a OP só preenche o que falta no pedido e liga flags verdadeiras não travadas.
+     * Também vincula a OP ao pedido ({@link #OP_FACA_ID}).
+     */
+    public int syncFromImport(OpImport op, Order order) {
+        int mask = linkFaca(op, order);
+        mask |= syncCliente(op, order);
+
+        if (!isBlank(op.getDestacador()) && isBlank(order.getDestacador())) {
+            order.setDestacador(op.getDestacador());
+            mask |= ORDER_DESTACADOR;
+        }
+        if (!isBlank(op.getModalidadeEntrega()) && isBlank(order.getModalidadeEntrega())) {
+            order.setModalidadeEntrega(op.getModalidadeEntrega());
+            mask |= ORDER_MODALIDADE;
+        }
+        if (op.getDataRequeridaEntrega() != null && order.getDataRequeridaEntrega() == null) {
+            order.setDataRequeridaEntrega(op.getDataRequeridaEntrega());
+            mask |= ORDER_DATA_REQUERIDA;
+        }
+        if (!isBlank(op.getUsuarioImportacao()) && isBlank(order.getUsuarioImportacao())) {
+            order.setUsuarioImportacao(op.getUsuarioImportacao());
+            mask |= ORDER_USUARIO;
+        }
+
+        for (Material m : Material.ALL) {
+            if (m.op(op) && !m.lock(op) && !m.order(order)) {
+                m.order(order, true);
+                mask |= m.orderBit;
+                log.info("[IMPORT] OP {} marcou pedido {} como {}", op.getNumeroOp(), order.getId(), m.label);
+            }
+        }
+
+        return mask | defaultModalidade(order);
+    }
+
+    /**
+     * Link tardio e reconciliação: o pedido prevalece nos campos de texto/data; flags verdadeiras
+     * de um lado passam para o outro respeitando (e limpando, quando obsoletas) as travas da OP.
+     *
+     * @param tag prefixo de log, ex.: "[LINK]" ou "[RECONCILE]"
+     */
+    public int syncBidirectional(OpImport op, Order order, String tag) {
+        int mask = linkFaca(op, order);
+        mask |= syncCliente(op, order);
+
+        if (!isBlank(order.getDestacador())) {
+            if (!Objects.equals(order.getDestacador(), op.getDestacador())) {
+                op.setDestacador(order.getDestacador());
+                mask |= OP_DESTACADOR;
+            }
+        } else if (!isBlank(op.getDestacador())) {
+            order.setDestacador(op.getDestacador());
+            mask |= ORDER_DESTACADOR;
+        }
+
+        if (!isBlank(order.getModalidadeEntrega())) {
+            if (!Objects.equals(order.getModalidadeEntrega(), op.getModalidadeEntrega())) {
+                op.setModalidadeEntrega(order.getModalidadeEntrega());
+                mask |= OP_MODALIDADE;
+            }
+        } else if (!isBlank(op.getModalidadeEntrega())) {
+            order.setModalidadeEntrega(op.getModalidadeEntrega());
+            mask |= ORDER_MODALIDADE;
+        }
+
+        if (order.getDataRequeridaEntrega() != null) {
+            if (!equalsInstant(order.getDataRequeridaEntrega(), op.getDataRequeridaEntrega())) {
+                op.setDataRequeridaEntrega(order.getDataRequeridaEntrega());
+                mask |= OP_DATA_REQUERIDA;
+            }
+        } else if (op.getDataRequeridaEntrega() != null) {
+            order.setDataRequeridaEntrega(op.getDataRequeridaEntrega());
+            mask |= ORDER_DATA_REQUERIDA;
+        }
+
+        if (!isBlank(order.getUsuarioImportacao())) {
+            if (!Objects.equals(order.getUsuarioImportacao(), op.getUsuarioImportacao())) {
+                op.setUsuarioImportacao(order.getUsuarioImportacao());
+                mask |= OP_USUARIO;
+            }
+        } else if (!isBlank(op.getUsuarioImportacao())) {
+            order.setUsuarioImportacao(op.getUsuarioImportacao());
+            mask |= ORDER_USUARIO;
+        }
+
+        for (Material m : Material.ALL) {
+            boolean noPedido = m.order(order);
+            boolean naOp = m.op(op);
+            boolean lock = m.lock(op);
+            if (noPedido) {
+                if (!naOp) {
+                    m.op(op, true);
+                    mask |= m.opBit;
+                    log.info("{} OP {} recebeu {}=true do pedido {}", tag, op.getNumeroOp(), m.label, order.getId());
+                }
+                if (lock) {
+                    m.lock(op, false);
+                    mask |= OP_LOCKS;
+                    log.info("{} OP {} removeu lock {} após pedido {}=true", tag, op.getNumeroOp(), m.label,
+                            order.getId());
+                }
+            } else if (naOp && !lock) {
+                m.order(order, true);
+                mask |= m.orderBit;
+                log.info("{} Pedido {} recebeu {}=true da OP {}", tag, order.getId(), m.label, op.getNumeroOp());
+            } else if (lock && !naOp) {
+                m.lock(op, false);
+                mask |= OP_LOCKS;
+                log.info("{} OP {} limpou lock {} pois pedido {} segue false", tag, op.getNumeroOp(), m.label,
+                        order.getId());
+            }
+        }
+
+        return mask | defaultModalidade(order);
+    }
+
+    /** Bits {@code ORDER_*} das flags de material atualmente verdadeiras no pedido. */
+    public static int materialFlags(Order order) {
+        int flags = 0;
+        for (Material m : Material.ALL) {
+            if (m.order(order)) {
+                flags |= m.orderBit;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Edição manual do pedido: desligar uma flag que a OP traz como true cria a trava na OP;
+     * religar remove a trava.
+     *
+     * @param flagsAnteriores resultado de {@link #materialFlags(Order)} antes da edição
+     */
+    public int applyManualLocks(OpImport op, Order order, int flagsAnteriores) {
+        int mask = 0;
+        for (Material m : Material.ALL) {
+            boolean agora = m.order(order);
+            boolean antes = (flagsAnteriores & m.orderBit) != 0;
+            if (antes == agora) {
+                continue;
+            }
+            if (!agora && m.op(op)) {
+                if (!m.lock(op)) {
+                    m.lock(op, true);
+                    mask |= OP_LOCKS;
+                    log.info("[ORDER] Pedido {} marcou lock {}=false na OP {}", order.getId(), m.label,
+                            op.getNumeroOp());
+                }
+            } else if (agora && m.lock(op)) {
+                m.lock(op, false);
+                mask |= OP_LOCKS;
+                log.info("[ORDER] Pedido {} removeu lock {} na OP {}", order.getId(), m.label, op.getNumeroOp());
+            }
+        }
+        return mask;
+    }
+
+    // ---- regras comuns ----
+
+    private int linkFaca(OpImport op, Order order) {
+        if (order.getId() != null && !order.getId().equals(op.getFacaId())) {
+            op.setFacaId(order.getId());
+            return OP_FACA_ID;
+        }
+        return 0;
+    }
+
+    private int syncCliente(OpImport op, Order order) {
+        int mask = 0;
+        if (op.getClienteRef() != null) {
+            if (order.getClienteRef() == null) {
+                order.setClienteRef(op.getClienteRef());
+                mask |= ORDER_CLIENTE;
+                if (clienteDefaultsService.applyDefaults(order, op.getClienteRef())) {
+                    mask |= ORDER_DEFAULTS_CLIENTE;
+                }
+            }
+            // transportadora padrão do cliente quando o pedido ainda não tem
+            if (op.getClienteRef().getTransportadora() != null && order.getTransportadora() == null) {
+                order.setTransportadora(op.getClienteRef().getTransportadora());
+                mask |= ORDER_TRANSPORTADORA;
+            }
+        }
+        if (op.getEndereco() != null && order.getEndereco() == null) {
+            order.setEndereco(op.getEndereco());
+            mask |= ORDER_ENDERECO;
+        }
+        return mask;
+    }
+
+    private int defaultModalidade(Order order) {
+        if (isBlank(order.getModalidadeEntrega())) {
+            order.setModalidadeEntrega(MODALIDADE_PADRAO);
+            return ORDER_MODALIDADE;
+        }
+        return 0;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean equalsInstant(ZonedDateTime a, ZonedDateTime b) {
+        if (a == b)
+            return true;
+        if (a == null || b == null)
+            return false;
+        return a.toInstant().equals(b.toInstant());
+    }
+}
@@ -0,0 +1,87 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Leitura dos quadros de produção/entrega: só pedidos ativos, em {@link OrderBoardRow}.
+ * Servida do {@link ProductionBoard} em memória depois que ele carrega; até lá, do banco.
+ * <p>
+ * A versão ({@link #version()}) vem do {@link OrderDeltaFeed}: toda alteração de pedido
+ * commitada avança a seq, então {@code epoch-seq} serve de ETag sem consultar o banco.
+ */
+@Service
+public class OrderBoardService {
+
+    /** Tudo menos Retirada (4) e Entregue (5); histórico fica no search-cursor/export. */
+    public static final List<Integer> ACTIVE_STATUSES = List.of(0, 1, 2, 3, 6, 7, 8);
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+    private final OrderDeltaFeed deltaFeed;
+    private final ProductionBoard board;
+
+    public OrderBoardService(OrderRepository orderRepository, OrderDeltaFeed deltaFeed, ProductionBoard board) {
+        this.orderRepository = orderRepository;
+        this.deltaFeed = deltaFeed;
+        this.board = board;
+    }
+
+    /** Lida antes da consulta: uma alteração concorrente só pode deixar a ETag mais velha que os dados. */
+    public String version() {
+        return deltaFeed.epoch() + "-" + deltaFeed.currentSeq();
+    }
+
+    public List<OrderBoardRow> activeRows() {
+        return rows(false, null, null);
+    }
+
+    /**
+     * @param includeFinished inclui Retirada/Entregue (telas administrativas que ainda listam tudo)
+     * @param page            página (0..n); {@code null} devolve tudo
+     * @param size            tamanho da página, limitado a {@value #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public List<OrderBoardRow> rows(boolean includeFinished, Integer page, Integer size) {
+        Pageable pageable = page == null
+                ? Pageable.unpaged()
+                : PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size == null ? 200 : size, MAX_PAGE_SIZE)));
+        if (!includeFinished && board.isReady()) {
+            return slice(board.rows(), pageable);
+        }
+        return includeFinished
+                ? orderRepository.findAllBoardRows(pageable)
+                : orderRepository.findBoardRows(ACTIVE_STATUSES, pageable);
+    }
+
+    /** status → prioridade → pedidos ativos. */
+    public Map<Integer, Map<String, List<OrderBoardRow>>> grouped() {
+        if (board.isReady()) {
+            return board.grouped();
+        }
+        Map<Integer, Map<String, List<OrderBoardRow>>> out = new TreeMap<>();
+        for (OrderBoardRow row : orderRepository.findBoardRows(ACTIVE_STATUSES, Pageable.unpaged())) {
+            out.computeIfAbsent(row.status(), k -> new LinkedHashMap<>())
+               .computeIfAbsent(row.prioridade() == null ? "" : row.prioridade(), k -> new ArrayList<>())
+               .add(row);
+        }
+        return out;
+    }
+
+    private static List<OrderBoardRow> slice(List<OrderBoardRow> rows, Pageable pageable) {
+        if (pageable.isUnpaged()) return rows;
+        int from = (int) Math.min(pageable.getOffset(), rows.size());
+        int to = Math.min(from + pageable.getPageSize(), rows.size());
+        return rows.subList(from, to);
+    }
+}
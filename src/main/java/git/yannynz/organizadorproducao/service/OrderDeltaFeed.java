@@ -0,0 +1,220 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.model.dto.OrderDelta;
+import git.yannynz.organizadorproducao.model.dto.OrderSyncResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Feed incremental de pedidos: cada alteração vira um {@link OrderDelta} numerado publicado em
+ * {@link #TOPIC}, contendo só os campos que mudaram desde o último evento daquele pedido.
+ * <p>
+ * O feed cobre o mesmo conjunto e o mesmo formato do snapshot de {@code /app/orders/sync}: pedidos
+ * ativos ({@link OrderBoardService#ACTIVE_STATUSES}) como {@link OrderBoardRow}. Pedido que sai
+ * dos status ativos vira um "delete".
+ * <p>
+ * Os últimos eventos ficam num buffer circular para que clientes que perderam mensagens
+ * (reconexão de tablet, aba em segundo plano) peçam {@code /app/orders/sync} e recebam apenas
+ * a lacuna; se ela não couber mais no buffer, a resposta é um snapshot.
+ * <p>
+ * Os eventos só saem após o commit da transação que alterou o pedido, um por pedido e transação:
+ * vários flushes do mesmo pedido viram um só snapshot, tirado no commit.
+ */
+@Component
+public class OrderDeltaFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderDeltaFeed.class);
+
+    public static final String TOPIC = "/topic/orders/delta";
+
+    private static final TypeReference<LinkedHashMap<String, Object>> FIELDS = new TypeReference<>() {};
+    // em lastState: pedido conhecido fora dos status ativos (o "delete" já foi publicado)
+    private static final Map<String, Object> INACTIVE = Collections.emptyMap();
+    private static final Set<Integer> ACTIVE = Set.copyOf(OrderBoardService.ACTIVE_STATUSES);
+
+    private final CoalescingBroadcaster broadcaster;
+    private final ObjectMapper mapper;
+    private final String epoch = UUID.randomUUID().toString();
+    // chave do recurso da transação com os pedidos pendentes (id -> pedido; null = removido)
+    private final Object pendingKey = new Object();
+
+    // guardados pelo monitor da instância
+    private final OrderDelta[] ring;
+    private long seq;
+    private final LinkedHashMap<Long, Map<String, Object>> lastState;
+
+    public OrderDeltaFeed(CoalescingBroadcaster broadcaster,
+                          ObjectMapper mapper,
+                          @Value("${app.orders.delta.buffer-size:4096}") int bufferSize,
+                          @Value("${app.orders.delta.state-max-size:5000}") int stateMaxSize) {
+        this.broadcaster = broadcaster;
+        this.mapper = mapper;
+        this.ring = new OrderDelta[Math.max(16, bufferSize)];
+        int max = Math.max(16, stateMaxSize);
+        this.lastState = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<String, Object>> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    public synchronized long currentSeq() {
+        return seq;
+    }
+
+    /**
+     * Marca o pedido como alterado. A serialização, o diff e a publicação acontecem após o commit
+     * (a sessão ainda está aberta), com o estado final do pedido na transação.
+     */
+    public void recordUpsert(Order order) {
+        if (order == null || order.getId() == null)
+            return;
+        record(order.getId(), order);
+    }
+
+    public void recordDelete(Long id) {
+        if (id == null)
+            return;
+        record(id, null);
+    }
+
+    private void record(Long id, Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(id, order);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Long, Order> pending = (Map<Long, Order>) TransactionSynchronizationManager.getResource(pendingKey);
+        if (pending == null) {
+            Map<Long, Order> created = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(pendingKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    created.forEach(OrderDeltaFeed.this::publish);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+                }
+            });
+            pending = created;
+        }
+        // reinsere para que a ordem de publicação siga a última alteração
+        pending.remove(id);
+        pending.put(id, order);
+    }
+
+    private void publish(Long id, Order order) {
+        if (order == null) {
+            publishDelete(id);
+        } else if (!ACTIVE.contains(order.getStatus())) {
+            publishInactive(id);
+        } else {
+            publishUpsert(id, toFields(order));
+        }
+    }
+
+    synchronized OrderDelta publishUpsert(Long id, Map<String, Object> state) {
+        Map<String, Object> prev = lastState.get(id);
+        Map<String, Object> fields;
+        boolean full = prev == null || prev == INACTIVE;
+        if (full) {
+            fields = state;
+        } else {
+            fields = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> e : state.entrySet()) {
+                if (!Objects.equals(e.getValue(), prev.get(e.getKey()))) {
+                    fields.put(e.getKey(), e.getValue());
+                }
+            }
+            // associações LAZY não carregadas nesta sessão: mantém o último valor conhecido
+            for (Map.Entry<String, Object> e : prev.entrySet()) {
+                state.putIfAbsent(e.getKey(), e.getValue());
+            }
+            if (fields.isEmpty()) {
+                lastState.put(id, state);
+                return null;
+            }
+        }
+        lastState.put(id, state);
+        return append(new OrderDelta(epoch, ++seq, OrderDelta.UPSERT, id, full, fields));
+    }
+
+    /** Saiu do quadro: um "delete" só, mesmo que o pedido finalizado continue sendo alterado. */
+    synchronized OrderDelta publishInactive(Long id) {
+        if (lastState.get(id) == INACTIVE) {
+            return null;
+        }
+        lastState.put(id, INACTIVE);
+        return append(new OrderDelta(epoch, ++seq, OrderDelta.DELETE, id, false, Collections.emptyMap()));
+    }
+
+    synchronized OrderDelta publishDelete(Long id) {
+        lastState.remove(id);
+        return append(new OrderDelta(epoch, ++seq, OrderDelta.DELETE, id, false, Collections.emptyMap()));
+    }
+
+    private OrderDelta append(OrderDelta delta) {
+        ring[(int) (delta.seq() % ring.length)] = delta;
+        // enfileirado dentro do monitor para que a ordem de envio acompanhe a seq
+        broadcaster.publishNow(TOPIC, delta);
+        return delta;
+    }
+
+    /**
+     * Deltas com seq &gt; {@code since} no mesmo epoch, ou snapshot quando o epoch difere, o
+     * cliente não informou posição ou a lacuna já saiu do buffer.
+     */
+    public OrderSyncResponse sync(String clientEpoch, Long since, Supplier<List<?>> snapshot) {
+        long head;
+        synchronized (this) {
+            head = seq;
+            if (epoch.equals(clientEpoch) && since != null && since >= 0 && since <= head
+                    && head - since <= ring.length) {
+                List<OrderDelta> deltas = new ArrayList<>((int) (head - since));
+                for (long s = since + 1; s <= head; s++) {
+                    deltas.add(ring[(int) (s % ring.length)]);
+                }
+                return new OrderSyncResponse(epoch, head, false, deltas, null);
+            }
+        }
+        log.debug("[DELTA] snapshot para cliente epoch={} since={} (head={})", clientEpoch, since, head);
+        // eventos posteriores a head podem repetir itens do snapshot; o cliente aplica por id
+        return new OrderSyncResponse(epoch, head, true, List.of(), snapshot.get());
+    }
+
+    private Map<String, Object> toFields(Order order) {
+        LinkedHashMap<String, Object> fields = mapper.convertValue(ProductionBoard.toRow(order), FIELDS);
+        // proxies não inicializados ficam sem nome e gerariam deltas falsos
+        if (order.getClienteRef() != null && !Hibernate.isInitialized(order.getClienteRef()))
+            fields.remove("clienteNomeOficial");
+        if (order.getTransportadora() != null && !Hibernate.isInitialized(order.getTransportadora()))
+            fields.remove("transportadoraNome");
+        return fields;
+    }
+}
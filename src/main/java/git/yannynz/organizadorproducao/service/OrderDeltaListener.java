@@ -0,0 +1,33 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alimenta o {@link OrderDeltaFeed} a partir de qualquer caminho JPA que salve ou remova pedidos.
+ * Updates nativos (ex.: envelhecimento de prioridade) chamam o feed diretamente.
+ */
+@Component
+public class OrderDeltaListener {
+
+    private final ObjectProvider<OrderDeltaFeed> feed;
+
+    public OrderDeltaListener(ObjectProvider<OrderDeltaFeed> feed) {
+        this.feed = feed;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Order order) {
+        feed.ifAvailable(f -> f.recordUpsert(order));
+    }
+
+    @PostRemove
+    public void onRemove(Order order) {
+        feed.ifAvailable(f -> f.recordDelete(order.getId()));
+    }
+}
@@ -0,0 +1,416 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.Cliente;
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.Transportadora;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Quadro de produção em memória: só pedidos ativos ({@link OrderBoardService#ACTIVE_STATUSES}),
+ * indexados por status, prioridade e NR.
+ * <p>
+ * Carregado com uma consulta no startup e mantido pelos mesmos eventos que alimentam o feed de
+ * deltas ({@link ProductionBoardListener} para qualquer save/delete JPA, chamada direta nos
+ * updates nativos). As alterações só entram após o commit. O job
+ * {@code jobs.ProductionBoardDriftCheck} compara periodicamente com o banco.
+ * <p>
+ * Datas são guardadas em UTC arredondadas a microssegundos (precisão do Postgres), para que a
+ * linha montada a partir da entidade seja igual à lida do banco.
+ */
+@Component
+public class ProductionBoard {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionBoard.class);
+
+    private static final Comparator<OrderBoardRow> MAIS_NOVO_PRIMEIRO =
+            Comparator.comparing(OrderBoardRow::id, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    /** Resultado de uma verificação contra o banco. */
+    public record Drift(int missing, int extra, int stale) {
+        public int total() {
+            return missing + extra + stale;
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final Set<Integer> activeStatuses = Set.copyOf(OrderBoardService.ACTIVE_STATUSES);
+    private final Timer rebuildTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // guardados por lock
+    private final Map<Long, OrderBoardRow> byId = new HashMap<>();
+    private final Map<Integer, Set<Long>> byStatus = new HashMap<>();
+    private final Map<String, Set<Long>> byPrioridade = new HashMap<>();
+    // NR → ids ativos com o NR; o mais recente é o maior
+    private final Map<String, NavigableSet<Long>> byNr = new HashMap<>();
+    private boolean ready;
+    private Set<Long> touchedDuringLoad;
+
+    public ProductionBoard(OrderRepository orderRepository, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        Gauge.builder("organizador_board_orders", this, ProductionBoard::size)
+            .description("Pedidos ativos no quadro em memória")
+            .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("organizador_board_rebuild_seconds")
+            .description("Carga completa do quadro em memória a partir do banco")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // sem quadro as leituras continuam indo ao banco (OrderBoardService)
+            log.error("[BOARD] Falha ao carregar quadro em memória: {}", e.getMessage(), e);
+        }
+    }
+
+    /** Recarrega tudo do banco. Eventos que chegarem durante a consulta prevalecem sobre ela. */
+    public synchronized void rebuild() {
+        Timer.Sample sample = Timer.start();
+        List<OrderBoardRow> rows = loadTracking();
+
+        lock.writeLock().lock();
+        try {
+            Set<Long> touched = touchedDuringLoad;
+            touchedDuringLoad = null;
+            Map<Long, OrderBoardRow> vivos = new HashMap<>();
+            for (Long id : touched) {
+                OrderBoardRow row = byId.get(id);
+                if (row != null) vivos.put(id, row);
+            }
+            clear();
+            for (OrderBoardRow row : rows) {
+                if (!touched.contains(row.id())) put(normalize(row));
+            }
+            vivos.values().forEach(this::put);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long nanos = sample.stop(rebuildTimer);
+        log.info("[BOARD] Quadro carregado: {} pedidos ativos em {} ms", size(), nanos / 1_000_000);
+    }
+
+    /**
+     * Compara o quadro com os pedidos ativos do banco. Com {@code repair}, o banco vence:
+     * faltantes entram, sobras saem, divergentes são trocados. Pedidos alterados por eventos
+     * enquanto a consulta rodava ficam de fora (a memória já está mais nova que a leitura).
+     */
+    public synchronized Drift checkDrift(boolean repair) {
+        List<OrderBoardRow> rows = loadTracking();
+        lock.writeLock().lock();
+        try {
+            Set<Long> touched = touchedDuringLoad;
+            touchedDuringLoad = null;
+            return compare(rows, touched, repair);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Liga o registro de ids alterados e consulta o banco; quem chama desliga sob o write lock. */
+    private List<OrderBoardRow> loadTracking() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return orderRepository.findBoardRows(OrderBoardService.ACTIVE_STATUSES, Pageable.unpaged());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                touchedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Captura o estado do pedido agora (sessão aberta) e aplica após o commit: entra/atualiza
+     * se o status é ativo, sai caso contrário.
+     */
+    public void record(Order order) {
+        if (order == null || order.getId() == null)
+            return;
+        if (!activeStatuses.contains(order.getStatus())) {
+            Long id = order.getId();
+            TransactionHooks.afterCommit(() -> apply(id, null));
+            return;
+        }
+        OrderBoardRow snapshot = toRow(order);
+        TransactionHooks.afterCommit(() -> apply(snapshot.id(), snapshot));
+    }
+
+    public void recordAll(Collection<Order> orders) {
+        if (orders != null) orders.forEach(this::record);
+    }
+
+    public void remove(Long id) {
+        if (id != null)
+            TransactionHooks.afterCommit(() -> apply(id, null));
+    }
+
+    void apply(Long id, OrderBoardRow row) {
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringLoad != null) touchedDuringLoad.add(id);
+            OrderBoardRow anterior = unindex(id);
+            if (row != null) put(keepResolvedNames(row, anterior));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- leituras ----
+
+    public List<OrderBoardRow> rows() {
+        lock.readLock().lock();
+        try {
+            List<OrderBoardRow> out = new ArrayList<>(byId.values());
+            out.sort(MAIS_NOVO_PRIMEIRO);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<OrderBoardRow> byStatus(int status) {
+        lock.readLock().lock();
+        try {
+            return collect(byStatus.get(status));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<OrderBoardRow> byPrioridade(String prioridade) {
+        if (prioridade == null) return List.of();
+        lock.readLock().lock();
+        try {
+            return collect(byPrioridade.get(prioridade.toUpperCase()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Pedido ativo mais recente com o NR. */
+    public Optional<OrderBoardRow> byNr(String nr) {
+        if (nr == null) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            NavigableSet<Long> ids = byNr.get(nr.trim());
+            return ids == null ? Optional.empty() : Optional.ofNullable(byId.get(ids.last()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** status → prioridade → pedidos (mais novo primeiro). */
+    public Map<Integer, Map<String, List<OrderBoardRow>>> grouped() {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Map<String, List<OrderBoardRow>>> out = new TreeMap<>();
+            for (Map.Entry<Integer, Set<Long>> e : byStatus.entrySet()) {
+                Map<String, List<OrderBoardRow>> porPrioridade = new LinkedHashMap<>();
+                for (OrderBoardRow row : collect(e.getValue())) {
+                    String p = row.prioridade() == null ? "" : row.prioridade();
+                    porPrioridade.computeIfAbsent(p, k -> new ArrayList<>()).add(row);
+                }
+                out.put(e.getKey(), porPrioridade);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // com write lock
+    Drift compare(List<OrderBoardRow> dbRows, Set<Long> skip, boolean repair) {
+        Map<Long, OrderBoardRow> banco = new HashMap<>();
+        for (OrderBoardRow row : dbRows) {
+            if (!skip.contains(row.id())) banco.put(row.id(), normalize(row));
+        }
+        int missing = 0, extra = 0, stale = 0;
+        for (OrderBoardRow row : banco.values()) {
+            OrderBoardRow atual = byId.get(row.id());
+            if (atual == null) {
+                missing++;
+                if (repair) put(row);
+            } else if (!atual.equals(row)) {
+                stale++;
+                if (repair) {
+                    unindex(row.id());
+                    put(row);
+                }
+            }
+        }
+        for (Long id : new ArrayList<>(byId.keySet())) {
+            if (!banco.containsKey(id) && !skip.contains(id)) {
+                extra++;
+                if (repair) unindex(id);
+            }
+        }
+        return new Drift(missing, extra, stale);
+    }
+
+    // ---- internos (com write lock) ----
+
+    private void put(OrderBoardRow row) {
+        byId.put(row.id(), row);
+        byStatus.computeIfAbsent(row.status(), k -> new HashSet<>()).add(row.id());
+        if (row.prioridade() != null)
+            byPrioridade.computeIfAbsent(row.prioridade(), k -> new HashSet<>()).add(row.id());
+        if (row.nr() != null)
+            byNr.computeIfAbsent(row.nr(), k -> new TreeSet<>()).add(row.id());
+    }
+
+    private OrderBoardRow unindex(Long id) {
+        OrderBoardRow row = byId.remove(id);
+        if (row == null) return null;
+        removeFrom(byStatus, row.status(), id);
+        if (row.prioridade() != null) removeFrom(byPrioridade, row.prioridade(), id);
+        if (row.nr() != null) removeFrom(byNr, row.nr(), id);
+        return row;
+    }
+
+    private static <K> void removeFrom(Map<K, ? extends Set<Long>> index, K key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) index.remove(key);
+    }
+
+    private void clear() {
+        byId.clear();
+        byStatus.clear();
+        byPrioridade.clear();
+        byNr.clear();
+    }
+
+    private List<OrderBoardRow> collect(Set<Long> ids) {
+        if (ids == null) return List.of();
+        List<OrderBoardRow> out = new ArrayList<>(ids.size());
+        for (Long id : ids) out.add(byId.get(id));
+        out.sort(MAIS_NOVO_PRIMEIRO);
+        return out;
+    }
+
+    // ---- conversão ----
+
+    /** Proxy LAZY não carregado: mantém o nome já conhecido se o id não mudou. */
+    private static OrderBoardRow keepResolvedNames(OrderBoardRow row, OrderBoardRow anterior) {
+        if (anterior == null) return row;
+        boolean cliente = row.clienteId() != null && row.clienteNomeOficial() == null
+                && Objects.equals(row.clienteId(), anterior.clienteId());
+        boolean transp = row.transportadoraId() != null && row.transportadoraNome() == null
+                && Objects.equals(row.transportadoraId(), anterior.transportadoraId());
+        if (!cliente && !transp) return row;
+        return withNames(row,
+                cliente ? anterior.clienteNomeOficial() : row.clienteNomeOficial(),
+                transp ? anterior.transportadoraNome() : row.transportadoraNome());
+    }
+
+    static OrderBoardRow toRow(Order o) {
+        Cliente c = o.getClienteRef();
+        Transportadora t = o.getTransportadora();
+        // getId() de proxy não inicializa; o nome só é lido se a entidade já está carregada
+        String clienteNome = c != null && Hibernate.isInitialized(c) ? c.getNomeOficial() : null;
+        String transpNome = t != null && Hibernate.isInitialized(t) ? t.getNomeOficial() : null;
+        return new OrderBoardRow(
+                o.getId(), o.getNr(), o.getCliente(), o.getPrioridade(), db(o.getDataH()), o.getStatus(),
+                db(o.getDataEntrega()), o.getEntregador(), o.getObservacao(), o.getVeiculo(),
+                db(o.getDataHRetorno()), o.getRecebedor(), o.getMontador(), db(o.getDataMontagem()),
+                o.getEmborrachador(), db(o.getDataEmborrachamento()), o.isEmborrachada(),
+                db(o.getDataCortada()), db(o.getDataTirada()), o.getDestacador(), o.getModalidadeEntrega(),
+                db(o.getDataRequeridaEntrega()), o.getUsuarioImportacao(), o.isPertinax(), o.isPoliester(),
+                o.isPapelCalibrado(), o.isVaiVinco(), o.getVincador(), db(o.getDataVinco()),
+                o.getHorarioFuncAplicado(), o.getForaHorario(),
+                c != null ? c.getId() : null, clienteNome,
+                t != null ? t.getId() : null, transpNome);
+    }
+
+    static OrderBoardRow normalize(OrderBoardRow r) {
+        return copy(r, ProductionBoard::db, r.clienteNomeOficial(), r.transportadoraNome());
+    }
+
+    private static OrderBoardRow withNames(OrderBoardRow r, String clienteNome, String transpNome) {
+        return copy(r, UnaryOperator.identity(), clienteNome, transpNome);
+    }
+
+    /** Cópia da linha com as datas passadas por {@code date} e os nomes resolvidos trocados. */
+    private static OrderBoardRow copy(OrderBoardRow r, UnaryOperator<ZonedDateTime> date,
+                                      String clienteNome, String transpNome) {
+        return new OrderBoardRow(
+                r.id(), r.nr(), r.cliente(), r.prioridade(), date.apply(r.dataH()), r.status(),
+                date.apply(r.dataEntrega()), r.entregador(), r.observacao(), r.veiculo(),
+                date.apply(r.dataHRetorno()), r.recebedor(), r.montador(), date.apply(r.dataMontagem()),
+                r.emborrachador(), date.apply(r.dataEmborrachamento()), r.emborrachada(),
+                date.apply(r.dataCortada()), date.apply(r.dataTirada()), r.destacador(), r.modalidadeEntrega(),
+                date.apply(r.dataRequeridaEntrega()), r.usuarioImportacao(), r.pertinax(), r.poliester(),
+                r.papelCalibrado(), r.vaiVinco(), r.vincador(), date.apply(r.dataVinco()),
+                r.horarioFuncAplicado(), r.foraHorario(),
+                r.clienteId(), clienteNome, r.transportadoraId(), transpNome);
+    }
+
+    /** UTC com microssegundos arredondados como o driver faz ao gravar. */
+    static ZonedDateTime db(ZonedDateTime z) {
+        if (z == null) return null;
+        Instant i = z.toInstant().plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+        return i.atZone(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,33 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantém o {@link ProductionBoard} a partir de qualquer caminho JPA que salve ou remova pedidos
+ * (OrderService, FileWatcher, Dobras, import de OP). Updates nativos chamam o quadro diretamente.
+ */
+@Component
+public class ProductionBoardListener {
+
+    private final ObjectProvider<ProductionBoard> board;
+
+    public ProductionBoardListener(ObjectProvider<ProductionBoard> board) {
+        this.board = board;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Order order) {
+        board.ifAvailable(b -> b.record(order));
+    }
+
+    @PostRemove
+    public void onRemove(Order order) {
+        board.ifAvailable(b -> b.remove(order.getId()));
+    }
+}
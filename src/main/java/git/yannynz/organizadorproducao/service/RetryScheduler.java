@@ -0,0 +1,84 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.config.InstrumentedExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Agenda retentativas com atraso sem prender threads dormindo: cada tentativa é uma tarefa
+ * atrasada num {@link ScheduledThreadPoolExecutor} próprio ({@code op-retry-*}), e a próxima só é
+ * agendada quando a anterior falha.
+ * <p>
+ * Não é exposto como bean de {@code ScheduledExecutorService} para não substituir o scheduler dos
+ * {@code @Scheduled}. Métricas com {@code name=retry}; a fila conta as tentativas aguardando.
+ */
+@Component
+public class RetryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryScheduler.class);
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    public RetryScheduler(MeterRegistry registry,
+                          @Value("${app.executors.retry.threads:1}") int threads) {
+        AtomicInteger seq = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "op-retry-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), factory);
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        InstrumentedExecutors.monitor("retry", executor, registry);
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return executor.schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("[RETRY] tarefa agendada falhou: {}", e.getMessage(), e);
+            }
+        }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executa {@code attempt} até ele devolver {@code true}, no máximo {@code attempts} vezes,
+     * esperando {@code firstDelayMs} antes da primeira e dobrando a espera a cada falha.
+     * Exceção conta como falha da tentativa.
+     */
+    public void retry(String label, BooleanSupplier attempt, long firstDelayMs, int attempts) {
+        if (attempts <= 0 || executor.isShutdown())
+            return;
+        schedule(() -> {
+            boolean done;
+            try {
+                done = attempt.getAsBoolean();
+            } catch (RuntimeException e) {
+                log.warn("[RETRY] {}: tentativa falhou: {}", label, e.getMessage());
+                done = false;
+            }
+            if (!done && attempts > 1) {
+                retry(label, attempt, firstDelayMs * 2, attempts - 1);
+            } else if (!done) {
+                log.debug("[RETRY] {}: tentativas esgotadas", label);
+            }
+        }, firstDelayMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
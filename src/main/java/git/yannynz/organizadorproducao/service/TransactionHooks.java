@@ -0,0 +1,39 @@
+package git.yannynz.organizadorproducao.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ganchos da transação corrente para efeitos que não podem sair antes do commit (broadcast,
+ * caches em memória, agendamentos).
+ */
+public final class TransactionHooks {
+
+    /** Marca a thread enquanto um gancho roda: a transação já commitou. */
+    private static final ThreadLocal<Boolean> RUNNING = new ThreadLocal<>();
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Executa após o commit da transação corrente (ou já, se não houver); descartado no rollback.
+     * Chamado de dentro de outro gancho, também roda já: registrado ali, não seria mais chamado.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() && RUNNING.get() == null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    RUNNING.set(Boolean.TRUE);
+                    try {
+                        action.run();
+                    } finally {
+                        RUNNING.remove();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
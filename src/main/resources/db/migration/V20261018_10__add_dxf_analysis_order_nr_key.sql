@@ -0,0 +1,17 @@
+-- "Última análise do pedido" (DXFAnalysisRepository.findLatestByOrderNrKey): o NR sem prefixo NR/CL,
+-- gravado pelo backend junto da análise, troca as consultas por variante (120184, NR120184, CL120184...)
+-- por uma só. O backfill segue DXFAnalysisService.normalizeOrderNumber com o padrão default.
+ALTER TABLE dxf_analysis ADD COLUMN IF NOT EXISTS order_nr_key VARCHAR(64);
+
+UPDATE dxf_analysis
+   SET order_nr_key = coalesce(substring(order_nr from '(?i)(?:NR|CL)\s*(\d+)'), nullif(trim(order_nr), ''))
+ WHERE order_nr IS NOT NULL
+   AND order_nr_key IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_dxf_analysis_order_nr_key_analyzed
+    ON dxf_analysis (order_nr_key, analyzed_at DESC);
+
+-- só as linhas com imagem: o predicado é o mesmo da consulta, para o planner usar o índice parcial
+CREATE INDEX IF NOT EXISTS idx_dxf_analysis_order_nr_key_image
+    ON dxf_analysis (order_nr_key, analyzed_at DESC)
+    WHERE coalesce(image_key, '') <> '' OR coalesce(image_uri, '') <> '' OR coalesce(image_path, '') <> '';
@@ -0,0 +1,6 @@
+-- Marca d'água de jobs incrementais (OpReconcileScheduler): sobrevive a restart
+CREATE TABLE IF NOT EXISTS job_watermark (
+    job         VARCHAR(64)  PRIMARY KEY,
+    watermark   TIMESTAMPTZ  NOT NULL,
+    updated_at  TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
@@ -0,0 +1,9 @@
+-- Marca d'agua do reconciliador incremental de OPs (OpReconcileScheduler)
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ;
+ALTER TABLE op_import ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS idx_orders_updated_at ON orders (updated_at);
+CREATE INDEX IF NOT EXISTS idx_op_import_updated_at ON op_import (updated_at);
+
+-- OPs ainda sem faca vinculada, revisitadas dentro da janela configurada
+CREATE INDEX IF NOT EXISTS idx_op_import_unlinked_created_at ON op_import (created_at) WHERE faca_id IS NULL;
@@ -0,0 +1,3 @@
+-- Envelhecimento de prioridade (PriorityAgingScheduler): só pedidos ativos ainda VERDE/AZUL
+CREATE INDEX IF NOT EXISTS idx_orders_priority_aging ON orders (prioridade, data_h)
+    WHERE status IN (0, 1, 6, 7, 8) AND prioridade IN ('VERDE', 'AZUL');
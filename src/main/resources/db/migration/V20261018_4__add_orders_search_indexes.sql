@@ -0,0 +1,23 @@
+-- Histórico de pedidos (POST /api/orders/search-cursor)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() é STABLE e não entra em índice; com o dicionário fixo o resultado é determinístico
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+-- Texto da busca livre "q"; a mesma expressão é montada em OrderRepositoryImpl
+CREATE OR REPLACE FUNCTION orders_search_text(nr text, cliente text, observacao text, entregador text,
+                                              veiculo text, recebedor text, montador text, prioridade text)
+    RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$ SELECT lower(f_unaccent(concat_ws(' ', nr, cliente, observacao, entregador, veiculo, recebedor, montador, prioridade))) $$;
+
+CREATE INDEX IF NOT EXISTS idx_orders_search_trgm ON orders
+    USING gin (orders_search_text(nr, cliente, observacao, entregador, veiculo, recebedor, montador, prioridade) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_orders_cliente_trgm ON orders USING gin (lower(f_unaccent(cliente)) gin_trgm_ops);
+
+-- Keyset CursorStrategy.DATE_ID: ORDER BY data_entrega DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_orders_data_entrega_id ON orders (data_entrega DESC, id DESC);
@@ -0,0 +1,8 @@
+-- De-dup de eventos do FileWatcher (FileEventDeduplicator): chaves já processadas sobrevivem a restart
+CREATE TABLE IF NOT EXISTS file_event_dedup (
+    event_key  CHAR(64)     PRIMARY KEY,
+    queue      VARCHAR(64)  NOT NULL,
+    seen_at    TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_event_dedup_seen_at ON file_event_dedup (seen_at);
@@ -0,0 +1,13 @@
+-- Quarentena de mensagens AMQP (MessageQuarantineService): esgotaram as tentativas ou são inválidas
+CREATE TABLE IF NOT EXISTS amqp_quarantine (
+    id            BIGSERIAL    PRIMARY KEY,
+    queue         VARCHAR(255) NOT NULL,
+    body          TEXT         NOT NULL,
+    content_type  VARCHAR(255),
+    attempts      INT          NOT NULL DEFAULT 1,
+    error         TEXT,
+    created_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    replayed_at   TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_amqp_quarantine_pending ON amqp_quarantine (queue, id) WHERE replayed_at IS NULL;
@@ -0,0 +1,63 @@
+-- Resolução de cliente por nome (ClienteRepository#findByNomeNormalizadoOrApelido)
+-- Cada nome pelo qual o cliente é encontrado vira uma linha: o nome normalizado oficial e cada
+-- apelido como upper(unaccent(trim(a))). A busca por nome passa a ser um lookup na PK em vez de
+-- varrer clientes abrindo o jsonb de apelidos. Mantida por trigger em insert/update de clientes.
+CREATE TABLE IF NOT EXISTS cliente_nome_lookup (
+    nome        TEXT    NOT NULL,
+    cliente_id  BIGINT  NOT NULL REFERENCES clientes(id) ON DELETE CASCADE,
+    oficial     BOOLEAN NOT NULL,
+    PRIMARY KEY (nome, cliente_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cliente_nome_lookup_cliente ON cliente_nome_lookup (cliente_id);
+
+CREATE OR REPLACE FUNCTION clientes_sync_nome_lookup() RETURNS trigger
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    DELETE FROM cliente_nome_lookup WHERE cliente_id = NEW.id;
+
+    INSERT INTO cliente_nome_lookup (nome, cliente_id, oficial)
+    SELECT n.nome, NEW.id, bool_or(n.oficial)
+    FROM (
+        SELECT NEW.nome_normalizado AS nome, TRUE AS oficial
+        UNION ALL
+        SELECT upper(f_unaccent(trim(a))), FALSE
+        FROM jsonb_array_elements_text(
+                 CASE WHEN jsonb_typeof(NEW.apelidos) = 'array' THEN NEW.apelidos ELSE '[]'::jsonb END) a
+    ) n
+    WHERE n.nome IS NOT NULL AND n.nome <> ''
+    GROUP BY n.nome;
+
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_clientes_nome_lookup_ins ON clientes;
+CREATE TRIGGER trg_clientes_nome_lookup_ins
+    AFTER INSERT ON clientes
+    FOR EACH ROW EXECUTE FUNCTION clientes_sync_nome_lookup();
+
+DROP TRIGGER IF EXISTS trg_clientes_nome_lookup_upd ON clientes;
+CREATE TRIGGER trg_clientes_nome_lookup_upd
+    AFTER UPDATE ON clientes
+    FOR EACH ROW
+    WHEN (OLD.nome_normalizado IS DISTINCT FROM NEW.nome_normalizado
+          OR OLD.apelidos IS DISTINCT FROM NEW.apelidos)
+    EXECUTE FUNCTION clientes_sync_nome_lookup();
+
+-- Carga inicial dos clientes existentes
+INSERT INTO cliente_nome_lookup (nome, cliente_id, oficial)
+SELECT n.nome, n.cliente_id, bool_or(n.oficial)
+FROM (
+    SELECT c.nome_normalizado AS nome, c.id AS cliente_id, TRUE AS oficial
+    FROM clientes c
+    UNION ALL
+    SELECT upper(f_unaccent(trim(a))), c.id, FALSE
+    FROM clientes c,
+         jsonb_array_elements_text(
+             CASE WHEN jsonb_typeof(c.apelidos) = 'array' THEN c.apelidos ELSE '[]'::jsonb END) a
+) n
+WHERE n.nome IS NOT NULL AND n.nome <> ''
+GROUP BY n.nome, n.cliente_id
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,10 @@
+-- Busca de clientes (GET /api/clientes e /api/clientes/search-cursor)
+-- Nome oficial e apelidos já normalizados em cliente_nome_lookup: o trigrama cobre LIKE '%x%' e o
+-- operador <% (word_similarity) do autocomplete.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_cliente_nome_lookup_trgm ON cliente_nome_lookup USING gin (nome gin_trgm_ops);
+
+-- Keyset sem termo de busca: ORDER BY coalesce(ultimo_servico_em, '-infinity') DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_clientes_ultimo_servico_id
+    ON clientes ((coalesce(ultimo_servico_em, '-infinity'::timestamptz)) DESC, id DESC);
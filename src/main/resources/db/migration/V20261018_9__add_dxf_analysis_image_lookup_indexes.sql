@@ -0,0 +1,4 @@
+-- Imagem de fallback das análises DXF (DXFAnalysisRepository.findLatestWithImageBy*): a mais recente
+-- por hash do arquivo ou por NR, também na versão em lote com DISTINCT ON.
+CREATE INDEX IF NOT EXISTS idx_dxf_analysis_file_hash_analyzed ON dxf_analysis (file_hash, analyzed_at DESC);
+CREATE INDEX IF NOT EXISTS idx_dxf_analysis_order_nr_analyzed ON dxf_analysis (order_nr, analyzed_at DESC);
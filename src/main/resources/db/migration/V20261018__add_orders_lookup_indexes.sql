@@ -0,0 +1,6 @@
+-- Lookups por NR (FileWatcher, Dobras, OP import, DXF) sempre pegam o pedido mais recente
+CREATE INDEX IF NOT EXISTS idx_orders_nr_id ON orders (nr, id DESC);
+
+-- Quadros por status e entregas ativas por entregador
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders (status);
+CREATE INDEX IF NOT EXISTS idx_orders_entregador_status ON orders (entregador, status);
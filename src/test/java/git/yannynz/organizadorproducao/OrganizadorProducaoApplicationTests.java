@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -20,11 +21,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.model.Order;
 import git.yannynz.organizadorproducao.monitoring.MessageProcessingMetrics;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
+import git.yannynz.organizadorproducao.service.CoalescingBroadcaster;
 import git.yannynz.organizadorproducao.service.DobrasFileService;
+import git.yannynz.organizadorproducao.service.FileEventDeduplicator;
+import git.yannynz.organizadorproducao.service.FileNameClassifier;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class OrganizadorProducaoApplicationTests {
@@ -33,15 +37,18 @@ class OrganizadorProducaoApplicationTests {
     private OrderRepository orderRepository;
 
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
+    private CoalescingBroadcaster broadcaster;
 
     private DobrasFileService service;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
-        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        meterRegistry = new SimpleMeterRegistry();
         MessageProcessingMetrics metrics = new MessageProcessingMetrics(meterRegistry);
-        service = new DobrasFileService(new ObjectMapper(), orderRepository, messagingTemplate, metrics);
+        service = new DobrasFileService(new ObjectMapper(), orderRepository, broadcaster, metrics, new FileNameClassifier(),
+                new OrderNrCache(orderRepository, 100),
+                new FileEventDeduplicator(meterRegistry, null, 60_000, 100, false));
     }
 
     @Test
@@ -65,12 +72,12 @@ class OrganizadorProducaoApplicationTests {
     }
 
     @Test
-    void handleDobrasQueue_AtualizaPedidoQuandoValido() {
+    void handleDobrasQueue_AtualizaPedidoQuandoValido() throws Exception {
         Order order = new Order();
         order.setNr("123456");
         order.setStatus(5);
 
-        when(orderRepository.findByNr("123456")).thenReturn(Optional.of(order));
+        when(orderRepository.findTopByNrOrderByIdDesc("123456")).thenReturn(Optional.of(order));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         service.handleDobrasQueue("{\"file_name\":\"NR 123456.m.DXF\"}");
@@ -80,39 +87,56 @@ class OrganizadorProducaoApplicationTests {
         assertThat(order.getDataTirada().getZone()).isEqualTo(ZoneId.of("America/Sao_Paulo"));
 
         verify(orderRepository).save(order);
-        verify(messagingTemplate).convertAndSend(eq("/topic/orders"), eq(order));
-        verifyNoMoreInteractions(messagingTemplate);
+        verify(broadcaster).publishOrder(eq(CoalescingBroadcaster.ORDERS), eq(order));
+        verifyNoMoreInteractions(broadcaster);
     }
 
     @Test
-    void updateOrderStatusToTirada_ReprocessamentoSobrescreveData() {
+    void updateOrderStatusToTirada_PedidoJaTiradoNaoSalvaNemPublica() {
         Order order = new Order();
         order.setNr("777777");
         order.setStatus(DobrasFileService.STATUS_TIRADA);
         ZonedDateTime antigo = ZonedDateTime.now(ZoneId.of("America/Sao_Paulo")).minusHours(2);
         order.setDataTirada(antigo);
 
-        when(orderRepository.findByNr("777777")).thenReturn(Optional.of(order));
-        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.findTopByNrOrderByIdDesc("777777")).thenReturn(Optional.of(order));
 
         invokeUpdate("777777");
 
         assertThat(order.getStatus()).isEqualTo(DobrasFileService.STATUS_TIRADA);
-        assertThat(order.getDataTirada()).isNotNull();
-        assertThat(order.getDataTirada()).isAfter(antigo);
+        assertThat(order.getDataTirada()).isEqualTo(antigo);
 
-        verify(orderRepository).save(order);
-        verify(messagingTemplate).convertAndSend(eq("/topic/orders"), eq(order));
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoMoreInteractions(broadcaster);
+    }
+
+    @Test
+    void handleDobrasQueue_EventoRepetidoDescartadoAntesDoBanco() throws Exception {
+        Order order = new Order();
+        order.setNr("555555");
+        order.setStatus(5);
+        String message = "{\"file_name\":\"NR 555555.m.DXF\",\"timestamp\":1700000000}";
+
+        when(orderRepository.findTopByNrOrderByIdDesc("555555")).thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.handleDobrasQueue(message);
+        service.handleDobrasQueue(message);
+
+        verify(orderRepository, times(1)).findTopByNrOrderByIdDesc("555555");
+        verify(orderRepository, times(1)).save(order);
+        assertThat(meterRegistry.get("organizador_filewatcher_duplicates_suppressed_total")
+                .tag("queue", DobrasFileService.QUEUE_NAME).counter().count()).isEqualTo(1.0);
     }
 
     @Test
     void updateOrderStatusToTirada_PedidoInexistenteNaoDisparaEvento() {
-        when(orderRepository.findByNr("111111")).thenReturn(Optional.empty());
+        when(orderRepository.findTopByNrOrderByIdDesc("111111")).thenReturn(Optional.empty());
 
         invokeUpdate("111111");
 
         verify(orderRepository, never()).save(any(Order.class));
-        verifyNoMoreInteractions(messagingTemplate);
+        verifyNoMoreInteractions(broadcaster);
     }
 
     @SuppressWarnings("unchecked")
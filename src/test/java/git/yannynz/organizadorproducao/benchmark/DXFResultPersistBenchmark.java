@@ -0,0 +1,111 @@
+package git.yannynz.organizadorproducao.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import git.yannynz.organizadorproducao.service.DXFAnalysisBatchService;
+import git.yannynz.organizadorproducao.service.DXFAnalysisService;
+
+/**
+ * Vazão da gravação de resultados DXF: um {@code persistFromPayload} por mensagem (consumidor antigo)
+ * contra {@link DXFAnalysisBatchService} (upsert em lote), com o volume de um replay do
+ * {@code scripts/dxf-replay.sh} multiplicado (padrão 10x). Metade dos resultados chega sem imagem e
+ * cai no fallback por hash, e um décimo repete um {@code analysisId} já gravado (reentrega).
+ *
+ * Precisa do Postgres de teste (mesmo do {@code OpImportServiceIntegrationTest}) e só roda com
+ * {@code mvn test -Dtest=DXFResultPersistBenchmark -Dbench.dxf=true [-Dbench.dxf.messages=2000
+ * -Dbench.dxf.batch=100]}. As análises usam {@code analysis_id} com prefixo {@code BENCH-} e são
+ * apagadas no fim.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:postgresql://localhost:5433/teste01",
+        "spring.datasource.username=postgres",
+        "spring.datasource.password=1234",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.rabbitmq.listener.simple.auto-startup=false"
+})
+@EnabledIfSystemProperty(named = "bench.dxf", matches = "true")
+class DXFResultPersistBenchmark {
+
+    @Autowired
+    private DXFAnalysisService analysisService;
+
+    @Autowired
+    private DXFAnalysisBatchService batchService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockBean
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int messages = Integer.getInteger("bench.dxf.messages", 2_000);
+    private final int batch = Integer.getInteger("bench.dxf.batch", 100);
+
+    @Test
+    void porMensagemVersusLote() {
+        try {
+            cleanup();
+            List<JsonNode> payloads = payloads("BENCH-A-");
+            long t0 = System.nanoTime();
+            payloads.forEach(analysisService::persistFromPayload);
+            report("por mensagem (persistFromPayload)", System.nanoTime() - t0);
+
+            cleanup();
+            payloads = payloads("BENCH-B-");
+            t0 = System.nanoTime();
+            for (int from = 0; from < payloads.size(); from += batch) {
+                batchService.persistir(payloads.subList(from, Math.min(payloads.size(), from + batch)));
+            }
+            report("em lote de " + batch + " (upsert)", System.nanoTime() - t0);
+        } finally {
+            cleanup();
+        }
+    }
+
+    private List<JsonNode> payloads(String prefix) {
+        List<JsonNode> list = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            // a cada 10 mensagens uma reentrega de um resultado anterior
+            int id = (i % 10 == 9) ? i - 5 : i;
+            var node = mapper.createObjectNode()
+                    .put("analysisId", prefix + id)
+                    .put("timestampUtc", "2026-01-10T10:00:00Z")
+                    .put("opId", "NR" + (120_000 + id % 300))
+                    .put("fileName", "NR" + (120_000 + id % 300) + "_BENCH.DXF")
+                    .put("fileHash", "bench-" + (id % 500))
+                    .put("score", 1.0 + id % 4);
+            node.putObject("metrics").put("totalCutLengthMm", 1000.0 + id).put("curveCount", id % 50);
+            if (id % 2 == 0) {
+                node.putObject("image").put("storageKey", "renders/bench-" + (id % 500) + ".png")
+                        .put("uploadStatus", "uploaded").put("sizeBytes", 4096);
+            }
+            list.add(node);
+        }
+        return list;
+    }
+
+    private void cleanup() {
+        jdbc.update("DELETE FROM dxf_analysis WHERE analysis_id LIKE 'BENCH-%'");
+    }
+
+    private void report(String label, long nanos) {
+        double ms = nanos / 1e6;
+        System.out.printf("[BENCH] %-36s mensagens=%6d total=%9.1fms vazão=%8.1f msg/s%n",
+                label, messages, ms, messages / (ms / 1000.0));
+    }
+}
@@ -0,0 +1,102 @@
+package git.yannynz.organizadorproducao.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import git.yannynz.organizadorproducao.service.FileNameClassifier;
+
+/**
+ * Compara o caminho antigo do FileWatcher (ObjectMapper e Patterns criados por mensagem,
+ * dois matchers por nome) com o {@link FileNameClassifier} compartilhado.
+ *
+ * Rodar pelo {@code main} (IDE) ou, após {@code mvn test-compile}, com o classpath de teste.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameClassifierBenchmark {
+
+    /** Amostra de nomes no formato enviado pelo watcher C# (laser, facasOk, destaque e dobras). */
+    static final String[] CORPUS = {
+            "NR123456CLIENTE TESTE_VERMELHO.CNC",
+            "NR654321EMBALAGENS SÃO JOSÉ_AMARELO.CNC",
+            "CL4321ACME_AZUL.CNC",
+            "CL99887GRAFICA PAULISTA_VERDE",
+            "NR120001CAIXAS 2000_AZUL.CNC",
+            "NR120002_MACHO.CNC",
+            "NR120002_FEMEA.CNC",
+            "CL5544-FÊMEA.cnc",
+            "NR 987654 RETRABALHO.m.DXF",
+            "NR999991 AJUSTE.DXF.FCD",
+            "arquivo qualquer.txt",
+            "NR120003CLIENTE_ROXO.CNC"
+    };
+
+    private final FileNameClassifier classifier = new FileNameClassifier();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String[] messages;
+
+    @Setup
+    public void setup() {
+        messages = new String[CORPUS.length];
+        for (int i = 0; i < CORPUS.length; i++) {
+            messages[i] = "{\"file_name\":\"" + CORPUS[i] + "\",\"path\":\"/laser\",\"timestamp\":1700000000}";
+        }
+    }
+
+    @Benchmark
+    public void legado(Blackhole bh) throws Exception {
+        for (String message : messages) {
+            JsonNode node = new ObjectMapper().readTree(message);
+            String fileName = node.get("file_name").asText();
+            java.util.regex.Pattern nr = java.util.regex.Pattern.compile(
+                    "NR(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
+            java.util.regex.Pattern cl = java.util.regex.Pattern.compile(
+                    "CL(\\d+)([\\p{L}\\s\\d]+?)_(VERMELHO|AMARELO|AZUL|VERDE)(?:\\.CNC)?");
+            bh.consume(cl.matcher(fileName).matches());
+            bh.consume(nr.matcher(fileName).matches());
+        }
+    }
+
+    @Benchmark
+    public void classificador(Blackhole bh) throws Exception {
+        for (String message : messages) {
+            String fileName = objectMapper.readTree(message).get("file_name").asText();
+            bh.consume(classifier.classify(fileName));
+        }
+    }
+
+    @Benchmark
+    public void somenteClassificacao(Blackhole bh) {
+        for (String fileName : CORPUS) {
+            bh.consume(classifier.classify(fileName));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(FileNameClassifierBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,103 @@
+package git.yannynz.organizadorproducao.benchmark;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import git.yannynz.organizadorproducao.model.OpImport;
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.service.ClienteDefaultsService;
+import git.yannynz.organizadorproducao.service.OpOrderSyncEngine;
+
+/**
+ * Custo por par OP/pedido na reconciliação: o caso comum (par já sincronizado, nada a gravar)
+ * e o caso divergente (pedido novo recebendo os campos da OP).
+ *
+ * Rodar pelo {@code main} (IDE) ou, após {@code mvn test-compile}, com o classpath de teste.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpOrderSyncEngineBenchmark {
+
+    static final int PARES = 1_000;
+
+    // sem cliente nos pares: o serviço de defaults nunca é consultado
+    private final OpOrderSyncEngine engine = new OpOrderSyncEngine(new ClienteDefaultsService(null));
+    private OpImport[] ops;
+    private Order[] pedidos;
+
+    @Setup
+    public void setup() {
+        ZonedDateTime prazo = ZonedDateTime.of(2026, 3, 10, 18, 0, 0, 0, ZoneId.of("America/Sao_Paulo"));
+        ops = new OpImport[PARES];
+        pedidos = new Order[PARES];
+        for (int i = 0; i < PARES; i++) {
+            Order order = new Order();
+            order.setId((long) i + 1);
+            order.setNr(String.valueOf(120_000 + i));
+            order.setModalidadeEntrega("A ENTREGAR");
+            order.setDestacador(i % 2 == 0 ? "M" : "F");
+            order.setDataRequeridaEntrega(prazo);
+            order.setPertinax(i % 3 == 0);
+            order.setVaiVinco(i % 5 == 0);
+
+            OpImport op = new OpImport();
+            op.setNumeroOp(order.getNr());
+            op.setFacaId(order.getId());
+            op.setModalidadeEntrega(order.getModalidadeEntrega());
+            op.setDestacador(order.getDestacador());
+            op.setDataRequeridaEntrega(prazo);
+            op.setPertinax(order.isPertinax());
+            op.setVaiVinco(order.isVaiVinco());
+
+            ops[i] = op;
+            pedidos[i] = order;
+        }
+    }
+
+    @Benchmark
+    public int sincronizado() {
+        int mask = 0;
+        for (int i = 0; i < PARES; i++) {
+            mask |= engine.syncBidirectional(ops[i], pedidos[i], "[BENCH]");
+        }
+        return mask;
+    }
+
+    @Benchmark
+    public void divergente(Blackhole bh) {
+        for (int i = 0; i < PARES; i++) {
+            OpImport op = ops[i];
+            Order order = new Order();
+            order.setId(op.getFacaId());
+            order.setNr(op.getNumeroOp());
+            bh.consume(engine.syncBidirectional(op, order, "[BENCH]"));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(OpOrderSyncEngineBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,129 @@
+package git.yannynz.organizadorproducao.benchmark;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
+import git.yannynz.organizadorproducao.config.pagination.CursorStrategy;
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderSearchDTO;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import git.yannynz.organizadorproducao.service.SearchResult;
+
+/**
+ * Latência por página do histórico ({@code searchDeliveredByCursor}) com ~1M pedidos.
+ *
+ * Precisa do Postgres de teste (mesmo do {@code OpImportServiceIntegrationTest}) e só roda com
+ * {@code mvn test -Dtest=OrderSearchCursorBenchmark -Dbench.search=true [-Dbench.search.rows=1000000]}.
+ * As linhas semeadas usam NR com prefixo {@code BENCH} e são apagadas no fim.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:postgresql://localhost:5433/teste01",
+        "spring.datasource.username=postgres",
+        "spring.datasource.password=1234",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.rabbitmq.listener.simple.auto-startup=false"
+})
+@EnabledIfSystemProperty(named = "bench.search", matches = "true")
+class OrderSearchCursorBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int PAGES = 20;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockBean
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    @Test
+    void p95PorPagina() {
+        int rows = Integer.getInteger("bench.search.rows", 1_000_000);
+        try {
+            seed(rows);
+
+            report("sem filtro / DATE_ID", OrderSearchDTO::new, CursorStrategy.DATE_ID);
+            report("sem filtro / ID", OrderSearchDTO::new, CursorStrategy.ID);
+            report("q=graf / DATE_ID", () -> {
+                OrderSearchDTO f = new OrderSearchDTO();
+                f.setQ("graf");
+                return f;
+            }, CursorStrategy.DATE_ID);
+            report("q=embalagens sao / DATE_ID", () -> {
+                OrderSearchDTO f = new OrderSearchDTO();
+                f.setQ("embalagens são");
+                return f;
+            }, CursorStrategy.DATE_ID);
+            report("cliente + statusIn + dataEntrega 90d / DATE_ID", () -> {
+                OrderSearchDTO f = new OrderSearchDTO();
+                f.setCliente("paulista");
+                f.setStatusIn(List.of(4, 5));
+                OrderSearchDTO.Range r = new OrderSearchDTO.Range();
+                r.setFrom(ZonedDateTime.now().minusDays(90));
+                f.setDataEntrega(r);
+                return f;
+            }, CursorStrategy.DATE_ID);
+        } finally {
+            jdbc.update("DELETE FROM orders WHERE nr LIKE 'BENCH%'");
+        }
+    }
+
+    private void seed(int rows) {
+        jdbc.update("DELETE FROM orders WHERE nr LIKE 'BENCH%'");
+        jdbc.update("""
+                INSERT INTO orders (nr, cliente, prioridade, data_h, status, data_entrega, entregador, observacao)
+                SELECT 'BENCH' || g,
+                       (ARRAY['GRÁFICA PAULISTA','EMBALAGENS SÃO JOSÉ','CAIXAS 2000','ACME','PAPELÃO UNIÃO'])[1 + g % 5] || ' ' || (g % 997),
+                       (ARRAY['VERMELHO','AMARELO','AZUL','VERDE'])[1 + g % 4],
+                       now() - (g % 730) * interval '1 day',
+                       (ARRAY[0,1,2,3,4,5])[1 + g % 6],
+                       CASE WHEN g % 6 IN (4, 5) THEN now() - (g % 720) * interval '1 day' + (g % 86400) * interval '1 second' END,
+                       'entregador' || (g % 40),
+                       CASE WHEN g % 10 = 0 THEN 'retrabalho urgente' END
+                FROM generate_series(1, ?) g
+                """, rows);
+        jdbc.execute("ANALYZE orders");
+        System.out.printf("[BENCH] %d pedidos semeados%n", rows);
+    }
+
+    private void report(String label, Supplier<OrderSearchDTO> filters, CursorStrategy strategy) {
+        List<Long> samples = new ArrayList<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            CursorPaging.Key after = null;
+            for (int page = 0; page < PAGES; page++) {
+                long t0 = System.nanoTime();
+                SearchResult<Order> result = orderRepository.searchDeliveredByCursor(filters.get(), PAGE_SIZE, after, strategy);
+                long elapsed = System.nanoTime() - t0;
+                if (round > 0) samples.add(elapsed); // primeira rodada aquece cache/plano
+                if (!result.hasMore()) break;
+                after = result.lastKey();
+            }
+        }
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("[BENCH] %-48s páginas=%4d p50=%7.2fms p95=%7.2fms max=%7.2fms%n",
+                label, sorted.length, percentile(sorted, 50), percentile(sorted, 95),
+                sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0.0;
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1e6;
+    }
+}
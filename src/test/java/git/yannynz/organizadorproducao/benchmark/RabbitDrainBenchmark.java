@@ -0,0 +1,119 @@
+package git.yannynz.organizadorproducao.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import git.yannynz.organizadorproducao.config.RabbitListenerProperties;
+
+/**
+ * Tempo para esvaziar uma fila com rajada de mensagens cujo processamento bloqueia (simulando o
+ * JDBC do {@code op.imported} / {@code laser_notifications}), antes e depois da configuração
+ * por fila de {@link RabbitListenerProperties} e com consumidores em virtual threads.
+ *
+ * Precisa de um RabbitMQ local (ex.: {@code docker run -p 5672:5672 rabbitmq}) e só roda com
+ * {@code mvn test -Dtest=RabbitDrainBenchmark -Dbench.rabbit=true [-Dbench.rabbit.messages=2000
+ * -Dbench.rabbit.work-ms=20 -Dbench.rabbit.host=localhost]}. O cenário virtual exige Java 21+.
+ */
+@EnabledIfSystemProperty(named = "bench.rabbit", matches = "true")
+class RabbitDrainBenchmark {
+
+    private CachingConnectionFactory connectionFactory;
+    private RabbitAdmin admin;
+    private RabbitTemplate template;
+    private Queue queue;
+
+    private final int messages = Integer.getInteger("bench.rabbit.messages", 2_000);
+    private final long workMs = Long.getLong("bench.rabbit.work-ms", 20L);
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new CachingConnectionFactory(System.getProperty("bench.rabbit.host", "localhost"),
+                Integer.getInteger("bench.rabbit.port", 5672));
+        connectionFactory.setUsername(System.getProperty("bench.rabbit.username", "guest"));
+        connectionFactory.setPassword(System.getProperty("bench.rabbit.password", "guest"));
+        admin = new RabbitAdmin(connectionFactory);
+        template = new RabbitTemplate(connectionFactory);
+        queue = new AnonymousQueue();
+        admin.declareQueue(queue);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admin.deleteQueue(queue.getName());
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void drenagemPorConfiguracao() throws Exception {
+        System.out.printf("[BENCH] %d mensagens, %d ms de trabalho bloqueante cada%n", messages, workMs);
+        report("antes: 1 consumidor, prefetch 250", listener(null, null, 250), false);
+        report("depois: 2..8 consumidores, prefetch 10", listener(2, 8, 10), false);
+        if (Runtime.version().feature() >= 21) {
+            report("depois + virtual: 16 consumidores, prefetch 10", listener(16, 16, 10), true);
+        } else {
+            System.out.println("[BENCH] cenário virtual ignorado: requer Java 21+");
+        }
+    }
+
+    private static RabbitListenerProperties.Listener listener(Integer concurrency, Integer max, Integer prefetch) {
+        RabbitListenerProperties.Listener cfg = new RabbitListenerProperties.Listener();
+        cfg.setConcurrency(concurrency);
+        cfg.setMaxConcurrency(max);
+        cfg.setPrefetch(prefetch);
+        return cfg;
+    }
+
+    private void report(String label, RabbitListenerProperties.Listener cfg, boolean virtualThreads) throws Exception {
+        MessageProperties props = new MessageProperties();
+        for (int i = 0; i < messages; i++) {
+            template.send(queue.getName(), new Message(("{\"numeroOp\":\"" + i + "\"}").getBytes(StandardCharsets.UTF_8), props));
+        }
+
+        CountDownLatch done = new CountDownLatch(messages);
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(queue.getName());
+        container.setMessageListener((MessageListener) message -> {
+            try {
+                Thread.sleep(workMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("bench-rabbit-");
+            executor.setVirtualThreads(true);
+            container.setTaskExecutor(executor);
+        }
+        // mesmo caminho das factories da aplicação
+        RabbitListenerProperties properties = new RabbitListenerProperties();
+        properties.getListeners().put(queue.getName(), cfg);
+        properties.apply(container);
+        container.afterPropertiesSet();
+
+        long t0 = System.nanoTime();
+        container.start();
+        boolean drained = done.await(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        container.stop();
+
+        System.out.printf("[BENCH] %-48s drenou=%s em %7.2fs (%8.1f msg/s)%n",
+                label, drained, seconds, messages / seconds);
+    }
+}
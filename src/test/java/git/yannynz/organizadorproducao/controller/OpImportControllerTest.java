@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import git.yannynz.organizadorproducao.infra.security.JwtService;
 import git.yannynz.organizadorproducao.model.OpImport;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
 import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.service.OpBatchImportService;
 import git.yannynz.organizadorproducao.service.OpImportService;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -14,13 +16,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -37,6 +46,9 @@ class OpImportControllerTest {
     @MockBean
     private OpImportRepository repo;
 
+    @MockBean
+    private OpBatchImportService batchService;
+
     @MockBean
     private JwtService jwtService;
 
@@ -81,4 +93,36 @@ class OpImportControllerTest {
         mvc.perform(get("/ops/99999"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @WithMockUser
+    void importarLote_ShouldReturnOneResultPerOp() throws Exception {
+        given(batchService.importar(anyList())).willReturn(List.of(
+                new OpImportResult("120488", OpImportResult.ATUALIZADA, 7L, true, null),
+                OpImportResult.erro("120489", "DataIntegrityViolationException: duplicate key")));
+
+        mvc.perform(post("/api/ops/import/batch").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"numeroOp\":\"120488\"},{\"numeroOp\":\"120489\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("ATUALIZADA"))
+                .andExpect(jsonPath("$[0].orderId").value(7))
+                .andExpect(jsonPath("$[1].status").value("ERRO"));
+    }
+
+    @Test
+    @WithMockUser
+    void importarLote_ShouldReject_WhenAboveLimit() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i <= 5000; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"numeroOp\":\"").append(i).append("\"}");
+        }
+        body.append("]");
+
+        mvc.perform(post("/api/ops/import/batch").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body.toString()))
+                .andExpect(status().isPayloadTooLarge());
+        verify(batchService, never()).importar(anyList());
+    }
 }
@@ -0,0 +1,60 @@
+package git.yannynz.organizadorproducao.controller;
+
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.service.OrderBoardService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderControllerBoardTest {
+
+    @Mock
+    private OrderBoardService orderBoardService;
+
+    @InjectMocks
+    private OrderController orderController;
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/orders");
+        req.addHeader("If-None-Match", ifNoneMatch);
+        return new ServletWebRequest(req, new MockHttpServletResponse());
+    }
+
+    @Test
+    public void ativosRespondem304ComAMesmaVersao() {
+        when(orderBoardService.version()).thenReturn("e1-7");
+
+        ResponseEntity<List<OrderBoardRow>> response =
+                orderController.getAllOrders("active", null, null, request("W/\"e1-7\""));
+
+        assertNull(response);
+        verify(orderBoardService, never()).rows(false, null, null);
+    }
+
+    @Test
+    public void scopeAllNaoUsaAVersaoDoFeed() {
+        when(orderBoardService.rows(true, null, null)).thenReturn(List.of());
+
+        ResponseEntity<List<OrderBoardRow>> response =
+                orderController.getAllOrders("all", null, null, request("W/\"e1-7\""));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        verify(orderBoardService, never()).version();
+    }
+}
@@ -0,0 +1,98 @@
+package git.yannynz.organizadorproducao.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.service.OpImportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class OpReconcileSchedulerTest {
+
+    @Mock
+    private OpImportService opImportService;
+
+    @Mock
+    private OpImportRepository opImportRepository;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private SimpleMeterRegistry registry;
+    private OpReconcileScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        scheduler = new OpReconcileScheduler(opImportService, opImportRepository, registry, jdbc, 2, 60, 7);
+    }
+
+    @Test
+    void primeiroPasseCompletoEmLotes() {
+        when(opImportRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(opImportService.reconcileChunk(any())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        scheduler.reconcile();
+
+        verify(opImportService).reconcileChunk(List.of(1L, 2L));
+        verify(opImportService).reconcileChunk(List.of(3L));
+        verify(opImportRepository, never()).findIdsToReconcile(any(), any(), any());
+        assertThat(registry.get("organizador_op_reconcile_backlog").gauge().value()).isZero();
+        assertThat(registry.get("organizador_op_reconcile_ops_total").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void passesSeguintesSaoIncrementais() {
+        when(opImportRepository.findAllIds()).thenReturn(List.of());
+        when(opImportRepository.findIdsToReconcile(any(), any(), any())).thenReturn(List.of(9L));
+        when(opImportService.reconcileChunk(List.of(9L))).thenReturn(1);
+
+        scheduler.reconcile();
+        scheduler.reconcile();
+
+        verify(opImportRepository).findAllIds();
+        verify(opImportService).reconcileChunk(List.of(9L));
+        assertThat(registry.get("organizador_op_reconcile_pass_seconds").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void falhaMantemMarcaDagua() {
+        when(opImportRepository.findAllIds()).thenReturn(List.of(1L));
+        when(opImportService.reconcileChunk(any())).thenThrow(new IllegalStateException("db"));
+
+        scheduler.reconcile();
+        scheduler.reconcile();
+
+        // sem marca d'água o segundo passe continua completo
+        verify(opImportRepository, never()).findIdsToReconcile(any(), any(), any());
+        verify(jdbc, never()).update(anyString(), any(Object[].class));
+        assertThat(registry.get("organizador_op_reconcile_backlog").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void marcaDaguaGravadaSobreviveAoRestart() {
+        OffsetDateTime gravada = OffsetDateTime.parse("2026-10-18T08:00:00Z");
+        when(jdbc.queryForList(anyString(), eq(OffsetDateTime.class), eq(OpReconcileScheduler.JOB)))
+                .thenReturn(List.of(gravada));
+        when(opImportRepository.findIdsToReconcile(eq(gravada), any(), any())).thenReturn(List.of());
+
+        scheduler.reconcile();
+
+        verify(opImportRepository, never()).findAllIds();
+        verify(jdbc).update(anyString(), eq(OpReconcileScheduler.JOB), any(OffsetDateTime.class));
+    }
+}
@@ -0,0 +1,91 @@
+package git.yannynz.organizadorproducao.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import git.yannynz.organizadorproducao.service.CoalescingBroadcaster;
+import git.yannynz.organizadorproducao.service.OrderDeltaFeed;
+import git.yannynz.organizadorproducao.service.ProductionBoard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PriorityAgingSchedulerTest {
+
+    private static final Instant AGORA = Instant.parse("2026-10-18T15:00:00Z");
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CoalescingBroadcaster broadcaster;
+
+    @Mock
+    private OrderDeltaFeed deltaFeed;
+
+    @Mock
+    private ProductionBoard board;
+
+    private SimpleMeterRegistry registry;
+    private PriorityAgingScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        scheduler = new PriorityAgingScheduler(orderRepository, broadcaster, deltaFeed, board, registry,
+                Clock.fixed(AGORA, ZoneOffset.UTC));
+    }
+
+    private static Order pedido(long id, String prioridade) {
+        Order order = new Order();
+        order.setId(id);
+        order.setPrioridade(prioridade);
+        return order;
+    }
+
+    @Test
+    void usaLimitesDe48hE24hEPublicaSoOsAlterados() {
+        OffsetDateTime agora = OffsetDateTime.ofInstant(AGORA, ZoneOffset.UTC);
+        when(orderRepository.lockPrioritiesToEscalate(agora.minusHours(48), agora.minusHours(24)))
+                .thenReturn(List.of(1L, 2L));
+        List<Order> alterados = List.of(pedido(1L, "AZUL"), pedido(2L, "AMARELO"));
+        when(orderRepository.findAllById(List.of(1L, 2L))).thenReturn(alterados);
+
+        scheduler.escalate();
+
+        verify(orderRepository).escalatePriorities(List.of(1L, 2L));
+        verify(broadcaster).publishOrders(CoalescingBroadcaster.PRIORIDADES, alterados);
+        verify(deltaFeed).recordUpsert(alterados.get(0));
+        verify(deltaFeed).recordUpsert(alterados.get(1));
+        verify(board).recordAll(alterados);
+        assertThat(registry.get("organizador_priority_aging_changed_total").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("organizador_priority_aging_seconds").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void semAlteracoesNaoCarregaNemPublica() {
+        when(orderRepository.lockPrioritiesToEscalate(any(), any())).thenReturn(List.of());
+
+        scheduler.escalate();
+
+        verify(orderRepository, never()).escalatePriorities(any());
+        verify(orderRepository, never()).findAllById(any());
+        verifyNoInteractions(broadcaster, deltaFeed, board);
+        assertThat(registry.get("organizador_priority_aging_changed_total").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,128 @@
+package git.yannynz.organizadorproducao.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import git.yannynz.organizadorproducao.model.Cliente;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ClienteNomeCacheTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    private ClienteNomeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ClienteNomeCache(clienteRepository, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void findByNome_SegundaBuscaUsaPk() {
+        Cliente alfa = cliente(10L, "ALFA", "Alfa Embalagens");
+        when(clienteRepository.findByNomeNormalizadoOrApelido("ALFA EMBALAGENS")).thenReturn(Optional.of(alfa));
+        when(clienteRepository.findById(10L)).thenReturn(Optional.of(alfa));
+
+        assertThat(cache.findByNome("ALFA EMBALAGENS")).contains(alfa);
+        assertThat(cache.findByNome("ALFA EMBALAGENS")).contains(alfa);
+
+        verify(clienteRepository, times(1)).findByNomeNormalizadoOrApelido("ALFA EMBALAGENS");
+        verify(clienteRepository, times(1)).findById(10L);
+    }
+
+    @Test
+    void findByNome_SemClienteFicaGuardadoAteOEvict() {
+        when(clienteRepository.findByNomeNormalizadoOrApelido("NOVO")).thenReturn(Optional.empty());
+
+        assertThat(cache.findByNome("NOVO")).isEmpty();
+        assertThat(cache.findByNome("NOVO")).isEmpty();
+        verify(clienteRepository, times(1)).findByNomeNormalizadoOrApelido("NOVO");
+
+        Cliente novo = cliente(3L, "NOVO");
+        cache.evict(novo);
+        when(clienteRepository.findByNomeNormalizadoOrApelido("NOVO")).thenReturn(Optional.of(novo));
+
+        assertThat(cache.findByNome("NOVO")).contains(novo);
+    }
+
+    @Test
+    void findByNome_EntradaVelhaCaiNaConsulta() {
+        Cliente alfa = cliente(10L, "ALFA", "Beta");
+        when(clienteRepository.findByNomeNormalizadoOrApelido("BETA")).thenReturn(Optional.of(alfa));
+        assertThat(cache.findByNome("BETA")).contains(alfa);
+
+        // apelido removido sem passar pelo listener (outra instância)
+        Cliente semApelido = cliente(10L, "ALFA");
+        Cliente beta = cliente(11L, "BETA");
+        when(clienteRepository.findById(10L)).thenReturn(Optional.of(semApelido));
+        when(clienteRepository.findByNomeNormalizadoOrApelido("BETA")).thenReturn(Optional.of(beta));
+
+        assertThat(cache.findByNome("BETA")).contains(beta);
+    }
+
+    @Test
+    void evictId_RemoveEntradasDoCliente() {
+        Cliente alfa = cliente(10L, "ALFA");
+        when(clienteRepository.findByNomeNormalizadoOrApelido("ALFA")).thenReturn(Optional.of(alfa));
+        cache.findByNome("ALFA");
+
+        cache.evictId(10L);
+
+        assertThat(cache.size()).isZero();
+        verify(clienteRepository, never()).findById(10L);
+    }
+
+    @Test
+    void listener_SemClienteGravadoAntesDoCommitSaiNoCommit() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("clienteNomeCache", cache);
+        ClienteNomeCacheListener listener = new ClienteNomeCacheListener(beans.getBeanProvider(ClienteNomeCache.class));
+        Cliente novo = cliente(3L, "NOVO");
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onSave(novo);
+        // consulta concorrente ainda não vê o cliente do flush
+        when(clienteRepository.findByNomeNormalizadoOrApelido("NOVO")).thenReturn(Optional.empty());
+        assertThat(cache.findByNome("NOVO")).isEmpty();
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        when(clienteRepository.findByNomeNormalizadoOrApelido("NOVO")).thenReturn(Optional.of(novo));
+
+        assertThat(cache.findByNome("NOVO")).contains(novo);
+    }
+
+    @Test
+    void matches_ApelidoSemAcento() {
+        assertThat(ClienteNomeCache.matches(cliente(1L, "X", " Açaí Ltda "), "ACAI LTDA")).isTrue();
+        assertThat(ClienteNomeCache.matches(cliente(1L, "X"), "Y")).isFalse();
+    }
+
+    private static Cliente cliente(Long id, String nomeNormalizado, String... apelidos) {
+        Cliente c = new Cliente();
+        c.setId(id);
+        c.setNomeNormalizado(nomeNormalizado);
+        c.setApelidos(List.of(apelidos));
+        return c;
+    }
+}
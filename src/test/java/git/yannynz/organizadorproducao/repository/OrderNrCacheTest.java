@@ -0,0 +1,157 @@
+package git.yannynz.organizadorproducao.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import git.yannynz.organizadorproducao.model.Order;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderNrCacheTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderNrCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OrderNrCache(orderRepository, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void findLatestByNr_SegundaBuscaUsaPk() {
+        Order order = order(10L, "123");
+        when(orderRepository.findTopByNrOrderByIdDesc("123")).thenReturn(Optional.of(order));
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(order));
+
+        assertThat(cache.findLatestByNr("123")).contains(order);
+        assertThat(cache.findLatestByNr("123")).contains(order);
+
+        verify(orderRepository, times(1)).findTopByNrOrderByIdDesc("123");
+        verify(orderRepository, times(1)).findById(10L);
+    }
+
+    @Test
+    void findLatestByNr_EntradaVelhaCaiNaConsulta() {
+        cache.remember(order(10L, "123"));
+        Order renomeado = order(10L, "999");
+        Order atual = order(11L, "123");
+        when(orderRepository.findById(10L)).thenReturn(Optional.of(renomeado));
+        when(orderRepository.findTopByNrOrderByIdDesc("123")).thenReturn(Optional.of(atual));
+
+        assertThat(cache.findLatestByNr("123")).contains(atual);
+    }
+
+    @Test
+    void remember_MantemMaiorIdELimitaTamanho() {
+        cache.remember(order(20L, "A"));
+        cache.remember(order(5L, "A"));
+        Order a = order(20L, "A");
+        when(orderRepository.findById(20L)).thenReturn(Optional.of(a));
+
+        assertThat(cache.findLatestByNr("A")).contains(a);
+        verify(orderRepository, never()).findTopByNrOrderByIdDesc("A");
+
+        cache.remember(order(1L, "B"));
+        cache.remember(order(2L, "C"));
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void findLatestByNr_NrSemPedidoConsultaUmaVez() {
+        when(orderRepository.findTopByNrOrderByIdDesc("404")).thenReturn(Optional.empty());
+
+        assertThat(cache.findLatestByNr("404")).isEmpty();
+        assertThat(cache.findLatestByNr("404")).isEmpty();
+
+        verify(orderRepository, times(1)).findTopByNrOrderByIdDesc("404");
+    }
+
+    @Test
+    void remember_LimpaNrSemPedido() {
+        when(orderRepository.findTopByNrOrderByIdDesc("55")).thenReturn(Optional.empty());
+        assertThat(cache.findLatestByNr("55")).isEmpty();
+
+        Order order = order(3L, "55");
+        cache.remember(order);
+        when(orderRepository.findById(3L)).thenReturn(Optional.of(order));
+
+        assertThat(cache.findLatestByNr("55")).contains(order);
+        verify(orderRepository, times(1)).findTopByNrOrderByIdDesc("55");
+    }
+
+    @Test
+    void remember_PedidoRenomeadoSaiDoNrAntigo() {
+        cache.remember(order(10L, "123"));
+        cache.remember(order(10L, "999"));
+        when(orderRepository.findTopByNrOrderByIdDesc("123")).thenReturn(Optional.empty());
+
+        assertThat(cache.findLatestByNr("123")).isEmpty();
+
+        verify(orderRepository, never()).findById(10L);
+    }
+
+    @Test
+    void listener_RegistraSoDepoisDoCommit() {
+        OrderNrCacheListener listener = listener();
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onSave(order(10L, "123"));
+        assertThat(cache.size()).isZero();
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void listener_RollbackNaoDeixaIdFantasma() {
+        OrderNrCacheListener listener = listener();
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onSave(order(10L, "123"));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evict_RemoveEntrada() {
+        Order order = order(7L, "77");
+        cache.remember(order);
+        cache.evict(order);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    private OrderNrCacheListener listener() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("orderNrCache", cache);
+        return new OrderNrCacheListener(beans.getBeanProvider(OrderNrCache.class));
+    }
+
+    private static Order order(Long id, String nr) {
+        Order o = new Order();
+        o.setId(id);
+        o.setNr(nr);
+        return o;
+    }
+}
@@ -6,6 +6,7 @@ import git.yannynz.organizadorproducao.model.OpImport;
 import git.yannynz.organizadorproducao.model.dto.EnderecoSugeridoDTO;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
 import git.yannynz.organizadorproducao.repository.ClienteEnderecoRepository;
+import git.yannynz.organizadorproducao.repository.ClienteNomeCache;
 import git.yannynz.organizadorproducao.repository.ClienteRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,7 +36,7 @@ class ClienteAutoEnrichmentServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new ClienteAutoEnrichmentService(clienteRepo, enderecoRepo);
+        service = new ClienteAutoEnrichmentService(clienteRepo, enderecoRepo, new ClienteNomeCache(clienteRepo, 100));
     }
 
     @Test
@@ -133,4 +134,50 @@ class ClienteAutoEnrichmentServiceTest {
         verify(enderecoRepo, atLeast(0)).save(any(ClienteEndereco.class));
         assertEquals(existingAddr, op.getEndereco());
     }
+
+    @Test
+    void prefetch_ShouldResolveNameAndAliasOnceAndReuseWithinBatch() {
+        // Arrange
+        Cliente alfa = new Cliente();
+        alfa.setId(10L);
+        alfa.setNomeNormalizado("ALFA EMBALAGENS");
+        alfa.setApelidos(List.of("Gráfica Alfa"));
+
+        ClienteEndereco enderecoPadrao = new ClienteEndereco();
+        enderecoPadrao.setId(50L);
+        enderecoPadrao.setCliente(alfa);
+        enderecoPadrao.setIsDefault(true);
+
+        OpImportRequestDTO porApelido = new OpImportRequestDTO();
+        porApelido.setClienteNomeOficial("Grafica Alfa");
+        OpImportRequestDTO novo = new OpImportRequestDTO();
+        novo.setClienteNomeOficial("Novo Cliente");
+
+        when(clienteRepo.findByNomeNormalizadoOrApelidoIn(any())).thenReturn(List.of(alfa));
+        when(enderecoRepo.findByClienteIdIn(any())).thenReturn(List.of(enderecoPadrao));
+        when(clienteRepo.save(any(Cliente.class))).thenAnswer(inv -> {
+            Cliente c = inv.getArgument(0);
+            c.setId(11L);
+            return c;
+        });
+
+        // Act
+        ClienteAutoEnrichmentService.Lote lote = service.prefetch(List.of(porApelido, novo, novo));
+        OpImport op1 = new OpImport();
+        OpImport op2 = new OpImport();
+        OpImport op3 = new OpImport();
+        service.upsertFromOp(op1, porApelido, lote);
+        service.upsertFromOp(op2, novo, lote);
+        service.upsertFromOp(op3, novo, lote);
+
+        // Assert
+        assertSame(alfa, op1.getClienteRef());
+        assertSame(enderecoPadrao, op1.getEndereco());
+        assertNotNull(op2.getClienteRef());
+        assertSame(op2.getClienteRef(), op3.getClienteRef());
+        verify(clienteRepo, times(1)).save(any(Cliente.class));
+        verify(clienteRepo, never()).findByNomeNormalizadoOrApelido(anyString());
+        verify(enderecoRepo, never()).findByClienteId(any());
+        verify(enderecoRepo, never()).findByClienteIdAndIsDefaultTrue(any());
+    }
 }
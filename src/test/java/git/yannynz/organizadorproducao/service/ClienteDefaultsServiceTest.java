@@ -2,6 +2,7 @@ package git.yannynz.organizadorproducao.service;
 
 import git.yannynz.organizadorproducao.model.Cliente;
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.repository.ClienteNomeCache;
 import git.yannynz.organizadorproducao.repository.ClienteRepository;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +24,7 @@ class ClienteDefaultsServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new ClienteDefaultsService(clienteRepository);
+        service = new ClienteDefaultsService(new ClienteNomeCache(clienteRepository, 100));
     }
 
     @Test
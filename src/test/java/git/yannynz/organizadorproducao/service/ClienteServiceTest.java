@@ -1,10 +1,14 @@
 package git.yannynz.organizadorproducao.service;
 
+import git.yannynz.organizadorproducao.config.pagination.CursorPaging;
 import git.yannynz.organizadorproducao.model.Cliente;
 import git.yannynz.organizadorproducao.model.Transportadora;
+import git.yannynz.organizadorproducao.model.dto.ClienteSearchPage;
 import git.yannynz.organizadorproducao.repository.ClienteEnderecoRepository;
 import git.yannynz.organizadorproducao.repository.ClienteRepository;
 import git.yannynz.organizadorproducao.repository.TransportadoraRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +19,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,7 +42,7 @@ class ClienteServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new ClienteService(repo, enderecoRepo, transportadoraRepo);
+        service = new ClienteService(repo, enderecoRepo, transportadoraRepo, 2);
     }
 
     @Test
@@ -121,4 +129,52 @@ class ClienteServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("não podem ser o mesmo");
     }
+
+    @Test
+    void searchByCursor_shouldKeepRankOrderAndReturnCursorOfLastItem() {
+        CursorPaging.ClienteKey k1 = new CursorPaging.ClienteKey(BigDecimal.ONE, Instant.parse("2026-01-02T00:00:00Z"), 5L);
+        CursorPaging.ClienteKey k2 = new CursorPaging.ClienteKey(new BigDecimal("0.8"), null, 9L);
+        CursorPaging.ClienteKey k3 = new CursorPaging.ClienteKey(new BigDecimal("0.7"), null, 3L);
+        when(repo.searchKeys("GRAFICA SAO JOAO", 3, null)).thenReturn(List.of(k1, k2, k3));
+        when(repo.findAllById(List.of(5L, 9L))).thenReturn(List.of(cliente(9L), cliente(5L)));
+
+        ClienteSearchPage page = service.searchByCursor("  gráfica são joão ", 2, null, ClienteService.CountMode.NONE);
+
+        assertThat(page.items()).extracting(Cliente::getId).containsExactly(5L, 9L);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(CursorPaging.decodeCliente(page.nextCursor())).isEqualTo(k2);
+        assertThat(page.total()).isNull();
+        verify(repo, never()).countMatches(any(), any());
+    }
+
+    @Test
+    void searchByCursor_shouldCapEstimatedCountForSearchTerm() {
+        when(repo.searchKeys("ALFA", 21, null)).thenReturn(List.of());
+        when(repo.countMatches("ALFA", 3)).thenReturn(3L);
+
+        ClienteSearchPage page = service.searchByCursor("alfa", 20, null, ClienteService.CountMode.ESTIMATE);
+
+        assertThat(page.items()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+        assertThat(page.total()).isEqualTo(2L);
+        assertThat(page.totalEstimated()).isTrue();
+    }
+
+    @Test
+    void searchByCursor_shouldUseTableStatisticsWithoutSearchTerm() {
+        when(repo.searchKeys(isNull(), anyInt(), isNull())).thenReturn(List.of());
+        when(repo.estimateTotal()).thenReturn(40_000L);
+
+        ClienteSearchPage page = service.searchByCursor(" ", 20, null, ClienteService.CountMode.ESTIMATE);
+
+        assertThat(page.total()).isEqualTo(40_000L);
+        assertThat(page.totalEstimated()).isTrue();
+        verify(repo, never()).countMatches(any(), any());
+    }
+
+    private static Cliente cliente(Long id) {
+        Cliente c = new Cliente();
+        c.setId(id);
+        return c;
+    }
 }
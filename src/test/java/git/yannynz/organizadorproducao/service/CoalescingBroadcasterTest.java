@@ -0,0 +1,159 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import git.yannynz.organizadorproducao.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate ws;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private SimpleMeterRegistry registry;
+    private CoalescingBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // janela longa: o flush é disparado manualmente pelos testes
+        broadcaster = new CoalescingBroadcaster(ws, mapper, registry, 60_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private static Order pedido(long id, String prioridade) {
+        Order order = new Order();
+        order.setId(id);
+        order.setPrioridade(prioridade);
+        return order;
+    }
+
+    private Map<String, Object> campos(Order order) {
+        return mapper.convertValue(order, new TypeReference<Map<String, Object>>() {});
+    }
+
+    @Test
+    void mantemUltimaEscritaPorPedidoEEnviaUmFramePorTopico() {
+        Order primeiro = pedido(1L, "AZUL");
+        Order ultimo = pedido(1L, "VERMELHO");
+        Order outro = pedido(2L, "VERDE");
+
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, primeiro);
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, outro);
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, ultimo);
+        broadcaster.publishOrder(CoalescingBroadcaster.PRIORIDADES, ultimo);
+        assertEquals(3.0,registry.get("organizador_ws_pending_events").gauge().value());
+
+        broadcaster.flush();
+
+        verify(ws).convertAndSend(CoalescingBroadcaster.ORDERS, List.of(campos(ultimo), campos(outro)));
+        verify(ws).convertAndSend(CoalescingBroadcaster.PRIORIDADES, campos(ultimo));
+        verifyNoMoreInteractions(ws);
+        assertEquals(1.0, registry.get("organizador_ws_events_coalesced_total").counter().count());
+        assertEquals(1.0, registry.get("organizador_ws_frames_total")
+                .tag("topic", CoalescingBroadcaster.ORDERS).counter().count());
+        assertEquals(0.0, registry.get("organizador_ws_pending_events").gauge().value());
+    }
+
+    @Test
+    void pedidoEntraNaJanelaSoAposOCommitJaCopiado() {
+        Order order = pedido(4L, "AZUL");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, order);
+            assertEquals(0.0, registry.get("organizador_ws_pending_events").gauge().value());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        order.setPrioridade("VERMELHO");
+
+        broadcaster.flush();
+
+        verify(ws).convertAndSend(eq(CoalescingBroadcaster.ORDERS),
+                argThat((Object payload) -> "AZUL".equals(((Map<?, ?>) payload).get("prioridade"))));
+    }
+
+    @Test
+    void rollbackNaoPublica() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, pedido(5L, "AZUL"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        broadcaster.flush();
+
+        verifyNoInteractions(ws);
+    }
+
+    @Test
+    void remocaoSubstituiVersaoDoPedidoNaJanela() {
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, pedido(6L, "AZUL"));
+        broadcaster.publishDelete(CoalescingBroadcaster.ORDERS, 6L);
+
+        broadcaster.flush();
+
+        verify(ws).convertAndSend(eq(CoalescingBroadcaster.ORDERS), argThat((Object payload) ->
+                payload instanceof WebSocketMessage msg
+                        && "delete".equals(msg.getAction())
+                        && Map.of("id", 6L).equals(msg.getData())));
+        verifyNoMoreInteractions(ws);
+    }
+
+    @Test
+    void flushSemPendentesNaoEnvia() {
+        broadcaster.flush();
+
+        verifyNoInteractions(ws);
+    }
+
+    @Test
+    void falhaDoBrokerNaoPropaga() {
+        doThrow(new IllegalStateException("broker fora")).when(ws).convertAndSend(anyString(), any(Object.class));
+        broadcaster.publishOrder(CoalescingBroadcaster.ORDERS, pedido(3L, "AZUL"));
+
+        assertDoesNotThrow(broadcaster::flush);
+    }
+
+    @Test
+    void limiteDePendentesAntecipaOFlush() throws Exception {
+        CoalescingBroadcaster pequeno = new CoalescingBroadcaster(ws, mapper, new SimpleMeterRegistry(), 60_000, 2);
+        try {
+            pequeno.publishOrder(CoalescingBroadcaster.ORDERS, pedido(1L, "AZUL"));
+            pequeno.publishOrder(CoalescingBroadcaster.ORDERS, pedido(2L, "AZUL"));
+
+            verify(ws, timeout(2_000)).convertAndSend(eq(CoalescingBroadcaster.ORDERS), any(List.class));
+        } finally {
+            pequeno.shutdown();
+        }
+    }
+}
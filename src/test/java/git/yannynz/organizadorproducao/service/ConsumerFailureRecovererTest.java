@@ -0,0 +1,114 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import git.yannynz.organizadorproducao.config.RabbitListenerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumerFailureRecovererTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private MessageQuarantineService quarantine;
+
+    private SimpleMeterRegistry registry;
+    private ConsumerFailureRecoverer recoverer;
+
+    @BeforeEach
+    void setUp() {
+        RabbitListenerProperties props = new RabbitListenerProperties();
+        props.getRetry().setQueues(List.of("op.imported"));
+        props.getRetry().setMaxAttempts(3);
+        props.getRetry().setInitialDelayMs(1000);
+        props.getRetry().setMultiplier(4);
+        registry = new SimpleMeterRegistry();
+        recoverer = new ConsumerFailureRecoverer(rabbitTemplate, quarantine, props, registry);
+    }
+
+    private static Message mensagem(String queue, Integer attempts) {
+        MessageProperties props = new MessageProperties();
+        props.setConsumerQueue(queue);
+        if (attempts != null)
+            props.setHeader(MessageQuarantineService.ATTEMPTS_HEADER, attempts);
+        return new Message("{\"numeroOp\":\"1\"}".getBytes(StandardCharsets.UTF_8), props);
+    }
+
+    private static Throwable falha(Throwable cause) {
+        return new ListenerExecutionFailedException("listener", cause);
+    }
+
+    @Test
+    void falhaTransitoriaVaiParaAFilaDeRetryComBackoff() {
+        recoverer.recover(mensagem("op.imported", null), falha(new IllegalStateException("banco fora")));
+        recoverer.recover(mensagem("op.imported", 1), falha(new IllegalStateException("banco fora")));
+
+        ArgumentCaptor<Message> enviada = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(""), eq("op.imported.retry.1000"), enviada.capture());
+        verify(rabbitTemplate).send(eq(""), eq("op.imported.retry.4000"), enviada.capture());
+        assertEquals(1, (Integer) enviada.getAllValues().get(0).getMessageProperties().getHeader(MessageQuarantineService.ATTEMPTS_HEADER));
+        assertEquals(2, (Integer) enviada.getAllValues().get(1).getMessageProperties().getHeader(MessageQuarantineService.ATTEMPTS_HEADER));
+        verifyNoInteractions(quarantine);
+        assertEquals(2.0, registry.get("organizador_amqp_failures_total").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void esgotouAsTentativasVaiParaQuarentena() {
+        Message msg = mensagem("op.imported", 2);
+        Throwable cause = falha(new IllegalStateException("banco fora"));
+
+        recoverer.recover(msg, cause);
+
+        verify(quarantine).quarantine("op.imported", msg, 3, cause);
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    void mensagemInvalidaVaiDiretoParaQuarentena() {
+        Message msg = mensagem("op.imported", null);
+        Throwable cause = falha(new JsonParseException(null, "json quebrado"));
+
+        recoverer.recover(msg, cause);
+
+        verify(quarantine).quarantine("op.imported", msg, 1, cause);
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    void filaSemRetentativaERejeitadaSemRequeue() {
+        assertThrows(AmqpRejectAndDontRequeueException.class,
+                () -> recoverer.recover(mensagem("filewatcher.rpc.ping", null), falha(new IllegalStateException("x"))));
+
+        verifyNoInteractions(rabbitTemplate, quarantine);
+    }
+
+    @Test
+    void falhaAoEncaminharNaoRequeue() {
+        doThrow(new IllegalStateException("broker fora")).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        assertThrows(AmqpRejectAndDontRequeueException.class,
+                () -> recoverer.recover(mensagem("op.imported", null), falha(new IllegalStateException("x"))));
+        verify(quarantine, never()).quarantine(anyString(), any(Message.class), anyInt(), any());
+    }
+}
@@ -0,0 +1,87 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DXFAnalysisBatchServiceTest {
+
+    @Mock
+    private DXFAnalysisService analysisService;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private SimpleMeterRegistry registry;
+    private DXFAnalysisBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new DXFAnalysisBatchService(analysisService, registry, 2);
+    }
+
+    private JsonNode payload(String analysisId) {
+        return mapper.createObjectNode().put("analysisId", analysisId);
+    }
+
+    private static DXFAnalysis analysis(String analysisId) {
+        DXFAnalysis a = new DXFAnalysis();
+        a.setAnalysisId(analysisId);
+        return a;
+    }
+
+    @Test
+    void divideEmBlocosEMantemAOrdem() {
+        JsonNode a = payload("a"), b = payload("b"), c = payload("c");
+        when(analysisService.persistBatch(List.of(a, b))).thenReturn(List.of(analysis("a"), analysis("b")));
+        when(analysisService.persistBatch(List.of(c))).thenReturn(List.of(analysis("c")));
+
+        List<DXFAnalysisBatchService.Resultado> results = service.persistir(List.of(a, b, c));
+
+        assertEquals(List.of("a", "b", "c"), results.stream().map(r -> r.analise().getAnalysisId()).toList());
+        assertTrue(results.stream().noneMatch(DXFAnalysisBatchService.Resultado::falhou));
+        verify(analysisService, never()).persistFromPayload(any());
+    }
+
+    @Test
+    void cadaPayloadApontaParaALinhaRelidaDoBanco() {
+        JsonNode a = payload("a"), repetido = payload("a");
+        DXFAnalysis gravada = analysis("a");
+        gravada.setId(42L);
+        when(analysisService.persistBatch(List.of(a, repetido))).thenReturn(List.of(gravada));
+
+        List<DXFAnalysisBatchService.Resultado> results = service.persistir(List.of(a, repetido));
+
+        // o listener fecha o pedido em andamento com estas instâncias, não com as montadas do payload
+        assertSame(gravada, results.get(0).analise());
+        assertSame(gravada, results.get(1).analise());
+    }
+
+    @Test
+    void blocoQueFalhaEhRefeitoItemAItem() {
+        JsonNode a = payload("a"), b = payload("b");
+        when(analysisService.persistBatch(List.of(a, b)))
+                .thenThrow(new DataIntegrityViolationException("file_name null"));
+        when(analysisService.persistFromPayload(a)).thenReturn(analysis("a"));
+        when(analysisService.persistFromPayload(b)).thenThrow(new DataIntegrityViolationException("file_name null"));
+
+        List<DXFAnalysisBatchService.Resultado> results = service.persistir(List.of(a, b));
+
+        assertFalse(results.get(0).falhou());
+        assertTrue(results.get(1).falhou());
+        assertInstanceOf(DataIntegrityViolationException.class, results.get(1).erro());
+        assertEquals(1.0, registry.get("organizador_dxf_analysis_batch_fallback_total").counter().count());
+    }
+}
@@ -0,0 +1,218 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisInFlightView;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DXFAnalysisInFlightRegistryTest {
+
+    @Mock
+    private DXFAnalysisService analysisService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+
+    private final DXFAnalysisRequestDTO request =
+            new DXFAnalysisRequestDTO("//srv/dxf/NR777777_CLIENTE.DXF", null, "hash-abc", null, null, null);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-10-18T12:00:00Z"));
+    }
+
+    private DXFAnalysisInFlightRegistry registry(int republishMaxAttempts) {
+        return new DXFAnalysisInFlightRegistry(analysisService, meterRegistry, 60_000, republishMaxAttempts,
+                300_000, clock);
+    }
+
+    private static DXFAnalysis result(String analysisId) {
+        DXFAnalysis analysis = new DXFAnalysis();
+        analysis.setAnalysisId(analysisId);
+        return analysis;
+    }
+
+    private double results(String match) {
+        return meterRegistry.get("organizador_dxf_analysis_results_total").tag("match", match).counter().count();
+    }
+
+    private double inflight(String state) {
+        return meterRegistry.get("organizador_dxf_analysis_inflight").tag("state", state).gauge().value();
+    }
+
+    @Test
+    void completeRecordsEndToEndLatencyAndQueueLag() {
+        DXFAnalysisInFlightRegistry inFlight = registry(0);
+        String id = inFlight.begin(null, "777777", request).analysisId();
+        assertThat(inflight("outstanding")).isEqualTo(1.0);
+
+        clock.advance(Duration.ofSeconds(12));
+        DXFAnalysis analysis = result(id);
+        analysis.setAnalyzedAt(OffsetDateTime.ofInstant(clock.instant().minusSeconds(2), ZoneOffset.UTC));
+        inFlight.complete(analysis);
+
+        assertThat(inFlight.size()).isZero();
+        assertThat(results("matched")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("organizador_dxf_analysis_end_to_end_seconds").timer()
+                .totalTime(TimeUnit.SECONDS)).isEqualTo(12.0);
+        assertThat(meterRegistry.get("organizador_dxf_analysis_result_lag_seconds").timer()
+                .totalTime(TimeUnit.SECONDS)).isEqualTo(2.0);
+    }
+
+    @Test
+    void completeCountsResultsWithoutRequest() {
+        DXFAnalysisInFlightRegistry inFlight = registry(0);
+
+        inFlight.complete(result("disparada-pelo-watcher"));
+
+        assertThat(results("unmatched")).isEqualTo(1.0);
+    }
+
+    @Test
+    void secondResultForCompletedRequestIsDuplicateAndNotReplicatedAgain() {
+        DXFAnalysisInFlightRegistry inFlight = registry(0);
+        String id = inFlight.begin("hash-abc", "777777", request).analysisId();
+        String copyId = inFlight.begin("hash-abc", "888888", request).analysisId();
+        DXFAnalysis analysis = result(id);
+
+        inFlight.complete(analysis);
+        inFlight.complete(result(id));
+
+        assertThat(results("matched")).isEqualTo(1.0);
+        assertThat(results("duplicate")).isEqualTo(1.0);
+        assertThat(meterRegistry.find("organizador_dxf_analysis_results_total").tag("match", "unmatched").counter())
+                .isNull();
+        verify(analysisService, times(1)).reuseForOrder(analysis, "888888", null, copyId);
+
+        // passada a retenção, o id é esquecido
+        clock.advance(Duration.ofMinutes(6));
+        inFlight.sweep();
+        inFlight.complete(result(id));
+        assertThat(results("unmatched")).isEqualTo(1.0);
+    }
+
+    @Test
+    void sweepRepublishesExpiredRequestsUpToLimitThenFlagsThem() {
+        DXFAnalysisInFlightRegistry inFlight = registry(1);
+        String id = inFlight.begin("hash-abc", "777777", request).analysisId();
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(inFlight.sweep()).isEmpty();
+
+        clock.advance(Duration.ofSeconds(31));
+        List<DXFAnalysisInFlightRegistry.Republish> republish = inFlight.sweep();
+        assertThat(republish).containsExactly(new DXFAnalysisInFlightRegistry.Republish(id, request, 2));
+        // republicado continua segurando o hash
+        assertThat(inFlight.begin("hash-abc", "888888", request).joined()).isTrue();
+
+        clock.advance(Duration.ofSeconds(61));
+        assertThat(inFlight.sweep()).isEmpty();
+        DXFAnalysisInFlightView view = inFlight.snapshot().get(0);
+        assertThat(view.expired()).isTrue();
+        assertThat(view.attempts()).isEqualTo(2);
+        assertThat(view.waitingOrders()).containsOnlyKeys("888888");
+        assertThat(inflight("expired")).isEqualTo(1.0);
+        assertThat(inflight("outstanding")).isZero();
+        assertThat(meterRegistry.get("organizador_dxf_analysis_expired_total").tag("action", "republished")
+                .counter().count()).isEqualTo(1.0);
+
+        // expirado libera o hash para um pedido novo
+        assertThat(inFlight.begin("hash-abc", "999999", request).joined()).isFalse();
+    }
+
+    @Test
+    void lateResultIsCountedAndStillReplicatedToWaitingOrders() {
+        DXFAnalysisInFlightRegistry inFlight = registry(0);
+        String id = inFlight.begin("hash-abc", "777777", request).analysisId();
+        String copyId = inFlight.begin("hash-abc", "888888", request).analysisId();
+
+        clock.advance(Duration.ofSeconds(61));
+        inFlight.sweep();
+        DXFAnalysis analysis = result(id);
+        inFlight.complete(analysis);
+
+        assertThat(results("late")).isEqualTo(1.0);
+        verify(analysisService).reuseForOrder(analysis, "888888", null, copyId);
+        assertThat(inFlight.size()).isZero();
+    }
+
+    @Test
+    void joinedRequestGetsTheIdOfItsOwnCopy() {
+        DXFAnalysisInFlightRegistry inFlight = registry(0);
+        String id = inFlight.begin("hash-abc", "777777", request).analysisId();
+
+        DXFAnalysisInFlightRegistry.Registration other = inFlight.begin("hash-abc", "888888", request);
+        DXFAnalysisInFlightRegistry.Registration again = inFlight.begin("hash-abc", " 888888 ", request);
+        DXFAnalysisInFlightRegistry.Registration sameOrder = inFlight.begin("hash-abc", "777777", request);
+        DXFAnalysisInFlightRegistry.Registration noOrder = inFlight.begin("hash-abc", null, request);
+
+        assertThat(other.joined()).isTrue();
+        assertThat(other.pendingAnalysisId()).isEqualTo(id);
+        assertThat(other.analysisId()).isNotEqualTo(id);
+        assertThat(again.analysisId()).isEqualTo(other.analysisId());
+        assertThat(sameOrder.analysisId()).isEqualTo(id);
+        assertThat(noOrder.analysisId()).isEqualTo(id);
+        assertThat(inFlight.snapshot().get(0).waitingOrders()).containsExactly(Map.entry("888888", other.analysisId()));
+    }
+
+    @Test
+    void sweepDropsExpiredRequestsAfterRetention() {
+        DXFAnalysisInFlightRegistry inFlight = registry(0);
+        inFlight.begin(null, "777777", request);
+
+        clock.advance(Duration.ofSeconds(61));
+        inFlight.sweep();
+        assertThat(inFlight.size()).isEqualTo(1);
+
+        clock.advance(Duration.ofMinutes(6));
+        inFlight.sweep();
+        assertThat(inFlight.size()).isZero();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -2,20 +2,31 @@ package git.yannynz.organizadorproducao.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisRequestResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DXFAnalysisRequestPublisherTest {
@@ -23,6 +34,12 @@ class DXFAnalysisRequestPublisherTest {
     @Mock
     private RabbitTemplate rabbitTemplate;
 
+    @Mock
+    private DXFAnalysisService analysisService;
+
+    private DXFAnalysisInFlightRegistry inFlight;
+    private SimpleMeterRegistry meterRegistry;
+
     private DXFAnalysisRequestPublisher publisher;
 
     private DXFAnalysisProperties properties;
@@ -33,7 +50,77 @@ class DXFAnalysisRequestPublisherTest {
     void setUp() {
         properties = new DXFAnalysisProperties();
         properties.setRequestQueue("facas.analysis.request");
-        publisher = new DXFAnalysisRequestPublisher(rabbitTemplate, objectMapper, properties);
+        meterRegistry = new SimpleMeterRegistry();
+        inFlight = new DXFAnalysisInFlightRegistry(analysisService, meterRegistry, 60_000, 0, 60_000);
+        publisher = new DXFAnalysisRequestPublisher(rabbitTemplate, objectMapper, properties, analysisService,
+                inFlight, meterRegistry);
+    }
+
+    private static DXFAnalysisRequestDTO request(String filePath, String fileHash, Boolean forceReprocess) {
+        return new DXFAnalysisRequestDTO(filePath, null, fileHash, null, forceReprocess, null);
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("organizador_dxf_analysis_requests_total").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void submit_shouldReturnCompletedAnalysisForSameHashWithoutPublishing() {
+        DXFAnalysis done = new DXFAnalysis();
+        done.setAnalysisId("pronta");
+        when(analysisService.findReusableByFileHash("hash-abc", "777777", "NR777777_CLIENTE.DXF"))
+                .thenReturn(Optional.of(done));
+
+        DXFAnalysisRequestResponse response = publisher.submit(request("//srv/dxf/NR777777_CLIENTE.DXF", "hash-abc", null));
+
+        assertThat(response.analysisId()).isEqualTo("pronta");
+        assertThat(response.cacheHit()).isTrue();
+        verifyNoInteractions(rabbitTemplate);
+        assertThat(outcome("cache_hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void submit_shouldCollapseRequestsForHashAlreadyInFlightAndReplicateOnResult() {
+        when(analysisService.findReusableByFileHash(eq("hash-abc"), any(), any())).thenReturn(Optional.empty());
+
+        DXFAnalysisRequestResponse first = publisher.submit(request("//srv/dxf/NR777777_CLIENTE.DXF", "hash-abc", null));
+        DXFAnalysisRequestResponse second = publisher.submit(request("//srv/dxf/NR888888_CLIENTE.DXF", "hash-abc", null));
+
+        // quem se juntou recebe o id da cópia do seu NR, não o do pedido de outro NR
+        assertThat(second.analysisId()).isNotEqualTo(first.analysisId());
+        assertThat(second.cacheHit()).isFalse();
+        verify(rabbitTemplate, times(1)).convertAndSend(eq(""), eq(properties.getRequestQueue()), any(Object.class));
+        assertThat(outcome("collapsed")).isEqualTo(1.0);
+
+        DXFAnalysis result = new DXFAnalysis();
+        result.setAnalysisId(first.analysisId());
+        inFlight.complete(result);
+
+        verify(analysisService).reuseForOrder(result, "888888", null, second.analysisId());
+        assertThat(inFlight.size()).isZero();
+    }
+
+    @Test
+    void submit_shouldAlwaysPublishWhenForceReprocess() {
+        publisher.submit(request("//srv/dxf/NR777777_CLIENTE.DXF", "hash-abc", true));
+        publisher.submit(request("//srv/dxf/NR777777_CLIENTE.DXF", "hash-abc", true));
+
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(""), eq(properties.getRequestQueue()), any(Object.class));
+        verify(analysisService, never()).findReusableByFileHash(any(), any(), any());
+        // os dois ficam registrados para medir a latência, mas nenhum reserva o hash
+        assertThat(inFlight.snapshot()).hasSize(2).allSatisfy(view -> assertThat(view.fileHash()).isNull());
+    }
+
+    @Test
+    void submit_shouldReleaseHashWhenPublishFails() {
+        when(analysisService.findReusableByFileHash(eq("hash-abc"), any(), any())).thenReturn(Optional.empty());
+        doThrow(new AmqpException("broker fora")).when(rabbitTemplate)
+                .convertAndSend(eq(""), eq(properties.getRequestQueue()), any(Object.class));
+
+        assertThatThrownBy(() -> publisher.submit(request("//srv/dxf/NR777777_CLIENTE.DXF", "hash-abc", null)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(inFlight.size()).isZero();
     }
 
     @Test
@@ -68,6 +155,17 @@ class DXFAnalysisRequestPublisherTest {
         assertThat(flags.get("requestId")).isEqualTo(analysisId);
     }
 
+    @Test
+    void republish_shouldReuseAnalysisId() {
+        DXFAnalysisRequestDTO dto = request("//srv/dxf/NR777777_CLIENTE.DXF", "hash-abc", null);
+        ArgumentCaptor<Map> payloadCaptor = ArgumentCaptor.forClass(Map.class);
+
+        publisher.republish(new DXFAnalysisInFlightRegistry.Republish("pedido-1", dto, 2));
+
+        verify(rabbitTemplate).convertAndSend(eq(""), eq(properties.getRequestQueue()), payloadCaptor.capture());
+        assertThat(payloadCaptor.getValue().get("analysisId")).isEqualTo("pedido-1");
+    }
+
     @Test
     void publish_shouldRejectMissingFilePath() {
         DXFAnalysisRequestDTO dto = new DXFAnalysisRequestDTO(
@@ -5,25 +5,35 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
 import git.yannynz.organizadorproducao.model.DXFAnalysis;
 import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.DXFAnalysisSummary;
 import git.yannynz.organizadorproducao.model.dto.DXFAnalysisView;
 import git.yannynz.organizadorproducao.repository.DXFAnalysisRepository;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.server.ResponseStatusException;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,7 +64,8 @@ class DXFAnalysisServiceTest {
             meterRegistry.close();
         }
         meterRegistry = new SimpleMeterRegistry();
-        service = new DXFAnalysisService(analysisRepository, orderRepository, messagingTemplate, meterRegistry, properties);
+        service = new DXFAnalysisService(analysisRepository, orderRepository,
+                new OrderNrCache(orderRepository, 100), messagingTemplate, meterRegistry, properties, Runnable::run);
     }
 
     @Test
@@ -92,8 +103,7 @@ class DXFAnalysisServiceTest {
         order.setId(42L);
         order.setNr("123456");
 
-        when(orderRepository.findTopByNrOrderByIdDesc("123456"))
-                .thenReturn(Optional.of(order));
+        when(orderRepository.findTopByNrOrderByIdDesc("123456")).thenReturn(Optional.of(order));
         when(analysisRepository.findByAnalysisId("analysis-123"))
                 .thenReturn(Optional.empty());
         when(analysisRepository.save(any(DXFAnalysis.class)))
@@ -211,8 +221,6 @@ class DXFAnalysisServiceTest {
                 .thenAnswer(invocation -> invocation.getArgument(0));
         when(orderRepository.findTopByNrOrderByIdDesc("321654"))
                 .thenReturn(Optional.empty());
-        when(orderRepository.findByNr("321654"))
-                .thenReturn(Optional.empty());
 
         DXFAnalysis result = service.persistFromPayload(payload);
 
@@ -229,7 +237,10 @@ class DXFAnalysisServiceTest {
         assertThat(result.getScoreStars()).isEqualTo(4.5);
 
         DXFAnalysisView view = service.toView(result);
-        assertThat(view.imageUrl()).isEqualTo("http://cdn.example.com/renders/sha/analysis-storage.png");
+        assertThat(view.imageUrl()).isEqualTo("/api/dxf-analysis/" + result.getAnalysisId() + "/image");
+        assertThat(view.thumbnailUrl()).isEqualTo("/api/dxf-analysis/" + result.getAnalysisId() + "/thumbnail");
+        assertThat(service.resolveHttpImageUrl(result))
+                .contains("http://cdn.example.com/renders/sha/analysis-storage.png");
         assertThat(view.imageBucket()).isEqualTo("facas-renders");
 
         var uploadCounter = meterRegistry.find("organizador_dxf_analysis_upload_total")
@@ -245,16 +256,20 @@ class DXFAnalysisServiceTest {
     }
 
     @Test
-    void toView_shouldDeriveImageUrlFromUriWhenKeyMissing() {
+    void toView_shouldPointToApiWhileStorageUrlIsDerivedFromUri() {
         properties.setImageBaseUrl("http://public.local/facas-renders");
-        service = new DXFAnalysisService(analysisRepository, orderRepository, messagingTemplate, meterRegistry, properties);
+        service = new DXFAnalysisService(analysisRepository, orderRepository,
+                new OrderNrCache(orderRepository, 100), messagingTemplate, meterRegistry, properties, Runnable::run);
 
         DXFAnalysis analysis = new DXFAnalysis();
+        analysis.setAnalysisId("a b-1");
         analysis.setImageBucket("facas-renders");
         analysis.setImageUri("http://minio:9000/facas-renders/renders/sample.png?X-Amz-Expires=3600");
 
+        assertThat(service.resolveHttpImageUrl(analysis)).contains("http://public.local/facas-renders/renders/sample.png");
         DXFAnalysisView view = service.toView(analysis);
-        assertThat(view.imageUrl()).isEqualTo("http://public.local/facas-renders/renders/sample.png");
+        assertThat(view.imageUrl()).isEqualTo("/api/dxf-analysis/a%20b-1/image");
+        assertThat(view.thumbnailUrl()).isEqualTo("/api/dxf-analysis/a%20b-1/thumbnail");
     }
 
     @Test
@@ -270,28 +285,157 @@ class DXFAnalysisServiceTest {
         olderWithImage.setImageKey("renders/sha/nr120184.png");
         olderWithImage.setAnalyzedAt(OffsetDateTime.parse("2026-01-09T12:00:00Z"));
 
-        when(analysisRepository.findTopByOrderNrOrderByAnalyzedAtDesc("120184"))
-                .thenReturn(Optional.of(latestWithoutImage));
-        when(analysisRepository.findTopByOrderNrOrderByAnalyzedAtDesc("NR120184"))
-                .thenReturn(Optional.of(olderWithImage));
-        when(analysisRepository.findTopByOrderNrOrderByAnalyzedAtDesc("CL120184"))
-                .thenReturn(Optional.empty());
-        when(analysisRepository.findLatestWithImageByOrderNr("120184", org.springframework.data.domain.PageRequest.of(0, 1)))
-                .thenReturn(List.of());
-        when(analysisRepository.findLatestWithImageByOrderNr("NR120184", org.springframework.data.domain.PageRequest.of(0, 1)))
-                .thenReturn(List.of(olderWithImage));
-        when(analysisRepository.findLatestWithImageByOrderNr("CL120184", org.springframework.data.domain.PageRequest.of(0, 1)))
-                .thenReturn(List.of());
+        // a consulta por order_nr_key devolve a mais recente com imagem entre todas as variantes do NR
+        when(analysisRepository.findLatestByOrderNrKey("120184")).thenReturn(Optional.of(olderWithImage));
 
         Optional<DXFAnalysis> result = service.findLatestByOrderNr("NR 120184");
 
         assertThat(result).containsSame(olderWithImage);
     }
 
+    @Test
+    void findLatestViewByOrderNr_shouldServeFromCacheUntilNewResultForSameOrder() throws Exception {
+        DXFAnalysis analysis = new DXFAnalysis();
+        analysis.setAnalysisId("cached");
+        analysis.setOrderNr("120184");
+        analysis.setOrderNrKey("120184");
+        when(analysisRepository.findLatestByOrderNrKey("120184")).thenReturn(Optional.of(analysis));
+        when(analysisRepository.findLatestByOrderNrKey("555")).thenReturn(Optional.empty());
+
+        assertThat(service.findLatestViewByOrderNr("NR120184")).get()
+                .extracting(DXFAnalysisView::analysisId).isEqualTo("cached");
+        assertThat(service.findLatestViewByOrderNr("CL 120184")).isPresent();
+        assertThat(service.findLatestViewByOrderNr("555")).isEmpty();
+        assertThat(service.findLatestViewByOrderNr("555")).isEmpty();
+        verify(analysisRepository, times(1)).findLatestByOrderNrKey("120184");
+        verify(analysisRepository, times(1)).findLatestByOrderNrKey("555");
+
+        JsonNode payload = objectMapper.readTree("""
+                {"analysisId": "novo", "opId": "NR120184", "fileName": "NR120184.DXF"}
+                """);
+        when(analysisRepository.findByAnalysisId("novo")).thenReturn(Optional.empty());
+        when(analysisRepository.save(any(DXFAnalysis.class))).thenAnswer(inv -> inv.getArgument(0));
+        service.persistFromPayload(payload);
+
+        service.findLatestViewByOrderNr("120184");
+        service.findLatestViewByOrderNr("555");
+        verify(analysisRepository, times(2)).findLatestByOrderNrKey("120184");
+        verify(analysisRepository, times(1)).findLatestByOrderNrKey("555");
+    }
+
+    @Test
+    void findLatestSummaries_shouldQueryOnlyOrdersMissingFromCacheInOnePass() {
+        DXFAnalysis cached = new DXFAnalysis();
+        cached.setAnalysisId("cached");
+        cached.setOrderNr("100");
+        cached.setOrderNrKey("100");
+        cached.setScore(3.0);
+        when(analysisRepository.findLatestByOrderNrKey("100")).thenReturn(Optional.of(cached));
+        service.findLatestViewByOrderNr("100");
+
+        DXFAnalysis fromDb = new DXFAnalysis();
+        fromDb.setAnalysisId("db");
+        fromDb.setOrderNr("200");
+        fromDb.setOrderNrKey("200");
+        fromDb.setScoreStars(4.5);
+        fromDb.setImageUri("http://storage.local/renders/200.png");
+        when(analysisRepository.findLatestSummariesByOrderNrKeyIn(Set.of("200", "300"))).thenReturn(List.of(fromDb));
+
+        Map<String, DXFAnalysisSummary> result = service.findLatestSummaries(List.of("NR100", "NR 200", "300", " "));
+
+        assertThat(result).containsOnlyKeys("NR100", "NR 200");
+        assertThat(result.get("NR100").analysisId()).isEqualTo("cached");
+        assertThat(result.get("NR100").score()).isEqualTo(3.0);
+        assertThat(result.get("NR 200").scoreStars()).isEqualTo(4.5);
+        assertThat(result.get("NR 200").imageUrl()).isEqualTo("/api/dxf-analysis/db/image");
+        assertThat(result.get("NR 200").thumbnailUrl()).isEqualTo("/api/dxf-analysis/db/thumbnail");
+        assertThat(result.get("NR100").imageUrl()).isNull();
+        verify(analysisRepository, times(1)).findLatestByOrderNrKey("100");
+    }
+
+    @Test
+    void findLatestSummaries_shouldRejectBatchOverLimit() {
+        properties.setLatestBatchMaxItems(2);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.findLatestSummaries(List.of("1", "2", "3")));
+
+        assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verify(analysisRepository, never()).findLatestSummariesByOrderNrKeyIn(any());
+    }
+
+    @Test
+    void findReusableByFileHash_shouldCloneCompletedAnalysisForAnotherOrder() {
+        DXFAnalysis source = new DXFAnalysis();
+        source.setAnalysisId("origem");
+        source.setOrderNr("120184");
+        source.setOrderNrKey("120184");
+        source.setFileHash("h1");
+        source.setScore(4.0);
+        source.setImageKey("renders/h1.png");
+        source.setRawPayload(objectMapper.createObjectNode().put("analysisId", "origem"));
+        Order order = new Order();
+        order.setId(9L);
+        order.setNr("555");
+        when(analysisRepository.findLatestByFileHash("h1")).thenReturn(Optional.of(source));
+        when(analysisRepository.findTopByFileHashAndOrderNrKeyOrderByAnalyzedAtDesc("h1", "555")).thenReturn(Optional.empty());
+        when(orderRepository.findTopByNrOrderByIdDesc("555")).thenReturn(Optional.of(order));
+        when(analysisRepository.save(any(DXFAnalysis.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        DXFAnalysis clone = service.findReusableByFileHash("h1", "NR555", "NR555.DXF").orElseThrow();
+
+        assertThat(clone.getAnalysisId()).isNotEqualTo("origem");
+        assertThat(clone.getOrderNrKey()).isEqualTo("555");
+        assertThat(clone.getOrder()).isSameAs(order);
+        assertThat(clone.isCacheHit()).isTrue();
+        assertThat(clone.getScore()).isEqualTo(4.0);
+        assertThat(clone.getImageKey()).isEqualTo("renders/h1.png");
+        assertThat(clone.getFileName()).isEqualTo("NR555.DXF");
+        assertThat(clone.getRawPayload().path("clonedFrom").asText()).isEqualTo("origem");
+        assertThat(source.getRawPayload().path("clonedFrom").isMissingNode()).isTrue();
+        verify(messagingTemplate).convertAndSend(eq("/topic/dxf-analysis"), any(DXFAnalysisView.class));
+    }
+
+    @Test
+    void reuseForOrder_shouldSaveCopyWithPromisedIdAndBroadcastOnlyAfterCommit() {
+        DXFAnalysis source = new DXFAnalysis();
+        source.setAnalysisId("origem");
+        source.setOrderNrKey("120184");
+        source.setFileHash("h1");
+        when(analysisRepository.findTopByFileHashAndOrderNrKeyOrderByAnalyzedAtDesc("h1", "555")).thenReturn(Optional.empty());
+        when(analysisRepository.save(any(DXFAnalysis.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            DXFAnalysis copy = service.reuseForOrder(source, "555", null, "id-prometido");
+
+            assertThat(copy.getAnalysisId()).isEqualTo("id-prometido");
+            verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(messagingTemplate).convertAndSend(eq("/topic/dxf-analysis"), any(DXFAnalysisView.class));
+    }
+
+    @Test
+    void findReusableByFileHash_shouldReturnSameAnalysisForSameOrder() {
+        DXFAnalysis source = new DXFAnalysis();
+        source.setAnalysisId("origem");
+        source.setOrderNrKey("120184");
+        source.setFileHash("h1");
+        when(analysisRepository.findLatestByFileHash("h1")).thenReturn(Optional.of(source));
+
+        assertThat(service.findReusableByFileHash("h1", "NR 120184", null)).containsSame(source);
+        verify(analysisRepository, never()).save(any(DXFAnalysis.class));
+    }
+
     @Test
     void loadAnalysisImage_shouldRedirectToResolvedPublicStorageUrl() {
         properties.setImageBaseUrl("http://192.168.10.13:9000/facas-renders");
-        service = new DXFAnalysisService(analysisRepository, orderRepository, messagingTemplate, meterRegistry, properties);
+        service = new DXFAnalysisService(analysisRepository, orderRepository,
+                new OrderNrCache(orderRepository, 100), messagingTemplate, meterRegistry, properties, Runnable::run);
 
         DXFAnalysis analysis = new DXFAnalysis();
         analysis.setAnalysisId("analysis-image");
@@ -318,4 +462,66 @@ class DXFAnalysisServiceTest {
         assertThat(failedCounter).isNotNull();
         assertThat(failedCounter.count()).isEqualTo(1.0);
     }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void persistBatch_shouldResolveOrdersAndImagesInBulkAndUpsertOnce() throws Exception {
+        JsonNode comImagem = objectMapper.readTree("""
+                {"analysisId": "a-1", "timestampUtc": "2026-01-10T10:00:00Z", "opId": "NR120184",
+                 "fileName": "NR120184.DXF", "fileHash": "h1", "score": 3.0,
+                 "image": {"storageKey": "renders/h1.png", "uploadStatus": "uploaded"}}
+                """);
+        JsonNode semImagem = objectMapper.readTree("""
+                {"analysisId": "a-2", "timestampUtc": "2026-01-10T11:00:00Z", "opId": "NR120184",
+                 "fileName": "NR120184.DXF", "fileHash": "h1", "score": 3.5}
+                """);
+        JsonNode repetido = objectMapper.readTree("""
+                {"analysisId": "a-1", "timestampUtc": "2026-01-10T12:00:00Z", "opId": "NR120184",
+                 "fileName": "NR120184.DXF", "fileHash": "h1", "score": 4.0,
+                 "image": {"storageKey": "renders/h1-v2.png", "uploadStatus": "uploaded"}}
+                """);
+
+        Order order = new Order();
+        order.setId(42L);
+        order.setNr("120184");
+        when(orderRepository.findByNrInOrderByIdDesc(any())).thenReturn(List.of(order));
+        // o banco devolve as linhas com id e os campos de imagem mantidos pelo coalesce do upsert
+        DXFAnalysis gravadaA1 = stored(11L, "a-1", "renders/h1-v2.png", "etag-a1");
+        DXFAnalysis gravadaA2 = stored(10L, "a-2", "renders/h1-v2.png", "etag-antigo");
+        when(analysisRepository.findByAnalysisIdIn(any())).thenReturn(List.of(gravadaA1, gravadaA2));
+
+        List<DXFAnalysis> result = service.persistBatch(List.of(comImagem, semImagem, repetido));
+
+        assertThat(result).containsExactly(gravadaA2, gravadaA1);
+
+        ArgumentCaptor<List<DXFAnalysis>> upserted = ArgumentCaptor.forClass(List.class);
+        verify(analysisRepository).upsertAll(upserted.capture());
+        List<DXFAnalysis> enviados = upserted.getValue();
+        assertThat(enviados).extracting(DXFAnalysis::getAnalysisId).containsExactly("a-2", "a-1");
+        assertThat(enviados).allSatisfy(a -> assertThat(a.getOrder()).isSameAs(order));
+        assertThat(enviados.get(1).getScore()).isEqualTo(4.0);
+        assertThat(enviados.get(0).getImageKey()).isEqualTo("renders/h1-v2.png");
+        assertThat(enviados.get(1).getRawPayload()).isSameAs(repetido);
+
+        ArgumentCaptor<DXFAnalysisView> views = ArgumentCaptor.forClass(DXFAnalysisView.class);
+        verify(analysisRepository, never()).findByAnalysisId(any());
+        verify(analysisRepository, never()).save(any(DXFAnalysis.class));
+        verify(orderRepository, never()).findTopByNrOrderByIdDesc(any());
+        verify(messagingTemplate, org.mockito.Mockito.times(2))
+                .convertAndSend(eq("/topic/dxf-analysis"), views.capture());
+        assertThat(views.getAllValues()).extracting(DXFAnalysisView::imageEtag).containsExactly("etag-antigo", "etag-a1");
+        assertThat(meterRegistry.find("organizador_dxf_analysis_total").tag("status", "success").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    private static DXFAnalysis stored(Long id, String analysisId, String imageKey, String etag) {
+        DXFAnalysis a = new DXFAnalysis();
+        a.setId(id);
+        a.setAnalysisId(analysisId);
+        a.setOrderNr("120184");
+        a.setOrderNrKey("120184");
+        a.setImageKey(imageKey);
+        a.setImageEtag(etag);
+        return a;
+    }
 }
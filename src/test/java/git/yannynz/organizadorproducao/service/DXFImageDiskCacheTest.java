@@ -0,0 +1,135 @@
+package git.yannynz.organizadorproducao.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DXFImageDiskCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-10-18T12:00:00Z"));
+    }
+
+    private static DXFImageDiskCache.Writer bytes(int size) {
+        return target -> Files.write(target, new byte[size]);
+    }
+
+    @Test
+    void geraUmaVezEServeDoDisco() throws Exception {
+        DXFImageDiskCache cache = new DXFImageDiskCache(dir, 1000);
+        AtomicInteger writes = new AtomicInteger();
+
+        Path first = cache.computeIfAbsent("a", target -> {
+            writes.incrementAndGet();
+            Files.write(target, new byte[10]);
+        });
+        Path second = cache.computeIfAbsent("a", bytes(99));
+
+        assertThat(first).isEqualTo(second).isEqualTo(dir.resolve("a"));
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(Files.size(first)).isEqualTo(10);
+        assertThat(cache.sizeBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void descartaOMenosUsadoQuandoPassaDoLimite() throws Exception {
+        DXFImageDiskCache cache = new DXFImageDiskCache(dir, 250, clock);
+        cache.computeIfAbsent("a", bytes(100));
+        cache.computeIfAbsent("b", bytes(100));
+        clock.advance(DXFImageDiskCache.READ_LEASE.plusSeconds(1));
+        assertThat(cache.get("a")).isNotNull(); // "b" passa a ser o menos usado
+
+        cache.computeIfAbsent("c", bytes(100));
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(Files.exists(dir.resolve("b"))).isFalse();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.sizeBytes()).isEqualTo(200);
+    }
+
+    @Test
+    void naoDescartaArquivoAindaEmLeitura() throws Exception {
+        DXFImageDiskCache cache = new DXFImageDiskCache(dir, 150, clock);
+        cache.computeIfAbsent("a", bytes(100));
+        clock.advance(Duration.ofSeconds(10));
+
+        cache.computeIfAbsent("b", bytes(100));
+
+        // "a" acabou de ser entregue e pode estar sendo transmitido: o limite espera o lease
+        assertThat(Files.exists(dir.resolve("a"))).isTrue();
+        assertThat(cache.sizeBytes()).isEqualTo(200);
+
+        clock.advance(DXFImageDiskCache.READ_LEASE.minusSeconds(5)); // "a" saiu do lease, "b" ainda não
+        cache.computeIfAbsent("c", bytes(10));
+
+        assertThat(Files.exists(dir.resolve("a"))).isFalse();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(cache.sizeBytes()).isEqualTo(110);
+    }
+
+    @Test
+    void remontaOIndiceDoDiretorioEApagaTemporarios() throws Exception {
+        Files.write(dir.resolve("velho"), new byte[40]);
+        Files.write(dir.resolve("img-123.tmp"), new byte[40]);
+
+        DXFImageDiskCache cache = new DXFImageDiskCache(dir, 1000);
+
+        assertThat(cache.get("velho")).isEqualTo(dir.resolve("velho"));
+        assertThat(cache.sizeBytes()).isEqualTo(40);
+        assertThat(Files.exists(dir.resolve("img-123.tmp"))).isFalse();
+    }
+
+    @Test
+    void arquivoApagadoForaDoCacheViraMiss() throws Exception {
+        DXFImageDiskCache cache = new DXFImageDiskCache(dir, 1000);
+        cache.computeIfAbsent("a", bytes(10));
+        Files.delete(dir.resolve("a"));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
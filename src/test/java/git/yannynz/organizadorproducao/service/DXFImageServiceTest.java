@@ -0,0 +1,170 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.config.DXFAnalysisProperties;
+import git.yannynz.organizadorproducao.model.DXFAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DXFImageServiceTest {
+
+    @Mock
+    private DXFAnalysisService analysisService;
+
+    @TempDir
+    Path tmp;
+
+    private Path renders;
+    private DXFAnalysisProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        renders = Files.createDirectories(tmp.resolve("renders"));
+        properties = new DXFAnalysisProperties();
+        properties.setImageLocalRoots(List.of(renders.toString()));
+        properties.getImageCache().setEnabled(true);
+        properties.getImageCache().setDir(tmp.resolve("cache").toString());
+        properties.getImageCache().setThumbnailWidth(40);
+    }
+
+    private DXFImageService service() {
+        return new DXFImageService(analysisService, properties, new SimpleMeterRegistry());
+    }
+
+    private DXFAnalysis analysis(String imagePath) {
+        DXFAnalysis analysis = new DXFAnalysis();
+        analysis.setAnalysisId("a-1");
+        analysis.setImagePath(imagePath);
+        analysis.setImageChecksum("abc123");
+        when(analysisService.findByAnalysisId("a-1")).thenReturn(Optional.of(analysis));
+        return analysis;
+    }
+
+    private Path png(String relative, int width, int height) throws Exception {
+        Path file = renders.resolve(relative);
+        Files.createDirectories(file.getParent());
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file;
+    }
+
+    @Test
+    void servesFileUnderLocalRootResolvingWorkerRelativePath() throws Exception {
+        Path file = png("sha/nr120184.png", 200, 100);
+        analysis("./artifacts/renders/sha/nr120184.png");
+
+        ResponseEntity<?> response = service().image("a-1", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((FileSystemResource) response.getBody()).getFile().toPath()).isEqualTo(file);
+        assertThat(response.getHeaders().getETag()).isNotBlank();
+    }
+
+    @Test
+    void answersNotModifiedWhenEtagMatches() throws Exception {
+        png("sha/x.png", 10, 10);
+        analysis("sha/x.png");
+        DXFImageService service = service();
+        String etag = service.image("a-1", null).getHeaders().getETag();
+
+        ResponseEntity<?> response = service.image("a-1", "W/" + etag);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void generatesThumbnailOnceAndServesItFromCache() throws Exception {
+        png("sha/x.png", 200, 100);
+        analysis("sha/x.png");
+        DXFImageService service = service();
+
+        ResponseEntity<?> first = service.thumbnail("a-1", null);
+        ResponseEntity<?> second = service.thumbnail("a-1", null);
+
+        Path thumb = ((FileSystemResource) first.getBody()).getFile().toPath();
+        assertThat(thumb).startsWith(tmp.resolve("cache"));
+        assertThat(((FileSystemResource) second.getBody()).getFile().toPath()).isEqualTo(thumb);
+        BufferedImage image = ImageIO.read(thumb.toFile());
+        assertThat(image.getWidth()).isEqualTo(40);
+        assertThat(image.getHeight()).isEqualTo(20);
+        assertThat(first.getHeaders().getETag()).isNotEqualTo(service.image("a-1", null).getHeaders().getETag());
+    }
+
+    @Test
+    void rejectsPathTraversalAndFallsBackToRedirect() throws Exception {
+        Files.writeString(tmp.resolve("secret.png"), "x");
+        DXFAnalysis analysis = analysis("../secret.png");
+        when(analysisService.resolveHttpImageUrl(analysis)).thenReturn(Optional.empty());
+        when(analysisService.redirectToImage(analysis)).thenReturn(ResponseEntity.notFound().build());
+
+        ResponseEntity<?> response = service().image("a-1", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void redirectsWhenCacheIsDisabledAndFileIsNotLocal() {
+        properties.getImageCache().setEnabled(false);
+        DXFAnalysis analysis = analysis("C:\\renders\\missing.png");
+        when(analysisService.redirectToImage(analysis)).thenReturn(ResponseEntity.status(HttpStatus.FOUND).build());
+
+        ResponseEntity<?> response = service().image("a-1", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FOUND);
+        verify(analysisService, never()).resolveHttpImageUrl(any());
+    }
+
+    @Test
+    void scalesThumbnailInMemoryWhenCacheIsDisabled() throws Exception {
+        properties.getImageCache().setEnabled(false);
+        png("sha/x.png", 200, 100);
+        analysis("sha/x.png");
+        DXFImageService service = service();
+
+        ResponseEntity<?> response = service.thumbnail("a-1", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        byte[] png = ((ByteArrayResource) response.getBody()).getByteArray();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertThat(image.getWidth()).isEqualTo(40);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(service.image("a-1", null).getHeaders().getETag());
+        assertThat(Files.exists(tmp.resolve("cache"))).isFalse();
+    }
+
+    @Test
+    void thumbnailIsNotFoundInsteadOfFullImageWhenNothingToScale() {
+        properties.getImageCache().setEnabled(false);
+        analysis("C:\\renders\\missing.png");
+
+        assertThatThrownBy(() -> service().thumbnail("a-1", null))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        verify(analysisService, never()).redirectToImage(any());
+    }
+}
@@ -0,0 +1,101 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileEventDeduplicatorTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private FileEventDeduplicator dedup;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-10-18T12:00:00Z"));
+        dedup = new FileEventDeduplicator(registry, null, 60_000, 16, false, clock);
+    }
+
+    private String key(String queue, String json) throws Exception {
+        JsonNode node = mapper.readTree(json);
+        return dedup.key(queue, node, json);
+    }
+
+    @Test
+    void chaveConsideraFilaArquivoETimestamp() throws Exception {
+        String a = key("laser_notifications", "{\"file_name\":\"NR1.CNC\",\"timestamp\":1}");
+
+        assertEquals(a, key("laser_notifications", "{\"file_name\":\"NR1.CNC\",\"path\":\"/x\",\"timestamp\":1}"));
+        assertNotEquals(a, key("laser_notifications", "{\"file_name\":\"NR1.CNC\",\"timestamp\":2}"));
+        assertNotEquals(a, key("facas_notifications", "{\"file_name\":\"NR1.CNC\",\"timestamp\":1}"));
+        // sem timestamp vale o corpo inteiro
+        assertNotEquals(key("laser_notifications", "{\"file_name\":\"NR1.CNC\",\"path\":\"/a\"}"),
+                key("laser_notifications", "{\"file_name\":\"NR1.CNC\",\"path\":\"/b\"}"));
+        assertNull(key("laser_notifications", "{\"path\":\"/a\"}"));
+    }
+
+    @Test
+    void soChaveLembradaEDuplicadaEExpiraComAJanela() throws Exception {
+        String k = key("dobra_notifications", "{\"file_name\":\"NR 1.m.DXF\",\"timestamp\":1}");
+
+        assertFalse(dedup.isDuplicate("dobra_notifications", k));
+        dedup.remember("dobra_notifications", k);
+        assertTrue(dedup.isDuplicate("dobra_notifications", k));
+        assertEquals(1.0, registry.get("organizador_filewatcher_duplicates_suppressed_total")
+                .tag("queue", "dobra_notifications").counter().count());
+
+        clock.advance(Duration.ofSeconds(61));
+        assertFalse(dedup.isDuplicate("dobra_notifications", k));
+        assertEquals(0.0, registry.get("organizador_filewatcher_dedup_keys").gauge().value());
+    }
+
+    @Test
+    void limiteDeTamanhoDescartaAsMaisAntigas() throws Exception {
+        String primeira = key("laser_notifications", "{\"file_name\":\"NR0.CNC\",\"timestamp\":0}");
+        dedup.remember("laser_notifications", primeira);
+        for (int i = 1; i <= 16; i++) {
+            dedup.remember("laser_notifications", key("laser_notifications", "{\"file_name\":\"NR" + i + ".CNC\",\"timestamp\":0}"));
+        }
+
+        assertFalse(dedup.isDuplicate("laser_notifications", primeira));
+        assertEquals(16.0, registry.get("organizador_filewatcher_dedup_keys").gauge().value());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package git.yannynz.organizadorproducao.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class FileNameClassifierTest {
+
+    private final FileNameClassifier classifier = new FileNameClassifier();
+
+    @Test
+    void classify_NomeLaserNr() {
+        FileNameClassifier.Classificacao c = classifier.classify("NR123456CLIENTE TESTE_VERMELHO.CNC");
+
+        assertThat(c.isLaser()).isTrue();
+        assertThat(c.prefixo()).isEqualTo(FileNameClassifier.Prefixo.NR);
+        assertThat(c.orderNumber()).isEqualTo("123456");
+        assertThat(c.cliente()).isEqualTo("CLIENTE TESTE");
+        assertThat(c.prioridade()).isEqualTo("VERMELHO");
+        assertThat(c.referencia()).isEqualTo("123456");
+        assertThat(c.sexo()).isEqualTo(FileNameClassifier.Sexo.DESCONHECIDO);
+        assertThat(c.isDobras()).isFalse();
+    }
+
+    @Test
+    void classify_NomeLaserClSemExtensao() {
+        FileNameClassifier.Classificacao c = classifier.classify("CL4321ACME_AZUL");
+
+        assertThat(c.prefixo()).isEqualTo(FileNameClassifier.Prefixo.CL);
+        assertThat(c.orderNumber()).isEqualTo("4321");
+        assertThat(c.prioridade()).isEqualTo("AZUL");
+    }
+
+    @Test
+    void classify_DestaqueMachoEFemea() {
+        FileNameClassifier.Classificacao macho = classifier.classify("NR555_MACHO.CNC");
+        FileNameClassifier.Classificacao femea = classifier.classify("nr555-FÊMEA.cnc");
+        FileNameClassifier.Classificacao ambos = classifier.classify("NR555_FEMEA_MACHO.CNC");
+
+        assertThat(macho.isLaser()).isFalse();
+        assertThat(macho.referencia()).isEqualTo("555");
+        assertThat(macho.sexo()).isEqualTo(FileNameClassifier.Sexo.M);
+        assertThat(macho.hasDestaque()).isTrue();
+        assertThat(femea.sexo()).isEqualTo(FileNameClassifier.Sexo.F);
+        assertThat(ambos.sexo()).isEqualTo(FileNameClassifier.Sexo.M);
+    }
+
+    @Test
+    void classify_NaoConfundeVermelhoComDestaque() {
+        FileNameClassifier.Classificacao c = classifier.classify("NR777CLIENTEMACHOX_VERMELHO.CNC");
+
+        assertThat(c.sexo()).isEqualTo(FileNameClassifier.Sexo.DESCONHECIDO);
+        assertThat(c.hasDestaque()).isFalse();
+    }
+
+    @Test
+    void classify_SufixosDeDobras() {
+        assertThat(classifier.classify("NR 987654 RETRABALHO.m.DXF").dobrasOrderNumber()).isEqualTo("987654");
+        assertThat(classifier.classify("nr999991 ajuste.dxf.fcd").dobrasOrderNumber()).isEqualTo("999991");
+        assertThat(classifier.classify("NR 123456.txt").isDobras()).isFalse();
+        assertThat(classifier.classify("arquivo qualquer.m.DXF").isDobras()).isFalse();
+    }
+
+    @Test
+    void classify_NuloRetornaVazio() {
+        FileNameClassifier.Classificacao c = classifier.classify(null);
+
+        assertThat(c.isLaser()).isFalse();
+        assertThat(c.isDobras()).isFalse();
+        assertThat(c.hasDestaque()).isFalse();
+    }
+}
@@ -1,25 +1,41 @@
 package git.yannynz.organizadorproducao.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.model.Order;
 import git.yannynz.organizadorproducao.monitoring.MessageProcessingMetrics;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class FileWatcherServicePriorityTest {
 
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
+    private CoalescingBroadcaster broadcaster;
 
     @Mock
     private OrderRepository orderRepository;
@@ -30,9 +46,40 @@ public class FileWatcherServicePriorityTest {
     @Mock
     private MessageProcessingMetrics messageProcessingMetrics;
 
+    @Mock
+    private ConsumerFailureRecoverer failureRecoverer;
+
+    @Mock
+    private ClienteDefaultsService clienteDefaultsService;
+
+    @Spy
+    private FileNameClassifier fileNameClassifier = new FileNameClassifier();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private FileEventDeduplicator deduplicator = new FileEventDeduplicator(meterRegistry, null, 60_000, 100, false);
+
     @InjectMocks
     private FileWatcherService fileWatcherService;
 
+    @BeforeEach
+    void setUp() {
+        // transação de mentira, mas com sincronização: afterCommit só roda se o callback terminar sem erro
+        ReflectionTestUtils.setField(fileWatcherService, "tx", new TransactionTemplate(new NoOpTransactionManager()));
+    }
+
+    private static List<Message> mensagens(String queue, String... bodies) {
+        return Arrays.stream(bodies).map(body -> {
+            MessageProperties props = new MessageProperties();
+            props.setConsumerQueue(queue);
+            return new Message(body.getBytes(StandardCharsets.UTF_8), props);
+        }).toList();
+    }
+
     @Test
     public void shouldUpdatePriorityWhenFileRenamed() throws Exception {
         // Arrange
@@ -55,16 +102,18 @@ public class FileWatcherServicePriorityTest {
             return null;
         }).when(messageProcessingMetrics).recordProcessing(anyString(), any(MessageProcessingMetrics.ThrowingRunnable.class));
 
-        when(orderRepository.findByNr("1234")).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.findByNrInOrderByIdDesc(anyCollection())).thenReturn(List.of(existingOrder));
+        when(orderRepository.saveAll(anyCollection())).thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
 
         // Act
-        fileWatcherService.handleLaserQueue(renamedJson);
+        fileWatcherService.handleLaserQueue(mensagens("laser_notifications", renamedJson));
 
         // Assert
-        verify(orderRepository, times(1)).save(argThat(order -> 
-            order.getNr().equals("1234") && order.getPrioridade().equals("AZUL")
+        verify(orderRepository, times(1)).saveAll(argThat(orders ->
+            orders.iterator().next().getNr().equals("1234")
+                && orders.iterator().next().getPrioridade().equals("AZUL")
         ));
-        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/orders"), any(Order.class));
+        verify(broadcaster, times(1)).publishOrders(eq(CoalescingBroadcaster.ORDERS), argThat(orders -> orders.size() == 1));
     }
 
     @Test
@@ -86,12 +135,139 @@ public class FileWatcherServicePriorityTest {
             return null;
         }).when(messageProcessingMetrics).recordProcessing(anyString(), any(MessageProcessingMetrics.ThrowingRunnable.class));
 
-        when(orderRepository.findByNr("1234")).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.findByNrInOrderByIdDesc(anyCollection())).thenReturn(List.of(existingOrder));
 
         // Act
-        fileWatcherService.handleLaserQueue(json);
+        fileWatcherService.handleLaserQueue(mensagens("laser_notifications", json));
 
         // Assert
         verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRepository, never()).saveAll(anyCollection());
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    public void shouldResolveBatchWithSingleQueryAndSingleFrame() throws Exception {
+        // Arrange
+        Order cortada = new Order();
+        cortada.setId(1L);
+        cortada.setNr("1000");
+        cortada.setStatus(0);
+
+        Order pronta = new Order();
+        pronta.setId(2L);
+        pronta.setNr("2000");
+        pronta.setStatus(0);
+
+        doAnswer(invocation -> {
+            MessageProcessingMetrics.ThrowingRunnable runnable = invocation.getArgument(1);
+            runnable.run();
+            return null;
+        }).when(messageProcessingMetrics).recordProcessing(anyString(), any(MessageProcessingMetrics.ThrowingRunnable.class));
+
+        when(orderRepository.findByNrInOrderByIdDesc(anyCollection())).thenReturn(List.of(cortada, pronta));
+        when(orderRepository.saveAll(anyCollection())).thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+
+        // Act
+        List<Message> lote = mensagens("facas_notifications",
+            "{\"file_name\": \"NR1000CLIENTE_AZUL.CNC\"}",
+            "{\"file_name\": \"CL2000CLIENTE_VERDE.CNC\"}",
+            "json quebrado",
+            "{\"file_name\": \"NR1000CLIENTE_AZUL.CNC\"}"
+        );
+        fileWatcherService.handleFacasOkQueue(lote);
+
+        // Assert
+        assertEquals(1, cortada.getStatus());
+        assertEquals(2, pronta.getStatus());
+        assertNotNull(cortada.getDataCortada());
+        verify(orderRepository, times(1)).findByNrInOrderByIdDesc(anyCollection());
+        verify(orderRepository, never()).findByNr(anyString());
+        verify(broadcaster, times(1)).publishOrders(eq(CoalescingBroadcaster.ORDERS), eq(List.of(cortada, pronta)));
+        verify(failureRecoverer).recover(eq(lote.get(2)), any(Exception.class));
+        verifyNoMoreInteractions(failureRecoverer);
+    }
+
+    @Test
+    public void shouldDropRedeliveredBatchBeforeTouchingDatabase() throws Exception {
+        Order order = new Order();
+        order.setId(3L);
+        order.setNr("3000");
+        order.setStatus(0);
+
+        doAnswer(invocation -> {
+            MessageProcessingMetrics.ThrowingRunnable runnable = invocation.getArgument(1);
+            runnable.run();
+            return null;
+        }).when(messageProcessingMetrics).recordProcessing(anyString(), any(MessageProcessingMetrics.ThrowingRunnable.class));
+
+        when(orderRepository.findByNrInOrderByIdDesc(anyCollection())).thenReturn(List.of(order));
+        when(orderRepository.saveAll(anyCollection())).thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+
+        List<Message> lote = mensagens("facas_notifications", "{\"file_name\": \"NR3000CLIENTE_AZUL.CNC\", \"timestamp\": 1700000000}");
+
+        // Act: o watcher reenvia o mesmo evento após um rescan
+        fileWatcherService.handleFacasOkQueue(lote);
+        fileWatcherService.handleFacasOkQueue(lote);
+
+        // Assert
+        verify(orderRepository, times(1)).findByNrInOrderByIdDesc(anyCollection());
+        verify(orderRepository, times(1)).saveAll(anyCollection());
+        assertEquals(1.0, meterRegistry.get("organizador_filewatcher_duplicates_suppressed_total")
+            .tag("queue", "facas_notifications").counter().count());
+    }
+
+    @Test
+    public void shouldSendOnlyFailingMessageToRecovererWhenBatchFails() throws Exception {
+        doAnswer(invocation -> {
+            MessageProcessingMetrics.ThrowingRunnable runnable = invocation.getArgument(1);
+            runnable.run();
+            return null;
+        }).when(messageProcessingMetrics).recordProcessing(anyString(), any(MessageProcessingMetrics.ThrowingRunnable.class));
+
+        // cada transação relê o pedido, como o banco faria depois do rollback
+        when(orderRepository.findByNrInOrderByIdDesc(anyCollection())).thenAnswer(invocation -> {
+            Order existente = new Order();
+            existente.setId(4L);
+            existente.setNr("4000");
+            existente.setPrioridade("VERMELHO");
+            return List.of(existente);
+        });
+        when(orderRepository.saveAll(anyCollection())).thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+        doThrow(new IllegalStateException("banco fora")).when(clienteDefaultsService).applyDefaults(any(Order.class));
+
+        List<Message> lote = mensagens("laser_notifications",
+            "{\"file_name\": \"NR4000CLIENTE_AZUL.CNC\", \"timestamp\": 1}",
+            "{\"file_name\": \"NR5000CLIENTE_AZUL.CNC\", \"timestamp\": 2}");
+
+        // Act
+        fileWatcherService.handleLaserQueue(lote);
+
+        // Assert: o lote falhou, a mensagem boa foi aplicada sozinha e só a ruim foi para retry
+        verify(orderRepository, times(1)).saveAll(argThat(orders ->
+            orders.iterator().next().getNr().equals("4000")
+                && orders.iterator().next().getPrioridade().equals("AZUL")));
+        verify(broadcaster, times(1)).publishOrders(eq(CoalescingBroadcaster.ORDERS), argThat(orders -> orders.size() == 1));
+        verify(failureRecoverer).recover(eq(lote.get(1)), any(IllegalStateException.class));
+        verifyNoMoreInteractions(failureRecoverer);
+    }
+
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
     }
 }
@@ -0,0 +1,103 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.QuarantinedMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageQuarantineServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RetryScheduler retryScheduler;
+
+    private SimpleMeterRegistry registry;
+    private MessageQuarantineService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new MessageQuarantineService(jdbc, rabbitTemplate, retryScheduler, registry);
+    }
+
+    private static QuarantinedMessage pendente(long id) {
+        return new QuarantinedMessage(id, "op.imported", "{\"numeroOp\":\"" + id + "\"}", "application/json",
+                4, "banco fora", OffsetDateTime.now(), null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pendentes(QuarantinedMessage... msgs) {
+        when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(msgs));
+    }
+
+    @Test
+    void replaySoMarcaDepoisDoEnvio() {
+        pendentes(pendente(1L), pendente(2L));
+
+        List<QuarantinedMessage> agendadas = service.replay("op.imported", 10, 10);
+
+        assertEquals(2, agendadas.size());
+        // nada marcado antes do envio: um restart aqui deixa as duas pendentes
+        verify(jdbc, never()).update(anyString(), any(Object[].class));
+        ArgumentCaptor<Runnable> envio = ArgumentCaptor.forClass(Runnable.class);
+        verify(retryScheduler).schedule(envio.capture(), eq(0L));
+        verify(retryScheduler).schedule(any(Runnable.class), eq(100L));
+
+        envio.getValue().run();
+
+        verify(rabbitTemplate).send(eq(""), eq("op.imported"), any(Message.class));
+        verify(jdbc).update("UPDATE amqp_quarantine SET replayed_at = now() WHERE id = ? AND replayed_at IS NULL", 1L);
+        assertEquals(1.0, registry.get("organizador_amqp_quarantine_replayed_total").tag("queue", "op.imported")
+                .counter().count());
+    }
+
+    @Test
+    void falhaNoEnvioMantemPendente() {
+        pendentes(pendente(1L));
+        doThrow(new AmqpConnectException(new RuntimeException("broker fora")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        service.replay(null, 10, 10);
+        ArgumentCaptor<Runnable> envio = ArgumentCaptor.forClass(Runnable.class);
+        verify(retryScheduler).schedule(envio.capture(), anyLong());
+        envio.getValue().run();
+
+        verify(jdbc, never()).update(anyString(), any(Object[].class));
+        // liberada para o próximo replay
+        assertEquals(1, service.replay(null, 10, 10).size());
+    }
+
+    @Test
+    void replaySeguidoNaoAgendaDeNovoOQueAindaNaoSaiu() {
+        pendentes(pendente(1L));
+
+        assertEquals(1, service.replay(null, 10, 10).size());
+        assertEquals(0, service.replay(null, 10, 10).size());
+
+        verify(retryScheduler, times(1)).schedule(any(Runnable.class), anyLong());
+    }
+}
@@ -0,0 +1,86 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpBatchImportServiceTest {
+
+    @Mock
+    private OpImportService opImportService;
+
+    private SimpleMeterRegistry registry;
+    private OpBatchImportService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new OpBatchImportService(opImportService, registry, 2);
+    }
+
+    private static OpImportRequestDTO req(String numeroOp) {
+        OpImportRequestDTO req = new OpImportRequestDTO();
+        req.setNumeroOp(numeroOp);
+        return req;
+    }
+
+    private static OpImportResult ok(String numeroOp) {
+        return new OpImportResult(numeroOp, OpImportResult.ATUALIZADA, null, false, null);
+    }
+
+    @Test
+    void divideEmBlocosEMantemAOrdem() {
+        OpImportRequestDTO a = req("1"), b = req("2"), c = req("3");
+        when(opImportService.importarLote(List.of(a, b))).thenReturn(List.of(ok("1"), ok("2")));
+        when(opImportService.importarLote(List.of(c))).thenReturn(List.of(ok("3")));
+
+        List<OpImportResult> results = service.importar(List.of(a, b, c));
+
+        assertEquals(List.of("1", "2", "3"), results.stream().map(OpImportResult::numeroOp).toList());
+        verify(opImportService, never()).importar(any());
+        assertEquals(3.0, registry.get("organizador_op_import_items_total")
+                .tag("status", OpImportResult.ATUALIZADA).counter().count());
+    }
+
+    @Test
+    void blocoQueFalhaNoFlushEhRefeitoItemAItem() {
+        OpImportRequestDTO a = req("1"), b = req("2");
+        when(opImportService.importarLote(List.of(a, b)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(opImportService.importar(a)).thenReturn(ok("1"));
+        when(opImportService.importar(b)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        List<OpImportResult> results = service.importar(List.of(a, b));
+
+        assertEquals(OpImportResult.ATUALIZADA, results.get(0).status());
+        assertTrue(results.get(1).falhou());
+        assertEquals("2", results.get(1).numeroOp());
+        assertTrue(results.get(1).erro().contains("duplicate key"));
+        assertInstanceOf(DataIntegrityViolationException.class, results.get(1).causa());
+        assertEquals(1.0, registry.get("organizador_op_import_batch_fallback_total").counter().count());
+    }
+
+    @Test
+    void itemInvalidoMantemAExcecaoOriginalParaAQuarentena() {
+        OpImportRequestDTO a = req("1");
+        when(opImportService.importarLote(List.of(a))).thenThrow(new IllegalArgumentException("dataOp inválida"));
+        when(opImportService.importar(a)).thenThrow(new IllegalArgumentException("dataOp inválida"));
+
+        OpImportResult result = service.importar(List.of(a)).get(0);
+
+        assertTrue(result.falhou());
+        assertTrue(ConsumerFailureRecoverer.isPoison(result.causa()));
+    }
+}
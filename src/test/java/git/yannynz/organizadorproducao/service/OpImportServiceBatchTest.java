@@ -0,0 +1,177 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.yannynz.organizadorproducao.model.Cliente;
+import git.yannynz.organizadorproducao.model.OpImport;
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
+import git.yannynz.organizadorproducao.model.dto.OpImportResult;
+import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpImportServiceBatchTest {
+
+    @Mock
+    private OpImportRepository opImportRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private ClienteAutoEnrichmentService clienteAuto;
+
+    @Mock
+    private ClienteDefaultsService clienteDefaultsService;
+
+    @Mock
+    private CoalescingBroadcaster broadcaster;
+
+    @Mock
+    private RetryScheduler retryScheduler;
+
+    private OpImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OpImportService(opImportRepository, orderRepository, new ObjectMapper(), messagingTemplate,
+                clienteAuto, new OrderNrCache(orderRepository, 100), new OpOrderSyncEngine(clienteDefaultsService),
+                broadcaster, retryScheduler,
+                TransactionOperations.withoutTransaction());
+    }
+
+    private static OpImportRequestDTO req(String numeroOp, Boolean vaiVinco) {
+        OpImportRequestDTO req = new OpImportRequestDTO();
+        req.setNumeroOp(numeroOp);
+        req.setVaiVinco(vaiVinco);
+        return req;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void carregaLoteComConsultasInESalvaTudoDeUmaVez() {
+        OpImport existente = new OpImport();
+        existente.setId(1L);
+        existente.setNumeroOp("100");
+
+        Order pedido = new Order();
+        pedido.setId(42L);
+        pedido.setNr("100");
+        pedido.setVaiVinco(false);
+
+        when(opImportRepository.findByNumeroOpIn(any())).thenReturn(List.of(existente));
+        when(orderRepository.findByNrInOrderByIdDesc(any())).thenReturn(List.of(pedido));
+        when(orderRepository.saveAll(any())).thenAnswer(inv -> new ArrayList<>((Collection<Order>) inv.getArgument(0)));
+
+        List<OpImportResult> results = service.importarLote(Arrays.asList(
+                req("100", true), req("200", null), req(" ", null)));
+
+        assertEquals(List.of(OpImportResult.ATUALIZADA, OpImportResult.CRIADA, OpImportResult.IGNORADA),
+                results.stream().map(OpImportResult::status).toList());
+        assertEquals(42L, results.get(0).orderId());
+        assertTrue(results.get(0).linkedNow());
+        assertNull(results.get(1).orderId());
+
+        assertEquals(42L, existente.getFacaId());
+        assertTrue(pedido.isVaiVinco());
+
+        ArgumentCaptor<Iterable<OpImport>> ops = ArgumentCaptor.forClass(Iterable.class);
+        verify(opImportRepository).saveAll(ops.capture());
+        List<String> salvas = new ArrayList<>();
+        ops.getValue().forEach(o -> salvas.add(o.getNumeroOp()));
+        assertEquals(List.of("100", "200"), salvas);
+
+        verify(broadcaster).publishOrders(CoalescingBroadcaster.ORDERS, List.of(pedido));
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/ops"), any(Object.class));
+        verify(opImportRepository, never()).findByNumeroOp(anyString());
+        verify(orderRepository, never()).findTopByNrOrderByIdDesc(anyString());
+        verify(opImportRepository, never()).save(any(OpImport.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void opRepetidaNoLoteAplicaEmOrdemSobreAMesmaEntidade() {
+        when(opImportRepository.findByNumeroOpIn(any())).thenReturn(List.of());
+        when(orderRepository.findByNrInOrderByIdDesc(any())).thenReturn(List.of());
+
+        List<OpImportResult> results = service.importarLote(List.of(req("300", true), req("300", false)));
+
+        assertEquals(OpImportResult.CRIADA, results.get(0).status());
+        assertEquals(OpImportResult.ATUALIZADA, results.get(1).status());
+        ArgumentCaptor<Iterable<OpImport>> ops = ArgumentCaptor.forClass(Iterable.class);
+        verify(opImportRepository).saveAll(ops.capture());
+        List<OpImport> salvas = new ArrayList<>();
+        ops.getValue().forEach(salvas::add);
+        assertEquals(1, salvas.size());
+        assertEquals(Boolean.FALSE, salvas.get(0).getVaiVinco());
+        verifyNoInteractions(broadcaster);
+    }
+
+    @Test
+    void itemQueFalhaDesfazOLoteParaORefazerItemAItem() {
+        Order pedido = new Order();
+        pedido.setId(42L);
+        pedido.setNr("100");
+        Cliente cliente = new Cliente();
+        when(opImportRepository.findByNumeroOpIn(any())).thenReturn(List.of());
+        when(orderRepository.findByNrInOrderByIdDesc(any())).thenReturn(List.of(pedido));
+        doAnswer(inv -> {
+            inv.<OpImport>getArgument(0).setClienteRef(cliente);
+            return null;
+        }).when(clienteAuto).upsertFromOp(any(OpImport.class), any(OpImportRequestDTO.class), any());
+        when(clienteDefaultsService.applyDefaults(pedido, cliente)).thenThrow(new IllegalStateException("defaults"));
+
+        assertThrows(IllegalStateException.class, () -> service.importarLote(List.of(req("100", true))));
+
+        // o pedido já alterado em memória não pode ir para o flush
+        verify(opImportRepository, never()).saveAll(any());
+        verify(orderRepository, never()).saveAll(any());
+        verifyNoInteractions(broadcaster, messagingTemplate);
+    }
+
+    @Test
+    void retentativaEmborrachadaAbreTransacaoPropria() {
+        TransactionOperations tx = mock(TransactionOperations.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        OpImportService comTx = new OpImportService(opImportRepository, orderRepository, new ObjectMapper(),
+                messagingTemplate, clienteAuto, new OrderNrCache(orderRepository, 100),
+                new OpOrderSyncEngine(clienteDefaultsService), broadcaster, retryScheduler, tx);
+        when(opImportRepository.save(any(OpImport.class))).thenAnswer(inv -> inv.getArgument(0));
+        OpImportRequestDTO req = req("500", null);
+        req.setEmborrachada(true);
+
+        comTx.importar(req);
+
+        ArgumentCaptor<BooleanSupplier> tentativa = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(retryScheduler).retry(anyString(), tentativa.capture(), anyLong(), anyInt());
+        verifyNoInteractions(tx);
+
+        assertFalse(tentativa.getValue().getAsBoolean());
+        verify(tx).execute(any());
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import git.yannynz.organizadorproducao.model.*;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
 import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.Optional;
 
@@ -28,12 +30,15 @@ class OpImportServiceTransportadoraTest {
     @Mock private SimpMessagingTemplate ws;
     @Mock private ClienteAutoEnrichmentService clienteAuto;
     @Mock private ClienteDefaultsService clienteDefaultsService;
+    @Mock private CoalescingBroadcaster broadcaster;
+    @Mock private RetryScheduler retryScheduler;
 
     private OpImportService service;
 
     @BeforeEach
     void setUp() {
-        service = new OpImportService(opImportRepo, orderRepo, mapper, ws, clienteAuto, clienteDefaultsService);
+        service = new OpImportService(opImportRepo, orderRepo, mapper, ws, clienteAuto, new OrderNrCache(orderRepo, 100), new OpOrderSyncEngine(clienteDefaultsService), broadcaster, retryScheduler,
+                TransactionOperations.withoutTransaction());
     }
 
     @Test
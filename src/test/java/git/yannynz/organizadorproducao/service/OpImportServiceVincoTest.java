@@ -5,6 +5,7 @@ import git.yannynz.organizadorproducao.model.OpImport;
 import git.yannynz.organizadorproducao.model.Order;
 import git.yannynz.organizadorproducao.model.dto.OpImportRequestDTO;
 import git.yannynz.organizadorproducao.repository.OpImportRepository;
+import git.yannynz.organizadorproducao.repository.OrderNrCache;
 import git.yannynz.organizadorproducao.repository.OrderRepository;
 import java.util.Collections;
 import java.util.Optional;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionOperations;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +39,12 @@ class OpImportServiceVincoTest {
     @Mock
     private ClienteDefaultsService clienteDefaultsService;
 
+    @Mock
+    private CoalescingBroadcaster broadcaster;
+
+    @Mock
+    private RetryScheduler retryScheduler;
+
     private ObjectMapper mapper;
 
     private OpImportService service;
@@ -44,7 +52,8 @@ class OpImportServiceVincoTest {
     @BeforeEach
     void setUp() {
         mapper = new ObjectMapper();
-        service = new OpImportService(opImportRepository, orderRepository, mapper, messagingTemplate, clienteAuto, clienteDefaultsService);
+        service = new OpImportService(opImportRepository, orderRepository, mapper, messagingTemplate, clienteAuto, new OrderNrCache(orderRepository, 100), new OpOrderSyncEngine(clienteDefaultsService), broadcaster, retryScheduler,
+                TransactionOperations.withoutTransaction());
     }
 
     @Test
@@ -0,0 +1,149 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.Cliente;
+import git.yannynz.organizadorproducao.model.OpImport;
+import git.yannynz.organizadorproducao.model.Order;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpOrderSyncEngineTest {
+
+    @Mock
+    private ClienteDefaultsService clienteDefaultsService;
+
+    private OpOrderSyncEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new OpOrderSyncEngine(clienteDefaultsService);
+    }
+
+    private static Order pedido(long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setNr("123");
+        return order;
+    }
+
+    private static OpImport op() {
+        OpImport op = new OpImport();
+        op.setNumeroOp("123");
+        return op;
+    }
+
+    @Test
+    void bidirecionalSemDiferencasNaoMarcaNada() {
+        Order order = pedido(10L);
+        order.setModalidadeEntrega("RETIRADA");
+        order.setDestacador("M");
+        order.setPertinax(true);
+        OpImport op = op();
+        op.setFacaId(10L);
+        op.setModalidadeEntrega("RETIRADA");
+        op.setDestacador("M");
+        op.setPertinax(true);
+
+        assertEquals(0, engine.syncBidirectional(op, order, "[TEST]"));
+    }
+
+    @Test
+    void bidirecionalPedidoPrevaleceNosCamposDeTexto() {
+        Order order = pedido(10L);
+        order.setDestacador("F");
+        order.setDataRequeridaEntrega(ZonedDateTime.of(2026, 1, 2, 18, 0, 0, 0, ZoneId.of("America/Sao_Paulo")));
+        OpImport op = op();
+        op.setFacaId(10L);
+        op.setDestacador("M");
+        op.setUsuarioImportacao("ana");
+
+        int changed = engine.syncBidirectional(op, order, "[TEST]");
+
+        assertEquals("F", op.getDestacador());
+        assertEquals(order.getDataRequeridaEntrega(), op.getDataRequeridaEntrega());
+        assertEquals("ana", order.getUsuarioImportacao());
+        assertEquals(OpOrderSyncEngine.MODALIDADE_PADRAO, order.getModalidadeEntrega());
+        assertTrue((changed & OpOrderSyncEngine.OP_DESTACADOR) != 0);
+        assertTrue((changed & OpOrderSyncEngine.OP_DATA_REQUERIDA) != 0);
+        assertTrue((changed & OpOrderSyncEngine.ORDER_USUARIO) != 0);
+        assertTrue((changed & OpOrderSyncEngine.ORDER_MODALIDADE) != 0);
+        assertEquals(0, changed & OpOrderSyncEngine.OP_FACA_ID);
+    }
+
+    @Test
+    void bidirecionalRespeitaELimpaTravas() {
+        Order order = pedido(10L);
+        order.setModalidadeEntrega("A ENTREGAR");
+        order.setVaiVinco(true);
+        OpImport op = op();
+        op.setModalidadeEntrega("A ENTREGAR");
+        op.setPoliester(true);
+        op.setManualLockPoliester(true);
+        op.setManualLockVaiVinco(true);
+        op.setManualLockEmborrachada(true);
+
+        int changed = engine.syncBidirectional(op, order, "[TEST]");
+
+        assertFalse(order.isPoliester(), "trava manual impede propagar poliester");
+        assertTrue(op.isManualLockPoliester());
+        assertTrue(Boolean.TRUE.equals(op.getVaiVinco()));
+        assertFalse(op.isManualLockVaiVinco(), "pedido=true remove a trava");
+        assertFalse(op.isManualLockEmborrachada(), "trava obsoleta é limpa também para emborrachada");
+        assertEquals(10L, op.getFacaId());
+        assertTrue(OpOrderSyncEngine.opChanged(changed));
+        assertFalse(OpOrderSyncEngine.orderChanged(changed));
+    }
+
+    @Test
+    void importSoPreencheCamposVaziosDoPedido() {
+        Cliente cliente = new Cliente();
+        Order order = pedido(7L);
+        order.setDestacador("F");
+        OpImport op = op();
+        op.setDestacador("M");
+        op.setModalidadeEntrega("RETIRADA");
+        op.setClienteRef(cliente);
+        op.setEmborrachada(true);
+        op.setPapelCalibrado(true);
+        op.setManualLockPapelCalibrado(true);
+        when(clienteDefaultsService.applyDefaults(order, cliente)).thenReturn(true);
+
+        int changed = engine.syncFromImport(op, order);
+
+        assertEquals("F", order.getDestacador());
+        assertEquals("M", op.getDestacador(), "import não altera a OP a partir do pedido");
+        assertEquals("RETIRADA", order.getModalidadeEntrega());
+        assertSame(cliente, order.getClienteRef());
+        assertTrue(order.isEmborrachada());
+        assertFalse(order.isPapelCalibrado());
+        assertEquals(7L, op.getFacaId());
+        assertTrue((changed & OpOrderSyncEngine.ORDER_DEFAULTS_CLIENTE) != 0);
+        assertEquals(OpOrderSyncEngine.OP_FACA_ID, changed & OpOrderSyncEngine.OP_MASK);
+    }
+
+    @Test
+    void travaManualCriadaAoDesligarFlagVindaDaOp() {
+        Order order = pedido(3L);
+        OpImport op = op();
+        op.setPertinax(true);
+        op.setVaiVinco(true);
+        op.setManualLockVaiVinco(true);
+        order.setVaiVinco(true);
+
+        int anteriores = OpOrderSyncEngine.ORDER_PERTINAX;
+        int changed = engine.applyManualLocks(op, order, anteriores);
+
+        assertEquals(OpOrderSyncEngine.OP_LOCKS, changed);
+        assertTrue(op.isManualLockPertinax());
+        assertFalse(op.isManualLockVaiVinco());
+        assertEquals(0, engine.applyManualLocks(op, order, OpOrderSyncEngine.materialFlags(order)));
+    }
+}
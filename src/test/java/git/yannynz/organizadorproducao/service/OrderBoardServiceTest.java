@@ -0,0 +1,79 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBoardServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderDeltaFeed deltaFeed;
+
+    @Mock
+    private ProductionBoard board;
+
+    private OrderBoardService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderBoardService(orderRepository, deltaFeed, board);
+    }
+
+    @Test
+    void quadroPadraoSoAtivosSemPaginacao() {
+        List<OrderBoardRow> rows = List.of();
+        when(orderRepository.findBoardRows(OrderBoardService.ACTIVE_STATUSES, Pageable.unpaged())).thenReturn(rows);
+
+        assertSame(rows, service.activeRows());
+        assertFalse(OrderBoardService.ACTIVE_STATUSES.contains(4));
+        assertFalse(OrderBoardService.ACTIVE_STATUSES.contains(5));
+        verify(orderRepository, never()).findAllBoardRows(any());
+    }
+
+    @Test
+    void paginaLimitadaEEscopoCompleto() {
+        service.rows(true, 2, 50_000);
+        verify(orderRepository).findAllBoardRows(PageRequest.of(2, OrderBoardService.MAX_PAGE_SIZE));
+
+        service.rows(false, -1, null);
+        verify(orderRepository).findBoardRows(OrderBoardService.ACTIVE_STATUSES, PageRequest.of(0, 200));
+    }
+
+    @Test
+    void quadroCarregadoServeDaMemoria() {
+        List<OrderBoardRow> memoria = List.of(
+                ProductionBoardTest.row(3L, "NR3", 0, "AZUL"),
+                ProductionBoardTest.row(2L, "NR2", 1, "VERDE"),
+                ProductionBoardTest.row(1L, "NR1", 6, "VERDE"));
+        when(board.isReady()).thenReturn(true);
+        when(board.rows()).thenReturn(memoria);
+
+        assertSame(memoria, service.activeRows());
+        assertEquals(List.of(memoria.get(2)), service.rows(false, 1, 2));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void versaoSegueOFeedDeDeltas() {
+        when(deltaFeed.epoch()).thenReturn("e1");
+        when(deltaFeed.currentSeq()).thenReturn(41L, 42L);
+
+        assertEquals("e1-41", service.version());
+        assertEquals("e1-42", service.version());
+    }
+}
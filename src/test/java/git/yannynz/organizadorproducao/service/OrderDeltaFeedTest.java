@@ -0,0 +1,143 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderDelta;
+import git.yannynz.organizadorproducao.model.dto.OrderSyncResponse;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderDeltaFeedTest {
+
+    @Mock
+    private CoalescingBroadcaster broadcaster;
+
+    private OrderDeltaFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new OrderDeltaFeed(broadcaster, new ObjectMapper().registerModule(new JavaTimeModule()), 16, 100);
+    }
+
+    private static Order pedido(long id, String prioridade, int status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setNr("NR" + id);
+        order.setPrioridade(prioridade);
+        order.setStatus(status);
+        return order;
+    }
+
+    @Test
+    void primeiroEventoCompletoDepoisSoCamposAlterados() {
+        feed.recordUpsert(pedido(1L, "AZUL", 0));
+        feed.recordUpsert(pedido(1L, "AMARELO", 0));
+
+        OrderSyncResponse resp = feed.sync(feed.epoch(), 0L, List::of);
+        assertFalse(resp.snapshot());
+        assertEquals(2, resp.seq());
+        OrderDelta first = resp.deltas().get(0);
+        OrderDelta second = resp.deltas().get(1);
+        assertTrue(first.full());
+        assertEquals("NR1", first.fields().get("nr"));
+        // mesmo formato das linhas do snapshot (OrderBoardRow)
+        assertTrue(first.fields().containsKey("transportadoraId"));
+        assertFalse(first.fields().containsKey("clienteRef"));
+        assertFalse(second.full());
+        assertEquals(1, second.fields().size());
+        assertEquals("AMARELO", second.fields().get("prioridade"));
+        verify(broadcaster, times(2)).publishNow(eq(OrderDeltaFeed.TOPIC), any(OrderDelta.class));
+    }
+
+    @Test
+    void salvarSemMudancaNaoGeraEvento() {
+        feed.recordUpsert(pedido(1L, "AZUL", 0));
+        feed.recordUpsert(pedido(1L, "AZUL", 0));
+
+        assertEquals(1, feed.currentSeq());
+        verify(broadcaster, times(1)).publishNow(eq(OrderDeltaFeed.TOPIC), any(OrderDelta.class));
+    }
+
+    @Test
+    void variosFlushesNaMesmaTransacaoViramUmEventoComOEstadoFinal() {
+        Order order = pedido(1L, "VERDE", 0);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feed.recordUpsert(order);
+            order.setPrioridade("AZUL");
+            feed.recordUpsert(order);
+            verifyNoInteractions(broadcaster);
+
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, syncs.size());
+            syncs.forEach(TransactionSynchronization::afterCommit);
+            syncs.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        OrderSyncResponse resp = feed.sync(feed.epoch(), 0L, List::of);
+        assertEquals(1, resp.seq());
+        assertEquals("AZUL", resp.deltas().get(0).fields().get("prioridade"));
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    @Test
+    void pedidoQueSaiDosAtivosViraUmDeleteSo() {
+        feed.recordUpsert(pedido(1L, "AZUL", 0));
+        feed.recordUpsert(pedido(1L, "AZUL", 4));
+        feed.recordUpsert(pedido(1L, "VERDE", 4));
+        feed.recordUpsert(pedido(1L, "VERDE", 1));
+
+        OrderSyncResponse resp = feed.sync(feed.epoch(), 0L, List::of);
+        assertEquals(3, resp.seq());
+        assertEquals(OrderDelta.DELETE, resp.deltas().get(1).type());
+        OrderDelta volta = resp.deltas().get(2);
+        assertEquals(OrderDelta.UPSERT, volta.type());
+        assertTrue(volta.full());
+    }
+
+    @Test
+    void syncDevolveSoALacuna() {
+        for (int i = 0; i < 5; i++) {
+            feed.recordUpsert(pedido(i + 1L, "VERDE", 0));
+        }
+        feed.recordDelete(2L);
+
+        OrderSyncResponse resp = feed.sync(feed.epoch(), 4L, List::of);
+
+        assertFalse(resp.snapshot());
+        assertEquals(6, resp.seq());
+        assertEquals(List.of(5L, 6L), resp.deltas().stream().map(OrderDelta::seq).toList());
+        assertEquals(OrderDelta.DELETE, resp.deltas().get(1).type());
+    }
+
+    @Test
+    void lacunaForaDoBufferOuEpochDiferenteViraSnapshot() {
+        for (int i = 0; i < 20; i++) {
+            feed.recordUpsert(pedido(i + 1L, "VERDE", 0));
+        }
+        List<Order> todos = List.of(pedido(99L, "VERDE", 0));
+
+        OrderSyncResponse antigo = feed.sync(feed.epoch(), 2L, () -> todos);
+        assertTrue(antigo.snapshot());
+        assertEquals(20, antigo.seq());
+        assertSame(todos, antigo.orders());
+
+        assertTrue(feed.sync("outro-epoch", 19L, () -> todos).snapshot());
+        assertTrue(feed.sync(feed.epoch(), null, () -> todos).snapshot());
+        assertFalse(feed.sync(feed.epoch(), 4L, () -> todos).snapshot());
+    }
+}
@@ -0,0 +1,85 @@
+package git.yannynz.organizadorproducao.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import git.yannynz.organizadorproducao.model.dto.OrderExportRow;
+import git.yannynz.organizadorproducao.model.dto.OrderSearchDTO;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderExportService service;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        service = new OrderExportService(orderRepository, mapper, 2);
+    }
+
+    private static OrderExportRow linha(long id, String cliente, String observacao) {
+        ZonedDateTime entrega = ZonedDateTime.of(2026, 10, 1, 14, 30, 0, 0, ZoneOffset.ofHours(-3));
+        return new OrderExportRow(id, "NR" + id, cliente, null, "AZUL", 4, null, entrega,
+                "joao", null, null, null, null, null, null, null, "A ENTREGAR", null, null, observacao);
+    }
+
+    @Test
+    void ndjsonUmaLinhaPorPedidoEFechaOCursor() throws Exception {
+        AtomicBoolean fechado = new AtomicBoolean();
+        when(orderRepository.streamForExport(any(OrderSearchDTO.class), eq(2)))
+                .thenReturn(Stream.of(linha(3L, "ACME", null), linha(2L, "ACME", null), linha(1L, "ACME", null))
+                        .onClose(() -> fechado.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long total = service.export(null, OrderExportService.Format.NDJSON, out);
+
+        String[] linhas = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, total);
+        assertEquals(3, linhas.length);
+        assertTrue(linhas[0].startsWith("{\"id\":3,\"nr\":\"NR3\""));
+        assertTrue(linhas[0].contains("\"dataEntrega\":\"2026-10-01T14:30:00-03:00\""));
+        assertTrue(fechado.get());
+    }
+
+    @Test
+    void csvComCabecalhoEEscape() throws Exception {
+        when(orderRepository.streamForExport(any(OrderSearchDTO.class), eq(2)))
+                .thenReturn(Stream.of(linha(7L, "GRÁFICA \"SÃO\" JOSÉ, LTDA", "linha1\nlinha2")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(new OrderSearchDTO(), OrderExportService.Format.CSV, out);
+
+        String[] linhas = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(String.join(",", OrderExportRow.COLUMNS), linhas[0]);
+        assertTrue(linhas[1].startsWith("7,NR7,\"GRÁFICA \"\"SÃO\"\" JOSÉ, LTDA\",,AZUL,4,,2026-10-01T14:30-03:00,joao,"));
+        assertTrue(linhas[1].endsWith(",\"linha1\nlinha2\""));
+    }
+
+    @Test
+    void formatoPadraoENomesInvalidos() {
+        assertEquals(OrderExportService.Format.NDJSON, OrderExportService.Format.parse(null));
+        assertEquals(OrderExportService.Format.CSV, OrderExportService.Format.parse(" csv "));
+        assertThrows(IllegalArgumentException.class, () -> OrderExportService.Format.parse("xlsx"));
+    }
+}
@@ -0,0 +1,125 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.model.Order;
+import git.yannynz.organizadorproducao.model.dto.OrderBoardRow;
+import git.yannynz.organizadorproducao.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductionBoardTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private ProductionBoard board;
+
+    @BeforeEach
+    void setUp() {
+        board = new ProductionBoard(orderRepository, new SimpleMeterRegistry());
+    }
+
+    static OrderBoardRow row(long id, String nr, int status, String prioridade) {
+        return new OrderBoardRow(id, nr, "CLIENTE " + id, prioridade, null, status, null, null, null, null,
+                null, null, null, null, null, null, false, null, null, null, null, null, null,
+                false, false, false, false, null, null, null, null, null, null, null, null);
+    }
+
+    private static Order pedido(long id, String nr, int status, String prioridade) {
+        Order order = new Order();
+        order.setId(id);
+        order.setNr(nr);
+        order.setCliente("CLIENTE " + id);
+        order.setStatus(status);
+        order.setPrioridade(prioridade);
+        return order;
+    }
+
+    private void carregar(OrderBoardRow... rows) {
+        when(orderRepository.findBoardRows(OrderBoardService.ACTIVE_STATUSES, Pageable.unpaged()))
+                .thenReturn(List.of(rows));
+        board.rebuild();
+    }
+
+    @Test
+    void cargaIndexaPorStatusPrioridadeENr() {
+        carregar(row(1L, "100", 0, "VERDE"), row(2L, "200", 0, "AZUL"), row(3L, "100", 6, "VERDE"));
+
+        assertTrue(board.isReady());
+        assertEquals(3, board.size());
+        assertEquals(List.of(2L, 1L), board.byStatus(0).stream().map(OrderBoardRow::id).toList());
+        assertEquals(List.of(3L, 1L), board.byPrioridade("verde").stream().map(OrderBoardRow::id).toList());
+        assertEquals(3L, board.byNr("100").orElseThrow().id());
+        assertEquals(Set.of(0, 6), board.grouped().keySet());
+        assertEquals(1, board.grouped().get(0).get("AZUL").size());
+    }
+
+    @Test
+    void saveMoveEntreIndicesESaiAoFinalizar() {
+        carregar(row(1L, "100", 0, "VERDE"), row(3L, "100", 6, "VERDE"));
+
+        board.record(pedido(1L, "100", 1, "VERMELHO"));
+        assertTrue(board.byStatus(0).isEmpty());
+        assertEquals(1L, board.byStatus(1).get(0).id());
+        assertEquals(List.of(3L), board.byPrioridade("VERDE").stream().map(OrderBoardRow::id).toList());
+
+        // entregue: sai do quadro e o NR volta a apontar para o outro pedido ativo
+        board.record(pedido(3L, "100", 5, "VERDE"));
+        assertEquals(1, board.size());
+        assertEquals(1L, board.byNr("100").orElseThrow().id());
+
+        board.remove(1L);
+        assertEquals(0, board.size());
+        assertTrue(board.byNr("100").isEmpty());
+    }
+
+    @Test
+    void datasDaEntidadeBatemComAsDoBanco() {
+        ZonedDateTime local = ZonedDateTime.of(2026, 10, 18, 9, 0, 0, 123_456_789, ZoneId.of("America/Sao_Paulo"));
+        Order order = pedido(1L, "100", 0, "VERDE");
+        order.setDataH(local);
+
+        OrderBoardRow daEntidade = ProductionBoard.toRow(order);
+
+        assertEquals(local.toInstant().plusNanos(211), daEntidade.dataH().toInstant());
+        assertEquals(ZoneId.of("Z"), daEntidade.dataH().getZone());
+    }
+
+    @Test
+    void verificacaoApontaECorrigeDivergencias() {
+        carregar(row(1L, "100", 0, "VERDE"), row(2L, "200", 0, "AZUL"));
+        board.apply(9L, row(9L, "900", 0, "VERDE"));
+
+        List<OrderBoardRow> banco = List.of(row(1L, "100", 0, "AMARELO"), row(2L, "200", 0, "AZUL"),
+                row(4L, "400", 7, "VERDE"));
+        ProductionBoard.Drift drift = board.compare(banco, Set.of(), true);
+
+        assertEquals(new ProductionBoard.Drift(1, 1, 1), drift);
+        assertEquals("AMARELO", board.byNr("100").orElseThrow().prioridade());
+        assertTrue(board.byNr("900").isEmpty());
+        assertEquals(new ProductionBoard.Drift(0, 0, 0), board.compare(banco, Set.of(), false));
+    }
+
+    @Test
+    void alteracaoDuranteAVerificacaoNaoEhSobrescrita() {
+        carregar(row(1L, "100", 0, "VERDE"));
+        board.apply(1L, row(1L, "100", 0, "VERMELHO"));
+
+        ProductionBoard.Drift drift = board.compare(List.of(row(1L, "100", 0, "VERDE")), Set.of(1L), true);
+
+        assertEquals(0, drift.total());
+        assertEquals("VERMELHO", board.byNr("100").orElseThrow().prioridade());
+    }
+}
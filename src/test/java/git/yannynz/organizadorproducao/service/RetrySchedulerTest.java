@@ -0,0 +1,90 @@
+package git.yannynz.organizadorproducao.service;
+
+import git.yannynz.organizadorproducao.config.InstrumentedExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetrySchedulerTest {
+
+    private SimpleMeterRegistry registry;
+    private RetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        scheduler = new RetryScheduler(registry, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void paraNaPrimeiraTentativaBemSucedida() throws Exception {
+        AtomicInteger tentativas = new AtomicInteger();
+        CountDownLatch ok = new CountDownLatch(1);
+
+        scheduler.retry("teste", () -> {
+            boolean aplicou = tentativas.incrementAndGet() == 2;
+            if (aplicou) ok.countDown();
+            return aplicou;
+        }, 10, 5);
+
+        assertTrue(ok.await(2, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(2, tentativas.get());
+        assertEquals(0.0, registry.get("organizador_executor_queued").tag("name", "retry").gauge().value());
+    }
+
+    @Test
+    void excecaoContaComoFalhaEEsgotaAsTentativas() throws Exception {
+        AtomicInteger tentativas = new AtomicInteger();
+        CountDownLatch fim = new CountDownLatch(3);
+
+        scheduler.retry("teste", () -> {
+            tentativas.incrementAndGet();
+            fim.countDown();
+            throw new IllegalStateException("banco fora");
+        }, 5, 3);
+
+        assertTrue(fim.await(2, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(3, tentativas.get());
+    }
+
+    @Test
+    void poolCheioContaRejeicaoEExecutaNoChamador() throws Exception {
+        ThreadPoolTaskExecutor pool = InstrumentedExecutors.pool("teste", 1, 1, 1, registry);
+        CountDownLatch libera = new CountDownLatch(1);
+        try {
+            pool.execute(() -> await(libera)); // ocupa a única thread
+            pool.execute(() -> {});            // ocupa a fila
+            String[] thread = new String[1];
+            pool.execute(() -> thread[0] = Thread.currentThread().getName());
+
+            assertEquals(Thread.currentThread().getName(), thread[0]);
+            assertEquals(1.0, registry.get("organizador_executor_rejected_total").tag("name", "teste").counter().count());
+            assertEquals(1.0, registry.get("organizador_executor_queued").tag("name", "teste").gauge().value());
+        } finally {
+            libera.countDown();
+            pool.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package git.yannynz.organizadorproducao.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionHooksTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void semTransacaoRodaNaHora() {
+        List<String> ran = new ArrayList<>();
+
+        TransactionHooks.afterCommit(() -> ran.add("a"));
+
+        assertThat(ran).containsExactly("a");
+    }
+
+    @Test
+    void ganchoRegistradoDentroDeOutroGanchoNaoSePerde() {
+        List<String> ran = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        TransactionHooks.afterCommit(() -> {
+            ran.add("externo");
+            TransactionHooks.afterCommit(() -> ran.add("interno"));
+        });
+        assertThat(ran).isEmpty();
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        assertThat(ran).containsExactly("externo", "interno");
+    }
+}